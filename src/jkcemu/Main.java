@@ -47,10 +47,12 @@ import jkcemu.base.FontMngr;
 import jkcemu.base.GUIFactory;
 import jkcemu.base.ProfileDlg;
 import jkcemu.base.ScreenFrm;
+import jkcemu.disk.CmdLineDiskImgConverter;
 import jkcemu.disk.DiskImgCreateFrm;
 import jkcemu.disk.DiskImgViewFrm;
 import jkcemu.disk.FloppyDiskStationFrm;
 import jkcemu.image.ImageFrm;
+import jkcemu.programming.CmdLinePrgBatch;
 import jkcemu.programming.assembler.CmdLineAssembler;
 import jkcemu.programming.basic.CmdLineBasicCompiler;
 import jkcemu.text.TextEditFrm;
@@ -149,6 +151,9 @@ public class Main
 	"  --dc oder --diskcreator      Diskettenabbilddatei erstellen",
 	"  --dv oder --diskviewer       Diskettenabbilddatei-Inspector"
 								+ " starten",
+	"  --dx oder --diskconverter    Diskettenabbilddateien im"
+						+ " Stapelbetrieb konvertieren",
+	"  --dx -h                      Hilfe zum Konvertieren anzeigen",
 	"  --fb oder --filebrowser      Datei-Browser starten",
 	"  --fc oder --fileconverter    Dateikonverter starten",
 	"  --ff oder --findfiles        Dateisuche starten",
@@ -156,6 +161,9 @@ public class Main
 	"  --he oder --hexeditor        Hex-Editor starten",
 	"  --iv oder --imageviewer      Bildbetrachter/Bildbearbeitung"
 								+ " starten",
+	"  --pb oder --prgbatch         Assembler und BASIC-Compiler im"
+						+ " Stapelbetrieb starten",
+	"  --pb -h                      Hilfe zum Stapelbetrieb anzeigen",
 	"  --te oder --texteditor       Texteditor starten",
 	"" };
 
@@ -296,6 +304,15 @@ public class Main
 	  exitFailure();
 	}
       }
+      else if( arg.equals( "--pb" )
+	       || arg.equalsIgnoreCase( "--prgbatch" ) )
+      {
+	if( CmdLinePrgBatch.execute( args, argIdx ) ) {
+	  exitSuccess();
+	} else {
+	  exitFailure();
+	}
+      }
       else if( arg.equalsIgnoreCase( "--ca" )
 	       || arg.equalsIgnoreCase( "--calculator" ) )
       {
@@ -345,6 +362,15 @@ public class Main
 		} );
 	done = true;
       }
+      else if( arg.equalsIgnoreCase( "--dx" )
+	       || arg.equalsIgnoreCase( "--diskconverter" ) )
+      {
+	if( CmdLineDiskImgConverter.execute( args, argIdx ) ) {
+	  exitSuccess();
+	} else {
+	  exitFailure();
+	}
+      }
       else if( arg.equalsIgnoreCase( "--fb" )
 	       || arg.equalsIgnoreCase( "--filebrowser" ) )
       {
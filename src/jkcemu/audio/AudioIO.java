@@ -11,8 +11,7 @@ package jkcemu.audio;
 
 import java.io.IOException;
 import javax.sound.sampled.DataLine;
-import jkcemu.Main;
-import jkcemu.base.ScreenFrm;
+import jkcemu.base.EmuThread;
 
 
 public abstract class AudioIO
@@ -151,10 +150,7 @@ public abstract class AudioIO
 
   protected static boolean isEmuThread()
   {
-    ScreenFrm screenFrm = Main.getScreenFrm();
-    return screenFrm != null ?
-		(screenFrm.getEmuThread() == Thread.currentThread())
-		: false;
+    return Thread.currentThread() instanceof EmuThread;
   }
 
 
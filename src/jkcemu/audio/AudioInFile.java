@@ -19,6 +19,7 @@ import javax.sound.sampled.Mixer;
 import javax.sound.sampled.SourceDataLine;
 import jkcemu.base.EmuUtil;
 import jkcemu.emusys.kc85.KCAudioCreator;
+import jkcemu.emusys.z1013.Z1013AudioCreator;
 import jkcemu.emusys.zxspectrum.ZXSpectrumAudioCreator;
 import jkcemu.file.FileInfo;
 import jkcemu.file.FileUtil;
@@ -79,6 +80,35 @@ public class AudioInFile extends AudioIn
   }
 
 
+  /*
+   * Die Methode liefert den Inhalt der Datei,
+   * die ggf. erst jetzt gelesen wird.
+   * Damit koennen abgefangene Kassettenroutinen die Daten
+   * direkt aus der Datei entnehmen.
+   */
+  public synchronized byte[] getFileBytes()
+  {
+    if( (this.fileBytes == null) && (this.file != null) ) {
+      try {
+	if( this.file.isFile() ) {
+	  this.fileBytes = FileUtil.readFile(
+					this.file,
+					true,
+					AudioUtil.FILE_READ_MAX );
+	}
+      }
+      catch( IOException ex ) {}
+    }
+    return this.fileBytes;
+  }
+
+
+  public int getFileOffset()
+  {
+    return this.offs;
+  }
+
+
   public long getFrameCount()
   {
     return this.fileFrameCnt;
@@ -334,6 +364,16 @@ public class AudioInFile extends AudioIn
 					- this.pcmIn.getFrameCount();
 	  }
 	  fileFmtText = "KC-TAP-Datei";
+	} else if( FileInfo.isHeadersaveAt( this.fileBytes, this.offs ) ) {
+	  this.pcmIn = new Z1013AudioCreator(
+				true,
+				this.fileBytes,
+				this.offs,
+				this.fileBytes.length - this.offs )
+							.newReader();
+	  this.fileFrameCnt = this.pcmIn.getFrameCount();
+	  this.fileFramePos = 0;
+	  fileFmtText       = "Headersave-Datei";
 	} else {
 	  boolean isTZX = FileInfo.isTzxMagicAt( this.fileBytes, this.offs );
 	  if( isTAP || isTZX ) {
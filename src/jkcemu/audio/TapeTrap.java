@@ -0,0 +1,236 @@
+/*
+ * (c) 2021 Jens Mueller
+ *
+ * Kleincomputer-Emulator
+ *
+ * Beschreibung einer Kassettenroutine im ROM,
+ * die beim schnellen Laden und Speichern abgefangen wird
+ *
+ * Ein Eintrag legt fest, an welcher Adresse die Routine beginnt,
+ * an welchen Bytes sie zu erkennen ist
+ * und an welcher Adresse das Programm nach dem Abfangen fortgesetzt wird.
+ * Die Tabellen fassen die Eintraege aller unterstuetzten Versionen
+ * des Betriebssystems bzw. Monitors eines Systems zusammen.
+ * Da vor dem Abfangen die Bytes an der Adresse geprueft werden,
+ * greift immer nur der Eintrag der gerade aktiven Version.
+ */
+
+package jkcemu.audio;
+
+import jkcemu.base.EmuSys;
+
+
+public class TapeTrap
+{
+  public enum Routine {
+		KC85_READ_BLOCK,
+		KC85_WRITE_BLOCK,
+		KC85_CAOS42_READ_BLOCK,
+		KC85_CAOS42_WRITE_BLOCK,
+		Z9001_READ_BLOCK,
+		Z9001_WRITE_BLOCK,
+		Z1013_READ_BLOCK,
+		Z1013_READ_HS_BLOCK,
+		SCCH_READ_BLOCK };
+
+  // Anfang der Bloecklese- und -schreibroutinen von CAOS 2.2 bis 3.1
+  private static final int[] KC85_READ_SIGNATURE = {
+		0x3E, 0x05, 0xD3, 0x8E, 0x3E, 0x83, 0xD3, 0x8A,
+		0xE5, 0xD5, 0x3E, 0xA3, 0xD3, 0x8E, 0xFB, 0x06, 0x16 };
+
+  private static final int[] KC85_WRITE_SIGNATURE = {
+		0xDD, 0x34, 0x02, 0xF3, 0xAF, 0xDD, 0x77, 0x01,
+		0x3E, 0x87, 0xD3, 0x8D, 0x3E, 0x2F, 0xD3, 0x8D,
+		0xFB, 0x57 };
+
+  // Anfang der Bloecklese- und -schreibroutinen von CAOS 4.2
+  private static final int[] KC85_CAOS42_READ_SIGNATURE = {
+		0x3E, 0x83, 0xD3, 0x8A, 0xE5, 0xD5, 0x06, 0x16,
+		0xDD, 0x36, 0x0D, 0x00, 0xCD, 0x1A, 0xE6 };
+
+  private static final int[] KC85_CAOS42_WRITE_SIGNATURE = {
+		0xDD, 0x34, 0x02, 0xF3, 0x3E, 0x87, 0xD3, 0x8D,
+		0x3E, 0x2F, 0xD3, 0x8D, 0xFB, 0x57, 0x5F };
+
+  // Anfang der Bloecklese- und -schreibroutinen im Z9001-Betriebssystem
+  private static final int[] Z9001_READ_SIGNATURE = {
+		0xF3, 0xCD, 0x0A, 0xFB, 0xD3, 0x93, 0xD3, 0x8A,
+		0x3E, 0x05, 0xD3, 0x80 };
+
+  private static final int[] Z9001_WRITE_SIGNATURE = {
+		0xF3, 0xAF, 0x32, 0x69, 0x00, 0xCD, 0x0A, 0xFB,
+		0xD3, 0x93, 0xCD, 0x0D, 0xFF };
+
+  // Anfang der Bloeckleseroutinen der Z1013-Monitore
+  private static final int[] Z1013_READ_SIGNATURE = {
+		0xCD, 0xBC, 0xF4, 0xCD, 0xC6, 0xF4, 0x0E, 0x07,
+		0x11, 0x10, 0x09 };
+
+  private static final int[] Z1013_A2_READ_SIGNATURE = {
+		0xCD, 0xF9, 0xF4, 0xCD, 0x03, 0xF5, 0x0E, 0x07,
+		0x11, 0x10, 0x09 };
+
+  // Anfang der Bloeckleseroutine der SCCH-Monitore im AC1
+  private static final int[] SCCH_READ_SIGNATURE = {
+		0xCD, 0x5A, 0x0D, 0xCD, 0x52, 0x0D, 0x0E, 0x07,
+		0x11, 0x0B, 0x06 };
+
+  /*
+   * KC85/2..5: CAOS 2.2, HC900-CAOS, CAOS 3.1 und CAOS 4.2
+   *
+   * Die Leseroutinen werden nicht mit RET verlassen,
+   * sondern ueber die Ansteuerung der Kassetten-LED,
+   * die somit weiterhin vom ROM erledigt wird.
+   */
+  public static final TapeTrap[] KC85 = {
+	new TapeTrap(
+		Routine.KC85_READ_BLOCK,
+		0xE4E1,
+		0xE54A,
+		KC85_READ_SIGNATURE ),
+	new TapeTrap(
+		Routine.KC85_READ_BLOCK,
+		0xE4DC,
+		0xE545,
+		KC85_READ_SIGNATURE ),
+	new TapeTrap(
+		Routine.KC85_READ_BLOCK,
+		0xE43F,
+		0xE4A8,
+		KC85_READ_SIGNATURE ),
+	new TapeTrap(
+		Routine.KC85_CAOS42_READ_BLOCK,
+		0xE591,
+		0xE5E7,
+		KC85_CAOS42_READ_SIGNATURE ),
+	new TapeTrap(
+		Routine.KC85_WRITE_BLOCK,
+		0xE402,
+		-1,
+		KC85_WRITE_SIGNATURE ),
+	new TapeTrap(
+		Routine.KC85_WRITE_BLOCK,
+		0xE3FD,
+		-1,
+		KC85_WRITE_SIGNATURE ),
+	new TapeTrap(
+		Routine.KC85_WRITE_BLOCK,
+		0xE376,
+		-1,
+		KC85_WRITE_SIGNATURE ),
+	new TapeTrap(
+		Routine.KC85_CAOS42_WRITE_BLOCK,
+		0xE52B,
+		-1,
+		KC85_CAOS42_WRITE_SIGNATURE ) };
+
+  // Z9001, KC85/1, KC87: Betriebssystem 1.1 bis 1.3
+  public static final TapeTrap[] Z9001 = {
+	new TapeTrap(
+		Routine.Z9001_READ_BLOCK,
+		0xFF59,
+		-1,
+		Z9001_READ_SIGNATURE ),
+	new TapeTrap(
+		Routine.Z9001_WRITE_BLOCK,
+		0xFED6,
+		-1,
+		Z9001_WRITE_SIGNATURE ) };
+
+  /*
+   * Z1013: Monitor 2.02, A.2 sowie die 4K-Monitore von INCOM
+   * und Riesa (Routine fuer normale Bloecke und fuer Headersave)
+   */
+  public static final TapeTrap[] Z1013 = {
+	new TapeTrap(
+		Routine.Z1013_READ_BLOCK,
+		0xF417,
+		-1,
+		Z1013_READ_SIGNATURE ),
+	new TapeTrap(
+		Routine.Z1013_READ_BLOCK,
+		0xF454,
+		-1,
+		Z1013_A2_READ_SIGNATURE ),
+	new TapeTrap(
+		Routine.Z1013_READ_HS_BLOCK,
+		0xFDAA,
+		-1,
+		Z1013_READ_SIGNATURE ) };
+
+  // AC1: SCCH-Monitore 8.0, 10/88 und 2010
+  public static final TapeTrap[] AC1_SCCH = {
+	new TapeTrap(
+		Routine.SCCH_READ_BLOCK,
+		0x0CBD,
+		-1,
+		SCCH_READ_SIGNATURE ) };
+
+
+  private Routine routine;
+  private int     addr;
+  private int     exitAddr;
+  private int[]   signature;
+
+
+  /*
+   * Parameter:
+   *   exitAddr: Adresse, an der das Programm nach dem Abfangen
+   *             fortgesetzt wird, oder -1 fuer einen Ruecksprung
+   */
+  public TapeTrap(
+		Routine routine,
+		int     addr,
+		int     exitAddr,
+		int[]   signature )
+  {
+    this.routine   = routine;
+    this.addr      = addr;
+    this.exitAddr  = exitAddr;
+    this.signature = signature;
+  }
+
+
+  public int getAddr()
+  {
+    return this.addr;
+  }
+
+
+  public int getExitAddr()
+  {
+    return this.exitAddr;
+  }
+
+
+  public Routine getRoutine()
+  {
+    return this.routine;
+  }
+
+
+  public boolean isReadRoutine()
+  {
+    return (this.routine != Routine.KC85_WRITE_BLOCK)
+		&& (this.routine != Routine.KC85_CAOS42_WRITE_BLOCK)
+		&& (this.routine != Routine.Z9001_WRITE_BLOCK);
+  }
+
+
+  /*
+   * Die Methode prueft, ob an der Adresse die erwartete Routine steht.
+   */
+  public boolean matches( EmuSys emuSys )
+  {
+    boolean rv = true;
+    for( int i = 0; i < this.signature.length; i++ ) {
+      if( emuSys.getMemByte( this.addr + i, false )
+						!= this.signature[ i ] )
+      {
+	rv = false;
+	break;
+      }
+    }
+    return rv;
+  }
+}
@@ -0,0 +1,548 @@
+/*
+ * (c) 2021 Jens Mueller
+ *
+ * Kleincomputer-Emulator
+ *
+ * Abfangen der Kassettenroutinen im ROM
+ *
+ * Wird eine der in den TapeTrap-Tabellen beschriebenen Routinen
+ * aufgerufen, fuehrt diese Klasse die Routine direkt aus,
+ * d.h. ohne die Emulation der einzelnen Halbschwingungen.
+ * Die Register, Flags und Speicherzellen werden so gesetzt,
+ * wie es die Routine im ROM beim fehlerfreien Lesen bzw. Schreiben
+ * eines Blocks tun wuerde.
+ *
+ * Die Daten beim Lesen stammen aus der Datei,
+ * die als Eingang des Magnettonbandgeraetes geoeffnet ist
+ * (KC-TAP fuer KC85 und Z9001, Headersave fuer Z1013 und AC1).
+ * Beim Schreiben werden die Bloecke gesammelt und nach dem letzten Block
+ * als KC-TAP-Datei gespeichert, sofern kein Ausgang
+ * des Magnettonbandgeraetes aktiv ist.
+ * Ist keine passende Datei geoeffnet oder sind keine Daten mehr vorhanden,
+ * wird die Routine nicht abgefangen und somit normal emuliert.
+ *
+ * Die Klasse meldet sich selbst als PCListener an der CPU an,
+ * und zwar zusaetzlich zu evtl. vorhandenen PCListenern des Systems.
+ * Die Methode z80PCChanged(...) wird im CPU-Emulations-Thread aufgerufen.
+ */
+
+package jkcemu.audio;
+
+import java.awt.EventQueue;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import jkcemu.Main;
+import jkcemu.base.BaseDlg;
+import jkcemu.base.EmuSys;
+import jkcemu.base.EmuUtil;
+import jkcemu.file.FileInfo;
+import jkcemu.file.FileUtil;
+import z80emu.Z80CPU;
+import z80emu.Z80PCListener;
+
+
+public class TapeTraps implements Z80PCListener
+{
+  private static final int KCTAP_BLOCK_LEN = 129;
+
+  private EmuSys                emuSys;
+  private TapeTrap[]            traps;
+  private int[]                 addrs;
+  private AudioIn               inTapeIn;
+  private byte[]                inBytes;
+  private int                   inBegOffs;
+  private int                   inPos;
+  private int                   inBlkIdx;
+  private boolean               inKCTap;
+  private boolean               inHeadersave;
+  private boolean               active;
+  private ByteArrayOutputStream outBuf;
+  private String                outFileName;
+
+
+  public TapeTraps( EmuSys emuSys, TapeTrap[] traps )
+  {
+    this.emuSys       = emuSys;
+    this.traps        = traps;
+    this.addrs        = new int[ traps.length ];
+    this.inTapeIn     = null;
+    this.inBytes      = null;
+    this.inBegOffs    = 0;
+    this.inPos        = 0;
+    this.inBlkIdx     = 0;
+    this.inKCTap      = false;
+    this.inHeadersave = false;
+    this.active       = false;
+    this.outBuf       = null;
+    this.outFileName  = null;
+    for( int i = 0; i < traps.length; i++ ) {
+      this.addrs[ i ] = traps[ i ].getAddr();
+    }
+  }
+
+
+  /*
+   * Die Methode meldet die Klasse als PCListener an der CPU an bzw. ab.
+   */
+  public synchronized void setActive( Z80CPU cpu, boolean state )
+  {
+    if( state != this.active ) {
+      if( state ) {
+	cpu.addPCListener( this, this.addrs );
+      } else {
+	cpu.removePCListener( this );
+      }
+      this.active = state;
+    }
+  }
+
+
+	/* --- Z80PCListener --- */
+
+  /*
+   * Wird die Routine abgefangen, zeigt der PC danach auf die Fortsetzung.
+   * Anderenfalls wird die Routine normal emuliert.
+   */
+  @Override
+  public void z80PCChanged( Z80CPU cpu, int pc )
+  {
+    for( TapeTrap trap : this.traps ) {
+      if( trap.getAddr() == pc ) {
+	if( trap.matches( this.emuSys ) ) {
+	  boolean done = false;
+	  if( trap.isReadRoutine() ) {
+	    done = readBlock( cpu, trap );
+	  } else {
+	    done = writeBlock( cpu, trap );
+	  }
+	  if( done ) {
+	    int exitAddr = trap.getExitAddr();
+	    cpu.setRegPC( exitAddr >= 0 ? exitAddr : cpu.doPop() );
+	  }
+	}
+	break;
+      }
+    }
+  }
+
+
+	/* --- private Methoden --- */
+
+  /*
+   * Die Methode prueft, ob die als Eingang geoeffnete Datei
+   * gewechselt wurde, und liest diese ggf. ein.
+   */
+  private boolean checkTapeIn()
+  {
+    AudioIn tapeIn = this.emuSys.getTapeIn();
+    if( tapeIn != this.inTapeIn ) {
+      this.inTapeIn     = tapeIn;
+      this.inBytes      = null;
+      this.inBegOffs    = 0;
+      this.inPos        = 0;
+      this.inBlkIdx     = 0;
+      this.inKCTap      = false;
+      this.inHeadersave = false;
+      if( tapeIn instanceof AudioInFile ) {
+	byte[] fileBytes = ((AudioInFile) tapeIn).getFileBytes();
+	int    offs      = ((AudioInFile) tapeIn).getFileOffset();
+	if( FileInfo.isKCTapMagicAt( fileBytes, offs ) ) {
+	  this.inKCTap = true;
+	} else if( FileInfo.isHeadersaveAt( fileBytes, offs ) ) {
+	  this.inHeadersave = true;
+	}
+	this.inBytes   = fileBytes;
+	this.inBegOffs = offs;
+	this.inPos     = offs;
+      }
+    }
+    return this.inBytes != null;
+  }
+
+
+  private void finishOutput()
+  {
+    final byte[] fileBytes = this.outBuf.toByteArray();
+    final String fileName  = this.outFileName;
+    this.outBuf            = null;
+    this.outFileName       = null;
+    EventQueue.invokeLater(
+		new Runnable()
+		{
+		  @Override
+		  public void run()
+		  {
+		    saveOutput( fileBytes, fileName );
+		  }
+		} );
+  }
+
+
+  private static int getSum( byte[] buf, int pos, int len )
+  {
+    int rv = 0;
+    for( int i = 0; i < len; i++ ) {
+      rv += ((int) buf[ pos + i ] & 0xFF);
+    }
+    return rv;
+  }
+
+
+  /*
+   * Die Methode liefert den naechsten Block einer KC-TAP-Datei
+   * (Blocknummer und 128 Datenbytes).
+   * In einer Multi-TAP-Datei werden die enthaltenen Kennungen
+   * uebersprungen.
+   */
+  private byte[] nextKCTapBlock()
+  {
+    byte[] rv = null;
+    if( checkTapeIn() && this.inKCTap ) {
+      while( FileInfo.isKCTapMagicAt( this.inBytes, this.inPos ) ) {
+	this.inPos += FileInfo.KCTAP_MAGIC.length();
+      }
+      int n = Math.min(
+			this.inBytes.length - this.inPos,
+			KCTAP_BLOCK_LEN );
+      if( n > 0 ) {
+	rv = new byte[ KCTAP_BLOCK_LEN ];
+	System.arraycopy( this.inBytes, this.inPos, rv, 0, n );
+	this.inPos += n;
+      }
+    }
+    return rv;
+  }
+
+
+  /*
+   * Die Methode liefert den naechsten Block einer Headersave-Datei
+   * im Format des Z1013 bzw. der SCCH-Monitore
+   * (Blockadresse und 32 Datenbytes).
+   * Der erste Block enthaelt den Kopf,
+   * beim SCCH-Monitor umgewandelt in den Kopf von TurboSave.
+   */
+  private byte[] nextWordBlock( boolean scch )
+  {
+    byte[] rv = null;
+    if( checkTapeIn() && this.inHeadersave ) {
+      byte[] fileBytes = this.inBytes;
+      int    begOffs   = this.inBegOffs;
+      int    n         = Math.min( fileBytes.length - this.inPos, 32 );
+      if( n > 0 ) {
+	rv = new byte[ 34 ];
+	int begAddr = EmuUtil.getWord( fileBytes, begOffs );
+	int blkAddr = (begAddr + ((this.inBlkIdx - 1) * 32)) & 0xFFFF;
+	if( this.inBlkIdx == 0 ) {
+	  blkAddr = 0x00E0;
+	}
+	if( scch && (this.inBlkIdx == 0) ) {
+	  blkAddr = 0x1896;
+	  int p   = 2;
+	  for( int i = 0; i < 8; i++ ) {
+	    rv[ p++ ] = (byte) 'N';
+	  }
+	  for( int i = 0; i < 16; i++ ) {
+	    int ch = (int) fileBytes[ begOffs + 16 + i ] & 0xFF;
+	    if( (ch < 0x20) || (ch > 0x7E) ) {
+	      ch = (ch == 0 ? 0x20 : '_');
+	    }
+	    rv[ p++ ] = (byte) ch;
+	  }
+	  rv[ p++ ] = (byte) ':';
+	  rv[ p++ ] = (byte) 0x20;
+	  rv[ p++ ] = fileBytes[ begOffs + 12 ];
+	  rv[ p++ ] = fileBytes[ begOffs + 2 ];
+	  rv[ p++ ] = fileBytes[ begOffs + 3 ];
+	  rv[ p++ ] = fileBytes[ begOffs ];
+	  rv[ p++ ] = fileBytes[ begOffs + 1 ];
+	  rv[ p++ ] = (byte) 0x20;
+	} else {
+	  System.arraycopy( fileBytes, this.inPos, rv, 2, n );
+	}
+	rv[ 0 ] = (byte) blkAddr;
+	rv[ 1 ] = (byte) (blkAddr >> 8);
+	this.inPos += n;
+	this.inBlkIdx++;
+      }
+    }
+    return rv;
+  }
+
+
+  private boolean readBlock( Z80CPU cpu, TapeTrap trap )
+  {
+    boolean rv = false;
+    switch( trap.getRoutine() ) {
+      case KC85_READ_BLOCK:
+      case KC85_CAOS42_READ_BLOCK:
+	rv = readKC85Block(
+		cpu,
+		trap.getRoutine() == TapeTrap.Routine.KC85_CAOS42_READ_BLOCK );
+	break;
+      case Z9001_READ_BLOCK:
+	rv = readZ9001Block( cpu );
+	break;
+      case Z1013_READ_BLOCK:
+	rv = readWordBlock( cpu, 0x001D, -1, false );
+	break;
+      case Z1013_READ_HS_BLOCK:
+	rv = readWordBlock( cpu, 0x001D, 0x0013, false );
+	break;
+      case SCCH_READ_BLOCK:
+	rv = readWordBlock( cpu, 0x187E, -1, true );
+	break;
+    }
+    return rv;
+  }
+
+
+  /*
+   * CAOS: Blocknummer nach (IX+2), Daten in den Puffer ab (IX+5/6),
+   * Pruefsumme nach (IX+1) bzw. bei CAOS 4.2 nach (IX+0DH)
+   */
+  private boolean readKC85Block( Z80CPU cpu, boolean caos42 )
+  {
+    boolean rv  = false;
+    byte[]  blk = nextKCTapBlock();
+    if( blk != null ) {
+      int ix      = cpu.getRegIX();
+      int bufAddr = this.emuSys.getMemWord( ix + 5 );
+      int cks     = getSum( blk, 1, 128 ) & 0xFF;
+      for( int i = 0; i < 128; i++ ) {
+	this.emuSys.setMemByte( bufAddr + i, blk[ i + 1 ] );
+      }
+      this.emuSys.setMemByte( ix + 2, blk[ 0 ] );
+      if( caos42 ) {
+	// SUB (IX+0DH) und ADD A,0FFH bei gleicher Pruefsumme
+	this.emuSys.setMemByte( ix + 0x0D, cks );
+	cpu.setRegBC( cpu.getRegC() );
+	cpu.setRegA( 0xFF );
+	cpu.setFlagSign( true );
+	cpu.setFlagZero( false );
+	cpu.setFlagHalf( true );
+	cpu.setFlagN( false );
+      } else {
+	// CP B bei gleicher Pruefsumme, LD A,03H
+	this.emuSys.setMemByte( ix + 1, cks );
+	cpu.setRegBC( (cks << 8) | cpu.getRegC() );
+	cpu.setRegA( 0x03 );
+	cpu.setFlagSign( false );
+	cpu.setFlagZero( true );
+	cpu.setFlagHalf( false );
+	cpu.setFlagN( true );
+	cpu.setIFF1( true );
+	cpu.setIFF2( true );
+      }
+      cpu.setFlagPV( false );
+      cpu.setFlagCarry( false );
+      rv = true;
+    }
+    return rv;
+  }
+
+
+  /*
+   * Z1013- und SCCH-Monitor:
+   * Ein Block wird ab HL bis max. zu der in der Zelle endCellAddr
+   * stehenden Adresse abgelegt.
+   * Beim SCCH-Monitor wird bei gesetztem Z-Flag in F' nur verglichen
+   * und bei Abweichungen H' erhoeht.
+   */
+  private boolean readWordBlock(
+			Z80CPU  cpu,
+			int     endCellAddr,
+			int     blkAddrCellAddr,
+			boolean scch )
+  {
+    boolean rv  = false;
+    byte[]  blk = nextWordBlock( scch );
+    if( blk != null ) {
+      boolean verify  = scch && ((cpu.getRegAF2() & 0x0040) != 0);
+      int     endAddr = this.emuSys.getMemWord( endCellAddr );
+      int     addr    = cpu.getRegHL();
+      int     cks     = EmuUtil.getWord( blk, 0 );
+      for( int i = 0; i < 16; i++ ) {
+	int b0 = (int) blk[ 2 + (i * 2) ] & 0xFF;
+	int b1 = (int) blk[ 3 + (i * 2) ] & 0xFF;
+	cks += ((b1 << 8) | b0);
+	if( addr <= endAddr ) {
+	  if( verify ) {
+	    if( (this.emuSys.getMemByte( addr, false ) != b0)
+		|| (this.emuSys.getMemByte( addr + 1, false ) != b1) )
+	    {
+	      cpu.setRegHL2( (cpu.getRegHL2() + 0x0100) & 0xFFFF );
+	    }
+	  } else {
+	    this.emuSys.setMemByte( addr, b0 );
+	    this.emuSys.setMemByte( addr + 1, b1 );
+	  }
+	  addr = (addr + 2) & 0xFFFF;
+	} else if( !scch ) {
+	  addr = (addr + 2) & 0xFFFF;
+	}
+      }
+      if( blkAddrCellAddr >= 0 ) {
+	this.emuSys.setMemByte( blkAddrCellAddr, blk[ 0 ] );
+	this.emuSys.setMemByte( blkAddrCellAddr + 1, blk[ 1 ] );
+      }
+      cks &= 0xFFFF;
+
+      // SBC HL,BC mit gleicher Pruefsumme
+      cpu.setRegHL( addr );
+      cpu.setRegDE( 0 );
+      cpu.setRegBC( cks );
+      cpu.setRegIX( cks );
+      cpu.setRegA( 0 );
+      cpu.setFlagSign( false );
+      cpu.setFlagZero( true );
+      cpu.setFlagHalf( false );
+      cpu.setFlagPV( false );
+      cpu.setFlagN( true );
+      cpu.setFlagCarry( false );
+      rv = true;
+    }
+    return rv;
+  }
+
+
+  /*
+   * Z9001: Daten in den Puffer ab (001BH), Blocknummer nach (006BH),
+   * Pruefsumme nach (0069H)
+   */
+  private boolean readZ9001Block( Z80CPU cpu )
+  {
+    boolean rv  = false;
+    byte[]  blk = nextKCTapBlock();
+    if( blk != null ) {
+      int bufAddr = this.emuSys.getMemWord( 0x001B );
+      int cks     = getSum( blk, 1, 128 ) & 0xFF;
+      for( int i = 0; i < 128; i++ ) {
+	this.emuSys.setMemByte( bufAddr + i, blk[ i + 1 ] );
+      }
+      this.emuSys.setMemByte( 0x006B, blk[ 0 ] );
+      this.emuSys.setMemByte( 0x0069, cks );
+
+      // CP B bei gleicher Pruefsumme
+      cpu.setRegHL( (bufAddr + 128) & 0xFFFF );
+      cpu.setRegBC( (cks << 8) | cpu.getRegC() );
+      cpu.setRegA( cks );
+      cpu.setFlagSign( false );
+      cpu.setFlagZero( true );
+      cpu.setFlagHalf( false );
+      cpu.setFlagPV( false );
+      cpu.setFlagN( true );
+      cpu.setFlagCarry( false );
+      cpu.setIFF1( true );
+      cpu.setIFF2( true );
+      rv = true;
+    }
+    return rv;
+  }
+
+
+  private void saveOutput( byte[] fileBytes, String fileName )
+  {
+    File preSelection = Main.getLastDirFile( Main.FILE_GROUP_AUDIO );
+    if( !fileName.isEmpty() ) {
+      preSelection = new File( preSelection, fileName + ".tap" );
+    }
+    File file = FileUtil.showFileSaveDlg(
+			this.emuSys.getScreenFrm(),
+			"Kassettenaufzeichnung speichern",
+			preSelection,
+			FileUtil.getKCTapFileFilter() );
+    if( file != null ) {
+      OutputStream out = null;
+      try {
+	out = new FileOutputStream( file );
+	out.write( fileBytes );
+	out.close();
+	out = null;
+	Main.setLastFile( file, Main.FILE_GROUP_AUDIO );
+      }
+      catch( IOException ex ) {
+	BaseDlg.showErrorDlg( this.emuSys.getScreenFrm(), ex );
+      }
+      finally {
+	EmuUtil.closeSilently( out );
+      }
+    }
+  }
+
+
+  private boolean writeBlock( Z80CPU cpu, TapeTrap trap )
+  {
+    boolean rv = false;
+    if( this.emuSys.getTapeOut() == null ) {
+      int blkNum  = 0;
+      int bufAddr = 0;
+      int ix      = cpu.getRegIX();
+      if( trap.getRoutine() == TapeTrap.Routine.Z9001_WRITE_BLOCK ) {
+	blkNum  = this.emuSys.getMemByte( 0x006B, false );
+	bufAddr = this.emuSys.getMemWord( 0x001B );
+      } else {
+	blkNum  = (this.emuSys.getMemByte( ix + 2, false ) + 1) & 0xFF;
+	bufAddr = this.emuSys.getMemWord( ix + 5 );
+	this.emuSys.setMemByte( ix + 2, blkNum );
+      }
+      byte[] blk = new byte[ 128 ];
+      for( int i = 0; i < blk.length; i++ ) {
+	blk[ i ] = (byte) this.emuSys.getMemByte( bufAddr + i, false );
+      }
+      int cks = getSum( blk, 0, blk.length ) & 0xFF;
+
+      if( this.outBuf == null ) {
+	// Dateiname aus dem Kopfblock
+	this.outBuf = new ByteArrayOutputStream( 0x4000 );
+	String s    = FileInfo.KCTAP_MAGIC;
+	int    n    = s.length();
+	for( int i = 0; i < n; i++ ) {
+	  this.outBuf.write( s.charAt( i ) );
+	}
+	StringBuilder buf = new StringBuilder( 8 );
+	for( int i = 0; i < 8; i++ ) {
+	  int ch = (int) blk[ i ] & 0xFF;
+	  if( (ch >= 0x21) && (ch < 0x7F)
+	      && (ch != '/') && (ch != '\\') && (ch != ':') )
+	  {
+	    buf.append( (char) ch );
+	  }
+	}
+	this.outFileName = buf.toString();
+      }
+      this.outBuf.write( blkNum );
+      this.outBuf.write( blk, 0, blk.length );
+
+      switch( trap.getRoutine() ) {
+	case KC85_WRITE_BLOCK:
+	  this.emuSys.setMemByte( ix + 1, cks );
+	  cpu.setRegBC( 0 );
+	  cpu.setRegA( 0x03 );
+	  break;
+	case KC85_CAOS42_WRITE_BLOCK:
+	  cpu.setRegBC( cks );
+	  cpu.setRegDE( (bufAddr + 128) & 0xFFFF );
+	  cpu.setRegA( 0x03 );
+	  break;
+	case Z9001_WRITE_BLOCK:
+	  this.emuSys.setMemByte( 0x0069, cks );
+	  this.emuSys.setMemByte( 0x006A, 0 );
+	  cpu.setRegBC( 0 );
+	  cpu.setRegA( 0 );
+	  cpu.setFlagZero( true );
+	  break;
+      }
+      cpu.setRegHL( (bufAddr + 128) & 0xFFFF );
+      cpu.setIFF1( true );
+      cpu.setIFF2( true );
+      if( blkNum == 0xFF ) {
+	finishOutput();
+      }
+      rv = true;
+    }
+    return rv;
+  }
+}
@@ -260,7 +260,7 @@ public abstract class AbstractScreenDevice
   protected boolean isFullScreenMode()
   {
     boolean           rv  = false;
-    AbstractScreenFrm asf = this.screenFrm;
+    AbstractScreenFrm asf = getScreenFrm();
     if( asf != null ) {
       if( asf instanceof ScreenFrm ) {
 	rv = ((ScreenFrm) asf).isFullScreenMode();
@@ -9,7 +9,6 @@
 package jkcemu.base;
 
 import java.util.Properties;
-import jkcemu.Main;
 
 
 public class AutoInputWorker extends Thread
@@ -69,7 +68,7 @@ public class AutoInputWorker extends Thread
 		EmuThread                      emuThread,
 		java.util.List<AutoInputEntry> entries )
   {
-    super( Main.getThreadGroup(), "JKCEMU auto input" );
+    super( emuThread.getContext().getThreadGroup(), "JKCEMU auto input" );
     this.emuThread = emuThread;
     this.entries   = entries;
   }
@@ -11,7 +11,6 @@ package jkcemu.base;
 import java.io.File;
 import java.io.IOException;
 import java.util.Properties;
-import jkcemu.Main;
 import jkcemu.audio.AudioUtil;
 import jkcemu.file.FileInfo;
 import jkcemu.file.FileUtil;
@@ -142,7 +141,7 @@ public class AutoLoader extends Thread
 		EmuThread                     emuThread,
 		java.util.List<AutoLoadEntry> entries )
   {
-    super( Main.getThreadGroup(), "JKCEMU auto loader" );
+    super( emuThread.getContext().getThreadGroup(), "JKCEMU auto loader" );
     this.emuThread = emuThread;
     this.entries   = entries;
   }
@@ -0,0 +1,22 @@
+/*
+ * (c) 2021 Jens Mueller
+ *
+ * Kleincomputer-Emulator
+ *
+ * Interface fuer eine Quelle von Hintergrundfarben
+ * einzelner Bytes in einer Hex-Character-Anzeige
+ */
+
+package jkcemu.base;
+
+import java.awt.Color;
+
+
+public interface ByteColorSource
+{
+  /*
+   * Rueckgabewert:
+   *   Hintergrundfarbe des Bytes oder null fuer den normalen Hintergrund
+   */
+  public Color getDataBackground( int idx );
+}
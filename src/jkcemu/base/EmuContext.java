@@ -0,0 +1,88 @@
+/*
+ * (c) 2021 Jens Mueller
+ *
+ * Kleincomputer-Emulator
+ *
+ * Umgebung einer Emulatorinstanz
+ *
+ * Der Kontext stellt dem emulierten System und den von ihm
+ * gestarteten Threads die Einstellungen und die Thread-Gruppe bereit,
+ * sodass diese nicht mehr ueber die statischen Methoden
+ * der Klasse Main geholt werden muessen.
+ * Der Standardkontext leitet an die Klasse Main weiter.
+ * Eigene Kontexte erlauben mehrere voneinander unabhaengige
+ * Emulatorinstanzen mit unterschiedlichen Einstellungen in einer JVM.
+ *
+ * Eine Instanz ohne Bildschirmfenster entsteht so:
+ *   EmuContext context = new EmuContext( props, new ThreadGroup( ... ) );
+ *   EmuThread  thread  = new EmuThread( null, props, context );
+ *   thread.start();
+ *
+ * Ueber den Kontext laufen die Thread-Gruppen der CPU, der Peripherie
+ * (FDC, GIDE, PSG, Diskettenpuffer, Ping, Joystick)
+ * sowie die KCNet-Einstellungen.
+ * Die Fenster und Dialoge der Bedienoberflaeche, der fuer alle Instanzen
+ * gemeinsame Netzwerk-Thread und die zuletzt benutzten Verzeichnisse
+ * der Dateiauswahl verwenden weiterhin die Klasse Main.
+ */
+
+package jkcemu.base;
+
+import java.util.Properties;
+import jkcemu.Main;
+
+
+public class EmuContext
+{
+  private static final EmuContext defaultContext
+					= new EmuContext( null, null );
+
+  private volatile Properties props;
+  private ThreadGroup         threadGroup;
+
+
+  /*
+   * Parameter:
+   *   props:       Einstellungen oder null fuer die der Klasse Main
+   *   threadGroup: Thread-Gruppe oder null fuer die der Klasse Main
+   */
+  public EmuContext( Properties props, ThreadGroup threadGroup )
+  {
+    this.props       = props;
+    this.threadGroup = threadGroup;
+  }
+
+
+  public static EmuContext getDefault()
+  {
+    return defaultContext;
+  }
+
+
+  public Properties getProperties()
+  {
+    Properties props = this.props;
+    return props != null ? props : Main.getProperties();
+  }
+
+
+  public ThreadGroup getThreadGroup()
+  {
+    return this.threadGroup != null ?
+			this.threadGroup
+			: Main.getThreadGroup();
+  }
+
+
+  /*
+   * Die Methode uebernimmt neu angewendete Einstellungen.
+   * Ein Kontext, der an die Klasse Main weiterleitet, bleibt unveraendert,
+   * da die Einstellungen dort bereits gesetzt sind.
+   */
+  public void updProperties( Properties props )
+  {
+    if( (props != null) && (this.props != null) ) {
+      this.props = props;
+    }
+  }
+}
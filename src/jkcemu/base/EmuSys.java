@@ -18,7 +18,6 @@ import java.text.CharacterIterator;
 import java.text.StringCharacterIterator;
 import java.util.Arrays;
 import java.util.Properties;
-import jkcemu.Main;
 import jkcemu.audio.AbstractSoundDevice;
 import jkcemu.audio.AudioIn;
 import jkcemu.audio.AudioOut;
@@ -64,6 +63,7 @@ public abstract class EmuSys
   public static final String PROP_RF1_PREFIX          = "ramfloppy.1.";
   public static final String PROP_RF2_PREFIX          = "ramfloppy.2.";
   public static final String PROP_RTC_ENABLED         = "rtc.enabled";
+  public static final String PROP_TAPE_FAST           = "tape.fast";
   public static final String PROP_K1520SOUND_ENABLED  = "k1520sound.enabled";
   public static final String PROP_VDIP_ENABLED        = "vdip.enabled";
 
@@ -155,12 +155,29 @@ public abstract class EmuSys
   protected void checkAndFireOpenSecondScreen()
   {
     if( !this.secondScreenFired ) {
-      this.screenFrm.fireOpenSecondScreen();
+      ScreenFrm screenFrm = this.screenFrm;
+      if( screenFrm != null ) {
+	screenFrm.fireOpenSecondScreen();
+      }
       this.secondScreenFired = true;
     }
   }
 
 
+  /*
+   * Die folgenden Methoden leiten Benachrichtigungen
+   * an das Bildschirmfenster weiter.
+   * Ohne Bildschirmfenster (siehe EmuContext) passiert nichts.
+   */
+  protected void clearScreenSelection()
+  {
+    ScreenFrm screenFrm = this.screenFrm;
+    if( screenFrm != null ) {
+      screenFrm.clearScreenSelection();
+    }
+  }
+
+
   public AbstractKeyboardFld<? extends EmuSys> createKeyboardFld()
 		throws UnsupportedOperationException, UserCancelException
   {
@@ -216,6 +233,15 @@ public abstract class EmuSys
   }
 
 
+  protected void fireRepaint()
+  {
+    ScreenFrm screenFrm = this.screenFrm;
+    if( screenFrm != null ) {
+      screenFrm.fireRepaint();
+    }
+  }
+
+
   /*
    * Die Methode zeigt einen Dialog mit Meldung an,
    * dass ein Zeichen nicht eingefuegt werden konnte.
@@ -235,6 +261,15 @@ public abstract class EmuSys
   }
 
 
+  protected void fireUpdScreenTextActionsEnabled()
+  {
+    ScreenFrm screenFrm = this.screenFrm;
+    if( screenFrm != null ) {
+      screenFrm.fireUpdScreenTextActionsEnabled();
+    }
+  }
+
+
   /*
    * Die Methode liefert den Wert, auf den der Stackpointer vor einem
    * durch JKCEMU initiierten Programmstart gesetzt wird.
@@ -264,6 +299,17 @@ public abstract class EmuSys
   }
 
 
+  /*
+   * Die Methode liefert die Umgebung der Emulatorinstanz,
+   * aus der die Einstellungen und die Thread-Gruppe
+   * fuer die Hintergrund-Threads der Peripherie stammen.
+   */
+  public EmuContext getContext()
+  {
+    return this.emuThread.getContext();
+  }
+
+
   protected boolean getConvertKeyCharToISO646DE()
   {
     return true;
@@ -454,6 +500,19 @@ public abstract class EmuSys
   }
 
 
+  /*
+   * Die Methode prueft, ob die Kassettenroutinen im ROM
+   * abgefangen werden sollen (siehe jkcemu.audio.TapeTraps).
+   */
+  protected boolean isTapeFast( Properties props )
+  {
+    return EmuUtil.getBooleanProperty(
+			props,
+			this.propPrefix + PROP_TAPE_FAST,
+			false );
+  }
+
+
   public void openBasicProgram()
   {
     showFunctionNotSupported();
@@ -527,22 +586,22 @@ public abstract class EmuSys
     switch( ch ) {
       case '\n':
       case '\r':
-	rv = keyPressed( KeyEvent.VK_ENTER, false, false );
+	rv = this.emuThread.fireKeyPressed( KeyEvent.VK_ENTER, false, false );
 	break;
 
       case '\u0020':
-	rv = keyPressed( KeyEvent.VK_SPACE, false, false );
+	rv = this.emuThread.fireKeyPressed( KeyEvent.VK_SPACE, false, false );
 	break;
     }
     if( !rv ) {
-      rv = keyTyped( ch );
+      rv = this.emuThread.fireKeyTyped( ch );
     }
     if( rv ) {
       long millis = getHoldMillisPasteChar();
       if( millis > 0L ) {
 	Thread.sleep( millis );
       }
-      keyReleased();
+      this.emuThread.fireKeyReleased();
     }
     return rv;
   }
@@ -578,7 +637,7 @@ public abstract class EmuSys
 
   protected byte[] readResource( String resource )
   {
-    return EmuUtil.readResource( this.screenFrm, resource );
+    return ROMCache.readResource( this.screenFrm, resource );
   }
 
 
@@ -593,12 +652,15 @@ public abstract class EmuSys
   }
 
 
+  /*
+   * Das zurueckgelieferte Array stammt aus dem ROM-Zwischenspeicher
+   * und darf nicht veraendert werden.
+   */
   protected byte[] readROMFile( String fileName, int maxLen, String objName )
   {
-    return FileUtil.readFile(
+    return ROMCache.readFile(
 			this.emuThread.getScreenFrm(),
 			fileName,
-			true,
 			maxLen,
 			objName );
   }
@@ -838,6 +900,15 @@ public abstract class EmuSys
   }
 
 
+  protected void setChessboardDirty( boolean state )
+  {
+    ScreenFrm screenFrm = this.screenFrm;
+    if( screenFrm != null ) {
+      screenFrm.setChessboardDirty( state );
+    }
+  }
+
+
   public void setFloppyDiskDrive( int idx, FloppyDiskDrive drive )
   {
     // leer
@@ -1144,7 +1215,7 @@ public abstract class EmuSys
 	informPastingTextStatusChanged( true );
 	this.pasteIter   = new StringCharacterIterator( text );
 	this.pasteThread = new Thread(
-				Main.getThreadGroup(),
+				this.emuThread.getContext().getThreadGroup(),
 				this,
 				"JKCEMU text paste" );
 	this.pasteThread.start();
@@ -16,7 +16,6 @@ import java.util.Arrays;
 import java.util.Properties;
 import java.util.TreeSet;
 import java.util.Set;
-import jkcemu.Main;
 import jkcemu.audio.AbstractSoundDevice;
 import jkcemu.audio.AudioFrm;
 import jkcemu.audio.AudioIO;
@@ -69,12 +68,16 @@ public class EmuThread extends Thread implements
   public static final String VALUE_MAXSPEED_KHZ_DEFAULT   = "default";
   public static final String VALUE_MAXSPEED_KHZ_UNLIMITED = "unlimited";
 
+  public static final String  PROP_CPU_BLOCK_EXEC = "jkcemu.cpu.block_exec";
+  public static final boolean DEFAULT_CPU_BLOCK_EXEC = false;
+
   public static final String PROP_RF_CLEAR_ON_POWER_ON
 				= "jkcemu.ramfloppy.clear_on_power_on";
   public static final boolean DEFAULT_RF_CLEAR_ON_POWER_ON = false;
 
 
   private ScreenFrm           screenFrm;
+  private EmuContext          context;
   private Z80CPU              z80cpu;
   private Object              monitor;
   private JoystickFrm         joyFrm;
@@ -88,13 +91,29 @@ public class EmuThread extends Thread implements
   private volatile boolean    emuRunning;
   private volatile EmuSys     emuSys;
   private volatile Properties newProps;
+  private volatile InputLog   inputLog;
   private volatile Boolean    iso646de;
 
 
   public EmuThread( ScreenFrm screenFrm, Properties props )
   {
-    super( Main.getThreadGroup(), "JKCEMU CPU" );
+    this( screenFrm, props, EmuContext.getDefault() );
+  }
+
+
+  /*
+   * Ist screenFrm null, laeuft die Instanz ohne Bildschirmfenster.
+   * Die Einstellungen und die Thread-Gruppe kommen dann
+   * ausschliesslich aus dem uebergebenen Kontext.
+   */
+  public EmuThread(
+		ScreenFrm  screenFrm,
+		Properties props,
+		EmuContext context )
+  {
+    super( context.getThreadGroup(), "JKCEMU CPU" );
     this.screenFrm  = screenFrm;
+    this.context    = context;
     this.z80cpu     = new Z80CPU( this, this );
     this.monitor    = new Object();
     this.joyFrm     = null;
@@ -108,12 +127,14 @@ public class EmuThread extends Thread implements
     this.emuRunning = false;
     this.emuSys     = createEmuSys( props );
     this.newProps   = null;
+    this.inputLog   = null;
     Arrays.fill( this.joyThreads, null );
   }
 
 
   public synchronized void applySettings( Properties props )
   {
+    this.context.updProperties( props );
     if( this.emuSys.canApplySettings( props ) ) {
       this.emuSys.applySettings( props );
       updCPUSpeed( props );
@@ -257,12 +278,24 @@ public class EmuThread extends Thread implements
   }
 
 
+  public EmuContext getContext()
+  {
+    return this.context;
+  }
+
+
   public EmuSys getEmuSys()
   {
     return this.emuSys;
   }
 
 
+  public InputLog getInputLog()
+  {
+    return this.inputLog;
+  }
+
+
   public Boolean getISO646DE()
   {
     return this.iso646de;
@@ -332,16 +365,16 @@ public class EmuThread extends Thread implements
 
   public boolean keyPressed( KeyEvent e )
   {
-    return this.emuSys.keyPressed(
-				e.getKeyCode(),
-				e.isControlDown(),
-				e.isShiftDown() );
+    return fireKeyPressed(
+			e.getKeyCode(),
+			e.isControlDown(),
+			e.isShiftDown() );
   }
 
 
   public void keyReleased()
   {
-    this.emuSys.keyReleased();
+    fireKeyReleased();
   }
 
 
@@ -351,9 +384,9 @@ public class EmuThread extends Thread implements
       ch = TextUtil.toReverseCase( ch );
     }
     if( this.emuSys.getConvertKeyCharToISO646DE() ) {
-      this.emuSys.keyTyped( TextUtil.toISO646DE( ch ) );
+      fireKeyTyped( TextUtil.toISO646DE( ch ) );
     } else {
-      this.emuSys.keyTyped( ch );
+      fireKeyTyped( ch );
     }
   }
 
@@ -371,9 +404,43 @@ public class EmuThread extends Thread implements
   }
 
 
+  /*
+   * Die Methode startet bzw. beendet die Aufzeichnung
+   * oder Wiedergabe der Eingaben.
+   * Damit der Ablauf reproduzierbar ist, wird beim Start
+   * ein Einschalt-RESET ausgeloest, mit dem die Zaehlung
+   * der Taktzyklen beginnt.
+   * Die Datei wird hier nicht geschlossen,
+   * das erfolgt ueber InputLog.close().
+   */
+  public void setInputLog( InputLog inputLog )
+  {
+    InputLog oldLog = null;
+    synchronized( this.monitor ) {
+      oldLog        = this.inputLog;
+      this.inputLog = inputLog;
+    }
+    if( oldLog != null ) {
+      this.z80cpu.removeTStatesListener( oldLog );
+      oldLog.finish();
+    }
+    if( inputLog != null ) {
+      this.z80cpu.addTStatesListener( inputLog );
+      fireReset( true );
+    } else {
+      updCPUSpeed( this.context.getProperties() );
+    }
+  }
+
+
   public void setJoystickAction( int joyNum, int actionMask )
   {
-    this.emuSys.setJoystickAction( joyNum, actionMask );
+    InputLog inputLog = this.inputLog;
+    if( inputLog != null ) {
+      inputLog.setJoystickAction( joyNum, actionMask );
+    } else {
+      this.emuSys.setJoystickAction( joyNum, actionMask );
+    }
     JoystickFrm joyFrm = this.joyFrm;
     if( joyFrm != null ) {
       joyFrm.setJoystickAction( joyNum, actionMask );
@@ -427,12 +494,67 @@ public class EmuThread extends Thread implements
 	}
       }
     }
+    boolean blockExec = EmuUtil.getBooleanProperty(
+					props,
+					PROP_CPU_BLOCK_EXEC,
+					DEFAULT_CPU_BLOCK_EXEC );
+
+    /*
+     * Eine Wiedergabe laeuft ohne Geschwindigkeitsbremse,
+     * muss aber die Befehle genauso ausfuehren wie die Aufzeichnung.
+     */
+    InputLog inputLog = this.inputLog;
+    if( inputLog != null ) {
+      if( !inputLog.isFinished() ) {
+	blockExec = inputLog.getBlockExec();
+	if( inputLog.isReplay() ) {
+	  maxSpeedKHz = 0;
+	}
+      }
+    }
     this.z80cpu.setMaxSpeedKHz( maxSpeedKHz );
+    this.z80cpu.setBlockExecEnabled( blockExec );
   }
 
 
 	/* --- Empfang von Signalen aus einen anderen Thread --- */
 
+  public boolean fireKeyPressed(
+			int     keyCode,
+			boolean ctrlDown,
+			boolean shiftDown )
+  {
+    InputLog inputLog = this.inputLog;
+    return inputLog != null ?
+		inputLog.keyPressed( keyCode, ctrlDown, shiftDown )
+		: this.emuSys.keyPressed( keyCode, ctrlDown, shiftDown );
+  }
+
+
+  public void fireKeyReleased()
+  {
+    InputLog inputLog = this.inputLog;
+    if( inputLog != null ) {
+      inputLog.keyReleased();
+    } else {
+      this.emuSys.keyReleased();
+    }
+  }
+
+
+  /*
+   * Im Gegensatz zu keyTyped(...) wird das Zeichen
+   * ohne Konvertierung an das emulierte System weitergeleitet.
+   */
+  public boolean fireKeyTyped( char ch )
+  {
+    InputLog inputLog = this.inputLog;
+    return inputLog != null ?
+		inputLog.keyTyped( ch )
+		: this.emuSys.keyTyped( ch );
+  }
+
+
   public void fireReset( boolean powerOn )
   {
     fireReset( powerOn, null );
@@ -615,7 +737,7 @@ public class EmuThread extends Thread implements
 	      this.emuSys   = createEmuSys( props );
 	      emuSysChanged = true;
 	    } else {
-	      props = Main.getProperties();
+	      props = this.context.getProperties();
 	    }
 	  }
 
@@ -680,6 +802,22 @@ public class EmuThread extends Thread implements
 	    }
 	  }
 
+	  /*
+	   * Eine Eingabeaufzeichnung bzw. -wiedergabe beginnt
+	   * mit dem Einschalt-RESET und endet mit jedem weiteren RESET.
+	   * Der Zufallsgenerator wird vor der Initialisierung
+	   * des Arbeitsspeichers auf den aufgezeichneten Startwert gesetzt.
+	   */
+	  InputLog inputLog = this.inputLog;
+	  if( inputLog != null ) {
+	    if( powerOn && inputLog.isReady() ) {
+	      EmuUtil.getRandom().setSeed( inputLog.getRandomSeed() );
+	      inputLog.start();
+	    } else {
+	      inputLog.finish();
+	    }
+	  }
+
 	  // CPU-Geschwindigkeit
 	  updCPUSpeed( props );
 
@@ -701,8 +839,8 @@ public class EmuThread extends Thread implements
 	    autoLoadInput = emuSys.getAutoLoadInputOnSoftReset();
 	  }
 	  if( autoLoadInput ) {
-	    AutoLoader.start( this, Main.getProperties() );
-	    AutoInputWorker.start( this, Main.getProperties() );
+	    AutoLoader.start( this, this.context.getProperties() );
+	    AutoInputWorker.start( this, this.context.getProperties() );
 	  }
 	}
 
@@ -740,7 +878,15 @@ public class EmuThread extends Thread implements
       this.emuSys.die();
     }
     catch( Exception ex ) {
-      EmuUtil.fireExitSysError( this.screenFrm, null, ex );
+      if( this.screenFrm != null ) {
+	EmuUtil.fireExitSysError( this.screenFrm, null, ex );
+      } else {
+	/*
+	 * Instanz ohne Bildschirmfenster:
+	 * Nur diese Instanz beenden und nicht die ganze Applikation
+	 */
+	ex.printStackTrace();
+      }
     }
   }
 
@@ -856,7 +1002,10 @@ public class EmuThread extends Thread implements
    */
   private void fireReset( boolean powerOn, Properties newProps )
   {
-    this.screenFrm.clearScreenSelection();
+    ScreenFrm screenFrm = this.screenFrm;
+    if( screenFrm != null ) {
+      screenFrm.clearScreenSelection();
+    }
     this.emuSys.cancelPastingText();
     synchronized( this.monitor ) {
       this.newProps = newProps;
@@ -1226,7 +1226,8 @@ public class EmuUtil
     InputStream           in   = null;
     Exception             ex   = null;
     try {
-      in = owner.getClass().getResourceAsStream( resource );
+      Class<?> cl = (owner != null ? owner.getClass() : EmuUtil.class);
+      in = cl.getResourceAsStream( resource );
       if( in != null ) {
 	if( resource.endsWith( ".gz" ) ) {
 	  is = in;
@@ -1,5 +1,5 @@
 /*
- * (c) 2008-2020 Jens Mueller
+ * (c) 2008-2021 Jens Mueller
  *
  * Kleincomputer-Emulator
  *
@@ -8,6 +8,7 @@
 
 package jkcemu.base;
 
+import java.awt.Color;
 import java.awt.Component;
 import java.awt.Dimension;
 import java.awt.Font;
@@ -39,6 +40,7 @@ public class HexCharFld extends JComponent implements Scrollable
   private static final int PAD_Y = 1;
 
   private ByteDataSource                dataSrc;
+  private ByteColorSource               colorSrc;
   private java.util.List<CaretListener> caretListeners;
   private Dimension                     prefScrollableVPSize;
   private boolean                       asciiSelected;
@@ -63,6 +65,7 @@ public class HexCharFld extends JComponent implements Scrollable
   public HexCharFld( ByteDataSource dataSrc )
   {
     this.dataSrc              = dataSrc;
+    this.colorSrc             = null;
     this.caretListeners       = null;
     this.prefScrollableVPSize = null;
     this.asciiSelected        = false;
@@ -358,6 +361,20 @@ public class HexCharFld extends JComponent implements Scrollable
   }
 
 
+  /*
+   * Die Methode zeichnet nur die Zeilen neu,
+   * in denen sich die Bytes des uebergebenen Bereichs befinden.
+   */
+  public void repaintBytes( int begIdx, int endIdx )
+  {
+    if( this.hRow > 0 ) {
+      int y1 = MARGIN + ((begIdx / BYTES_PER_ROW) * this.hRow);
+      int y2 = MARGIN + (((endIdx / BYTES_PER_ROW) + 1) * this.hRow) + 2;
+      repaint( 0, y1, getWidth(), y2 - y1 );
+    }
+  }
+
+
   public void setCaretPosition( int pos, boolean moveOp )
   {
     if( (pos < 0) && (pos >= this.dataSrc.getDataLength()) ) {
@@ -379,6 +396,18 @@ public class HexCharFld extends JComponent implements Scrollable
   }
 
 
+  /*
+   * Mit der Methode kann eine Quelle fuer individuelle
+   * Hintergrundfarben der Bytes gesetzt werden (z.B. fuer eine Heatmap).
+   * Markierte Bytes werden weiterhin in der Markierungsfarbe angezeigt.
+   */
+  public void setColorSource( ByteColorSource colorSrc )
+  {
+    this.colorSrc = colorSrc;
+    repaint();
+  }
+
+
   public void setEditable( boolean state, String readOnlyErrMsg )
   {
     this.editable       = state;
@@ -569,12 +598,26 @@ public class HexCharFld extends JComponent implements Scrollable
 	}
 	y += MARGIN;
 	y += this.hChar;
-	int    addrOffs = this.dataSrc.getAddrOffset();
-	String addrFmt  = createAddrFmtString();
+	int             addrOffs = this.dataSrc.getAddrOffset();
+	String          addrFmt  = createAddrFmtString();
+	ByteColorSource colorSrc = this.colorSrc;
+	Rectangle       clip     = g.getClipBounds();
 	while( (pos < dataLen)
 	       && (y < (yVisible + hVisible + this.hChar)) )
 	{
 	  visibleRows++;
+
+	  // Zeilen ausserhalb des neu zu zeichnenden Bereichs uebergehen
+	  if( clip != null ) {
+	    int yRow = y - this.hChar;
+	    if( ((yRow + this.hRow + 2) < clip.y)
+		|| (yRow > (clip.y + clip.height)) )
+	    {
+	      y   += this.hRow;
+	      pos += BYTES_PER_ROW;
+	      continue;
+	    }
+	  }
 	  g.setColor( getForeground() );
 	  g.drawString( String.format( addrFmt, addrOffs + pos ), MARGIN, y );
 	  int x = this.xHex;
@@ -596,6 +639,17 @@ public class HexCharFld extends JComponent implements Scrollable
 			this.hRow );
 	      g.setColor( SystemColor.textHighlightText );
 	    } else {
+	      if( colorSrc != null ) {
+		Color color = colorSrc.getDataBackground( idx );
+		if( color != null ) {
+		  g.setColor( color );
+		  g.fillRect(
+			x,
+			y - this.hChar + 2,
+			2 * this.wChar,
+			this.hRow );
+		}
+	      }
 	      g.setColor( getForeground() );
 	    }
 	    g.drawString(
@@ -619,6 +673,13 @@ public class HexCharFld extends JComponent implements Scrollable
 	      g.fillRect( x, y - this.hChar + 2, this.wChar, this.hRow );
 	      g.setColor( SystemColor.textHighlightText );
 	    } else {
+	      if( colorSrc != null ) {
+		Color color = colorSrc.getDataBackground( idx );
+		if( color != null ) {
+		  g.setColor( color );
+		  g.fillRect( x, y - this.hChar + 2, this.wChar, this.hRow );
+		}
+	      }
 	      g.setColor( getForeground() );
 	    }
 	    g.drawString( Character.toString( ch ), x, y );
@@ -0,0 +1,522 @@
+/*
+ * (c) 2021 Jens Mueller
+ *
+ * Kleincomputer-Emulator
+ *
+ * Aufzeichnung und Wiedergabe der Eingaben in das emulierte System
+ *
+ * Tastatur-, Joystick- und Einfuegeeingaben kommen aus verschiedenen
+ * Threads und werden deshalb zu zufaelligen Zeitpunkten wirksam.
+ * Waehrend einer Aufzeichnung werden die Eingaben an den
+ * CPU-Emulations-Thread uebergeben und dort zwischen zwei Befehlen
+ * an das emulierte System weitergeleitet.
+ * Dabei wird die Anzahl der seit dem Einschalt-RESET verarbeiteten
+ * Taktzyklen mit dem Ereignis in die Datei geschrieben.
+ * Bei der Wiedergabe werden die Ereignisse genau bei diesen Taktzyklen
+ * eingespeist, waehrend Eingaben von aussen verworfen werden.
+ * Da ausserdem der Startwert des Zufallsgenerators
+ * (Initialisierung des Arbeitsspeichers) und die Art der
+ * Befehlsausfuehrung mit aufgezeichnet werden,
+ * verlaeuft die Wiedergabe genau so wie die Aufzeichnung,
+ * jedoch ohne Geschwindigkeitsbremse.
+ *
+ * Dateiformat:
+ *   Kennung, Version, Flags, Startwert des Zufallsgenerators,
+ *   danach je Ereignis: Taktzyklen seit dem vorherigen Ereignis
+ *   (7 Bit je Byte, niederwertige zuerst, Bit 7 gesetzt: weiteres Byte),
+ *   Ereignistyp und ereignisabhaengige Daten
+ */
+
+package jkcemu.base;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import z80emu.Z80CPU;
+import z80emu.Z80TStatesListener;
+
+
+public class InputLog implements Z80TStatesListener
+{
+  private static final byte[] MAGIC = {
+			'J', 'K', 'C', 'E', 'M', 'U', '-', 'I', 'N' };
+
+  private static final int VERSION          = 1;
+  private static final int FLAG_BLOCK_EXEC  = 0x01;
+  private static final int FLAG_CTRL_DOWN   = 0x01;
+  private static final int FLAG_SHIFT_DOWN  = 0x02;
+  private static final int POST_WAIT_MILLIS = 100;
+
+  private static final int EVENT_END          = 0;
+  private static final int EVENT_KEY_PRESSED  = 1;
+  private static final int EVENT_KEY_RELEASED = 2;
+  private static final int EVENT_KEY_TYPED    = 3;
+  private static final int EVENT_JOYSTICK     = 4;
+
+  private static enum State { READY, ACTIVE, FINISHED };
+
+  private static class Event
+  {
+    private int     type;
+    private int     value;
+    private int     extra;
+    private long    tStates;
+    private boolean done;
+    private boolean result;
+
+    private Event( int type, int value, int extra )
+    {
+      this.type    = type;
+      this.value   = value;
+      this.extra   = extra;
+      this.tStates = 0L;
+      this.done    = false;
+      this.result  = false;
+    }
+  };
+
+
+  private EmuThread        emuThread;
+  private boolean          replay;
+  private boolean          blockExec;
+  private long             randomSeed;
+  private long             tStates;
+  private long             lastTStates;
+  private List<Event>      pending;
+  private Event            nextEvent;
+  private DataOutputStream out;
+  private DataInputStream  in;
+  private IOException      ioEx;
+  private volatile boolean hasPending;
+  private volatile State   state;
+
+
+  /*
+   * Die Methode legt eine neue Aufzeichnungsdatei an.
+   * Die Aufzeichnung beginnt mit dem Einschalt-RESET,
+   * den EmuThread.setInputLog(...) ausloest.
+   */
+  public static InputLog createRecorder(
+				EmuThread emuThread,
+				File      file ) throws IOException
+  {
+    InputLog inputLog = new InputLog(
+			emuThread,
+			false,
+			emuThread.getZ80CPU().isBlockExecEnabled(),
+			System.nanoTime() ^ System.currentTimeMillis() );
+    DataOutputStream out = null;
+    try {
+      out = new DataOutputStream(
+		new BufferedOutputStream( new FileOutputStream( file ) ) );
+      out.write( MAGIC );
+      out.writeByte( VERSION );
+      out.writeByte( inputLog.blockExec ? FLAG_BLOCK_EXEC : 0 );
+      out.writeLong( inputLog.randomSeed );
+      inputLog.out = out;
+      out          = null;
+    }
+    finally {
+      EmuUtil.closeSilently( out );
+    }
+    return inputLog;
+  }
+
+
+  /*
+   * Die Methode oeffnet eine Aufzeichnungsdatei zur Wiedergabe.
+   */
+  public static InputLog openReplay(
+				EmuThread emuThread,
+				File      file ) throws IOException
+  {
+    InputLog        inputLog = null;
+    DataInputStream in       = null;
+    try {
+      in = new DataInputStream(
+		new BufferedInputStream( new FileInputStream( file ) ) );
+      byte[] magic = new byte[ MAGIC.length ];
+      in.readFully( magic );
+      if( !Arrays.equals( magic, MAGIC ) ) {
+	throw new IOException( "Datei ist keine Eingabeaufzeichnung" );
+      }
+      if( in.readUnsignedByte() != VERSION ) {
+	throw new IOException( "Version der Eingabeaufzeichnung"
+				+ " wird nicht unterst\u00FCtzt" );
+      }
+      int flags = in.readUnsignedByte();
+      inputLog  = new InputLog(
+			emuThread,
+			true,
+			(flags & FLAG_BLOCK_EXEC) != 0,
+			in.readLong() );
+      inputLog.in        = in;
+      inputLog.nextEvent = inputLog.readEvent();
+      in                 = null;
+    }
+    finally {
+      EmuUtil.closeSilently( in );
+    }
+    return inputLog;
+  }
+
+
+  /*
+   * Die Methode beendet die Aufzeichnung bzw. Wiedergabe
+   * und schliesst die Datei.
+   * Ein waehrend der Aufzeichnung aufgetretener Fehler
+   * wird hier gemeldet.
+   */
+  public synchronized void close() throws IOException
+  {
+    finish();
+    if( this.out != null ) {
+      try {
+	if( this.ioEx == null ) {
+	  this.out.writeByte( EVENT_END );
+	}
+	this.out.close();
+      }
+      catch( IOException ex ) {
+	if( this.ioEx == null ) {
+	  this.ioEx = ex;
+	}
+      }
+      this.out = null;
+    }
+    EmuUtil.closeSilently( this.in );
+    this.in = null;
+    if( this.ioEx != null ) {
+      throw this.ioEx;
+    }
+  }
+
+
+  public boolean getBlockExec()
+  {
+    return this.blockExec;
+  }
+
+
+  public long getRandomSeed()
+  {
+    return this.randomSeed;
+  }
+
+
+  /*
+   * Anzahl der seit dem Einschalt-RESET verarbeiteten Taktzyklen
+   */
+  public long getTStates()
+  {
+    return this.tStates;
+  }
+
+
+  public boolean isFinished()
+  {
+    return this.state == State.FINISHED;
+  }
+
+
+  public boolean isReady()
+  {
+    return this.state == State.READY;
+  }
+
+
+  public boolean isReplay()
+  {
+    return this.replay;
+  }
+
+
+	/* --- Aufrufe durch EmuThread --- */
+
+  synchronized void finish()
+  {
+    if( this.state != State.FINISHED ) {
+      this.state = State.FINISHED;
+      for( Event event : this.pending ) {
+	applyEvent( event );
+      }
+      this.pending.clear();
+      this.hasPending = false;
+      notifyAll();
+    }
+  }
+
+
+  boolean keyPressed( int keyCode, boolean ctrlDown, boolean shiftDown )
+  {
+    int flags = 0;
+    if( ctrlDown ) {
+      flags |= FLAG_CTRL_DOWN;
+    }
+    if( shiftDown ) {
+      flags |= FLAG_SHIFT_DOWN;
+    }
+    return post( new Event( EVENT_KEY_PRESSED, keyCode, flags ) );
+  }
+
+
+  void keyReleased()
+  {
+    post( new Event( EVENT_KEY_RELEASED, 0, 0 ) );
+  }
+
+
+  boolean keyTyped( char ch )
+  {
+    return post( new Event( EVENT_KEY_TYPED, ch, 0 ) );
+  }
+
+
+  void setJoystickAction( int joyNum, int actionMask )
+  {
+    post( new Event( EVENT_JOYSTICK, actionMask, joyNum ) );
+  }
+
+
+  /*
+   * Die Methode wird im CPU-Emulations-Thread beim Einschalt-RESET
+   * aufgerufen und startet die Zaehlung der Taktzyklen.
+   */
+  synchronized void start()
+  {
+    if( this.state == State.READY ) {
+      this.tStates = 0L;
+      this.state   = State.ACTIVE;
+    }
+  }
+
+
+	/* --- Z80TStatesListener --- */
+
+  @Override
+  public void z80TStatesProcessed( Z80CPU cpu, int tStates )
+  {
+    if( this.state == State.ACTIVE ) {
+      this.tStates += tStates;
+      if( this.replay ) {
+	Event event = this.nextEvent;
+	while( event != null ) {
+	  if( event.tStates > this.tStates ) {
+	    break;
+	  }
+	  applyEvent( event );
+	  event          = readEvent();
+	  this.nextEvent = event;
+	}
+	if( event == null ) {
+	  this.state = State.FINISHED;
+	}
+      } else if( this.hasPending ) {
+	synchronized( this ) {
+	  for( Event event : this.pending ) {
+	    event.tStates = this.tStates;
+	    applyEvent( event );
+	    writeEvent( event );
+	  }
+	  this.pending.clear();
+	  this.hasPending = false;
+	  notifyAll();
+	}
+      }
+    }
+  }
+
+
+	/* --- Konstruktor --- */
+
+  private InputLog(
+		EmuThread emuThread,
+		boolean   replay,
+		boolean   blockExec,
+		long      randomSeed )
+  {
+    this.emuThread   = emuThread;
+    this.replay      = replay;
+    this.blockExec   = blockExec;
+    this.randomSeed  = randomSeed;
+    this.tStates     = 0L;
+    this.lastTStates = 0L;
+    this.pending     = new ArrayList<>();
+    this.nextEvent   = null;
+    this.out         = null;
+    this.in          = null;
+    this.ioEx        = null;
+    this.hasPending  = false;
+    this.state       = State.READY;
+  }
+
+
+	/* --- private Methoden --- */
+
+  private void applyEvent( Event event )
+  {
+    EmuSys emuSys = this.emuThread.getEmuSys();
+    switch( event.type ) {
+      case EVENT_KEY_PRESSED:
+	event.result = emuSys.keyPressed(
+				event.value,
+				(event.extra & FLAG_CTRL_DOWN) != 0,
+				(event.extra & FLAG_SHIFT_DOWN) != 0 );
+	break;
+      case EVENT_KEY_RELEASED:
+	emuSys.keyReleased();
+	break;
+      case EVENT_KEY_TYPED:
+	event.result = emuSys.keyTyped( (char) event.value );
+	break;
+      case EVENT_JOYSTICK:
+	emuSys.setJoystickAction( event.extra, event.value );
+	break;
+    }
+    event.done = true;
+  }
+
+
+  /*
+   * Die Methode leitet ein Ereignis weiter.
+   * Waehrend einer Aufzeichnung wird das Ereignis an den
+   * CPU-Emulations-Thread uebergeben und auf dessen Verarbeitung gewartet,
+   * da der Rueckgabewert des emulierten Systems benoetigt wird.
+   * Laeuft die CPU-Emulation nicht (z.B. Pause),
+   * wird das Ereignis nach kurzer Wartezeit im aufrufenden Thread
+   * verarbeitet und mit dem aktuellen Taktzyklenstand aufgezeichnet.
+   * Waehrend einer Wiedergabe werden Ereignisse von aussen verworfen.
+   */
+  private synchronized boolean post( Event event )
+  {
+    switch( this.state ) {
+      case ACTIVE:
+	if( this.replay ) {
+	  return false;
+	}
+	this.pending.add( event );
+	this.hasPending = true;
+	long endMillis  = System.currentTimeMillis() + POST_WAIT_MILLIS;
+	try {
+	  while( !event.done ) {
+	    long millis = endMillis - System.currentTimeMillis();
+	    if( millis <= 0 ) {
+	      break;
+	    }
+	    wait( millis );
+	  }
+	}
+	catch( InterruptedException ex ) {}
+	if( !event.done && this.pending.remove( event ) ) {
+	  this.hasPending = !this.pending.isEmpty();
+	  event.tStates   = this.tStates;
+	  applyEvent( event );
+	  writeEvent( event );
+	}
+	break;
+
+      default:
+	applyEvent( event );
+    }
+    return event.result;
+  }
+
+
+  private Event readEvent()
+  {
+    Event event = null;
+    if( this.in != null ) {
+      try {
+	long diffTStates = readVarLong();
+	int  type        = this.in.readUnsignedByte();
+	switch( type ) {
+	  case EVENT_KEY_PRESSED:
+	    event = new Event(
+			type,
+			(int) readVarLong(),
+			this.in.readUnsignedByte() );
+	    break;
+	  case EVENT_KEY_RELEASED:
+	    event = new Event( type, 0, 0 );
+	    break;
+	  case EVENT_KEY_TYPED:
+	    event = new Event( type, this.in.readChar(), 0 );
+	    break;
+	  case EVENT_JOYSTICK:
+	    event = new Event(
+			type,
+			(int) readVarLong(),
+			this.in.readUnsignedByte() );
+	    break;
+	}
+	if( event != null ) {
+	  this.lastTStates += diffTStates;
+	  event.tStates    = this.lastTStates;
+	}
+      }
+      catch( EOFException ex ) {}
+      catch( IOException ex ) {
+	this.ioEx = ex;
+      }
+    }
+    return event;
+  }
+
+
+  private long readVarLong() throws IOException
+  {
+    long value = 0L;
+    int  shift = 0;
+    int  b     = 0;
+    do {
+      b = this.in.readUnsignedByte();
+      value |= ((long) (b & 0x7F) << shift);
+      shift += 7;
+    } while( ((b & 0x80) != 0) && (shift < 64) );
+    return value;
+  }
+
+
+  private void writeEvent( Event event )
+  {
+    if( (this.out != null) && (this.ioEx == null) ) {
+      try {
+	writeVarLong( event.tStates - this.lastTStates );
+	this.lastTStates = event.tStates;
+	this.out.writeByte( event.type );
+	switch( event.type ) {
+	  case EVENT_KEY_PRESSED:
+	  case EVENT_JOYSTICK:
+	    writeVarLong( event.value );
+	    this.out.writeByte( event.extra );
+	    break;
+	  case EVENT_KEY_TYPED:
+	    this.out.writeChar( event.value );
+	    break;
+	}
+      }
+      catch( IOException ex ) {
+	this.ioEx = ex;
+      }
+    }
+  }
+
+
+  private void writeVarLong( long value ) throws IOException
+  {
+    while( (value & ~0x7FL) != 0 ) {
+      this.out.writeByte( (int) (value & 0x7F) | 0x80 );
+      value >>>= 7;
+    }
+    this.out.writeByte( (int) value );
+  }
+}
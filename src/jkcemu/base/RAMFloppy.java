@@ -14,7 +14,11 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Properties;
 import jkcemu.Main;
 import jkcemu.text.TextUtil;
@@ -25,6 +29,14 @@ public class RAMFloppy
   public static final String PROP_FILE    = "file";
   public static final String PROP_ENABLED = "enabled";
   public static final String PROP_KBYTE   = "kbyte";
+  public static final String PROP_MAPPED  = "file_mapped";
+
+  /*
+   * Fuer das inkrementelle Speichern werden die geaenderten Bereiche
+   * in Seiten zu 4 KByte gemerkt.
+   */
+  private static final int PAGE_SHIFT = 12;
+  private static final int PAGE_SIZE  = 1 << PAGE_SHIFT;
 
   public enum RFType { ADW, MP_3_1988, OTHER };
 
@@ -37,6 +49,11 @@ public class RAMFloppy
   private boolean          readOnly;
   private volatile boolean dataChanged;
   private byte[]           dataBuf;
+  private MappedByteBuffer mappedBuf;
+  private long             mappedFileLen;
+  private BitSet           dirtyPages;
+  private long             savedFileLen;
+  private long             savedFileLastModified;
   private String           infoText;
   private String           sysName;
   private File             file;
@@ -45,9 +62,11 @@ public class RAMFloppy
 
   public RAMFloppy()
   {
-    initRF();
     this.dataBuf      = null;
+    this.mappedBuf    = null;
+    this.dirtyPages   = new BitSet();
     this.ramFloppyFld = null;
+    initRF();
   }
 
 
@@ -55,9 +74,14 @@ public class RAMFloppy
   {
     this.endOfData   = 0;
     this.dataChanged = false;
-    if( this.dataBuf != null ) {
+    if( this.mappedBuf != null ) {
+      for( int i = 0; i < this.size; i++ ) {
+	this.mappedBuf.put( i, (byte) 0xE5 );
+      }
+    } else if( this.dataBuf != null ) {
       Arrays.fill( this.dataBuf, (byte) 0xE5 );
     }
+    markAllPagesDirty();
     fireRAMFloppyChanged();
   }
 
@@ -111,7 +135,9 @@ public class RAMFloppy
     int rv = 0xFF;
     if( (idx >= 0) && (idx < this.size) ) {
       rv = 0;
-      if( this.dataBuf != null ) {
+      if( this.mappedBuf != null ) {
+	rv = (int) this.mappedBuf.get( idx ) & 0xFF;
+      } else if( this.dataBuf != null ) {
 	if( idx < this.dataBuf.length ) {
 	  rv = (int) this.dataBuf[ idx ] & 0xFF;
 	}
@@ -154,6 +180,17 @@ public class RAMFloppy
   }
 
 
+  /*
+   * Die Methode gibt an, ob die RAM-Floppy direkt
+   * auf einer eingeblendeten Datei arbeitet.
+   * In dem Fall werden Aenderungen automatisch gespeichert.
+   */
+  public boolean isFileMapped()
+  {
+    return this.mappedBuf != null;
+  }
+
+
   public void install(
 		String     sysName,
 		RFType     rfType,
@@ -161,11 +198,37 @@ public class RAMFloppy
 		String     infoText,
 		String     fileName )
   {
+    install( sysName, rfType, size, infoText, fileName, false );
+  }
+
+
+  public void install(
+		String     sysName,
+		RFType     rfType,
+		int        size,
+		String     infoText,
+		String     fileName,
+		boolean    fileMapped )
+  {
+    /*
+     * Auch ein Wechsel zwischen eingeblendeter Datei und Arbeitsspeicher
+     * bzw. ein Wechsel der eingeblendeten Datei erfordert
+     * eine Neuinstallation.
+     */
+    boolean mapped = fileMapped && (fileName != null);
+    if( mapped ) {
+      mapped = !fileName.isEmpty();
+    }
     if( !TextUtil.equals( sysName, this.sysName )
 	|| (rfType != this.rfType)
 	|| (size != this.size)
-	|| !TextUtil.equals( infoText, this.infoText ) )
+	|| !TextUtil.equals( infoText, this.infoText )
+	|| (mapped != (this.mappedBuf != null))
+	|| (mapped
+		&& ((this.file == null)
+		    || !fileName.equals( this.file.getPath() ))) )
     {
+      unmapFile();
       this.rfType      = rfType;
       this.size        = size;
       this.addr        = 0;
@@ -188,7 +251,11 @@ public class RAMFloppy
 	  }
 	  if( state ) {
 	    try {
-	      load( new File( fileName ) );
+	      if( fileMapped ) {
+		mapFile( new File( fileName ) );
+	      } else {
+		load( new File( fileName ) );
+	      }
 	    }
 	    catch( IOException ex ) {
 	      EmuUtil.fireShowErrorDlg(
@@ -206,6 +273,27 @@ public class RAMFloppy
 
   public void load( File file ) throws IOException
   {
+    if( this.mappedBuf != null ) {
+      if( file.equals( this.file ) ) {
+	/*
+	 * Die eingeblendete Datei selbst soll geladen werden.
+	 * Ihr Inhalt steht bereits in der RAM-Floppy.
+	 */
+	this.mappedBuf.force();
+	this.dataChanged = false;
+	fireRAMFloppyChanged();
+	return;
+      }
+      /*
+       * Die eingeblendete Datei darf nicht mit dem Inhalt
+       * einer anderen Datei ueberschrieben werden.
+       * Deshalb wird sie ausgeblendet und die andere Datei
+       * in den Arbeitsspeicher geladen.
+       */
+      unmapFile();
+      this.file = null;
+      markAllPagesDirty();
+    }
     ensureBufferSize();
     if( this.dataBuf != null ) {
       InputStream in = null;
@@ -218,6 +306,9 @@ public class RAMFloppy
 	for( int i = this.endOfData; i < this.dataBuf.length; i++ ) {
 	  this.dataBuf[ i ] = (byte) 0;
 	}
+	in.close();
+	in = null;
+	fileSaved( file );
 	fireRAMFloppyChanged();
       }
       finally {
@@ -250,7 +341,11 @@ public class RAMFloppy
 		infoText,
 		EmuUtil.getProperty(
 			props,
-			propPrefix + PROP_FILE ) );
+			propPrefix + PROP_FILE ),
+		EmuUtil.getBooleanProperty(
+			props,
+			propPrefix + PROP_MAPPED,
+			false ) );
 	  rv = rf;
 	}
       } else {
@@ -263,7 +358,11 @@ public class RAMFloppy
 		infoText,
 		EmuUtil.getProperty(
 			props,
-			propPrefix + PROP_FILE ) );
+			propPrefix + PROP_FILE ),
+		EmuUtil.getBooleanProperty(
+			props,
+			propPrefix + PROP_MAPPED,
+			false ) );
 	  rv = rf;
 	}
       }
@@ -310,26 +409,81 @@ public class RAMFloppy
   }
 
 
+  /*
+   * Wird in die gleiche Datei gespeichert, aus der die RAM-Floppy
+   * geladen bzw. in die sie zuletzt gespeichert wurde,
+   * und wurde die Datei zwischenzeitlich nicht veraendert,
+   * werden nur die geaenderten Bereiche geschrieben.
+   */
   public void save( File file ) throws IOException
   {
-    OutputStream out = null;
-    try {
-      out = new FileOutputStream( file );
-      if( this.dataBuf != null ) {
-	out.write(
+    if( (this.mappedBuf != null) && file.equals( this.file ) ) {
+      this.mappedBuf.force();
+      this.dataChanged = false;
+      fireRAMFloppyChanged();
+    } else if( (this.mappedBuf == null)
+	       && (this.dataBuf != null)
+	       && file.equals( this.file )
+	       && (file.length() == this.savedFileLen)
+	       && (file.lastModified() == this.savedFileLastModified) )
+    {
+      RandomAccessFile raf = null;
+      try {
+	raf     = new RandomAccessFile( file, "rw" );
+	int len = Math.min( this.endOfData, this.dataBuf.length );
+
+	// Bereich hinter dem bisherigen Dateiende ist auch geaendert
+	int page = (int) (this.savedFileLen >> PAGE_SHIFT);
+	while( (page << PAGE_SHIFT) < len ) {
+	  this.dirtyPages.set( page++ );
+	}
+	page = this.dirtyPages.nextSetBit( 0 );
+	while( (page >= 0) && ((page << PAGE_SHIFT) < len) ) {
+	  int pos = page << PAGE_SHIFT;
+	  raf.seek( pos );
+	  raf.write( this.dataBuf, pos, Math.min( PAGE_SIZE, len - pos ) );
+	  page = this.dirtyPages.nextSetBit( page + 1 );
+	}
+	raf.setLength( len );
+	raf.close();
+	raf = null;
+
+	this.dataChanged = false;
+	fileSaved( file );
+	fireRAMFloppyChanged();
+      }
+      finally {
+	EmuUtil.closeSilently( raf );
+      }
+    } else {
+      OutputStream out = null;
+      try {
+	out = new FileOutputStream( file );
+	if( this.mappedBuf != null ) {
+	  byte[] buf = new byte[ Math.min( this.endOfData, this.size ) ];
+	  for( int i = 0; i < buf.length; i++ ) {
+	    buf[ i ] = this.mappedBuf.get( i );
+	  }
+	  out.write( buf );
+	} else if( this.dataBuf != null ) {
+	  out.write(
 		this.dataBuf,
 		0,
 		Math.min( this.endOfData, this.dataBuf.length ) );
-      }
-      out.close();
-      out = null;
+	}
+	out.close();
+	out = null;
 
-      this.file        = file;
-      this.dataChanged = false;
-      fireRAMFloppyChanged();
-    }
-    finally {
-      EmuUtil.closeSilently( out );
+	this.dataChanged = false;
+	if( this.mappedBuf == null ) {
+	  this.file = file;
+	  fileSaved( file );
+	}
+	fireRAMFloppyChanged();
+      }
+      finally {
+	EmuUtil.closeSilently( out );
+      }
     }
   }
 
@@ -338,16 +492,27 @@ public class RAMFloppy
   {
     boolean rv = false;
     if( (idx >= 0) && (idx < this.size) ) {
-      ensureBufferSize();
-      if( this.dataBuf != null ) {
-	if( idx < this.dataBuf.length ) {
-	  this.dataBuf[ idx ] = (byte) value;
-	  if( idx >= this.endOfData ) {
-	    this.endOfData = idx + 1;
-	  }
-	  this.dataChanged = true;
+      if( this.mappedBuf != null ) {
+	// Aenderung landet direkt in der eingeblendeten Datei
+	this.mappedBuf.put( idx, (byte) value );
+	if( idx >= this.endOfData ) {
+	  this.endOfData = idx + 1;
 	  fireRAMFloppyChanged();
-	  rv = true;
+	}
+	rv = true;
+      } else {
+	ensureBufferSize();
+	if( this.dataBuf != null ) {
+	  if( idx < this.dataBuf.length ) {
+	    this.dataBuf[ idx ] = (byte) value;
+	    if( idx >= this.endOfData ) {
+	      this.endOfData = idx + 1;
+	    }
+	    this.dirtyPages.set( idx >> PAGE_SHIFT );
+	    this.dataChanged = true;
+	    fireRAMFloppyChanged();
+	    rv = true;
+	  }
 	}
       }
       fireRAMFloppyAccess();
@@ -418,6 +583,14 @@ public class RAMFloppy
   }
 
 
+  private void fileSaved( File file )
+  {
+    this.dirtyPages.clear();
+    this.savedFileLen          = file.length();
+    this.savedFileLastModified = file.lastModified();
+  }
+
+
   private void fireRAMFloppyAccess()
   {
     RAMFloppyFld fld = this.ramFloppyFld;
@@ -450,6 +623,7 @@ public class RAMFloppy
 
   private void initRF()
   {
+    unmapFile();
     this.rfType          = RFType.OTHER;
     this.size            = 0;
     this.addr            = 0;
@@ -461,5 +635,79 @@ public class RAMFloppy
     this.infoText        = null;
     this.sysName         = null;
     this.file            = null;
+    markAllPagesDirty();
+  }
+
+
+  /*
+   * Die Methode blendet die Datei als Speicher der RAM-Floppy ein.
+   * Die Datei wird dazu bei Bedarf auf die Groesse der RAM-Floppy
+   * erweitert und beim Ausblenden wieder auf den beschriebenen Bereich
+   * gekuerzt.
+   */
+  private void mapFile( File file ) throws IOException
+  {
+    RandomAccessFile raf = null;
+    try {
+      raf      = new RandomAccessFile( file, "rw" );
+      long len = raf.length();
+      if( len < this.size ) {
+	raf.setLength( this.size );
+      }
+      this.mappedBuf = raf.getChannel().map(
+					FileChannel.MapMode.READ_WRITE,
+					0,
+					this.size );
+      raf.close();
+      raf = null;
+
+      this.mappedFileLen = len;
+      this.endOfData     = (int) Math.min( len, this.size );
+      this.file        = file;
+      this.dataChanged = false;
+      this.dataBuf     = null;
+      fireRAMFloppyChanged();
+    }
+    finally {
+      EmuUtil.closeSilently( raf );
+    }
+  }
+
+
+  private void markAllPagesDirty()
+  {
+    this.dirtyPages.clear();
+    this.savedFileLen          = -1;
+    this.savedFileLastModified = -1;
+  }
+
+
+  private void unmapFile()
+  {
+    MappedByteBuffer mappedBuf = this.mappedBuf;
+    if( mappedBuf != null ) {
+      this.mappedBuf = null;
+      mappedBuf.force();
+      File file = this.file;
+      if( (file != null) && (this.mappedFileLen < this.size) ) {
+	RandomAccessFile raf = null;
+	try {
+	  raf = new RandomAccessFile( file, "rw" );
+	  raf.setLength( this.endOfData );
+	  raf.close();
+	  raf = null;
+	}
+	catch( IOException ex ) {
+	  /*
+	   * Die Datei laesst sich auf manchen Plattformen nicht kuerzen,
+	   * solange sie noch eingeblendet ist.
+	   * Sie bleibt dann einfach in voller Groesse bestehen.
+	   */
+	}
+	finally {
+	  EmuUtil.closeSilently( raf );
+	}
+      }
+    }
   }
 }
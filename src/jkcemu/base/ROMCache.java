@@ -0,0 +1,173 @@
+/*
+ * (c) 2021 Jens Mueller
+ *
+ * Kleincomputer-Emulator
+ *
+ * Prozessweiter Zwischenspeicher fuer ROM-Inhalte
+ *
+ * ROM-Dateien werden beim Systemwechsel, beim Neuladen der ROMs
+ * nach dem Einschalten und von jeder Emulatorinstanz erneut angefordert.
+ * Der Inhalt einer Datei wird deshalb nur dann neu gelesen,
+ * wenn sich ihre Groesse oder ihr Aenderungszeitpunkt geaendert hat.
+ * Alle Anforderer erhalten dasselbe Array, das nicht veraendert
+ * werden darf.
+ * Damit ein versehentlich veraendertes Array nicht an weitere Anforderer
+ * gelangt, wird bei jedem Treffer die beim Lesen gebildete Pruefsumme
+ * verglichen und bei einer Abweichung der Inhalt neu gelesen.
+ */
+
+package jkcemu.base;
+
+import java.awt.Component;
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+import jkcemu.file.FileUtil;
+
+
+public class ROMCache
+{
+  private static class ROMData
+  {
+    private long   lastModified;
+    private long   length;
+    private int    maxLen;
+    private long   crc;
+    private byte[] bytes;
+
+    private ROMData( long lastModified, long length, int maxLen )
+    {
+      this.lastModified = lastModified;
+      this.length       = length;
+      this.maxLen       = maxLen;
+      this.crc          = 0;
+      this.bytes        = null;
+    }
+
+    private boolean isUpToDate( File file, int maxLen )
+    {
+      return (file.lastModified() == this.lastModified)
+		&& (file.length() == this.length)
+		&& (maxLen == this.maxLen)
+		&& (computeCRC( this.bytes ) == this.crc);
+    }
+
+    private boolean isValid()
+    {
+      return computeCRC( this.bytes ) == this.crc;
+    }
+
+    private void setBytes( byte[] bytes )
+    {
+      this.bytes = bytes;
+      this.crc   = computeCRC( bytes );
+    }
+  };
+
+
+  private static final Map<File,ROMData>   files     = new HashMap<>();
+  private static final Map<String,ROMData> resources = new HashMap<>();
+
+
+  public static void clear()
+  {
+    synchronized( files ) {
+      files.clear();
+    }
+    synchronized( resources ) {
+      resources.clear();
+    }
+  }
+
+
+  /*
+   * Lesen einer ROM-Datei
+   *
+   * Das zurueckgelieferte Array darf nicht veraendert werden.
+   * Kann die Datei nicht gelesen werden, wird eine Fehlermeldung
+   * angezeigt und null zurueckgeliefert.
+   */
+  public static byte[] readFile(
+			Component owner,
+			String    fileName,
+			int       maxLen,
+			String    objName )
+  {
+    byte[] rv = null;
+    if( fileName != null ) {
+      if( !fileName.isEmpty() ) {
+	File    file = new File( fileName ).getAbsoluteFile();
+	ROMData data = null;
+	synchronized( files ) {
+	  data = files.get( file );
+	}
+	if( data != null ) {
+	  if( data.isUpToDate( file, maxLen ) ) {
+	    rv = data.bytes;
+	  }
+	}
+	if( rv == null ) {
+	  data = new ROMData( file.lastModified(), file.length(), maxLen );
+	  rv   = FileUtil.readFile( owner, fileName, true, maxLen, objName );
+	  if( rv != null ) {
+	    data.setBytes( rv );
+	    synchronized( files ) {
+	      files.put( file, data );
+	    }
+	  }
+	}
+      }
+    }
+    return rv;
+  }
+
+
+  /*
+   * Lesen einer ROM-Resource
+   *
+   * Das zurueckgelieferte Array darf nicht veraendert werden.
+   */
+  public static byte[] readResource( Component owner, String resource )
+  {
+    byte[]  rv   = null;
+    ROMData data = null;
+    synchronized( resources ) {
+      data = resources.get( resource );
+    }
+    if( data != null ) {
+      if( data.isValid() ) {
+	rv = data.bytes;
+      }
+    }
+    if( rv == null ) {
+      rv = EmuUtil.readResource( owner, resource );
+      if( rv.length > 0 ) {
+	data = new ROMData( 0L, rv.length, -1 );
+	data.setBytes( rv );
+	synchronized( resources ) {
+	  resources.put( resource, data );
+	}
+      }
+    }
+    return rv;
+  }
+
+
+	/* --- private Methoden --- */
+
+  private static long computeCRC( byte[] bytes )
+  {
+    CRC32 crc = new CRC32();
+    crc.update( bytes, 0, bytes.length );
+    return crc.getValue();
+  }
+
+
+	/* --- Konstruktor --- */
+
+  private ROMCache()
+  {
+    // Klasse nicht instanziierbar
+  }
+}
@@ -64,6 +64,7 @@ import jkcemu.disk.AbstractFloppyDisk;
 import jkcemu.disk.DiskImgCreateFrm;
 import jkcemu.disk.DiskImgProcessDlg;
 import jkcemu.disk.DiskImgViewFrm;
+import jkcemu.disk.DiskOverlay;
 import jkcemu.disk.DiskUtil;
 import jkcemu.disk.DriveSelectDlg;
 import jkcemu.disk.FloppyDiskStationFrm;
@@ -125,6 +126,9 @@ public class ScreenFrm
 
   private static final String TEXT_OPEN_SETTINGS = "Einstellungen...";
 
+  private static final String TEXT_NO_DISKOVERLAY_CHANGES
+		= "Es gibt keine Overlay-\u00C4nderungen an Abbilddateien.";
+
   private static final String TEXT_MAX_SPEED    = "Maximale Geschwindigkeit";
   private static final String TEXT_STD_SPEED    = "Standard-Geschwindigkeit";
   private static final String PROP_SCREEN_SCALE = "jkcemu.screen.scale";
@@ -148,6 +152,10 @@ public class ScreenFrm
   private static final String ACTION_DISKIMAGE_CAPTURE = "diskimage.capture";
   private static final String ACTION_DISKIMAGE_UNPACK  = "diskimage.unpack";
   private static final String ACTION_DISKIMAGE_WRITE   = "diskimage.write";
+  private static final String ACTION_DISKOVERLAY_COMMIT
+						= "diskoverlay.commit";
+  private static final String ACTION_DISKOVERLAY_DISCARD
+						= "diskoverlay.discard";
   private static final String ACTION_DISKVIEWER        = "diskviewer";
   private static final String ACTION_FILEBROWSER       = "filebrowser";
   private static final String ACTION_FILECONVERTER     = "fileconverter";
@@ -492,6 +500,16 @@ public class ScreenFrm
     mnuExtraTools.add( createMenuItem(
 			"Abbilddatei auf Datentr\u00E4ger schreiben...",
 			ACTION_DISKIMAGE_WRITE ) );
+    if( DiskOverlay.isEnabled() ) {
+      mnuExtraTools.addSeparator();
+      mnuExtraTools.add( createMenuItem(
+			"Overlay-\u00C4nderungen in Abbilddateien"
+				+ " \u00FCbernehmen...",
+			ACTION_DISKOVERLAY_COMMIT ) );
+      mnuExtraTools.add( createMenuItem(
+			"Overlay-\u00C4nderungen verwerfen...",
+			ACTION_DISKOVERLAY_DISCARD ) );
+    }
     this.mnuExtra.add( mnuExtraTools );
     this.mnuExtra.addSeparator();
 
@@ -893,6 +911,27 @@ public class ScreenFrm
   }
 
 
+  /*
+   * Die Methode liefert die CPU, die auf den uebergebenen Speicher
+   * zugreift, bzw. null, wenn diese nicht ermittelt werden kann.
+   */
+  public Z80CPU getZ80CPU( Z80Memory memory )
+  {
+    Z80CPU rv = null;
+    if( memory == this.emuThread ) {
+      rv = this.emuThread.getZ80CPU();
+    } else {
+      EmuSys emuSys = getEmuSys();
+      if( emuSys != null ) {
+	if( (memory != null) && (memory == emuSys.getSecondZ80Memory()) ) {
+	  rv = emuSys.getSecondZ80CPU();
+	}
+      }
+    }
+    return rv;
+  }
+
+
   public boolean isFullScreenMode()
   {
     return this.fullScreenMode;
@@ -1450,6 +1489,14 @@ public class ScreenFrm
 	  rv = true;
 	  DiskImgProcessDlg.writeDiskImageToDrive( this );
 	}
+	else if( actionCmd.equals( ACTION_DISKOVERLAY_COMMIT ) ) {
+	  rv = true;
+	  doExtraDiskOverlayCommit();
+	}
+	else if( actionCmd.equals( ACTION_DISKOVERLAY_DISCARD ) ) {
+	  rv = true;
+	  doExtraDiskOverlayDiscard();
+	}
 	else if( actionCmd.equals( ACTION_DISKVIEWER ) ) {
 	  rv = true;
 	  DiskImgViewFrm.open();
@@ -1562,8 +1609,13 @@ public class ScreenFrm
   @Override
   public boolean doQuit()
   {
+    // nicht uebernommene Overlay-Aenderungen
+    boolean rv = confirmDiskOverlays();
+
     // untergeordnete Fenster schliessen
-    boolean rv = EmuUtil.closeOtherFrames( this );
+    if( rv ) {
+      rv = EmuUtil.closeOtherFrames( this );
+    }
     if( rv ) {
 
       // Programmbeendigung nicht durch Exception verhindern lassen
@@ -1955,6 +2007,54 @@ public class ScreenFrm
   }
 
 
+  private void doExtraDiskOverlayCommit()
+  {
+    java.util.List<File> files = DiskOverlay.getChangedFiles(
+						this.emuThread.getContext() );
+    if( files.isEmpty() ) {
+      BaseDlg.showInfoDlg( this, TEXT_NO_DISKOVERLAY_CHANGES );
+    } else {
+      if( BaseDlg.showYesNoDlg(
+		this,
+		"Die Overlay-\u00C4nderungen werden in folgende"
+			+ " Abbilddateien geschrieben:\n"
+			+ createFileList( files )
+			+ "\nM\u00F6chten Sie fortsetzen?" ) )
+      {
+	try {
+	  DiskOverlay.commitAll( this.emuThread.getContext() );
+	}
+	catch( IOException ex ) {
+	  BaseDlg.showErrorDlg( this, ex );
+	}
+      }
+    }
+  }
+
+
+  private void doExtraDiskOverlayDiscard()
+  {
+    java.util.List<File> files = DiskOverlay.getChangedFiles(
+						this.emuThread.getContext() );
+    if( files.isEmpty() ) {
+      BaseDlg.showInfoDlg( this, TEXT_NO_DISKOVERLAY_CHANGES );
+    } else {
+      if( BaseDlg.showYesNoDlg(
+		this,
+		"Die Overlay-\u00C4nderungen an folgenden Abbilddateien"
+			+ " gehen verloren:\n"
+			+ createFileList( files )
+			+ "\nDas emulierte System sieht danach wieder"
+			+ " den Inhalt der Abbilddateien.\n"
+			+ "M\u00F6chten Sie fortsetzen?" ) )
+      {
+	DiskOverlay.discardAll( this.emuThread.getContext() );
+	FloppyDiskStationFrm.reloadTrackBuffers();
+      }
+    }
+  }
+
+
   private void doExtraDiskUnpack()
   {
     String driveFileName = DriveSelectDlg.selectDriveFileName(
@@ -2223,6 +2323,64 @@ public class ScreenFrm
   }
 
 
+  /*
+   * Die Methode fragt vor dem Beenden nach,
+   * was mit den noch nicht uebernommenen Overlay-Aenderungen
+   * geschehen soll.
+   *
+   * Rueckgabewert: true, wenn der Emulator beendet werden darf
+   */
+  private boolean confirmDiskOverlays()
+  {
+    boolean              rv    = true;
+    java.util.List<File> files = DiskOverlay.getChangedFiles(
+						this.emuThread.getContext() );
+    if( !files.isEmpty() ) {
+      switch( BaseDlg.showOptionDlg(
+		this,
+		"Folgende Abbilddateien haben noch nicht \u00FCbernommene"
+			+ " Overlay-\u00C4nderungen:\n"
+			+ createFileList( files )
+			+ "\nSollen die \u00C4nderungen in die Abbilddateien"
+			+ " \u00FCbernommen werden?\n"
+			+ "Anderenfalls gehen sie beim Beenden verloren.",
+		"Overlay-\u00C4nderungen",
+		"\u00DCbernehmen",
+		"Verwerfen",
+		EmuUtil.TEXT_CANCEL ) )
+      {
+	case 0:
+	  try {
+	    DiskOverlay.commitAll( this.emuThread.getContext() );
+	  }
+	  catch( IOException ex ) {
+	    BaseDlg.showErrorDlg( this, ex );
+	    rv = false;
+	  }
+	  break;
+	case 1:
+	  DiskOverlay.discardAll( this.emuThread.getContext() );
+	  break;
+	default:
+	  rv = false;
+      }
+    }
+    return rv;
+  }
+
+
+  private static String createFileList( java.util.List<File> files )
+  {
+    StringBuilder buf = new StringBuilder();
+    for( File file : files ) {
+      buf.append( "  " );
+      buf.append( file.getPath() );
+      buf.append( '\n' );
+    }
+    return buf.toString();
+  }
+
+
   private void checkUpdTrayIcon()
   {
     boolean state = false;
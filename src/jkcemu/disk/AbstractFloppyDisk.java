@@ -536,6 +536,17 @@ public abstract class AbstractFloppyDisk
   }
 
 
+  /*
+   * Die Methode gibt an, ob sich das spurweise Vorauslesen lohnt,
+   * d.h. ob die Sektoren einzeln aus einer Datei
+   * oder von einem Geraet gelesen werden.
+   */
+  public boolean supportsTrackReadAhead()
+  {
+    return false;
+  }
+
+
   protected static void throwSectorSpaceTooSmall(
 				int cyl,
 				int head,
@@ -0,0 +1,818 @@
+/*
+ * (c) 2021 Jens Mueller
+ *
+ * Kleincomputer-Emulator
+ *
+ * Kommandozeilenschnittstelle zum Konvertieren und Erzeugen
+ * von Diskettenabbilddateien im Stapelbetrieb
+ *
+ * Die Dateien werden ohne grafische Oberflaeche verarbeitet,
+ * und zwar parallel in mehreren Threads
+ * (standardmaessig so viele, wie Prozessorkerne vorhanden sind).
+ * Fuer jede Datei wird eine Ergebniszeile ausgegeben.
+ *
+ * Beim rekursiven Durchsuchen wird die Verzeichnisstruktur
+ * unterhalb des Ausgabeverzeichnisses nachgebildet.
+ * Die Namen aller Ausgabedateien werden vor dem Start der Threads
+ * ermittelt, sodass zwei Quelldateien, die dieselbe Ausgabedatei
+ * ergeben wuerden, vorher erkannt und abgelehnt werden.
+ */
+
+package jkcemu.disk;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import jkcemu.Main;
+import jkcemu.base.EmuUtil;
+import jkcemu.file.FileUtil;
+import jkcemu.programming.CmdLineArgIterator;
+import jkcemu.text.TextUtil;
+
+
+public class CmdLineDiskImgConverter implements Runnable
+{
+  private static final String[] usageLines = {
+	"",
+	"Aufruf:",
+	"  java -jar jkcemu.jar --dx [Optionen] <Datei|Verzeichnis>...",
+	"  java -jar jkcemu.jar --diskconverter [Optionen]"
+					+ " <Datei|Verzeichnis>...",
+	"",
+	"Optionen:",
+	"  -h              diese Hilfe anzeigen",
+	"  -f <Datei>      Kommandozeile aus Datei lesen",
+	"  -o <Verz.>      Ausgabeverzeichnis (Pflichtangabe)",
+	"  -t <Endung>     Zielformat anhand der Dateiendung festlegen:",
+	"                    img, dump, cqm, dsk, imd oder td0,"
+					+ " jeweils optional mit .gz",
+	"                    (Standard: img)",
+	"  -c              Abbilddateien aus Verzeichnissen erzeugen",
+	"                    (jedes angegebene Verzeichnis ergibt"
+					+ " eine Abbilddatei)",
+	"  -F <Format>     Diskettenformat beim Erzeugen"
+					+ " (Standard: 780k):",
+	"                    400k, 624k, 702k_ds, 711k_basdos, 720k,"
+					+ " 780k, 780k_i2,",
+	"                    780k_i3, 780k_ds, 800k_i4, 1200k, 1440k"
+					+ " oder 1738k_ds",
+	"  -j <Anzahl>     Anzahl der parallel arbeitenden Threads",
+	"  -r              Verzeichnisse beim Konvertieren rekursiv"
+					+ " durchsuchen",
+	"  -R <Text>       Kommentar f\u00FCr CopyQM-, ImageDisk-"
+					+ " und TeleDisk-Dateien",
+	"  -w              vorhandene Ausgabedateien \u00FCberschreiben",
+	"" };
+
+  private static final Object[][] formats = {
+		{ "400k",        FloppyDiskFormat.FMT_400K },
+		{ "624k",        FloppyDiskFormat.FMT_624K },
+		{ "702k_ds",     FloppyDiskFormat.FMT_702K_I3_DS },
+		{ "711k_basdos", FloppyDiskFormat.FMT_711K_I5_BASDOS },
+		{ "720k",        FloppyDiskFormat.FMT_720K },
+		{ "780k",        FloppyDiskFormat.FMT_780K },
+		{ "780k_i2",     FloppyDiskFormat.FMT_780K_I2 },
+		{ "780k_i3",     FloppyDiskFormat.FMT_780K_I3 },
+		{ "780k_ds",     FloppyDiskFormat.FMT_780K_I3_DS },
+		{ "800k_i4",     FloppyDiskFormat.FMT_800K_I4 },
+		{ "1200k",       FloppyDiskFormat.FMT_1200K },
+		{ "1440k",       FloppyDiskFormat.FMT_1440K },
+		{ "1738k_ds",    FloppyDiskFormat.FMT_1738K_I3_DS } };
+
+  private java.util.List<File>   srcFiles;
+  private java.util.List<String> srcSubDirs;
+  private java.util.List<File>   outFiles;
+  private File                   outDir;
+  private String               outExt;
+  private boolean              createMode;
+  private boolean              overwrite;
+  private FloppyDiskFormat     fmt;
+  private String               remark;
+  private int                  nextIdx;
+  private int                  nOK;
+  private int                  nFailed;
+
+
+  public static boolean execute( String[] args, int argIdx )
+  {
+    java.util.List<String> srcNames = new ArrayList<>();
+
+    boolean status     = false;
+    boolean helpFlag   = false;
+    boolean createMode = false;
+    boolean recursive  = false;
+    boolean overwrite  = false;
+    String  outDirName = null;
+    String  outExt     = "img";
+    String  fmtName    = "780k";
+    String  remark     = null;
+    int     nThreads   = Runtime.getRuntime().availableProcessors();
+
+    CmdLineArgIterator backIter = null;
+    CmdLineArgIterator iter     = CmdLineArgIterator.createFromStringArray(
+								args,
+								argIdx );
+    try {
+      String arg = iter.next();
+      while( arg != null ) {
+	if( !arg.isEmpty() ) {
+	  if( arg.charAt( 0 ) == '-' ) {
+	    int len = arg.length();
+	    if( len < 2 ) {
+	      throwWrongCmdLine();
+	    }
+	    int pos = 1;
+	    while( pos < len ) {
+	      char ch = arg.charAt( pos++ );
+	      switch( ch ) {
+		case 'f':
+		  {
+		    if( backIter != null ) {
+		      throw new IOException(
+			"Option -f in der Datei nicht erlaubt" );
+		    }
+		    String fileName = null;
+		    if( pos < len ) {
+		      fileName = arg.substring( pos );
+		      pos      = len;		// Schleife verlassen
+		    } else {
+		      fileName = iter.next();
+		    }
+		    if( fileName == null ) {
+		      throwWrongCmdLine();
+		    }
+		    try {
+		      backIter = iter;
+		      iter     = CmdLineArgIterator.createFromReader(
+					new FileReader( fileName ) );
+		    }
+		    catch( IOException ex ) {
+		      iter     = backIter;
+		      backIter = null;
+		    }
+		  }
+		  break;
+		case 'h':
+		case 'H':
+		  helpFlag = true;
+		  break;
+		case 'c':
+		  createMode = true;
+		  break;
+		case 'r':
+		  recursive = true;
+		  break;
+		case 'w':
+		  overwrite = true;
+		  break;
+		case 'o':
+		case 't':
+		case 'F':
+		case 'j':
+		case 'R':
+		  {
+		    String value = null;
+		    if( pos < len ) {
+		      value = arg.substring( pos );
+		      pos   = len;		// Schleife verlassen
+		    } else {
+		      value = iter.next();
+		    }
+		    if( value == null ) {
+		      throwWrongCmdLine();
+		    }
+		    switch( ch ) {
+		      case 'o':
+			outDirName = value;
+			break;
+		      case 't':
+			outExt = value;
+			break;
+		      case 'F':
+			fmtName = value;
+			break;
+		      case 'j':
+			try {
+			  nThreads = Integer.parseInt( value.trim() );
+			}
+			catch( NumberFormatException ex ) {
+			  nThreads = 0;
+			}
+			if( nThreads < 1 ) {
+			  throw new IOException(
+				"Ung\u00FCltige Anzahl an Threads" );
+			}
+			break;
+		      case 'R':
+			remark = value;
+			break;
+		    }
+		  }
+		  break;
+		default:
+		  throw new IOException(
+			String.format( "Unbekannte Option \'%c\'", ch ) );
+	      }
+	    }
+	  } else {
+	    srcNames.add( arg );
+	  }
+	}
+	arg = iter.next();
+	if( (arg == null) && (backIter != null) ) {
+	  EmuUtil.closeSilently( iter );
+	  iter     = backIter;
+	  backIter = null;
+	  arg      = iter.next();
+	}
+      }
+      if( helpFlag ) {
+	Main.printlnOut();
+	Main.printlnOut( Main.APPINFO + " Diskettenabbilddatei-Konverter" );
+	for( String s : usageLines ) {
+	  Main.printlnOut( s );
+	}
+	status = true;
+      } else {
+
+	// Zielformat
+	outExt = outExt.toLowerCase();
+	if( outExt.startsWith( "." ) ) {
+	  outExt = outExt.substring( 1 );
+	}
+	if( !isSupportedOutExt( "." + outExt ) ) {
+	  throw new IOException( "Zielformat \'" + outExt
+				+ "\' wird nicht unterst\u00FCtzt" );
+	}
+
+	// Diskettenformat
+	FloppyDiskFormat fmt = null;
+	for( Object[] entry : formats ) {
+	  if( fmtName.equalsIgnoreCase( (String) entry[ 0 ] ) ) {
+	    fmt = (FloppyDiskFormat) entry[ 1 ];
+	    break;
+	  }
+	}
+	if( fmt == null ) {
+	  throw new IOException( "Unbekanntes Diskettenformat \'"
+							+ fmtName + "\'" );
+	}
+
+	// Ausgabeverzeichnis
+	if( outDirName == null ) {
+	  throw new IOException( "Ausgabeverzeichnis nicht angegeben" );
+	}
+	File outDir = new File( outDirName );
+	if( !outDir.exists() ) {
+	  outDir.mkdirs();
+	}
+	if( !outDir.isDirectory() ) {
+	  throw new IOException( outDirName
+				+ ": Verzeichnis kann nicht angelegt werden" );
+	}
+
+	// Quelldateien bzw. -verzeichnisse
+	java.util.List<File>   srcFiles   = new ArrayList<>();
+	java.util.List<String> srcSubDirs = new ArrayList<>();
+	for( String srcName : srcNames ) {
+	  File file = new File( srcName );
+	  if( createMode ) {
+	    if( !file.isDirectory() ) {
+	      throw new IOException( srcName + ": Verzeichnis erwartet" );
+	    }
+	    srcFiles.add( file );
+	    srcSubDirs.add( null );
+	  } else {
+	    collectFiles( srcFiles, srcSubDirs, file, null, recursive, true );
+	  }
+	}
+	if( srcFiles.isEmpty() ) {
+	  throw new IOException( createMode ?
+				"Kein Verzeichnis angegeben"
+				: "Keine Diskettenabbilddatei angegeben" );
+	}
+
+	// Verarbeitung starten
+	CmdLineDiskImgConverter converter = new CmdLineDiskImgConverter(
+							srcFiles,
+							srcSubDirs,
+							outDir,
+							outExt,
+							createMode,
+							overwrite,
+							fmt,
+							remark );
+	converter.initOutFiles();
+	status = converter.processAll( nThreads );
+      }
+    }
+    catch( IOException ex ) {
+      Main.printlnErr();
+      Main.printlnErr( Main.APPINFO + " Diskettenabbilddatei-Konverter:" );
+      String msg = ex.getMessage();
+      if( msg != null ) {
+	if( !msg.isEmpty() ) {
+	  Main.printlnErr( msg );
+	}
+      }
+      for( String s : usageLines ) {
+	Main.printlnErr( s );
+      }
+      status = false;
+    }
+    finally {
+      EmuUtil.closeSilently( iter );
+    }
+    return status;
+  }
+
+
+	/* --- Runnable --- */
+
+  @Override
+  public void run()
+  {
+    for(;;) {
+      File srcFile = null;
+      File outFile = null;
+      synchronized( this ) {
+	if( this.nextIdx < this.srcFiles.size() ) {
+	  srcFile = this.srcFiles.get( this.nextIdx );
+	  outFile = this.outFiles.get( this.nextIdx );
+	  this.nextIdx++;
+	}
+      }
+      if( srcFile == null ) {
+	break;
+      }
+      String  msg = null;
+      boolean ok  = false;
+      try {
+	checkOutFile( srcFile, outFile );
+	msg = this.createMode ?
+			createFile( srcFile, outFile )
+			: convertFile( srcFile, outFile );
+	ok  = true;
+      }
+      catch( Exception ex ) {
+	msg = ex.getMessage();
+	if( msg != null ) {
+	  if( msg.isEmpty() ) {
+	    msg = null;
+	  }
+	}
+	if( msg == null ) {
+	  msg = ex.getClass().getName();
+	}
+      }
+      report( srcFile, ok, msg );
+    }
+  }
+
+
+	/* --- Konstruktor --- */
+
+  private CmdLineDiskImgConverter(
+			java.util.List<File>   srcFiles,
+			java.util.List<String> srcSubDirs,
+			File                   outDir,
+			String                 outExt,
+			boolean                createMode,
+			boolean                overwrite,
+			FloppyDiskFormat       fmt,
+			String                 remark )
+  {
+    this.srcFiles   = srcFiles;
+    this.srcSubDirs = srcSubDirs;
+    this.outFiles   = new ArrayList<>();
+    this.outDir     = outDir;
+    this.outExt     = outExt;
+    this.createMode = createMode;
+    this.overwrite  = overwrite;
+    this.fmt        = fmt;
+    this.remark     = remark;
+    this.nextIdx    = 0;
+    this.nOK        = 0;
+    this.nFailed    = 0;
+  }
+
+
+	/* --- private Methoden --- */
+
+  /*
+   * Sammeln der Quelldateien
+   *
+   * Zu jeder Datei wird der Pfad des Unterverzeichnisses relativ
+   * zum angegebenen Verzeichnis bzw. null abgelegt.
+   */
+  private static void collectFiles(
+			java.util.List<File>   dstList,
+			java.util.List<String> subDirList,
+			File                   file,
+			String                 subDir,
+			boolean                recursive,
+			boolean                explicit ) throws IOException
+  {
+    if( file.isDirectory() ) {
+      if( explicit || recursive ) {
+	String childSubDir = subDir;
+	if( !explicit ) {
+	  childSubDir = (subDir != null ?
+				subDir + File.separator + file.getName()
+				: file.getName());
+	}
+	File[] files = file.listFiles();
+	if( files != null ) {
+	  Arrays.sort( files );
+	  for( File f : files ) {
+	    collectFiles(
+			dstList,
+			subDirList,
+			f,
+			childSubDir,
+			recursive,
+			false );
+	  }
+	}
+      }
+    } else if( file.isFile() ) {
+      if( explicit || isSupportedSrcFile( file ) ) {
+	dstList.add( file );
+	subDirList.add( subDir );
+      }
+    } else if( explicit ) {
+      throw new IOException( file.getPath()
+				+ ": Datei nicht gefunden" );
+    }
+  }
+
+
+  /*
+   * Konvertieren einer Diskettenabbilddatei
+   *
+   * Rueckgabewert: Hinweistext oder null
+   */
+  private String convertFile( File srcFile, File outFile )
+							throws IOException
+  {
+    AbstractFloppyDisk disk = DiskUtil.readNonPlainDiskFile(
+							null,
+							srcFile,
+							true );
+    if( disk == null ) {
+      if( !TextUtil.endsWith(
+			srcFile.getName().toLowerCase(),
+			DiskUtil.plainDiskFileExt )
+	  && !TextUtil.endsWith(
+			srcFile.getName().toLowerCase(),
+			DiskUtil.gzPlainDiskFileExt ) )
+      {
+	throw new IOException(
+			"Unbekanntes Format einer Diskettenabbilddatei" );
+      }
+      byte[] fileBytes = FileUtil.readFile(
+					srcFile,
+					true,
+					FloppyDiskFormat.getMaxDiskSize() );
+      FloppyDiskFormat fmt = FloppyDiskFormat.getFormatByDiskSize(
+						fileBytes != null ?
+							fileBytes.length
+							: 0 );
+      if( fmt == null ) {
+	throw new IOException( "Diskettenformat nicht erkannt" );
+      }
+      disk = PlainDisk.createForByteArray(
+					null,
+					srcFile.getPath(),
+					fileBytes,
+					fmt );
+    }
+    String msg = null;
+    try {
+      msg = exportDisk( disk, outFile );
+      String warningText = disk.getWarningText();
+      if( warningText != null ) {
+	msg = (msg != null ? msg + "\n" + warningText : warningText);
+      }
+    }
+    finally {
+      disk.closeSilently();
+    }
+    return msg;
+  }
+
+
+  /*
+   * Erzeugen einer Diskettenabbilddatei aus den Dateien eines Verzeichnisses
+   *
+   * Unterverzeichnisse mit den Namen 1 bis 15 werden
+   * als Benutzerbereiche eingebunden.
+   *
+   * Rueckgabewert: Hinweistext oder null
+   */
+  private String createFile( File srcDir, File outFile )
+							throws IOException
+  {
+    FloppyDiskFormat fmt     = this.fmt;
+    DiskImgCreator   creator = new DiskImgCreator(
+					fmt.getCylinders(),
+					fmt.getSides(),
+					fmt.getSysTracks(),
+					fmt.getSectorsPerTrack(),
+					fmt.getSectorSize(),
+					fmt.isBlockNum16Bit(),
+					fmt.getBlockSize(),
+					fmt.getDirBlocks(),
+					fmt.isDateStamperEnabled() );
+    StringBuilder msgBuf = new StringBuilder();
+    File[]        files  = srcDir.listFiles();
+    if( files != null ) {
+      Arrays.sort( files );
+      for( File file : files ) {
+	String fName = file.getName();
+	if( file.isDirectory() ) {
+	  int userNum = -1;
+	  try {
+	    userNum = Integer.parseInt( fName );
+	  }
+	  catch( NumberFormatException ex ) {}
+	  if( (userNum >= 1) && (userNum <= 15) ) {
+	    File[] subFiles = file.listFiles();
+	    if( subFiles != null ) {
+	      Arrays.sort( subFiles );
+	      for( File subFile : subFiles ) {
+		if( subFile.isFile() ) {
+		  addFile( creator, userNum, subFile, msgBuf );
+		}
+	      }
+	    }
+	  } else {
+	    appendMsg( msgBuf, fName + ": Verzeichnis ignoriert" );
+	  }
+	} else if( file.isFile() ) {
+	  if( fName.equalsIgnoreCase( DirectoryFloppyDisk.SYS_FILE_NAME ) ) {
+	    if( fmt.getSysTracks() > 0 ) {
+	      creator.fillSysTracks( file );
+	    } else {
+	      appendMsg( msgBuf, fName + ": Format hat keine Systemspuren" );
+	    }
+	  } else {
+	    addFile( creator, 0, file, msgBuf );
+	  }
+	}
+      }
+    }
+    byte[] diskBuf = creator.getPlainDiskByteBuffer();
+    if( isPlainDiskFile( outFile ) ) {
+      OutputStream out = null;
+      try {
+	out = FileUtil.createOptionalGZipOutputStream( outFile );
+	out.write( diskBuf );
+	out.close();
+	out = null;
+      }
+      finally {
+	EmuUtil.closeSilently( out );
+      }
+    } else {
+      PlainDisk disk = PlainDisk.createForByteArray(
+					null,
+					outFile.getPath(),
+					diskBuf,
+					fmt,
+					fmt.getInterleave() );
+      String msg = exportDisk( disk, outFile );
+      if( msg != null ) {
+	appendMsg( msgBuf, msg );
+      }
+    }
+    return msgBuf.length() > 0 ? msgBuf.toString() : null;
+  }
+
+
+  private static void addFile(
+			DiskImgCreator creator,
+			int            userNum,
+			File           file,
+			StringBuilder  msgBuf ) throws IOException
+  {
+    String fName     = file.getName();
+    String entryName = DiskImgCreateFrm.createEntryName( fName );
+    if( entryName == null ) {
+      appendMsg( msgBuf, fName + ": kein g\u00FCltiger CP/M-Dateiname,"
+						+ " Datei ignoriert" );
+    } else {
+      try {
+	creator.addFile( userNum, entryName, file, false, false, false );
+      }
+      catch( IOException ex ) {
+	/*
+	 * Die Abbilddatei ist damit unvollstaendig,
+	 * weshalb der Fehler an den Aufrufer weitergegeben wird.
+	 */
+	String msg = ex.getMessage();
+	throw new IOException( fName + ": "
+		+ (msg != null ? msg : "Datei kann nicht hinzugef\u00FCgt"
+							+ " werden") );
+      }
+    }
+  }
+
+
+  private static void appendMsg( StringBuilder msgBuf, String msg )
+  {
+    if( msgBuf.length() > 0 ) {
+      msgBuf.append( '\n' );
+    }
+    msgBuf.append( msg );
+  }
+
+
+  private String exportDisk(
+			AbstractFloppyDisk disk,
+			File               outFile ) throws IOException
+  {
+    String msg       = null;
+    String lowerName = outFile.getName().toLowerCase();
+    if( TextUtil.endsWith( lowerName, DiskUtil.anaDiskFileExt )
+	|| TextUtil.endsWith( lowerName, DiskUtil.gzAnaDiskFileExt ) )
+    {
+      msg = AnaDisk.export( disk, outFile );
+    }
+    else if( TextUtil.endsWith( lowerName, DiskUtil.copyQMFileExt )
+	     || TextUtil.endsWith( lowerName, DiskUtil.gzCopyQMFileExt ) )
+    {
+      msg = CopyQMDisk.export( disk, outFile, this.remark );
+    }
+    else if( TextUtil.endsWith( lowerName, DiskUtil.dskFileExt )
+	     || TextUtil.endsWith( lowerName, DiskUtil.gzDskFileExt ) )
+    {
+      msg = CPCDisk.export( disk, outFile );
+    }
+    else if( TextUtil.endsWith( lowerName, DiskUtil.imageDiskFileExt )
+	     || TextUtil.endsWith( lowerName, DiskUtil.gzImageDiskFileExt ) )
+    {
+      msg = ImageDisk.export( disk, outFile, this.remark );
+    }
+    else if( TextUtil.endsWith( lowerName, DiskUtil.teleDiskFileExt )
+	     || TextUtil.endsWith( lowerName, DiskUtil.gzTeleDiskFileExt ) )
+    {
+      msg = TeleDisk.export( disk, outFile, this.remark );
+    } else {
+      msg = PlainDisk.export( disk, outFile );
+    }
+    return msg;
+  }
+
+
+  private void checkOutFile( File srcFile, File outFile ) throws IOException
+  {
+    if( outFile.getCanonicalFile().equals( srcFile.getCanonicalFile() ) ) {
+      throw new IOException( "Quell- und Zieldatei sind identisch" );
+    }
+    if( !this.overwrite && outFile.exists() ) {
+      throw new IOException( outFile.getPath()
+				+ ": Ausgabedatei existiert bereits" );
+    }
+    File dirFile = outFile.getParentFile();
+    if( dirFile != null ) {
+      if( !dirFile.exists() ) {
+	dirFile.mkdirs();
+      }
+    }
+  }
+
+
+  private File getOutFile( File srcFile, String subDir )
+  {
+    String baseName = srcFile.getName();
+    if( !srcFile.isDirectory() ) {
+      String lowerName = baseName.toLowerCase();
+      if( lowerName.endsWith( ".gz" ) ) {
+	baseName  = baseName.substring( 0, baseName.length() - 3 );
+	lowerName = lowerName.substring( 0, lowerName.length() - 3 );
+      }
+      int pos = lowerName.lastIndexOf( '.' );
+      if( pos > 0 ) {
+	baseName = baseName.substring( 0, pos );
+      }
+    }
+    File dirFile = this.outDir;
+    if( subDir != null ) {
+      dirFile = new File( dirFile, subDir );
+    }
+    return new File( dirFile, baseName + "." + this.outExt );
+  }
+
+
+  /*
+   * Die Methode ermittelt vor dem Start der Threads
+   * die Namen aller Ausgabedateien.
+   * Wuerden zwei Quelldateien dieselbe Ausgabedatei ergeben,
+   * wird abgebrochen, bevor eine Datei geschrieben wurde.
+   */
+  private void initOutFiles() throws IOException
+  {
+    Map<File,File> out2Src = new HashMap<>();
+    this.outFiles.clear();
+    for( int i = 0; i < this.srcFiles.size(); i++ ) {
+      File srcFile = this.srcFiles.get( i );
+      File outFile = getOutFile( srcFile, this.srcSubDirs.get( i ) );
+      File key     = outFile.getCanonicalFile();
+      File other   = out2Src.get( key );
+      if( other != null ) {
+	throw new IOException( outFile.getPath()
+		+ ": Ausgabedatei w\u00FCrde sowohl aus "
+		+ other.getPath() + " als auch aus "
+		+ srcFile.getPath() + " erzeugt werden" );
+      }
+      out2Src.put( key, srcFile );
+      this.outFiles.add( outFile );
+    }
+  }
+
+
+  private static boolean isPlainDiskFile( File file )
+  {
+    String lowerName = file.getName().toLowerCase();
+    return TextUtil.endsWith( lowerName, DiskUtil.plainDiskFileExt )
+	   || TextUtil.endsWith( lowerName, DiskUtil.gzPlainDiskFileExt );
+  }
+
+
+  private static boolean isSupportedOutExt( String ext )
+  {
+    ext = ext.toLowerCase();
+    if( ext.endsWith( ".gz" ) ) {
+      ext = ext.substring( 0, ext.length() - 3 );
+    }
+    return TextUtil.endsWith( ext, DiskUtil.plainDiskFileExt )
+	   || TextUtil.endsWith( ext, DiskUtil.anaDiskFileExt )
+	   || TextUtil.endsWith( ext, DiskUtil.copyQMFileExt )
+	   || TextUtil.endsWith( ext, DiskUtil.dskFileExt )
+	   || TextUtil.endsWith( ext, DiskUtil.imageDiskFileExt )
+	   || TextUtil.endsWith( ext, DiskUtil.teleDiskFileExt );
+  }
+
+
+  private static boolean isSupportedSrcFile( File file )
+  {
+    return isSupportedOutExt( file.getName() );
+  }
+
+
+  private boolean processAll( int nThreads )
+  {
+    nThreads = Math.min( nThreads, this.srcFiles.size() );
+    Thread[] threads = new Thread[ nThreads ];
+    for( int i = 0; i < threads.length; i++ ) {
+      threads[ i ] = new Thread(
+			Main.getThreadGroup(),
+			this,
+			"JKCEMU disk image converter " + (i + 1) );
+      threads[ i ].start();
+    }
+    for( Thread t : threads ) {
+      try {
+	t.join();
+      }
+      catch( InterruptedException ex ) {}
+    }
+    Main.printlnOut();
+    Main.printlnOut( String.format(
+			"%d Datei(en) erfolgreich, %d fehlgeschlagen",
+			this.nOK,
+			this.nFailed ) );
+    return this.nFailed == 0;
+  }
+
+
+  private synchronized void report( File srcFile, boolean ok, String msg )
+  {
+    if( ok ) {
+      this.nOK++;
+      Main.printlnOut( "OK      " + srcFile.getPath() );
+    } else {
+      this.nFailed++;
+      Main.printlnOut( "FEHLER  " + srcFile.getPath() );
+    }
+    if( msg != null ) {
+      for( String line : msg.split( "\n" ) ) {
+	if( !line.isEmpty() ) {
+	  Main.printlnOut( "        " + line );
+	}
+      }
+    }
+  }
+
+
+  private static void throwWrongCmdLine() throws IOException
+  {
+    throw new IOException( "Fehlerhafte Kommandozeile" );
+  }
+}
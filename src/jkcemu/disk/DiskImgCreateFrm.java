@@ -1384,7 +1384,7 @@ public class DiskImgCreateFrm
   }
 
 
-  private static String createEntryName( String fileName )
+  static String createEntryName( String fileName )
   {
     StringBuilder buf    = new StringBuilder( 12 );
     boolean       failed = false;
@@ -0,0 +1,338 @@
+/*
+ * (c) 2019 Jens Mueller
+ *
+ * Kleincomputer-Emulator
+ *
+ * Copy-On-Write-Ueberlagerung einer Disketten- oder Festplattenabbilddatei
+ *
+ * Ist der Overlay-Modus ueber die System-Property "jkcemu.disk.overlay"
+ * eingeschaltet ("memory" oder "file"), werden schreibende Zugriffe
+ * auf Abbilddateien nicht in die Datei selbst geschrieben,
+ * sondern sektorweise in einem Delta abgelegt.
+ * Das Delta liegt je nach Modus im Arbeitsspeicher
+ * oder in einer temporaeren Seitendatei.
+ * Lesezugriffe konsultieren zuerst das Delta
+ * und erst danach die (nur noch lesend geoeffnete) Abbilddatei.
+ * Somit koennen mehrere Emulatorinstanzen die gleiche Abbilddatei
+ * verwenden, ohne sie vorher kopieren zu muessen.
+ *
+ * Das Delta gilt fuer die gesamte Sitzung, d.h., es bleibt auch dann
+ * erhalten, wenn das Laufwerk bzw. der Festplattencontroller
+ * neu angelegt wird.
+ * Jede Emulatorinstanz (siehe jkcemu.base.EmuContext) hat ihre eigenen
+ * Deltas, sodass sich die Instanzen nicht gegenseitig beeinflussen.
+ * Es kann ueber das Menue Extra/Werkzeuge verworfen
+ * oder in die Abbilddatei uebernommen werden.
+ * Beim Beenden des Emulators wird nachgefragt,
+ * sofern noch nicht uebernommene Aenderungen vorhanden sind.
+ *
+ * Die Sektoren werden anhand ihrer Dateiposition identifiziert.
+ * Deshalb muss ein Sektor immer mit der gleichen Position
+ * gelesen und geschrieben werden.
+ */
+
+package jkcemu.disk;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.WeakHashMap;
+import jkcemu.base.EmuContext;
+import jkcemu.base.EmuUtil;
+
+
+public class DiskOverlay
+{
+  public static final String SYSPROP_OVERLAY = "jkcemu.disk.overlay";
+  public static final String VALUE_FILE      = "file";
+  public static final String VALUE_MEMORY    = "memory";
+
+  private static final Map<EmuContext,Map<File,DiskOverlay>> overlays
+							= new WeakHashMap<>();
+
+  private File                baseFile;
+  private File                deltaFile;
+  private RandomAccessFile    deltaRaf;
+  private Map<Long,byte[]>    memSectors;
+  private Map<Long,long[]>    fileSectors;	// Position und Laenge
+
+
+  /*
+   * Die Methode uebernimmt die Deltas aller Abbilddateien
+   * einer Emulatorinstanz in die jeweilige Abbilddatei.
+   */
+  public static void commitAll( EmuContext context ) throws IOException
+  {
+    for( DiskOverlay overlay : getAll( context ) ) {
+      overlay.commit();
+    }
+  }
+
+
+  /*
+   * Die Methode uebernimmt das Delta in die Abbilddatei
+   * und leert es anschliessend.
+   */
+  public synchronized void commit() throws IOException
+  {
+    if( !isEmpty() ) {
+      RandomAccessFile raf = null;
+      try {
+	raf = new RandomAccessFile( this.baseFile, "rw" );
+	for( Long pos : getSortedPositions() ) {
+	  byte[] buf = getSector( pos.longValue() );
+	  if( buf != null ) {
+	    raf.seek( pos.longValue() );
+	    raf.write( buf );
+	  }
+	}
+	raf.close();
+	raf = null;
+      }
+      finally {
+	EmuUtil.closeSilently( raf );
+      }
+      discard();
+    }
+  }
+
+
+  /*
+   * Die Methode verwirft das Delta.
+   */
+  public synchronized void discard()
+  {
+    if( this.memSectors != null ) {
+      this.memSectors.clear();
+    }
+    if( this.fileSectors != null ) {
+      this.fileSectors.clear();
+      if( this.deltaRaf != null ) {
+	try {
+	  this.deltaRaf.setLength( 0 );
+	}
+	catch( IOException ex ) {}
+      }
+    }
+  }
+
+
+  public static void discardAll( EmuContext context )
+  {
+    for( DiskOverlay overlay : getAll( context ) ) {
+      overlay.discard();
+    }
+  }
+
+
+  public File getBaseFile()
+  {
+    return this.baseFile;
+  }
+
+
+  /*
+   * Die Methode liefert die Abbilddateien,
+   * zu denen in der Emulatorinstanz
+   * noch nicht uebernommene Aenderungen vorhanden sind.
+   */
+  public static java.util.List<File> getChangedFiles( EmuContext context )
+  {
+    java.util.List<File> rv = new ArrayList<>();
+    for( DiskOverlay overlay : getAll( context ) ) {
+      if( !overlay.isEmpty() ) {
+	rv.add( overlay.getBaseFile() );
+      }
+    }
+    Collections.sort( rv );
+    return rv;
+  }
+
+
+  /*
+   * Die Methode liefert das Overlay einer Emulatorinstanz
+   * zu einer Abbilddatei.
+   * Ist der Overlay-Modus nicht eingeschaltet,
+   * wird null zurueckgeliefert.
+   */
+  public static DiskOverlay getOverlay( EmuContext context, File file )
+  {
+    DiskOverlay rv   = null;
+    String      mode = System.getProperty( SYSPROP_OVERLAY );
+    if( (file != null) && (mode != null) ) {
+      boolean fileMode = mode.equalsIgnoreCase( VALUE_FILE );
+      if( fileMode || mode.equalsIgnoreCase( VALUE_MEMORY ) ) {
+	File baseFile = file.getAbsoluteFile();
+	try {
+	  baseFile = file.getCanonicalFile();
+	}
+	catch( IOException ex ) {}
+	synchronized( overlays ) {
+	  Map<File,DiskOverlay> map = overlays.get( context );
+	  if( map == null ) {
+	    map = new HashMap<>();
+	    overlays.put( context, map );
+	  }
+	  rv = map.get( baseFile );
+	  if( rv == null ) {
+	    rv = new DiskOverlay( baseFile, fileMode );
+	    map.put( baseFile, rv );
+	  }
+	}
+      }
+    }
+    return rv;
+  }
+
+
+  public synchronized int getSectorCount()
+  {
+    int rv = 0;
+    if( this.memSectors != null ) {
+      rv = this.memSectors.size();
+    } else if( this.fileSectors != null ) {
+      rv = this.fileSectors.size();
+    }
+    return rv;
+  }
+
+
+  public synchronized boolean isEmpty()
+  {
+    return getSectorCount() == 0;
+  }
+
+
+  public static boolean isEnabled()
+  {
+    String mode = System.getProperty( SYSPROP_OVERLAY );
+    return (mode != null)
+		&& (mode.equalsIgnoreCase( VALUE_FILE )
+			|| mode.equalsIgnoreCase( VALUE_MEMORY ));
+  }
+
+
+  /*
+   * Die Methode liest einen Sektor aus dem Delta.
+   * Ist der Sektor im Delta nicht vorhanden,
+   * wird false zurueckgeliefert und der Puffer bleibt unveraendert.
+   * Ist der gespeicherte Sektor kuerzer als die angeforderte Laenge,
+   * wird der Rest mit Null-Bytes aufgefuellt.
+   */
+  public synchronized boolean readSector(
+				long   pos,
+				byte[] buf,
+				int    offs,
+				int    len ) throws IOException
+  {
+    boolean rv     = false;
+    byte[]  sector = getSector( pos );
+    if( sector != null ) {
+      int n = Math.min( sector.length, len );
+      System.arraycopy( sector, 0, buf, offs, n );
+      while( n < len ) {
+	buf[ offs + n ] = (byte) 0;
+	n++;
+      }
+      rv = true;
+    }
+    return rv;
+  }
+
+
+  public synchronized void writeSector(
+				long   pos,
+				byte[] buf,
+				int    offs,
+				int    len ) throws IOException
+  {
+    if( this.memSectors != null ) {
+      byte[] sector = this.memSectors.get( pos );
+      if( (sector == null) || (sector.length != len) ) {
+	sector = new byte[ len ];
+	this.memSectors.put( pos, sector );
+      }
+      System.arraycopy( buf, offs, sector, 0, len );
+    } else if( this.fileSectors != null ) {
+      if( this.deltaRaf == null ) {
+	this.deltaFile = File.createTempFile( "jkcemu_", ".delta" );
+	this.deltaFile.deleteOnExit();
+	this.deltaRaf = new RandomAccessFile( this.deltaFile, "rw" );
+      }
+      long[] entry = this.fileSectors.get( pos );
+      if( (entry == null) || (entry[ 1 ] != len) ) {
+	// neuen Platz am Ende der Seitendatei belegen
+	entry = new long[] { this.deltaRaf.length(), len };
+	this.fileSectors.put( pos, entry );
+      }
+      this.deltaRaf.seek( entry[ 0 ] );
+      this.deltaRaf.write( buf, offs, len );
+    }
+  }
+
+
+	/* --- private Konstruktoren und Methoden --- */
+
+  private DiskOverlay( File baseFile, boolean fileMode )
+  {
+    this.baseFile    = baseFile;
+    this.deltaFile   = null;
+    this.deltaRaf    = null;
+    this.memSectors  = null;
+    this.fileSectors = null;
+    if( fileMode ) {
+      this.fileSectors = new HashMap<>();
+    } else {
+      this.memSectors = new HashMap<>();
+    }
+  }
+
+
+  private static Collection<DiskOverlay> getAll( EmuContext context )
+  {
+    Collection<DiskOverlay> rv = new ArrayList<>();
+    synchronized( overlays ) {
+      Map<File,DiskOverlay> map = overlays.get( context );
+      if( map != null ) {
+	rv.addAll( map.values() );
+      }
+    }
+    return rv;
+  }
+
+
+  private byte[] getSector( long pos ) throws IOException
+  {
+    byte[] rv = null;
+    if( this.memSectors != null ) {
+      rv = this.memSectors.get( pos );
+    } else if( (this.fileSectors != null) && (this.deltaRaf != null) ) {
+      long[] entry = this.fileSectors.get( pos );
+      if( entry != null ) {
+	rv = new byte[ (int) entry[ 1 ] ];
+	this.deltaRaf.seek( entry[ 0 ] );
+	this.deltaRaf.readFully( rv );
+      }
+    }
+    return rv;
+  }
+
+
+  private Collection<Long> getSortedPositions()
+  {
+    Collection<Long> rv = new TreeSet<>();
+    if( this.memSectors != null ) {
+      rv.addAll( this.memSectors.keySet() );
+    }
+    if( this.fileSectors != null ) {
+      rv.addAll( this.fileSectors.keySet() );
+    }
+    return rv;
+  }
+}
@@ -10,7 +10,6 @@
 package jkcemu.disk;
 
 import java.util.Arrays;
-import jkcemu.Main;
 import jkcemu.base.EmuThread;
 import z80emu.Z80CPU;
 import z80emu.Z80MaxSpeedListener;
@@ -181,7 +180,10 @@ public class FDC8272 implements
   private SectorData.Reader   curSectorReader;
 
 
-  public FDC8272( DriveSelector driveSelector, int mhz )
+  public FDC8272(
+		ThreadGroup   threadGroup,
+		DriveSelector driveSelector,
+		int           mhz )
   {
     this.driveSelector      = driveSelector;
     this.mhz                = mhz;
@@ -205,7 +207,7 @@ public class FDC8272 implements
     this.ioTaskEnabled      = true;
     this.ioTaskNoWait       = false;
     this.ioTaskThread       = new Thread(
-					Main.getThreadGroup(),
+					threadGroup,
 					this,
 					"JKCEMU FDC" );
 
@@ -230,6 +232,12 @@ public class FDC8272 implements
       }
       catch( IllegalMonitorStateException ex ) {}
     }
+    for( int i = 0; i < this.seekStatus.length; i++ ) {
+      FloppyDiskDrive drive = getDrive( i );
+      if( drive != null ) {
+	drive.stopTrackBuffer();
+      }
+    }
   }
 
 
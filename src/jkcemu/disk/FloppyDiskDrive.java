@@ -16,6 +16,7 @@ public class FloppyDiskDrive
   public static final String PROP_SKIP_ODD_CYLS = "skip_odd_cylinders";
 
   private FloppyDiskStationFrm        owner;
+  private FloppyTrackBuffer           trackBuf;
   private volatile AbstractFloppyDisk disk;
   private boolean                     skipOddCyls;
   private int                         lastFormattedCyl;
@@ -24,10 +25,13 @@ public class FloppyDiskDrive
   private int                         ncn;	// new cylinder number
 
 
-  public FloppyDiskDrive( FloppyDiskStationFrm owner )
+  public FloppyDiskDrive(
+		FloppyDiskStationFrm owner,
+		ThreadGroup          threadGroup )
   {
-    this.owner = owner;
-    this.disk  = null;
+    this.owner    = owner;
+    this.disk     = null;
+    this.trackBuf = new FloppyTrackBuffer( threadGroup );
     reset();
   }
 
@@ -53,6 +57,7 @@ public class FloppyDiskDrive
 	} else if( (this.pcn % 2) != 0 ) {
 	  this.skipOddCyls = false;
 	}
+	this.trackBuf.invalidate();
 	if( disk.formatTrack(
 			getDiskCyl(),
 			head,
@@ -62,6 +67,7 @@ public class FloppyDiskDrive
 	  this.lastFormattedCyl = this.pcn;
 	  rv                    = true;
 	}
+	this.trackBuf.prefetch( disk, getDiskCyl() );
       }
     }
     this.head = head;
@@ -137,7 +143,8 @@ public class FloppyDiskDrive
     fireDriveAccess();
     if( disk != null ) {
       int physCyl = getDiskCyl();
-      sector      = disk.getSectorByID(
+      sector      = getSectorByID(
+				disk,
 				physCyl,
 				physHead,
 				cyl,
@@ -147,7 +154,8 @@ public class FloppyDiskDrive
       if( sector != null ) {
 	if( sector.getIndexOnCylinder() < startIdx ) {
 	  do {
-	    sector = disk.getSectorByIndex(
+	    sector = getSectorByIndex(
+					disk,
 					physCyl,
 					physHead,
 					startIdx );
@@ -179,14 +187,22 @@ public class FloppyDiskDrive
     fireDriveAccess();
     AbstractFloppyDisk disk = this.disk;
     return disk != null ?
-		disk.getSectorByIndex( getDiskCyl(), physHead, sectorIdx )
+		getSectorByIndex( disk, getDiskCyl(), physHead, sectorIdx )
 		: null;
   }
 
 
+  public synchronized void reloadTrackBuffer()
+  {
+    this.trackBuf.invalidate();
+    this.trackBuf.prefetch( this.disk, getDiskCyl() );
+  }
+
+
   public synchronized void removeDisk()
   {
     AbstractFloppyDisk disk = this.disk;
+    this.trackBuf.stop();
     if( disk != null ) {
       disk.closeSilently();
       this.disk = null;
@@ -194,6 +210,16 @@ public class FloppyDiskDrive
   }
 
 
+  /*
+   * Die Methode beendet den Hintergrund-Thread des Spurpuffers.
+   * Dieser wird bei Bedarf wieder gestartet.
+   */
+  public void stopTrackBuffer()
+  {
+    this.trackBuf.stop();
+  }
+
+
   public synchronized void reset()
   {
     this.skipOddCyls      = false;
@@ -201,6 +227,7 @@ public class FloppyDiskDrive
     this.head             = 0;
     this.pcn              = 0;
     this.ncn              = 0;
+    this.trackBuf.invalidate();
   }
 
 
@@ -219,7 +246,12 @@ public class FloppyDiskDrive
     } else if( pcn > this.ncn ) {
       --this.pcn;
     }
-    return this.pcn == this.ncn;
+    boolean rv = (this.pcn == this.ncn);
+    if( rv ) {
+      // Kopf steht auf dem Zylinder -> Spur im Hintergrund lesen
+      this.trackBuf.prefetch( this.disk, getDiskCyl() );
+    }
+    return rv;
   }
 
 
@@ -227,8 +259,10 @@ public class FloppyDiskDrive
 				AbstractFloppyDisk disk,
 				boolean            skipOddCyls )
   {
+    this.trackBuf.invalidate();
     this.disk        = disk;
     this.skipOddCyls = skipOddCyls;
+    this.trackBuf.prefetch( disk, getDiskCyl() );
   }
 
 
@@ -251,13 +285,24 @@ public class FloppyDiskDrive
     AbstractFloppyDisk disk = this.disk;
     fireDriveAccess();
     if( disk != null ) {
-      rv = disk.writeSector(
-			getDiskCyl(),
-			physHead,
-			sector,
-			dataBuf,
-			dataLen,
-			deleted );
+      int physCyl = getDiskCyl();
+      rv          = disk.writeSector(
+				physCyl,
+				physHead,
+				sector,
+				dataBuf,
+				dataLen,
+				deleted );
+      if( rv ) {
+	this.trackBuf.sectorWritten(
+				disk,
+				physCyl,
+				physHead,
+				sector,
+				dataBuf,
+				dataLen,
+				deleted );
+      }
     }
     return rv;
   }
@@ -271,6 +316,63 @@ public class FloppyDiskDrive
   }
 
 
+  /*
+   * Die beiden Methoden lesen einen Sektor bevorzugt aus dem Spurpuffer.
+   * Nur wenn die Spur (noch) nicht gepuffert ist,
+   * wird direkt auf die Diskette zugegriffen.
+   */
+  private SectorData getSectorByID(
+				AbstractFloppyDisk disk,
+				int                physCyl,
+				int                physHead,
+				int                cyl,
+				int                head,
+				int                sectorNum,
+				int                sizeCode )
+  {
+    SectorData rv = this.trackBuf.getSectorByID(
+					disk,
+					physCyl,
+					physHead,
+					cyl,
+					head,
+					sectorNum,
+					sizeCode );
+    if( rv == null ) {
+      if( !this.trackBuf.isTrackLoaded( disk, physCyl, physHead ) ) {
+	rv = disk.getSectorByID(
+			physCyl,
+			physHead,
+			cyl,
+			head,
+			sectorNum,
+			sizeCode );
+      }
+    }
+    return rv;
+  }
+
+
+  private SectorData getSectorByIndex(
+				AbstractFloppyDisk disk,
+				int                physCyl,
+				int                physHead,
+				int                sectorIdx )
+  {
+    SectorData rv = this.trackBuf.getSectorByIndex(
+					disk,
+					physCyl,
+					physHead,
+					sectorIdx );
+    if( rv == null ) {
+      if( !this.trackBuf.isTrackLoaded( disk, physCyl, physHead ) ) {
+	rv = disk.getSectorByIndex( physCyl, physHead, sectorIdx );
+      }
+    }
+    return rv;
+  }
+
+
   private int getDiskCyl()
   {
     int rv = this.pcn;
@@ -59,6 +59,7 @@ import jkcemu.Main;
 import jkcemu.base.BaseDlg;
 import jkcemu.base.BaseFrm;
 import jkcemu.base.DeviceIO;
+import jkcemu.base.EmuContext;
 import jkcemu.base.EmuSys;
 import jkcemu.base.EmuThread;
 import jkcemu.base.EmuUtil;
@@ -124,6 +125,7 @@ public class FloppyDiskStationFrm
   private static volatile FloppyDiskStationFrm instance = null;
 
   private ScreenFrm         screenFrm;
+  private EmuContext        context;
   private EmuSys            emuSys;
   private Properties        autoOpenDisksProps;
   private FloppyDiskInfo[]  allDisks;
@@ -243,6 +245,24 @@ public class FloppyDiskStationFrm
   }
 
 
+  /*
+   * Die Methode verwirft die Spurpuffer aller Laufwerke
+   * und liest den jeweils aktuellen Zylinder neu ein,
+   * z.B. nachdem die Overlay-Aenderungen verworfen wurden.
+   */
+  public static void reloadTrackBuffers()
+  {
+    FloppyDiskStationFrm instance = getLazyInstance();
+    if( instance != null ) {
+      for( FloppyDiskDrive drive : instance.drives ) {
+	if( drive != null ) {
+	  drive.reloadTrackBuffer();
+	}
+      }
+    }
+  }
+
+
   public synchronized static FloppyDiskStationFrm getSharedInstance(
 						ScreenFrm  screenFrm )
   {
@@ -817,6 +837,7 @@ public class FloppyDiskStationFrm
   private FloppyDiskStationFrm( ScreenFrm screenFrm )
   {
     this.screenFrm          = screenFrm;
+    this.context            = screenFrm.getEmuThread().getContext();
     this.autoOpenDisksProps = null;
     this.suitableDisks      = null;
     this.etcDisks           = null;
@@ -829,7 +850,10 @@ public class FloppyDiskStationFrm
     setTitle( "JKCEMU Diskettenstation" );
 
 
-    // Laufwerke anlegen
+    /*
+     * Laufwerke anlegen,
+     * die Diskettenstation gehoert zur Emulatorinstanz des Hauptfensters
+     */
     Font font      = new Font( Font.SANS_SERIF, Font.PLAIN, 12 );
     this.textAreas = new JTextArea[ MAX_DRIVE_COUNT ];
     this.drives    = new FloppyDiskDrive[ MAX_DRIVE_COUNT ];
@@ -841,7 +865,9 @@ public class FloppyDiskStationFrm
       textArea.setText( DRIVE_EMPTY_TEXT );
       (new DropTarget( textArea, this )).setActive( true );
       this.textAreas[ i ] = textArea;
-      this.drives[ i ]    = new FloppyDiskDrive( this );
+      this.drives[ i ]    = new FloppyDiskDrive(
+					this,
+					this.context.getThreadGroup() );
     }
     this.driveAccessCounters = new int[ this.drives.length ];
     Arrays.fill( this.driveAccessCounters, 0 );
@@ -1863,6 +1889,7 @@ public class FloppyDiskStationFrm
 	if( fmt != null ) {
 	  disk = PlainDisk.openFile(
 				this,
+				this.context,
 				file,
 				readOnly.booleanValue(),
 				fmt );
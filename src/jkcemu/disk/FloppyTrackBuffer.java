@@ -0,0 +1,307 @@
+/*
+ * (c) 2019 Jens Mueller
+ *
+ * Kleincomputer-Emulator
+ *
+ * Spurpuffer eines Diskettenlaufwerks
+ *
+ * Sobald der Kopf eines Laufwerks auf einem Zylinder steht,
+ * werden im Hintergrund alle Sektoren dieses Zylinders gelesen,
+ * sodass die nachfolgenden Sektorzugriffe aus dem Puffer
+ * bedient werden koennen.
+ * Geschriebene Sektoren werden in den Puffer uebernommen,
+ * beim Formatieren wird der Puffer verworfen.
+ *
+ * Der Hintergrund-Thread wird erst bei Bedarf gestartet
+ * und mit stop() wieder beendet,
+ * z.B. wenn die Diskette entfernt wird.
+ */
+
+package jkcemu.disk;
+
+
+
+public class FloppyTrackBuffer implements Runnable
+{
+  private static final int MAX_HEADS = 2;
+
+  private ThreadGroup        threadGroup;
+  private AbstractFloppyDisk disk;
+  private int                cyl;
+  private SectorData[][]     heads;
+  private AbstractFloppyDisk reqDisk;
+  private int                reqCyl;
+  private boolean            reqPending;
+  private long               generation;
+  private Thread             thread;
+
+
+  public FloppyTrackBuffer( ThreadGroup threadGroup )
+  {
+    this.threadGroup = threadGroup;
+    this.heads       = new SectorData[ MAX_HEADS ][];
+    this.thread      = null;
+    clear();
+  }
+
+
+  /*
+   * Die Methode sucht einen Sektor anhand seiner ID im Puffer.
+   * Ist die Spur nicht gepuffert, wird null zurueckgeliefert.
+   * Ist die Spur gepuffert und der Sektor nicht vorhanden,
+   * wird ebenfalls null zurueckgeliefert,
+   * was dann per Aufruf von isTrackLoaded(...) unterschieden werden muss.
+   */
+  public synchronized SectorData getSectorByID(
+				AbstractFloppyDisk disk,
+				int                physCyl,
+				int                physHead,
+				int                cyl,
+				int                head,
+				int                sectorNum,
+				int                sizeCode )
+  {
+    SectorData   rv      = null;
+    SectorData[] sectors = getTrack( disk, physCyl, physHead );
+    if( sectors != null ) {
+      for( SectorData sector : sectors ) {
+	if( sector != null ) {
+	  if( (sector.getCylinder() == cyl)
+	      && (sector.getHead() == head)
+	      && (sector.getSectorNum() == sectorNum)
+	      && ((sizeCode < 0) || (sector.getSizeCode() == sizeCode)) )
+	  {
+	    rv = sector;
+	    break;
+	  }
+	}
+      }
+    }
+    return rv;
+  }
+
+
+  public synchronized SectorData getSectorByIndex(
+				AbstractFloppyDisk disk,
+				int                physCyl,
+				int                physHead,
+				int                sectorIdx )
+  {
+    SectorData   rv      = null;
+    SectorData[] sectors = getTrack( disk, physCyl, physHead );
+    if( sectors != null ) {
+      if( (sectorIdx >= 0) && (sectorIdx < sectors.length) ) {
+	rv = sectors[ sectorIdx ];
+      }
+    }
+    return rv;
+  }
+
+
+  public synchronized void invalidate()
+  {
+    clear();
+    this.generation++;
+  }
+
+
+  public synchronized boolean isTrackLoaded(
+				AbstractFloppyDisk disk,
+				int                physCyl,
+				int                physHead )
+  {
+    return getTrack( disk, physCyl, physHead ) != null;
+  }
+
+
+  /*
+   * Die Methode veranlasst das Lesen des Zylinders im Hintergrund.
+   * Ist der Zylinder bereits gepuffert oder angefordert,
+   * passiert nichts.
+   */
+  public synchronized void prefetch( AbstractFloppyDisk disk, int physCyl )
+  {
+    if( (disk != null) && (physCyl >= 0) ) {
+      if( disk.supportsTrackReadAhead() ) {
+	if( (disk != this.disk) || (physCyl != this.cyl) ) {
+	  if( !this.reqPending
+	      || (disk != this.reqDisk)
+	      || (physCyl != this.reqCyl) )
+	  {
+	    invalidate();
+	    this.reqDisk    = disk;
+	    this.reqCyl     = physCyl;
+	    this.reqPending = true;
+	    if( this.thread == null ) {
+	      this.thread = new Thread(
+				this.threadGroup,
+				this,
+				"JKCEMU floppy disk track buffer" );
+	      this.thread.setDaemon( true );
+	      this.thread.start();
+	    } else {
+	      notifyAll();
+	    }
+	  }
+	}
+      } else {
+	invalidate();
+      }
+    }
+  }
+
+
+  /*
+   * Die Methode uebernimmt einen erfolgreich geschriebenen Sektor
+   * in den Puffer.
+   * Wird der Zylinder gerade im Hintergrund gelesen,
+   * muss das Lesen wiederholt werden,
+   * da die Daten sonst veraltet sein koennten.
+   */
+  public synchronized void sectorWritten(
+				AbstractFloppyDisk disk,
+				int                physCyl,
+				int                physHead,
+				SectorData         sector,
+				byte[]             dataBuf,
+				int                dataLen,
+				boolean            dataDeleted )
+  {
+    if( this.reqPending ) {
+      if( (disk == this.reqDisk) && (physCyl == this.reqCyl) ) {
+	this.generation++;
+	notifyAll();
+      }
+    } else {
+      SectorData[] sectors = getTrack( disk, physCyl, physHead );
+      if( sectors != null ) {
+	boolean done = false;
+	for( SectorData s : sectors ) {
+	  if( s == sector ) {
+	    /*
+	     * Nicht alle Diskettenformate kopieren die geschriebenen Daten
+	     * in das Sektorobjekt,
+	     * weshalb das hier fuer das gepufferte Objekt erfolgt.
+	     */
+	    sector.setData( dataDeleted, dataBuf, dataLen );
+	    done = true;
+	    break;
+	  }
+	}
+	if( !done ) {
+	  invalidate();
+	}
+      }
+    }
+  }
+
+
+  /*
+   * Die Methode beendet den Hintergrund-Thread und verwirft den Puffer,
+   * sodass auch keine Referenz mehr auf das Diskettenabbild besteht.
+   * Bei der naechsten Anforderung wird wieder ein Thread gestartet.
+   */
+  public synchronized void stop()
+  {
+    this.thread = null;
+    invalidate();
+    notifyAll();
+  }
+
+
+	/* --- Runnable --- */
+
+  @Override
+  public void run()
+  {
+    Thread thread = Thread.currentThread();
+    for(;;) {
+      AbstractFloppyDisk disk = null;
+      int                cyl  = -1;
+      long               gen  = 0;
+      synchronized( this ) {
+	while( !this.reqPending && (this.thread == thread) ) {
+	  try {
+	    wait();
+	  }
+	  catch( InterruptedException ex ) {}
+	}
+	if( this.thread != thread ) {
+	  break;
+	}
+	disk = this.reqDisk;
+	cyl  = this.reqCyl;
+	gen  = this.generation;
+      }
+      SectorData[][] heads = null;
+      try {
+	heads     = new SectorData[ MAX_HEADS ][];
+	int sides = Math.min( disk.getSides(), MAX_HEADS );
+	for( int head = 0; head < sides; head++ ) {
+	  int n = disk.getSectorsOfTrack( cyl, head );
+	  if( n > 0 ) {
+	    SectorData[] sectors = new SectorData[ n ];
+	    for( int i = 0; i < n; i++ ) {
+	      sectors[ i ] = disk.getSectorByIndex( cyl, head, i );
+	    }
+	    heads[ head ] = sectors;
+	  }
+	}
+      }
+      catch( RuntimeException ex ) {
+	/*
+	 * Die Spur bleibt ungepuffert,
+	 * d.h., die Sektorzugriffe gehen direkt auf das Diskettenabbild.
+	 */
+	heads = null;
+      }
+      synchronized( this ) {
+	if( this.reqPending
+	    && (disk == this.reqDisk)
+	    && (cyl == this.reqCyl)
+	    && (gen == this.generation) )
+	{
+	  if( heads != null ) {
+	    this.disk  = disk;
+	    this.cyl   = cyl;
+	    this.heads = heads;
+	  }
+	  this.reqPending = false;
+	}
+      }
+    }
+  }
+
+
+	/* --- private Methoden --- */
+
+  private void clear()
+  {
+    this.disk       = null;
+    this.cyl        = -1;
+    this.reqDisk    = null;
+    this.reqCyl     = -1;
+    this.reqPending = false;
+    for( int i = 0; i < this.heads.length; i++ ) {
+      this.heads[ i ] = null;
+    }
+  }
+
+
+  private SectorData[] getTrack(
+			AbstractFloppyDisk disk,
+			int                physCyl,
+			int                physHead )
+  {
+    SectorData[] rv = null;
+    if( (disk != null)
+	&& (disk == this.disk)
+	&& (physCyl == this.cyl)
+	&& (physHead >= 0)
+	&& (physHead < this.heads.length) )
+    {
+      rv = this.heads[ physHead ];
+    }
+    return rv;
+  }
+}
@@ -17,6 +17,7 @@ import java.util.Properties;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
 import jkcemu.Main;
+import jkcemu.base.EmuContext;
 import jkcemu.base.EmuUtil;
 import jkcemu.etc.RTC7242X;
 
@@ -67,19 +68,22 @@ public class GIDE implements Runnable
 
   protected static class IOTask
   {
-    public Command cmd;
-    public File    file;
-    public long    filePos;
-    public int     byteCnt;
+    public Command     cmd;
+    public File        file;
+    public DiskOverlay overlay;
+    public long        filePos;
+    public int         byteCnt;
 
     protected IOTask(
-		Command cmd,
-		File    file,
-		long    filePos,
-		int     byteCnt )
+		Command     cmd,
+		File        file,
+		DiskOverlay overlay,
+		long        filePos,
+		int         byteCnt )
     {
       this.cmd     = cmd;
       this.file    = file;
+      this.overlay = overlay;
       this.filePos = filePos;
       this.byteCnt = byteCnt;
     }
@@ -89,6 +93,7 @@ public class GIDE implements Runnable
   private Component             owner;
   private String                propPrefix;
   private HardDisk[]            disks;
+  private DiskOverlay[]         overlays;
   private RTC7242X              rtc;
   private BlockingQueue<IOTask> ioTaskQueue;
   private volatile Command      pendingCmd;
@@ -152,10 +157,15 @@ public class GIDE implements Runnable
 
   public static GIDE createGIDE(
 			Component  owner,
+			EmuContext context,
 			Properties props,
 			String     propPrefix )
   {
-    return new GIDE( owner, propPrefix, getHardDisks( props, propPrefix ) );
+    return new GIDE(
+		owner,
+		context,
+		propPrefix,
+		getHardDisks( props, propPrefix ) );
   }
 
 
@@ -174,11 +184,12 @@ public class GIDE implements Runnable
 
   public static GIDE getGIDE(
 			Component  owner,
+			EmuContext context,
 			Properties props,
 			String     propPrefix )
   {
     return emulatesGIDE( props, propPrefix ) ?
-			createGIDE( owner, props, propPrefix )
+			createGIDE( owner, context, props, propPrefix )
 			: null;
   }
 
@@ -505,11 +516,16 @@ public class GIDE implements Runnable
 
 	/* --- private Konstruktoren und Methoden --- */
 
-  private GIDE( Component owner, String propPrefix, HardDisk[] disks )
+  private GIDE(
+		Component  owner,
+		EmuContext context,
+		String     propPrefix,
+		HardDisk[] disks )
   {
     this.owner           = owner;
     this.propPrefix      = propPrefix;
     this.disks           = disks;
+    this.overlays        = null;
     this.debugLevel      = 0;
     this.rtc             = new RTC7242X();
     this.offsets         = null;
@@ -521,7 +537,7 @@ public class GIDE implements Runnable
     this.ioTaskEnabled   = true;
     this.ioTaskQueue     = new ArrayBlockingQueue<>( 1 );
     this.ioTaskThread    = new Thread(
-				Main.getThreadGroup(),
+				context.getThreadGroup(),
 				this,
 				"JKCEMU GIDE" );
 
@@ -532,6 +548,14 @@ public class GIDE implements Runnable
       }
       catch( NumberFormatException ex ) {}
     }
+    if( disks != null ) {
+      this.overlays = new DiskOverlay[ disks.length ];
+      for( int i = 0; i < disks.length; i++ ) {
+	this.overlays[ i ] = DiskOverlay.getOverlay(
+						context,
+						disks[ i ].getFile() );
+      }
+    }
     this.ioTaskThread.start();
     reset();
   }
@@ -943,14 +967,25 @@ public class GIDE implements Runnable
       boolean          err  = false;
       RandomAccessFile raf = null;
       try {
-	raf = new RandomAccessFile( task.file, "rw" );
-	raf.seek( task.filePos );
-	while( cnt > 0 ) {
-	  raf.write( 0 );
-	  --cnt;
+	if( task.overlay != null ) {
+	  byte[] buf = new byte[ SECTOR_SIZE ];
+	  long   pos = task.filePos;
+	  while( cnt > 0 ) {
+	    int n = (int) Math.min( cnt, buf.length );
+	    task.overlay.writeSector( pos, buf, 0, n );
+	    pos += n;
+	    cnt -= n;
+	  }
+	} else {
+	  raf = new RandomAccessFile( task.file, "rw" );
+	  raf.seek( task.filePos );
+	  while( cnt > 0 ) {
+	    raf.write( 0 );
+	    --cnt;
+	  }
+	  raf.close();
+	  raf = null;
 	}
-	raf.close();
-	raf = null;
       }
       catch( IOException ex ) {
 	err = true;
@@ -1009,7 +1044,7 @@ public class GIDE implements Runnable
 	finally {
 	  EmuUtil.closeSilently( raf );
 	}
-      } else {
+      } else if( task.overlay == null ) {
 	if( !this.readMissingFileShown ) {
 	  this.readMissingFileShown = true;
 	  EmuUtil.fireShowErrorDlg(
@@ -1024,6 +1059,23 @@ public class GIDE implements Runnable
 		null );
 	}
       }
+      if( task.overlay != null ) {
+	try {
+	  for( int pos = 0; pos < task.byteCnt; pos += SECTOR_SIZE ) {
+	    task.overlay.readSector(
+			task.filePos + pos,
+			this.ioBuf,
+			pos,
+			Math.min( task.byteCnt - pos, SECTOR_SIZE ) );
+	  }
+	}
+	catch( IOException ex ) {
+	  if( !this.readErrShown ) {
+	    this.readErrShown = true;
+	    EmuUtil.fireShowErrorDlg( this.owner, null, ex );
+	  }
+	}
+      }
       this.ioBufPos = 0;
       this.statusReg |= STATUS_DATA_REQUEST;
       fireInterrupt();
@@ -1040,27 +1092,31 @@ public class GIDE implements Runnable
       boolean          err  = false;
       RandomAccessFile raf = null;
       try {
-	raf      = new RandomAccessFile( task.file, "rw" );
-	long len = raf.length();
-	if( len < task.filePos ) {
-	  try {
-	    byte[] buf = new byte[ 512 ];
-	    Arrays.fill( buf, (byte) 0xE5 );
-	    raf.seek( len );
-	    while( (len + buf.length) <= task.filePos ) {
-	      raf.write( buf );
-	      len += buf.length;
-	    }
-	    if( len < task.filePos ) {
-	      raf.write( buf, 0, (int) (task.filePos - len) );
+	if( task.overlay != null ) {
+	  task.overlay.writeSector( task.filePos, this.ioBuf, 0, SECTOR_SIZE );
+	} else {
+	  raf      = new RandomAccessFile( task.file, "rw" );
+	  long len = raf.length();
+	  if( len < task.filePos ) {
+	    try {
+	      byte[] buf = new byte[ 512 ];
+	      Arrays.fill( buf, (byte) 0xE5 );
+	      raf.seek( len );
+	      while( (len + buf.length) <= task.filePos ) {
+		raf.write( buf );
+		len += buf.length;
+	      }
+	      if( len < task.filePos ) {
+		raf.write( buf, 0, (int) (task.filePos - len) );
+	      }
 	    }
+	    catch( IOException ex ) {}
 	  }
-	  catch( IOException ex ) {}
+	  raf.seek( task.filePos );
+	  raf.write( this.ioBuf, 0, SECTOR_SIZE );
+	  raf.close();
+	  raf = null;
 	}
-	raf.seek( task.filePos );
-	raf.write( this.ioBuf, 0, SECTOR_SIZE );
-	raf.close();
-	raf = null;
       }
       catch( IOException ex ) {
 	err = true;
@@ -1123,6 +1179,21 @@ public class GIDE implements Runnable
   }
 
 
+  private DiskOverlay getOverlay( File file )
+  {
+    DiskOverlay rv = null;
+    if( (this.disks != null) && (this.overlays != null) ) {
+      for( int i = 0; i < this.disks.length; i++ ) {
+	if( file == this.disks[ i ].getFile() ) {
+	  rv = this.overlays[ i ];
+	  break;
+	}
+      }
+    }
+    return rv;
+  }
+
+
   private static HardDisk[] getHardDisks(
 				Properties props,
 				String     propPrefix )
@@ -1304,6 +1375,7 @@ public class GIDE implements Runnable
 		new IOTask(
 			this.pendingCmd,
 			file,
+			getOverlay( file ),
 			filePos,
 			byteCnt ) );
     }
@@ -17,6 +17,7 @@ import java.io.RandomAccessFile;
 import java.nio.channels.FileLock;
 import java.util.Properties;
 import jkcemu.base.DeviceIO;
+import jkcemu.base.EmuContext;
 import jkcemu.base.EmuUtil;
 import jkcemu.file.FileUtil;
 
@@ -29,6 +30,7 @@ public class PlainDisk extends AbstractFloppyDisk
   private FileLock                    fileLock;
   private DeviceIO.RandomAccessDevice rad;
   private RandomAccessFile            raf;
+  private DiskOverlay                 overlay;
   private byte[]                      diskBytes;
   private boolean                     readOnly;
   private boolean                     appendable;
@@ -305,17 +307,30 @@ public class PlainDisk extends AbstractFloppyDisk
 
   public static PlainDisk openFile(
 				Frame            owner,
+				EmuContext       context,
 				File             file,
 				boolean          readOnly,
 				FloppyDiskFormat fmt ) throws IOException
   {
-    PlainDisk        rv  = null;
-    FileLock         fl  = null;
-    RandomAccessFile raf = null;
+    PlainDisk        rv      = null;
+    FileLock         fl      = null;
+    RandomAccessFile raf     = null;
+    DiskOverlay      overlay = null;
+    if( !readOnly ) {
+      overlay = DiskOverlay.getOverlay( context, file );
+    }
     try {
-      raf = new RandomAccessFile( file, readOnly ? "r" : "rw" );
-      if( !readOnly ) {
-	fl = FileUtil.lockFile( file, raf );
+      if( overlay != null ) {
+	/*
+	 * Overlay-Modus: Die Abbilddatei wird nur gelesen
+	 * und kann somit von mehreren Instanzen gemeinsam genutzt werden.
+	 */
+	raf = new RandomAccessFile( file, "r" );
+      } else {
+	raf = new RandomAccessFile( file, readOnly ? "r" : "rw" );
+	if( !readOnly ) {
+	  fl = FileUtil.lockFile( file, raf );
+	}
       }
       rv = new PlainDisk(
 			owner,
@@ -331,6 +346,7 @@ public class PlainDisk extends AbstractFloppyDisk
 			null,
 			readOnly,
 			!readOnly );
+      rv.overlay = overlay;
     }
     finally {
       if( rv == null ) {
@@ -354,7 +370,7 @@ public class PlainDisk extends AbstractFloppyDisk
 
 
   @Override
-  public boolean formatTrack(
+  public synchronized boolean formatTrack(
 			int        physCyl,
 			int        physHead,
 			SectorID[] sectorIDs,
@@ -377,7 +393,13 @@ public class PlainDisk extends AbstractFloppyDisk
 	    int  sectorIdx = sectorIDs[ i ].getSectorNum() - 1;
 	    long filePos   = calcFilePos( physCyl, physHead, sectorIdx );
 	    if( filePos >= 0 ) {
-	      if( this.rad != null ) {
+	      if( this.overlay != null ) {
+		this.overlay.writeSector(
+				filePos,
+				dataBuf,
+				0,
+				dataBuf.length );
+	      } else if( this.rad != null ) {
 		this.rad.seek( filePos );
 		this.rad.write( dataBuf, 0, dataBuf.length );
 	      } else {
@@ -491,7 +513,14 @@ public class PlainDisk extends AbstractFloppyDisk
 
 
   @Override
-  public boolean writeSector(
+  public boolean supportsTrackReadAhead()
+  {
+    return (this.rad != null) || (this.raf != null);
+  }
+
+
+  @Override
+  public synchronized boolean writeSector(
 			int        physCyl,
 			int        physHead,
 			SectorData sector,
@@ -511,7 +540,9 @@ public class PlainDisk extends AbstractFloppyDisk
 	long filePos   = calcFilePos( physCyl, physHead, sectorIdx );
 	if( filePos == sector.getFilePos() ) {
 	  try {
-	    if( this.rad != null ) {
+	    if( this.overlay != null ) {
+	      this.overlay.writeSector( filePos, dataBuf, 0, dataLen );
+	    } else if( this.rad != null ) {
 	      this.rad.seek( filePos );
 	      this.rad.write( dataBuf, 0, dataLen );
 	    } else {
@@ -639,7 +670,11 @@ public class PlainDisk extends AbstractFloppyDisk
 	try {
 	  byte[] buf = new byte[ sectorSize ];
 	  int    len = -1;
-	  if( this.rad != null ) {
+	  if( (this.overlay != null)
+	      && this.overlay.readSector( filePos, buf, 0, buf.length ) )
+	  {
+	    len = buf.length;		// Sektor im Overlay vorhanden
+	  } else if( this.rad != null ) {
 	    this.rad.seek( filePos );
 	    len = this.rad.read( buf, 0, buf.length );
 	  } else {
@@ -225,7 +225,10 @@ public class A5105 extends EmuSys implements
       if( romK5651 == null ) {
 	romK5651 = readResource( "/rom/a5105/k5651_4000.bin" );
       }
-      this.fdc              = new FDC8272( this, 4 );
+      this.fdc              = new FDC8272(
+						getContext().getThreadGroup(),
+						this,
+						4 );
       this.floppyDiskDrives = new FloppyDiskDrive[ 3 ];
       Arrays.fill( this.floppyDiskDrives, null );
     } else {
@@ -255,7 +258,10 @@ public class A5105 extends EmuSys implements
 				props,
 				this.propPrefix + PROP_RF2_PREFIX );
 
-    this.svgPSG = new PSG8910( getDefaultSpeedKHz() * 1000 / 2, this );
+    this.svgPSG = new PSG8910(
+				getContext().getThreadGroup(),
+				getDefaultSpeedKHz() * 1000 / 2,
+				this );
     this.svgSoundDevice = new PSGSoundDevice(
 					"Sound-Generator",
 					false,
@@ -268,7 +274,11 @@ public class A5105 extends EmuSys implements
       this.k1520Sound = null;
     }
 
-    this.gide = GIDE.getGIDE( this.screenFrm, props, this.propPrefix );
+    this.gide = GIDE.getGIDE(
+				this.screenFrm,
+				getContext(),
+				props,
+				this.propPrefix );
 
     if( this.fdc != null ) {
       this.ctc50 = new Z80CTC( "CTC (E/A-Adressen 50h-53h)" );
@@ -278,7 +288,9 @@ public class A5105 extends EmuSys implements
 
     this.kcNet = null;
     if( emulatesKCNet( props ) ) {
-      this.kcNet = new KCNet( "Netzwerk-PIO (E/A-Adressen C0h-C3h)" );
+      this.kcNet = new KCNet(
+			getContext(),
+			"Netzwerk-PIO (E/A-Adressen C0h-C3h)" );
     }
 
     this.vdip = null;
@@ -625,7 +637,7 @@ public class A5105 extends EmuSys implements
     boolean state = isFixedScreenSize( props );
     if( state != this.vis.isFixedScreenSize() ) {
       this.vis.setFixedScreenSize( state );
-      this.screenFrm.fireScreenSizeChanged();
+      fireScreenSizeChanged();
     }
     createColors( props );
     checkAddPCListener( props );
@@ -777,7 +789,7 @@ public class A5105 extends EmuSys implements
     if( canExtractScreenText() ) {
       int charHeight = Math.min( this.gdc.getCharRowHeight(), 8 );
       int rowHeight  = this.gdc.getCharRowHeight();
-      if( this.vis.isFixedScreenSize() || this.screenFrm.isFullScreenMode() ) {
+      if( this.vis.isFixedScreenSize() || isFullScreenMode() ) {
 	charHeight *= 2;
 	rowHeight *= 2;
       }
@@ -15,6 +15,8 @@ import java.awt.event.KeyEvent;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Properties;
+import jkcemu.audio.TapeTrap;
+import jkcemu.audio.TapeTraps;
 import jkcemu.base.CharRaster;
 import jkcemu.base.EmuMemView;
 import jkcemu.base.EmuThread;
@@ -550,7 +552,7 @@ public class AC1
     if( emulatesFloppyDisk( props ) ) {
       this.fdDrives = new FloppyDiskDrive[ 4 ];
       Arrays.fill( this.fdDrives, null );
-      this.fdc = new FDC8272( this, 4 );
+      this.fdc = new FDC8272( getContext().getThreadGroup(), this, 4 );
     }
 
     java.util.List<Z80InterruptSource> iSources = new ArrayList<>();
@@ -595,6 +597,7 @@ public class AC1
       this.pio2.addPIOPortListener( this, Z80PIO.PortInfo.A );
     }
 
+    this.tapeTraps = new TapeTraps( this, TapeTrap.AC1_SCCH );
     checkAddPCListener( props );
     z80MaxSpeedChanged( cpu );
   }
@@ -817,7 +820,7 @@ public class AC1
 	    }
 	    if( offs != this.fontOffs ) {
 	      this.fontOffs = offs;
-	      this.screenFrm.setScreenDirty( true );
+	      setScreenDirty( true );
 	    }
 	    this.pio1B3State = state;
 	  }
@@ -827,7 +830,7 @@ public class AC1
 	    if( state != this.pio1B3State ) {
 	      this.inverseBySW = state;
 	      this.pio1B3State = state;
-	      this.screenFrm.setScreenDirty( true );
+	      setScreenDirty( true );
 	    }
 	  }
 	}
@@ -1286,7 +1289,7 @@ public class AC1
     switch( keyCode ) {
       case KeyEvent.VK_F1:
 	this.inverseByKey = !this.inverseByKey;
-	this.screenFrm.setScreenDirty( true );
+	setScreenDirty( true );
 	rv = true;
 	break;
 
@@ -1327,7 +1330,7 @@ public class AC1
     switch( ch ) {
       case '\u00F1':
 	this.inverseByKey = !this.inverseByKey;
-	this.screenFrm.setScreenDirty( true );
+	setScreenDirty( true );
 	rv = true;
 	break;
 
@@ -2019,13 +2022,13 @@ public class AC1
 	if( (this.ramColor != null) && ((this.regF0 & 0x04) != 0) ) {
 	  if( idx < this.ramColor.length ) {
 	    this.ramColor[ idx ] = (byte) value;
-	    this.screenFrm.setScreenDirty( true );
+	    setScreenDirty( true );
 	    rv = true;
 	  }
 	} else {
 	  if( idx < this.ramVideo.length ) {
 	    this.ramVideo[ idx ] = (byte) value;
-	    this.screenFrm.setScreenDirty( true );
+	    setScreenDirty( true );
 	    rv = true;
 	  }
 	}
@@ -2360,7 +2363,7 @@ public class AC1
 	    }
 	    if( (value & 0x02) != (this.regF0 & 0x02) ) {
 	      this.inverseBySW = ((value & 0x02) != 0);
-	      this.screenFrm.setScreenDirty( true );
+	      setScreenDirty( true );
 	    }
 	    this.regF0 = value;
 	  }
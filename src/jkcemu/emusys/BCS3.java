@@ -495,10 +495,10 @@ public class BCS3 extends EmuSys implements Z80CTCListener
 	  this.screenEnabled       = true;
 
 	  // Bildschirm und ggf. Copy-Button aktualisieren
-	  this.screenFrm.setScreenDirty( true );
+	  setScreenDirty( true );
 	  if( rasChanged ) {
-	    this.screenFrm.clearScreenSelection();
-	    this.screenFrm.fireUpdScreenTextActionsEnabled();
+	    clearScreenSelection();
+	    fireUpdScreenTextActionsEnabled();
 	  }
 	  break;
       }
@@ -1484,7 +1484,7 @@ public class BCS3 extends EmuSys implements Z80CTCListener
       if( this.screenActiveTStates <= 0 ) {
 	if( this.screenEnabled ) {
 	  this.screenEnabled = false;
-	  this.screenFrm.setScreenDirty( true );
+	  setScreenDirty( true );
 	}
       }
     }
@@ -185,7 +185,7 @@ public class C80 extends EmuSys implements
 	}
 	this.pio1.putInValuePortA( v, 0x17 );
 	if( dirty ) {
-	  this.screenFrm.setScreenDirty( true );
+	  setScreenDirty( true );
 	}
       }
     }
@@ -568,7 +568,7 @@ public class C80 extends EmuSys implements
 	  }
 	}
 	if( dirty ) {
-	  this.screenFrm.setScreenDirty( true );
+	  setScreenDirty( true );
 	}
 	this.curDisplayTStates = 0;
       }
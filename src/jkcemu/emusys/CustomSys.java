@@ -285,6 +285,7 @@ public class CustomSys
     if( emulatesKCNetCard( props ) ) {
       this.kcNetIOBaseAddr = getKCNetIOBaseAddr( props );
       this.kcNet = new KCNet(
+			getContext(),
 			String.format(
 				"KCNet (E/A-Adressen %02Xh-%02Xh)",
 				this.kcNetIOBaseAddr,
@@ -293,7 +294,11 @@ public class CustomSys
     }
 
     // GIDE
-    this.gide = GIDE.getGIDE( this.screenFrm, props, this.propPrefix );
+    this.gide = GIDE.getGIDE(
+				this.screenFrm,
+				getContext(),
+				props,
+				this.propPrefix );
     this.gideIOBaseAddr = getGideIOBaseAddr( props );
 
     // FDC
@@ -302,7 +307,7 @@ public class CustomSys
     if( emulatesFDC( props ) ) {
       this.floppyDiskDrives = new FloppyDiskDrive[ 4 ];
       Arrays.fill( this.floppyDiskDrives, null );
-      this.fdc = new FDC8272( this, 4 );
+      this.fdc = new FDC8272( getContext().getThreadGroup(), this, 4 );
     }
     this.fdcDataIOAddr   = getFdcDataIOAddr( props );
     this.fdcStatusIOAddr = getFdcStatusIOAddr( props );
@@ -760,7 +765,7 @@ public class CustomSys
     super.applySettings( props );
     this.title = getTitle( props );
     loadFont( props );
-    this.screenFrm.setScreenDirty( true );
+    setScreenDirty( true );
     updSwapKeyCharCase( props );
     if( this.vdip != null ) {
       this.vdip.applySettings( props );
@@ -1421,7 +1426,7 @@ public class CustomSys
   {
     this.emuThread.setRAMByte( addr & 0xFFFF, value );
     if( (addr >= this.screenBegAddr) && (addr <= this.screenEndAddr) ) {
-      this.screenFrm.setScreenDirty( true );
+      setScreenDirty( true );
     }
     return true;
   }
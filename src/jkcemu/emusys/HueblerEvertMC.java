@@ -399,7 +399,7 @@ public class HueblerEvertMC extends AbstractHueblerMC
       int idx = addr - 0xE800;
       if( idx < this.ramVideo.length ) {
 	this.ramVideo[ idx ] = (byte) value;
-	this.screenFrm.setScreenDirty( true );
+	setScreenDirty( true );
 	rv = true;
       }
     }
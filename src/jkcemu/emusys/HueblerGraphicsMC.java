@@ -111,7 +111,9 @@ public class HueblerGraphicsMC
 
     this.kcNet = null;
     if( emulatesKCNet( props ) ) {
-      this.kcNet = new KCNet( "Netzwerk-PIO (E/A-Adressen C0h-C3h)" );
+      this.kcNet = new KCNet(
+			getContext(),
+			"Netzwerk-PIO (E/A-Adressen C0h-C3h)" );
     }
     this.vdip = null;
     if( emulatesVDIP( props ) ) {
@@ -597,7 +599,7 @@ public class HueblerGraphicsMC
       if( (addr >= this.videoBaseAddr)
 	  && (addr < (this.videoBaseAddr + 0x2000)) )
       {
-	this.screenFrm.setScreenDirty( true );
+	setScreenDirty( true );
       }
       rv = true;
     }
@@ -665,7 +667,7 @@ public class HueblerGraphicsMC
 
       case 0x10:
         this.videoBaseAddr = (value << 8) & 0xE000;
-        this.screenFrm.setScreenDirty( true );
+        setScreenDirty( true );
         break;
 
       case 0xC0:
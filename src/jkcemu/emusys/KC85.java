@@ -17,9 +17,10 @@ import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Properties;
-import jkcemu.Main;
 import jkcemu.audio.AbstractSoundDevice;
 import jkcemu.audio.AudioOut;
+import jkcemu.audio.TapeTrap;
+import jkcemu.audio.TapeTraps;
 import jkcemu.base.AutoInputCharSet;
 import jkcemu.base.BaseDlg;
 import jkcemu.base.CharRaster;
@@ -108,6 +109,10 @@ public class KC85 extends EmuSys implements
 					= "diskstation.rom";
   public static final String PROP_DISKSTATION_MAXSPEED_KHZ
 					= "diskstation.maxspeed.khz";
+  public static final String PROP_DISKSTATION_LOCKSTEP_ENABLED
+				= "diskstation.lockstep.enabled";
+  public static final String PROP_DISKSTATION_LOCKSTEP_SLICE_TSTATES
+				= "diskstation.lockstep.slice_tstates";
 
   public static final String PROP_NAME             = "name";
   public static final String PROP_TYPEBYTE         = "typebyte";
@@ -134,6 +139,9 @@ public class KC85 extends EmuSys implements
   public static final int     DEFAULT_PROMPT_AFTER_RESET_MILLIS_MAX_2 = 5000;
   public static final int     DEFAULT_PROMPT_AFTER_RESET_MILLIS_MAX_4 = 3000;
 
+  public static final boolean DEFAULT_DISKSTATION_LOCKSTEP_ENABLED = false;
+  public static final int DEFAULT_DISKSTATION_LOCKSTEP_SLICE_TSTATES = 1000;
+
   public static final String[] basicTokens = {
     "END",       "FOR",      "NEXT",    "DATA",		// 0x80
     "INPUT",     "DIM",      "READ",    "LET",
@@ -360,6 +368,7 @@ public class KC85 extends EmuSys implements
   private PSGSoundDevice          m066SoundDevice;
   private VDIP[]                  vdips;
   private D004                    d004;
+  private TapeTraps               tapeTraps;
 
 
   public KC85( EmuThread emuThread, Properties props )
@@ -371,6 +380,7 @@ public class KC85 extends EmuSys implements
     this.charSetUnknown = false;
     this.keyDirectToBuf = false;
     this.pasteFast      = false;
+    this.tapeTraps      = new TapeTraps( this, TapeTrap.KC85 );
     this.keyboardFld    = null;
     this.frontFld       = null;
     this.basicFile      = null;
@@ -468,6 +478,7 @@ public class KC85 extends EmuSys implements
     this.pio.addPIOPortListener( this, Z80PIO.PortInfo.B );
     cpu.addTStatesListener( this );
     cpu.addMaxSpeedListener( this );
+    this.tapeTraps.setActive( cpu, isTapeFast( props ) );
 
     this.screenBufUsed  = null;
     this.screenBufSaved = null;
@@ -611,7 +622,7 @@ public class KC85 extends EmuSys implements
 	  if( this.screenBufUsed != null ) {
 	    this.screenDirty = true;
 	  } else {
-	    this.screenFrm.setScreenDirty( true );
+	    setScreenDirty( true );
 	  }
 	  break;
       }
@@ -680,7 +691,7 @@ public class KC85 extends EmuSys implements
 	if( this.screenBufUsed != null ) {
 	  this.screenDirty = true;
 	} else {
-	  this.screenFrm.setScreenDirty( true );
+	  setScreenDirty( true );
 	}
 	if( this.frontFld != null ) {
 	  this.frontFld.setPioAValue( m );
@@ -906,6 +917,9 @@ public class KC85 extends EmuSys implements
     }
     createColors( props );
     applyPasteFast( props );
+    this.tapeTraps.setActive(
+			this.emuThread.getZ80CPU(),
+			isTapeFast( props ) );
     if( this.d004 != null ) {
       this.d004.applySettings( props );
     }
@@ -1124,6 +1138,7 @@ public class KC85 extends EmuSys implements
     cpu.removeTStatesListener( this );
     cpu.removeMaxSpeedListener( this );
     cpu.setInterruptSources( (Z80InterruptSource[]) null );
+    this.tapeTraps.setActive( cpu, false );
     if( this.d004 != null ) {
       this.d004.fireStop();
       this.d004.die();
@@ -1373,7 +1388,7 @@ public class KC85 extends EmuSys implements
 				this,
 				this.d004,
 				this.modules,
-				Main.getProperties() );
+				this.emuThread.getContext().getProperties() );
       this.frontFld.setPioAValue( this.pio.fetchOutValuePortA( 0xFF ) );
     }
     return this.frontFld;
@@ -2487,7 +2502,7 @@ public class KC85 extends EmuSys implements
 	  if( this.screenBufUsed != null ) {
 	    this.screenDirty = true;
 	  } else {
-	    this.screenFrm.setScreenDirty( true );
+	    setScreenDirty( true );
 	  }
 	}
 	break;
@@ -2562,14 +2577,14 @@ public class KC85 extends EmuSys implements
 	if( this.lineCounter < 311 ) {
 	  if( this.screenRefreshEnabled ) {
 	    updScreenLine();
-	    this.screenFrm.setScreenDirty( true );
+	    setScreenDirty( true );
 	  }
 	  this.lineCounter++;
 	} else {
 	  this.lineCounter = 0;
 	  if( this.screenDirty && (this.screenBufUsed != null) ) {
 	    this.screenDirty = false;
-	    this.screenFrm.fireRepaint();
+	    fireRepaint();
 	    this.screenRefreshEnabled = true;
 	  } else {
 	    this.screenRefreshEnabled = false;
@@ -2992,6 +3007,7 @@ public class KC85 extends EmuSys implements
 		m052 = new M052(
 			slot,
 			this.emuThread.getScreenFrm(),
+			getContext(),
 			this.emuThread.getZ80CPU(),
 			vdipNum,
 			false,
@@ -3001,6 +3017,7 @@ public class KC85 extends EmuSys implements
 		m052 = new M052(
 			slot,
 			this.emuThread.getScreenFrm(),
+			getContext(),
 			this.emuThread.getZ80CPU(),
 			vdipNum,
 			true,
@@ -3595,7 +3612,7 @@ public class KC85 extends EmuSys implements
 	    if( this.screenBufUsed != null ) {
 	      this.screenDirty = true;
 	    } else {
-	      this.screenFrm.setScreenDirty( true );
+	      setScreenDirty( true );
 	    }
 	    rv = true;
 	  }
@@ -249,7 +249,10 @@ public class KCcompact extends EmuSys implements
 
     this.crtc           = new CRTC6845( 1000, this );
     this.ppi            = new PPI8255( this );
-    this.psg            = new PSG8910( 1000000, this );
+    this.psg            = new PSG8910(
+					getContext().getThreadGroup(),
+					1000000,
+					this );
     this.psgSoundDevice = new PSGSoundDevice(
 					"Sound-Generator",
 					true,
@@ -270,7 +273,10 @@ public class KCcompact extends EmuSys implements
       if( this.ramExt == null ) {
 	this.ramExt = new byte[ 0x10000 ];
       }
-      this.fdc              = new FDC8272( this, 4 );
+      this.fdc              = new FDC8272(
+						getContext().getThreadGroup(),
+						this,
+						4 );
       this.floppyDiskDrives = new FloppyDiskDrive[ 2 ];
       Arrays.fill( this.floppyDiskDrives, null );
     } else {
@@ -423,8 +429,8 @@ public class KCcompact extends EmuSys implements
 	  this.screenBuf[ dstPos++ ] = (byte) this.borderColorIdx;
 	}
       }
-      this.screenFrm.setScreenDirty( true );
-      this.screenFrm.fireRepaint();
+      setScreenDirty( true );
+      fireRepaint();
     }
   }
 
@@ -709,7 +715,7 @@ public class KCcompact extends EmuSys implements
     boolean state = isFixedScreenSize( props );
     if( state != this.fixedScreenSize ) {
       this.fixedScreenSize = state;
-      this.screenFrm.fireScreenSizeChanged();
+      fireScreenSizeChanged();
     }
     createColors( props );
   }
@@ -819,7 +825,7 @@ public class KCcompact extends EmuSys implements
   public int getColorIndex( int x, int y )
   {
     int rv = this.borderColorIdx;
-    if( this.fixedScreenSize || this.screenFrm.isFullScreenMode() ) {
+    if( this.fixedScreenSize || isFullScreenMode() ) {
       if( this.screenMode < 2 ) {
 	x /= 2;
       }
@@ -985,7 +991,7 @@ public class KCcompact extends EmuSys implements
   @Override
   public int getScreenHeight()
   {
-    return (this.fixedScreenSize || this.screenFrm.isFullScreenMode()) ?
+    return (this.fixedScreenSize || isFullScreenMode()) ?
 								400 : 200;
   }
 
@@ -993,7 +999,7 @@ public class KCcompact extends EmuSys implements
   @Override
   public int getScreenWidth()
   {
-    return (this.fixedScreenSize || this.screenFrm.isFullScreenMode()) ?
+    return (this.fixedScreenSize || isFullScreenMode()) ?
 						640 : this.screenWidth;
   }
 
@@ -1738,7 +1744,7 @@ public class KCcompact extends EmuSys implements
 	this.screenMode = mode;
 	this.screenWidth = w;
 	if( !this.fixedScreenSize ) {
-	  this.screenFrm.fireScreenSizeChanged();
+	  fireScreenSizeChanged();
 	}
       }
     }
@@ -593,15 +593,15 @@ public class KramerMC extends EmuSys implements
     switch( ch ) {
       case '\n':
       case '\r':
-	rv = keyPressed( KeyEvent.VK_ENTER, false, false );
+	rv = this.emuThread.fireKeyPressed( KeyEvent.VK_ENTER, false, false );
 	break;
 
       case '\u0020':
-	rv = keyPressed( KeyEvent.VK_SPACE, false, false );
+	rv = this.emuThread.fireKeyPressed( KeyEvent.VK_SPACE, false, false );
 	break;
 
       default:
-	rv = keyTyped( ch );
+	rv = this.emuThread.fireKeyTyped( ch );
     }
     if( rv ) {
       while( this.kbStatus > 0 ) {
@@ -707,7 +707,7 @@ public class KramerMC extends EmuSys implements
       int idx = addr - 0xFC00;
       if( idx < this.ramVideo.length ) {
 	this.ramVideo[ idx ] = (byte) value;
-	this.screenFrm.setScreenDirty( true );
+	setScreenDirty( true );
 	rv = true;
       }
     }
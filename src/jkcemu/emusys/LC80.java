@@ -274,7 +274,7 @@ public class LC80 extends EmuSys implements
   {
     if( haltState != this.haltState ) {
       this.haltState = haltState;
-      this.screenFrm.setScreenDirty( true );
+      setScreenDirty( true );
     }
   }
 
@@ -328,7 +328,7 @@ public class LC80 extends EmuSys implements
 	if( tapeOutPhase != this.tapeOutPhase ) {
 	  this.tapeOutPhase = tapeOutPhase;
 	  this.tapeOutState = true;
-	  this.screenFrm.setScreenDirty( true );
+	  setScreenDirty( true );
 	}
 	putKBMatrixRowValueToPort();
 	updDisplay();
@@ -1253,7 +1253,7 @@ public class LC80 extends EmuSys implements
 	  this.ram[ idx ] = (byte) value;
 	}
 	if( this.chessComputer && (addr >= 0x2715) && (addr < 0x2763) ) {
-          this.screenFrm.setChessboardDirty( true );
+          setChessboardDirty( true );
         }
 	rv = true;
       }
@@ -1436,7 +1436,7 @@ public class LC80 extends EmuSys implements
 	  }
 	}
 	if( dirty ) {
-	  this.screenFrm.setScreenDirty( true );
+	  setScreenDirty( true );
 	}
 	this.tapeOutState      = false;
 	this.curDisplayTStates = 0;
@@ -1564,7 +1564,7 @@ public class LC80 extends EmuSys implements
       }
     }
     if( dirty )
-      this.screenFrm.setScreenDirty( true );
+      setScreenDirty( true );
   }
 
 
@@ -15,7 +15,6 @@ import java.text.CharacterIterator;
 import java.text.StringCharacterIterator;
 import java.util.Arrays;
 import java.util.Properties;
-import jkcemu.Main;
 import jkcemu.base.AbstractScreenFrm;
 import jkcemu.base.AutoInputCharSet;
 import jkcemu.base.EmuMemView;
@@ -235,7 +234,7 @@ public class LLC1 extends EmuSys implements
 	synchronized( this.digitValues ) {
 	  if( bValue != this.digitValues[ this.digitIdx ] ) {
 	    this.digitValues[ this.digitIdx ] = bValue;
-	    this.screenFrm.setScreenDirty( true );
+	    setScreenDirty( true );
 	  }
 	  this.digitStatus[ this.digitIdx ] = 2;
 	}
@@ -417,8 +416,8 @@ public class LLC1 extends EmuSys implements
   {
     if( this.alphaScreenDevice == null ) {
       this.alphaScreenDevice = new LLC1AlphaScreenDevice(
-						this,
-						Main.getProperties() );
+				this,
+				this.emuThread.getContext().getProperties() );
     }
     return this.alphaScreenDevice;
   }
@@ -864,7 +863,7 @@ public class LLC1 extends EmuSys implements
 	  }
 	}
 	if( dirty ) {
-	  this.screenFrm.setScreenDirty( true );
+	  setScreenDirty( true );
 	}
 	this.curDisplayTStates = 0;
       }
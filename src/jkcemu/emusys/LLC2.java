@@ -131,7 +131,7 @@ public class LLC2
     if( emulatesFloppyDisk( props ) ) {
       this.fdDrives = new FloppyDiskDrive[ 4 ];
       Arrays.fill( this.fdDrives, null );
-      this.fdc = new FDC8272( this, 4 );
+      this.fdc = new FDC8272( getContext().getThreadGroup(), this, 4 );
     }
 
     this.ctc  = new Z80CTC( "CTC (E/A-Adressen F8h-FBh)" );
@@ -253,7 +253,7 @@ public class LLC2
 	  }
 	}
 	if( dirty ) {
-	  this.screenFrm.setScreenDirty( true );
+	  setScreenDirty( true );
 	}
       }
       else if( (pio == this.pio2) && (port == Z80PIO.PortInfo.A) ) {
@@ -326,7 +326,7 @@ public class LLC2
     loadFont( props );
     checkAddPCListener( props );
     if( updScreenRatio( props ) ) {
-      this.screenFrm.fireScreenSizeChanged();
+      fireScreenSizeChanged();
     }
   }
 
@@ -585,7 +585,7 @@ public class LLC2
 
       case KeyEvent.VK_F1:
 	this.screenInverseMode = !this.screenInverseMode;
-	this.screenFrm.setScreenDirty( true );
+	setScreenDirty( true );
 	rv = true;
 	break;
 
@@ -608,7 +608,7 @@ public class LLC2
     switch( ch ) {
       case '\u00F1':
 	this.screenInverseMode = !this.screenInverseMode;
-	this.screenFrm.setScreenDirty( true );
+	setScreenDirty( true );
 	rv = true;
 	break;
 
@@ -825,7 +825,7 @@ public class LLC2
     } else {
       this.v24TStatesPerBit = V24_TSTATES_PER_BIT_EXTERN;
     }
-    this.screenFrm.fireUpdScreenTextActionsEnabled();
+    fireUpdScreenTextActionsEnabled();
   }
 
 
@@ -902,13 +902,13 @@ public class LLC2
 	if( (addr >= this.videoPixelAddr)
 	    && (addr < (this.videoPixelAddr + 0x4000)) )
 	{
-	  this.screenFrm.setScreenDirty( true );
+	  setScreenDirty( true );
 	}
       } else {
 	if( (addr >= this.videoTextAddr)
 	    && (addr < (this.videoTextAddr + 0x0800)) )
 	{
-	  this.screenFrm.setScreenDirty( true );
+	  setScreenDirty( true );
 	}
       }
       rv = true;
@@ -1149,7 +1149,7 @@ public class LLC2
 	    if( hiRes != this.hiRes ) {
 	      this.hiRes = hiRes;
 	      dirty      = true;
-	      this.screenFrm.fireUpdScreenTextActionsEnabled();
+	      fireUpdScreenTextActionsEnabled();
 	    }
 	  }
 	  break;
@@ -1165,7 +1165,7 @@ public class LLC2
 	  super.writeIOByte( port, value, tStates );
       }
       if( dirty ) {
-	this.screenFrm.setScreenDirty( true );
+	setScreenDirty( true );
       }
     }
   }
@@ -1201,7 +1201,7 @@ public class LLC2
 	if( this.lineCounter >= 312 ) {
 	  this.lineCounter = 0;
 	  this.ctc.externalUpdate( 2, 1 );
-	  this.screenFrm.setScreenDirty( true );
+	  setScreenDirty( true );
 	}
       }
     }
@@ -147,7 +147,10 @@ public class NANOS extends EmuSys implements
     this.romProp         = null;
     this.ram1000         = new byte[ 0x0400 ];
     this.ram256k         = new byte[ 0x40000 ];
-    this.fdc             = new FDC8272( this, 4 );
+    this.fdc             = new FDC8272(
+					getContext().getThreadGroup(),
+					this,
+					4 );
     this.fdDrives        = new FloppyDiskDrive[ 4 ];
     Arrays.fill( this.fdDrives, null );
     setFDCSpeed( false );
@@ -160,7 +163,9 @@ public class NANOS extends EmuSys implements
 
     this.kcNet = null;
     if( emulatesKCNet( props ) ) {
-      this.kcNet = new KCNet( "Netzwerk-PIO (E/A-Adressen 80h-83h)" );
+      this.kcNet = new KCNet(
+			getContext(),
+			"Netzwerk-PIO (E/A-Adressen 80h-83h)" );
     }
 
     this.vdip = null;
@@ -172,7 +177,11 @@ public class NANOS extends EmuSys implements
       this.vdip.applySettings( props );
     }
 
-    this.gide = GIDE.getGIDE( this.screenFrm, props, this.propPrefix );
+    this.gide = GIDE.getGIDE(
+				this.screenFrm,
+				getContext(),
+				props,
+				this.propPrefix );
 
     this.pio00 = new Z80PIO( "ZRE-PIO (E/A-Adressen 00h-03h)" );
     this.pio80 = null;
@@ -1127,7 +1136,7 @@ public class NANOS extends EmuSys implements
       if( !done ) {
 	this.emuThread.setRAMByte( addr, value );
       }
-      this.screenFrm.setScreenDirty( true );
+      setScreenDirty( true );
       rv = true;
     }
     return rv;
@@ -139,7 +139,7 @@ public class PCM extends EmuSys implements
     this.fdc        = null;
     this.fdDrives   = null;
     if( emulatesFloppyDisk( props ) ) {
-      this.fdc      = new FDC8272( this, 4 );
+      this.fdc      = new FDC8272( getContext().getThreadGroup(), this, 4 );
       this.fdDrives = new FloppyDiskDrive[ 4 ];
       Arrays.fill( this.fdDrives, null );
     } else {
@@ -1004,7 +1004,7 @@ public class PCM extends EmuSys implements
       int idx = addr - 0xF800;
       if( idx < this.ramVideo.length ) {
 	this.ramVideo[ idx ] = (byte) value;
-	this.screenFrm.setScreenDirty( true );
+	setScreenDirty( true );
 	rv = true;
       }
     } else {
@@ -709,7 +709,7 @@ public class Poly880 extends EmuSys implements
 	}
       }
       if( dirty ) {
-	this.screenFrm.setScreenDirty( true );
+	setScreenDirty( true );
       }
     }
   }
@@ -738,7 +738,7 @@ public class Poly880 extends EmuSys implements
 	  }
 	}
 	if( dirty ) {
-	  this.screenFrm.setScreenDirty( true );
+	  setScreenDirty( true );
 	}
 	this.curDisplayTStates = 0;
       }
@@ -770,6 +770,7 @@ public class Poly880 extends EmuSys implements
   {
     byte[] rom = readROMFile( fileName, 0x0400, objName );
     if( (rom != null) && this.extRomsNegated ) {
+      rom = Arrays.copyOf( rom, rom.length );
       for( int i = 0; i < rom.length; i++ ) {
 	rom[ i ] = (byte) ~rom[ i ];
       }
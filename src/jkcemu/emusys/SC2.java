@@ -548,7 +548,7 @@ public class SC2 extends EmuSys implements Z80MaxSpeedListener
       if( idx < this.ram.length ) {
 	this.ram[ idx ] = (byte) value;
 	if( (idx < 0x78) && ((idx % 16) < 8) ) {
-	  this.screenFrm.setChessboardDirty( true );
+	  setChessboardDirty( true );
 	}
 	rv = true;
       }
@@ -655,7 +655,7 @@ public class SC2 extends EmuSys implements Z80MaxSpeedListener
 	  }
 	}
 	if( displayDirty || ledDirty ) {
-	  this.screenFrm.setScreenDirty( true );
+	  setScreenDirty( true );
 	}
 	if( ledDirty && (this.keyboardFld != null) ) {
 	  this.keyboardFld.repaint();
@@ -763,7 +763,7 @@ public class SC2 extends EmuSys implements Z80MaxSpeedListener
       }
     }
     if( displayDirty || ledDirty ) {
-      this.screenFrm.setScreenDirty( true );
+      setScreenDirty( true );
     }
     if( ledDirty && (this.keyboardFld != null) ) {
       this.keyboardFld.repaint();
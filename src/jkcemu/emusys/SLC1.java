@@ -575,7 +575,7 @@ public class SLC1 extends EmuSys implements
       if( idx < this.ram.length ) {
 	this.ram[ idx ] = (byte) value;
 	if( this.chessMode && (idx < 0x78) && ((idx % 16) < 8) ) {
-	  this.screenFrm.setChessboardDirty( true );
+	  setChessboardDirty( true );
 	}
 	rv = true;
       }
@@ -653,7 +653,7 @@ public class SLC1 extends EmuSys implements
       this.ledValue  = ledValue;
     }
     if( dirty ) {
-      this.screenFrm.setScreenDirty( true );
+      setScreenDirty( true );
     }
   }
 
@@ -688,7 +688,7 @@ public class SLC1 extends EmuSys implements
 	  }
 	}
 	if( dirty ) {
-	  this.screenFrm.setScreenDirty( true );
+	  setScreenDirty( true );
 	}
 	this.curDisplayTStates = 0;
       }
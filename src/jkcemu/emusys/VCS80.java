@@ -420,7 +420,7 @@ public class VCS80 extends EmuSys implements
 	    }
 	  }
 	  if ( dirty ) {
-	    this.screenFrm.setScreenDirty( true );
+	    setScreenDirty( true );
 	  }
 
 	  // Spaltenzaehler inkrementieren
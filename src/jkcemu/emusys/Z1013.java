@@ -11,8 +11,9 @@ package jkcemu.emusys;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Properties;
-import jkcemu.Main;
 import jkcemu.audio.AbstractSoundDevice;
+import jkcemu.audio.TapeTrap;
+import jkcemu.audio.TapeTraps;
 import jkcemu.base.AbstractKeyboardFld;
 import jkcemu.base.AbstractScreenDevice;
 import jkcemu.base.AbstractScreenFrm;
@@ -204,6 +205,7 @@ public class Z1013 extends EmuSys implements
   private K1520Sound                 k1520Sound;
   private KCNet                      kcNet;
   private VDIP                       vdip;
+  private TapeTraps                  tapeTraps;
   private RAMFloppy                  ramFloppy1;
   private RAMFloppy                  ramFloppy2;
   private int                        ramBankKRT;
@@ -226,6 +228,7 @@ public class Z1013 extends EmuSys implements
   private boolean                    petersCardEnabled;
   private boolean                    altFontEnabled;
   private boolean                    catchPrintCalls;
+  private boolean                    addrListenerAdded;
   private boolean                    mode4MHz;
   private boolean                    mode64x16;
   private volatile boolean           modeKRT;
@@ -270,6 +273,8 @@ public class Z1013 extends EmuSys implements
     this.userPort          = UserPort.NONE;
     this.lastWrittenAddr   = -1;
     this.pasteFast         = false;
+    this.addrListenerAdded = false;
+    this.tapeTraps         = new TapeTraps( this, TapeTrap.Z1013 );
     this.charToPaste       = 0;
     this.centrTStatesToAck = 0;
     this.io4Value          = 0;
@@ -308,14 +313,13 @@ public class Z1013 extends EmuSys implements
 
     Z80CPU cpu = this.emuThread.getZ80CPU();
     this.pio   = new Z80PIO( "PIO (E/A-Adressen 00h-03h)" );
-    cpu.addAddressListener( this );
     cpu.addMaxSpeedListener( this );
     checkAddPCListener( props );
 
     if( emulatesFloppyDisk( props ) ) {
       this.floppyDiskDrives = new FloppyDiskDrive[ 4 ];
       Arrays.fill( this.floppyDiskDrives, null );
-      this.fdc = new FDC8272( this, 4 );
+      this.fdc = new FDC8272( getContext().getThreadGroup(), this, 4 );
     } else {
       this.floppyDiskDrives = null;
       this.fdc              = null;
@@ -353,7 +357,9 @@ public class Z1013 extends EmuSys implements
     }
 
     if( emulatesKCNet( props ) ) {
-      this.kcNet = new KCNet( "Netzwerk-PIO (E/A-Adressen C0h-C3h)" );
+      this.kcNet = new KCNet(
+			getContext(),
+			"Netzwerk-PIO (E/A-Adressen C0h-C3h)" );
     } else {
       this.kcNet = null;
     }
@@ -367,7 +373,11 @@ public class Z1013 extends EmuSys implements
       this.vdip = null;
     }
 
-    this.gide = GIDE.getGIDE( this.screenFrm, props, this.propPrefix );
+    this.gide = GIDE.getGIDE(
+				this.screenFrm,
+				getContext(),
+				props,
+				this.propPrefix );
 
     java.util.List<Z80InterruptSource> iSources = new ArrayList<>();
     if( this.graphicZX != null ) {
@@ -396,8 +406,7 @@ public class Z1013 extends EmuSys implements
     this.pio.addPIOPortListener( this, Z80PIO.PortInfo.B );
 
     this.keyboardFld = null;
-    this.keyboard    = new Z1013Keyboard( this.pio );
-    this.keyboard.applySettings( props );
+    this.keyboard    = new Z1013Keyboard( this.pio, props );
 
     if( this.vdip != null ) {
       this.vdip.applySettings( props );
@@ -698,7 +707,7 @@ public class Z1013 extends EmuSys implements
     boolean state = isFixedScreenSize( props );
     if( state != this.fixedScreenSize ) {
       this.fixedScreenSize = state;
-      this.screenFrm.fireScreenSizeChanged();
+      fireScreenSizeChanged();
     }
     checkAddPCListener( props );
     loadFonts( props );
@@ -887,6 +896,7 @@ public class Z1013 extends EmuSys implements
     if( this.pcListenerAddrs != null ) {
       cpu.removePCListener( this );
     }
+    this.tapeTraps.setActive( cpu, false );
     if( this.gide != null ) {
       this.gide.die();
     }
@@ -914,7 +924,7 @@ public class Z1013 extends EmuSys implements
   public int getColorIndex( int x, int y )
   {
     int rv = BLACK;
-    if( (this.fixedScreenSize || this.screenFrm.isFullScreenMode())
+    if( (this.fixedScreenSize || isFullScreenMode())
 	&& !this.mode64x16 )
     {
       x -= 128;
@@ -997,7 +1007,7 @@ public class Z1013 extends EmuSys implements
 		32, 32,
 		8, 8, 8,
 		this.fixedScreenSize
-			|| this.screenFrm.isFullScreenMode() ? 128 : 0,
+			|| isFullScreenMode() ? 128 : 0,
 		0 );
     }
     return rv;
@@ -1181,7 +1191,7 @@ public class Z1013 extends EmuSys implements
   public int getScreenHeight()
   {
     return (!this.fixedScreenSize
-		&& !this.screenFrm.isFullScreenMode()
+		&& !isFullScreenMode()
 		&& this.mode64x16) ? 248 : 256;
   }
 
@@ -1191,7 +1201,7 @@ public class Z1013 extends EmuSys implements
   {
     return (this.mode64x16
 		|| this.fixedScreenSize
-		|| this.screenFrm.isFullScreenMode()) ? 512 : 256;
+		|| isFullScreenMode()) ? 512 : 256;
   }
 
 
@@ -1485,7 +1495,7 @@ public class Z1013 extends EmuSys implements
   @Override
   public void informPastingTextStatusChanged( boolean pasting )
   {
-    this.screenFrm.pastingTextStatusChanged( pasting );
+    super.informPastingTextStatusChanged( pasting );
     if( this.graphicCCJena != null ) {
       AbstractScreenFrm screenFrm = this.graphicCCJena.getScreenFrm();
       if( screenFrm != null ) {
@@ -1594,6 +1604,11 @@ public class Z1013 extends EmuSys implements
 	      break;
 
 	    case 2:
+	      if( !this.addrListenerAdded ) {
+		// Verbindung A0 - PIO B5 erst beim Lesen emulieren
+		z80AddressChanged(
+			this.emuThread.getZ80CPU().getLastMemAddr() );
+	      }
 	      rv = this.pio.readDataB();
 	      break;
 	  }
@@ -1602,19 +1617,21 @@ public class Z1013 extends EmuSys implements
 	case 0x0C:				// IOSEL3 -> Vollgrafik ein
 	  if( this.ramKRT != null ) {
 	    this.modeKRT = true;
-	    this.screenFrm.setScreenDirty( true );
+	    setScreenDirty( true );
 	  }
 	  break;
 
 	case 0x10:				// IOSEL4 -> Vollgrafik aus
 	  if( this.ramKRT != null ) {
 	    this.modeKRT = false;
-	    this.screenFrm.setScreenDirty( true );
+	    setScreenDirty( true );
 	  }
 	  break;
       }
     }
-    z80AddressChanged( port16 );
+    if( this.addrListenerAdded ) {
+      z80AddressChanged( port16 );
+    }
     return rv;
   }
 
@@ -1714,10 +1731,11 @@ public class Z1013 extends EmuSys implements
     if( this.petersCardEnabled ) {
       if( this.mode64x16 ) {
 	this.mode64x16 = false;
-	this.screenFrm.fireScreenSizeChanged();
+	fireScreenSizeChanged();
       }
       if( this.mode4MHz ) {
-	this.emuThread.updCPUSpeed( Main.getProperties() );
+	this.emuThread.updCPUSpeed(
+			this.emuThread.getContext().getProperties() );
 	this.mode4MHz = false;
       }
     }
@@ -1736,6 +1754,7 @@ public class Z1013 extends EmuSys implements
       fillRandom( this.ramVideo );
     }
     this.pio.reset( powerOn );
+    checkAddAddressListener();
     this.keyboard.reset();
     if( this.graphicZX != null ) {
       this.graphicZX.reset( powerOn, props );
@@ -1938,7 +1957,7 @@ public class Z1013 extends EmuSys implements
 	int idx = addr - 0xEC00;
 	if( idx < ram.length ) {
 	  ram[ idx ] = (byte) value;
-	  this.screenFrm.setScreenDirty( true );
+	  setScreenDirty( true );
 	  rv = true;
 	}
       }
@@ -2114,14 +2133,14 @@ public class Z1013 extends EmuSys implements
 	if( (this.altFontEnabled != oldAltFontEnabled)
 	    || (this.mode64x16 != oldMode64x16) )
 	{
-	  this.screenFrm.setScreenDirty( true );
+	  setScreenDirty( true );
 	}
 	if( (this.mode64x16 != oldMode64x16)
 	    && !this.fixedScreenSize
-	    && !this.screenFrm.isFullScreenMode() )
+	    && !isFullScreenMode() )
 	{
-	  this.screenFrm.clearScreenSelection();
-	  this.screenFrm.fireScreenSizeChanged();
+	  clearScreenSelection();
+	  fireScreenSizeChanged();
 	}
 	this.io4Value = value & 0xF0;
       } else if( this.rom8000 != null ) {
@@ -2262,6 +2281,7 @@ public class Z1013 extends EmuSys implements
 
 	    case 3:
 	      this.pio.writeControlB( value );
+	      checkAddAddressListener();
 	      break;
 	  }
 	  break;
@@ -2272,11 +2292,11 @@ public class Z1013 extends EmuSys implements
 	    value &= 0x0F;
 	    if( value == 8 ) {
 	      this.modeKRT = true;
-	      this.screenFrm.setScreenDirty( true );
+	      setScreenDirty( true );
 	    }
 	    else if( value == 9 ) {
 	      this.modeKRT = false;
-	      this.screenFrm.setScreenDirty( true );
+	      setScreenDirty( true );
 	    }
 	    this.ramBankKRT = (value & 0x07);
 	  }
@@ -2285,19 +2305,21 @@ public class Z1013 extends EmuSys implements
 	case 0x0C:				// IOSEL3
 	  if( this.ramKRT != null ) {
 	    this.modeKRT = true;
-	    this.screenFrm.setScreenDirty( true );
+	    setScreenDirty( true );
 	  }
 	  break;
 
 	case 0x10:				// IOSEL4
 	  if( this.ramKRT != null ) {
 	    this.modeKRT = false;
-	    this.screenFrm.setScreenDirty( true );
+	    setScreenDirty( true );
 	  }
 	  break;
       }
     }
-    z80AddressChanged( port16 );
+    if( this.addrListenerAdded ) {
+      z80AddressChanged( port16 );
+    }
   }
 
 
@@ -2345,6 +2367,28 @@ public class Z1013 extends EmuSys implements
   }
 
 
+  /*
+   * Die Verbindung A0 - PIO B5 wird normalerweise erst beim Lesen
+   * von PIO Port B ausgewertet.
+   * Nur wenn B5 einen Interrupt ausloesen kann,
+   * wird jeder Speicherzugriff sofort an die PIO weitergegeben.
+   */
+  private void checkAddAddressListener()
+  {
+    boolean state = this.pio.isInterruptInputBitPortB( 0x20 );
+    if( state != this.addrListenerAdded ) {
+      Z80CPU cpu = this.emuThread.getZ80CPU();
+      if( state ) {
+	cpu.addAddressListener( this );
+	z80AddressChanged( cpu.getLastMemAddr() );
+      } else {
+	cpu.removeAddressListener( this );
+      }
+      this.addrListenerAdded = state;
+    }
+  }
+
+
   private synchronized void checkAddPCListener( Properties props )
   {
     this.pasteFast = EmuUtil.getBooleanProperty(
@@ -2412,6 +2456,9 @@ public class Z1013 extends EmuSys implements
 	}
       }
     }
+    this.tapeTraps.setActive(
+			this.emuThread.getZ80CPU(),
+			isTapeFast( props ) );
   }
 
 
@@ -16,6 +16,8 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Properties;
 import jkcemu.audio.AbstractSoundDevice;
+import jkcemu.audio.TapeTrap;
+import jkcemu.audio.TapeTraps;
 import jkcemu.base.AutoInputCharSet;
 import jkcemu.base.CharRaster;
 import jkcemu.base.EmuSys;
@@ -366,6 +368,7 @@ public class Z9001 extends EmuSys implements
   private K1520Sound             k1520Sound;
   private KCNet                  kcNet;
   private VDIP                   vdip;
+  private TapeTraps              tapeTraps;
   private Z9001KeyboardFld       keyboardFld;
   private javax.swing.Timer      blinkTimer;
   private Color[]                colors;
@@ -411,7 +414,7 @@ public class Z9001 extends EmuSys implements
     if( emulatesFloppyDisk( props ) ) {
       this.floppyDiskDrives = new FloppyDiskDrive[ 2 ];
       Arrays.fill( this.floppyDiskDrives, null );
-      this.fdc = new FDC8272( this, 4 );
+      this.fdc = new FDC8272( getContext().getThreadGroup(), this, 4 );
     } else {
       this.floppyDiskDrives = null;
       this.fdc              = null;
@@ -429,7 +432,9 @@ public class Z9001 extends EmuSys implements
       this.k1520Sound = null;
     }
     if( emulatesKCNet( props ) ) {
-      this.kcNet = new KCNet( "Netzwerk-PIO (E/A-Adressen C0h-C3h)" );
+      this.kcNet = new KCNet(
+			getContext(),
+			"Netzwerk-PIO (E/A-Adressen C0h-C3h)" );
     } else {
       this.kcNet = null;
     }
@@ -448,7 +453,11 @@ public class Z9001 extends EmuSys implements
 	printerModBytes = readResource( "/rom/z9001/modprinter.bin" );
       }
     }
-    this.gide = GIDE.getGIDE( this.screenFrm, props, this.propPrefix );
+    this.gide = GIDE.getGIDE(
+				this.screenFrm,
+				getContext(),
+				props,
+				this.propPrefix );
     this.rtc  = emulatesRTC( props ) ? new RTC7242X() : null;
 
     this.c80Active       = false;
@@ -482,6 +491,7 @@ public class Z9001 extends EmuSys implements
 
     this.lineNum         = 0;
     this.lineTStates     = 0;
+    this.tapeTraps       = new TapeTraps( this, TapeTrap.Z9001 );
     this.pcListenerAdded = false;
     this.mode20Rows      = false;
     this.colorSwap       = false;
@@ -660,7 +670,7 @@ public class Z9001 extends EmuSys implements
 	&& !this.emuThread.getZ80CPU().isPause() )
     {
       this.colorSwap = !this.colorSwap;
-      this.screenFrm.setScreenDirty( true );
+      setScreenDirty( true );
     }
   }
 
@@ -895,7 +905,7 @@ public class Z9001 extends EmuSys implements
     boolean state = isFixedScreenSize( props );
     if( state != this.fixedScreenSize ) {
       this.fixedScreenSize = state;
-      this.screenFrm.fireScreenSizeChanged();
+      fireScreenSizeChanged();
     }
     checkAddPCListener( props );
     createColors( props );
@@ -1084,6 +1094,7 @@ public class Z9001 extends EmuSys implements
     if( this.pcListenerAdded ) {
       cpu.removePCListener( this );
     }
+    this.tapeTraps.setActive( cpu, false );
     this.loudspeaker.fireStop();
     if( this.ramFloppy1 != null ) {
       this.ramFloppy1.deinstall();
@@ -1149,7 +1160,7 @@ public class Z9001 extends EmuSys implements
   public int getColorIndex( int x, int y )
   {
     int rv = 0;
-    if( this.fixedScreenSize || this.screenFrm.isFullScreenMode() ) {
+    if( this.fixedScreenSize || isFullScreenMode() ) {
       y /= 2;
     }
     if( this.graphMode
@@ -1157,7 +1168,7 @@ public class Z9001 extends EmuSys implements
 	&& (this.ramPixel != null) )
     {
       boolean done = false;
-      if( this.fixedScreenSize || this.screenFrm.isFullScreenMode() ) {
+      if( this.fixedScreenSize || isFullScreenMode() ) {
 	x /= 2;
       }
       x -= 32;		// Grafikausgabe ueber Alpha-Ausgabe zentrieren
@@ -1188,7 +1199,7 @@ public class Z9001 extends EmuSys implements
 	}
 	col /= 2;
       } else {
-	if( this.fixedScreenSize || this.screenFrm.isFullScreenMode() ) {
+	if( this.fixedScreenSize || isFullScreenMode() ) {
 	  x   /= 2;
 	  col /= 2;
 	}
@@ -1283,7 +1294,7 @@ public class Z9001 extends EmuSys implements
       int rowHeight  = (this.mode20Rows ? 9 : 8);
       int charWidth  = 8;
       int charHeight = 8;
-      if( this.fixedScreenSize || this.screenFrm.isFullScreenMode() ) {
+      if( this.fixedScreenSize || isFullScreenMode() ) {
 	rowHeight *= 2;
 	if( !this.c80Active ) {
 	  charWidth *= 2;
@@ -1414,7 +1425,7 @@ public class Z9001 extends EmuSys implements
   public int getScreenHeight()
   {
     int rv = 192;
-    if( this.fixedScreenSize || this.screenFrm.isFullScreenMode() ) {
+    if( this.fixedScreenSize || isFullScreenMode() ) {
       rv *= 2;
     }
     return rv;
@@ -1425,7 +1436,7 @@ public class Z9001 extends EmuSys implements
   public int getScreenWidth()
   {
     int rv = 320;
-    if( this.fixedScreenSize || this.screenFrm.isFullScreenMode()
+    if( this.fixedScreenSize || isFullScreenMode()
 	|| (this.c80Active && !this.graphMode) )
     {
       rv *= 2;
@@ -2138,7 +2149,7 @@ public class Z9001 extends EmuSys implements
     setGraphicLED( false );
     upd80CharsMode( false );
     updScreenConfig( 0 );
-    this.screenFrm.fireUpdScreenTextActionsEnabled();
+    fireUpdScreenTextActionsEnabled();
   }
 
 
@@ -2485,15 +2496,15 @@ public class Z9001 extends EmuSys implements
 	    this.graphFgColor = (value >> 4) & 0x07;
 	    this.graphBorder  = ((value & 0x80) != 0);
 	    graphMode         = ((value & 0x08) != 0);
-	    this.screenFrm.setScreenDirty( true );
+	    setScreenDirty( true );
 	  } else if( this.graphType == GRAPHIC_KRT ) {
 	    this.graphBank = value & 0x07;
 	    graphMode      = ((value & 0x08) != 0);
-	    this.screenFrm.setScreenDirty( true );
+	    setScreenDirty( true );
 	  }
 	  if( graphMode != this.graphMode ) {
 	    this.graphMode = graphMode;
-	    this.screenFrm.fireUpdScreenTextActionsEnabled();
+	    fireUpdScreenTextActionsEnabled();
 	  }
 	}
 	break;
@@ -2513,7 +2524,7 @@ public class Z9001 extends EmuSys implements
 	  int addr = (port & 0xFF00) | this.graphAddrL;
 	  if( (addr >= 0) && (addr < this.ramPixel.length) ) {
 	    this.ramPixel[ addr ] = (byte) value;
-	    this.screenFrm.setScreenDirty( true );
+	    setScreenDirty( true );
 	  }
 	}
 	break;
@@ -2598,17 +2609,17 @@ public class Z9001 extends EmuSys implements
 	case 0xEBFC:
 	  this.ramFontActive  = false;
 	  this.ramFontEnabled = true;
-	  this.screenFrm.setScreenDirty( true );
+	  setScreenDirty( true );
 	  break;
 	case 0xEBFE:
 	  this.ramFontActive  = true;
 	  this.ramFontEnabled = false;
-	  this.screenFrm.setScreenDirty( true );
+	  setScreenDirty( true );
 	  break;
 	case 0xEBFF:
 	  this.ramFontActive  = false;
 	  this.ramFontEnabled = false;
-	  this.screenFrm.setScreenDirty( true );
+	  setScreenDirty( true );
 	  break;
       }
     }
@@ -2692,6 +2703,9 @@ public class Z9001 extends EmuSys implements
       }
       this.pcListenerAdded = state;
     }
+    this.tapeTraps.setActive(
+			this.emuThread.getZ80CPU(),
+			isTapeFast( props ) );
   }
 
 
@@ -3263,7 +3277,7 @@ public class Z9001 extends EmuSys implements
 	} else {
 	  this.ramColor[ idx ] = (byte) value;
 	}
-	this.screenFrm.setScreenDirty( true );
+	setScreenDirty( true );
 	rv = true;
 	if( emuWaitStates ) {
 	  adjustVideoRAMAccessTStates();
@@ -3279,7 +3293,7 @@ public class Z9001 extends EmuSys implements
 	idx += (this.graphBank * 0x0400);
 	if( (idx >= 0) && (idx < this.ramPixel.length) ) {
 	  this.ramPixel[ idx ] = (byte) value;
-	  this.screenFrm.setScreenDirty( true );
+	  setScreenDirty( true );
 	  rv = true;
 	}
       } else {
@@ -3288,7 +3302,7 @@ public class Z9001 extends EmuSys implements
 	} else {
 	  this.ramVideo[ idx ] = (byte) value;
 	}
-	this.screenFrm.setScreenDirty( true );
+	setScreenDirty( true );
 	rv = true;
       }
       if( emuWaitStates ) {
@@ -3303,9 +3317,9 @@ public class Z9001 extends EmuSys implements
   {
     if( this.c80Active != state ) {
       this.c80Active = state;
-      this.screenFrm.setScreenDirty( true );
+      setScreenDirty( true );
       if( !this.fixedScreenSize ) {
-	this.screenFrm.fireScreenSizeChanged();
+	fireScreenSizeChanged();
       }
     }
   }
@@ -3335,7 +3349,7 @@ public class Z9001 extends EmuSys implements
     {
       this.mode20Rows     = mode20Rows;
       this.borderColorIdx = colorIdx;
-      this.screenFrm.setScreenDirty( true );
+      setScreenDirty( true );
     }
   }
 }
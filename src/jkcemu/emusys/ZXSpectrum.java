@@ -176,7 +176,10 @@ public class ZXSpectrum extends EmuSys implements
       this.linesPerScreen  = 311;
       this.firstScreenLine = 63;
       this.ram             = new byte[ 0x20000 ];
-      this.psg             = new PSG8910( DEFAULT_128K_KHZ * 500, this );
+      this.psg             = new PSG8910(
+						getContext().getThreadGroup(),
+						DEFAULT_128K_KHZ * 500,
+						this );
       this.psgSoundDevice  = new PSGSoundDevice(
 					"Sound-Generator",
 					false,
@@ -1254,7 +1257,7 @@ public class ZXSpectrum extends EmuSys implements
 	  }
 	  if( colorNum != this.screenColorNums[ dstPos ] ) {
 	    this.screenColorNums[ dstPos ] = colorNum;
-	    this.screenFrm.setScreenDirty( true );
+	    setScreenDirty( true );
 	  }
 	  dstPos++;
 	  pixels <<= 1;
@@ -1264,7 +1267,7 @@ public class ZXSpectrum extends EmuSys implements
     if( (screenLine >= 0) && (screenLine < this.borderColorNums.length) ) {
       if( (byte) this.borderColorNum != this.borderColorNums[ screenLine ] ) {
 	this.borderColorNums[ screenLine ] = (byte) this.borderColorNum;
-	this.screenFrm.setScreenDirty( true );
+	setScreenDirty( true );
       }
     }
   }
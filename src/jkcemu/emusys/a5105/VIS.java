@@ -140,7 +140,7 @@ public class VIS implements GDC82720.GDCListener, GDC82720.VRAM
       yMargin = 0;
     }
     int rv = yMargin + this.gdc.getCharTopLine();
-    if( this.fixedScreenSize || this.screenFrm.isFullScreenMode() ) {
+    if( this.fixedScreenSize || isFullScreenMode() ) {
       rv *= 2;
     }
     return rv;
@@ -169,7 +169,7 @@ public class VIS implements GDC82720.GDCListener, GDC82720.VRAM
 
   public int getScreenHeight()
   {
-    return (this.fixedScreenSize || this.screenFrm.isFullScreenMode()) ?
+    return (this.fixedScreenSize || isFullScreenMode()) ?
 		(2 * DEFAULT_SCREEN_HEIGHT) : DEFAULT_SCREEN_HEIGHT;
   }
 
@@ -177,7 +177,7 @@ public class VIS implements GDC82720.GDCListener, GDC82720.VRAM
   public int getScreenWidth()
   {
     int rv = DEFAULT_SCREEN_WIDTH;
-    if( this.fixedScreenSize || this.screenFrm.isFullScreenMode() ) {
+    if( this.fixedScreenSize || isFullScreenMode() ) {
       rv = 2 * DEFAULT_SCREEN_WIDTH;
     } else {
       if( this.screenWidth > DEFAULT_SCREEN_WIDTH ) {
@@ -204,7 +204,7 @@ public class VIS implements GDC82720.GDCListener, GDC82720.VRAM
       int cLine   = 0;
       int yMargin = (DEFAULT_SCREEN_HEIGHT - this.gdc.getDisplayLines()) / 2;
       if( yMargin > 0 ) {
-	if( this.fixedScreenSize || this.screenFrm.isFullScreenMode() ) {
+	if( this.fixedScreenSize || isFullScreenMode() ) {
 	  yMargin *= 2;
 	}
 	yOffs += (yMargin * screenScale);
@@ -359,7 +359,7 @@ public class VIS implements GDC82720.GDCListener, GDC82720.VRAM
 	  img.setRGB( x++, y, border );
 	}
       }
-      if( this.fixedScreenSize || this.screenFrm.isFullScreenMode() ) {
+      if( this.fixedScreenSize || isFullScreenMode() ) {
 	g.drawImage(
 		img,
 		xOffs,
@@ -418,7 +418,7 @@ public class VIS implements GDC82720.GDCListener, GDC82720.VRAM
       this.screenImage = null;
       this.w640        = false;
     }
-    this.screenFrm.setScreenDirty( true );
+    setScreenDirty();
   }
 
 
@@ -445,7 +445,7 @@ public class VIS implements GDC82720.GDCListener, GDC82720.VRAM
 	this.fontBytes[ idx ] = (byte) value;
       }
       this.fontRowAddr = (this.fontRowAddr + 1) & 0x07;
-      this.screenFrm.setScreenDirty( true );
+      setScreenDirty();
     }
   }
 
@@ -518,10 +518,9 @@ public class VIS implements GDC82720.GDCListener, GDC82720.VRAM
 	break;
     }
     if( configChanged ) {
-      this.screenFrm.clearScreenSelection();
-      this.screenFrm.fireUpdScreenTextActionsEnabled();
+      fireScreenConfigChanged();
     }
-    this.screenFrm.setScreenDirty( true );
+    setScreenDirty();
   }
 
 
@@ -530,15 +529,14 @@ public class VIS implements GDC82720.GDCListener, GDC82720.VRAM
   @Override
   public void screenConfigChanged( GDC82720 gdc )
   {
-    this.screenFrm.clearScreenSelection();
-    this.screenFrm.fireUpdScreenTextActionsEnabled();
+    fireScreenConfigChanged();
   }
 
 
   @Override
   public void screenDirty( GDC82720 gdc )
   {
-    this.screenFrm.setScreenDirty( true );
+    setScreenDirty();
   }
 
 
@@ -555,12 +553,26 @@ public class VIS implements GDC82720.GDCListener, GDC82720.VRAM
   public void setVRAMWord( int addr, int value )
   {
     this.vram[ addr & 0xFFFF ]= (short) value;
-    this.screenFrm.setScreenDirty( true );
+    setScreenDirty();
   }
 
 
 	/* --- private Methoden --- */
 
+  /*
+   * Ohne Bildschirmfenster (siehe jkcemu.base.EmuContext)
+   * werden die Benachrichtigungen ignoriert.
+   */
+  private void fireScreenConfigChanged()
+  {
+    ScreenFrm screenFrm = this.screenFrm;
+    if( screenFrm != null ) {
+      screenFrm.clearScreenSelection();
+      screenFrm.fireUpdScreenTextActionsEnabled();
+    }
+  }
+
+
   private BufferedImage getScreenImage()
   {
     BufferedImage img = this.screenImage;
@@ -595,6 +607,22 @@ public class VIS implements GDC82720.GDCListener, GDC82720.VRAM
   }
 
 
+  private boolean isFullScreenMode()
+  {
+    ScreenFrm screenFrm = this.screenFrm;
+    return screenFrm != null ? screenFrm.isFullScreenMode() : false;
+  }
+
+
+  private void setScreenDirty()
+  {
+    ScreenFrm screenFrm = this.screenFrm;
+    if( screenFrm != null ) {
+      screenFrm.setScreenDirty( true );
+    }
+  }
+
+
   private void updScreenWidth()
   {
     int oldWidth = getScreenWidth();
@@ -605,7 +633,10 @@ public class VIS implements GDC82720.GDCListener, GDC82720.VRAM
     }
     this.screenWidth = newWidth;
     if( (newWidth != oldWidth) && !this.fixedScreenSize ) {
-      this.screenFrm.fireScreenSizeChanged();
+      ScreenFrm screenFrm = this.screenFrm;
+      if( screenFrm != null ) {
+	screenFrm.fireScreenSizeChanged();
+      }
     }
   }
 }
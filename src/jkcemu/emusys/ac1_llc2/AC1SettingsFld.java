@@ -55,6 +55,7 @@ public class AC1SettingsFld extends AbstractSettingsFld
   private JCheckBox              cbKCNet;
   private JCheckBox              cbVDIP;
   private JCheckBox              cbPasteFast;
+  private JCheckBox              cbTapeFast;
   private ROMFileSettingsFld     fldAltOS;
   private ROMFileSettingsFld     fldAltFont;
   private ROMFileSettingsFld     fldAltPio2Rom2010;
@@ -283,6 +284,13 @@ public class AC1SettingsFld extends AbstractSettingsFld
 		"Einf\u00FCgen von Text durch Abfangen des Systemaufrufs" );
     this.tabEtc.add( this.cbPasteFast, gbcEtc );
 
+    this.cbTapeFast = GUIFactory.createCheckBox(
+		"Kassettenroutinen der SCCH-Monitore abfangen"
+			+ " (Laden ohne Audiodaten)" );
+    gbcEtc.insets.top = 0;
+    gbcEtc.gridy++;
+    this.tabEtc.add( this.cbTapeFast, gbcEtc );
+
     gbcEtc.insets.top    = 10;
     gbcEtc.insets.bottom = 10;
     gbcEtc.gridy++;
@@ -340,6 +348,7 @@ public class AC1SettingsFld extends AbstractSettingsFld
     this.rbCtcM1ToClk2.addActionListener( this );
     this.cbCtcT0ToSound.addActionListener( this );
     this.cbPasteFast.addActionListener( this );
+    this.cbTapeFast.addActionListener( this );
   }
 
 
@@ -432,6 +441,10 @@ public class AC1SettingsFld extends AbstractSettingsFld
 		props,
 		this.propPrefix + AC1.PROP_PASTE_FAST,
 		this.cbPasteFast.isSelected() );
+      EmuUtil.setProperty(
+		props,
+		this.propPrefix + AC1.PROP_TAPE_FAST,
+		this.cbTapeFast.isSelected() );
       this.fldAltOS.applyInput( props, selected );
       this.fldAltFont.applyInput( props, selected );
 
@@ -572,6 +585,11 @@ public class AC1SettingsFld extends AbstractSettingsFld
 			props,
 			this.propPrefix + AC1.PROP_PASTE_FAST,
 			false ) );
+    this.cbTapeFast.setSelected(
+		EmuUtil.getBooleanProperty(
+			props,
+			this.propPrefix + AC1.PROP_TAPE_FAST,
+			false ) );
 
     this.fldAltOS.updFields( props );
     this.fldAltFont.updFields( props );
@@ -14,6 +14,7 @@ import java.text.StringCharacterIterator;
 import java.util.ArrayList;
 import java.util.Properties;
 import jkcemu.audio.AbstractSoundDevice;
+import jkcemu.audio.TapeTraps;
 import jkcemu.base.AutoInputCharSet;
 import jkcemu.base.EmuSys;
 import jkcemu.base.EmuThread;
@@ -195,6 +196,7 @@ public abstract class AbstractSCCHSys
   protected int                    scchRomdiskBegAddr;
   protected int                    scchRomdiskBankAddr;
   protected volatile boolean       pasteFast;
+  protected TapeTraps              tapeTraps;
   protected boolean                v24BitOut;
   protected int                    v24BitNum;
   protected int                    v24ShiftBuf;
@@ -225,6 +227,7 @@ public abstract class AbstractSCCHSys
     this.scchRomdiskBegAddr  = getScchRomdiskBegAddr( props );
     this.scchRomdiskBankAddr = 0;
     this.pasteFast           = true;
+    this.tapeTraps           = null;
     this.gsbasic             = null;
     this.loudspeaker         = new CPUSynchronSoundDevice( "Lautsprecher" );
     this.k1520Sound          = null;
@@ -234,7 +237,9 @@ public abstract class AbstractSCCHSys
       this.k1520Sound = new K1520Sound( this, 0x38 );
     }
     if( emulatesKCNet( props ) ) {
-      this.kcNet = new KCNet( "Netzwerk-PIO (E/A-Adressen C0h-C3h)" );
+      this.kcNet = new KCNet(
+			getContext(),
+			"Netzwerk-PIO (E/A-Adressen C0h-C3h)" );
     }
     if( emulatesVDIP( props ) ) {
       this.vdip = new VDIP(
@@ -243,7 +248,11 @@ public abstract class AbstractSCCHSys
 			"USB-PIO (E/A-Adressen DCh-DFh, FCh-FFh)" );
       this.vdip.applySettings( props );
     }
-    this.gide = GIDE.getGIDE( this.screenFrm, props, this.propPrefix );
+    this.gide = GIDE.getGIDE(
+				this.screenFrm,
+				getContext(),
+				props,
+				this.propPrefix );
   }
 
 
@@ -296,21 +305,26 @@ public abstract class AbstractSCCHSys
   }
 
 
+  /*
+   * Abgefangen werden die Zeicheneingabe beim schnellen Einfuegen
+   * von Text sowie ggf. die Kassettenroutinen,
+   * sofern die abgeleitete Klasse das Attribut tapeTraps gesetzt hat.
+   */
   protected synchronized void checkAddPCListener( Properties props )
   {
     Z80CPU cpu = this.emuThread.getZ80CPU();
     if( cpu != null ) {
-      boolean pasteFast = EmuUtil.getBooleanProperty(
+      this.pasteFast = EmuUtil.getBooleanProperty(
 				props,
 				this.propPrefix + PROP_PASTE_FAST,
 				true );
-      if( pasteFast != this.pasteFast ) {
-	this.pasteFast = pasteFast;
-	if( pasteFast ) {
-	  cpu.addPCListener( this, ADDR_INCH );
-	} else {
-	  cpu.removePCListener( this );
-	}
+      if( this.pasteFast ) {
+	cpu.addPCListener( this, ADDR_INCH );
+      } else {
+	cpu.removePCListener( this );
+      }
+      if( this.tapeTraps != null ) {
+	this.tapeTraps.setActive( cpu, isTapeFast( props ) );
       }
     }
   }
@@ -561,10 +575,12 @@ public abstract class AbstractSCCHSys
     if( this.gide != null ) {
       this.gide.die();
     }
-    if( this.pasteFast ) {
-      this.emuThread.getZ80CPU().removePCListener( this );
-      this.pasteFast = false;
+    Z80CPU cpu = this.emuThread.getZ80CPU();
+    cpu.removePCListener( this );
+    if( this.tapeTraps != null ) {
+      this.tapeTraps.setActive( cpu, false );
     }
+    this.pasteFast = false;
     this.loudspeaker.fireStop();
     super.die();
   }
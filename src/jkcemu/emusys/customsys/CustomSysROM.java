@@ -9,7 +9,7 @@
 package jkcemu.emusys.customsys;
 
 import java.awt.Component;
-import jkcemu.file.FileUtil;
+import jkcemu.base.ROMCache;
 import jkcemu.text.TextUtil;
 
 
@@ -198,10 +198,9 @@ public class CustomSysROM
 
   public synchronized void load( Component owner )
   {
-    this.data = FileUtil.readFile(
+    this.data = ROMCache.readFile(
 			owner,
 			this.fileName,
-			true,
 			this.size,
 			"ROM " + this.addrText );
   }
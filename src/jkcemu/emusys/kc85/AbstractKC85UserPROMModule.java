@@ -9,7 +9,7 @@
 package jkcemu.emusys.kc85;
 
 import java.awt.Component;
-import jkcemu.file.FileUtil;
+import jkcemu.base.ROMCache;
 
 
 public abstract class AbstractKC85UserPROMModule extends AbstractKC85Module
@@ -97,10 +97,9 @@ public abstract class AbstractKC85UserPROMModule extends AbstractKC85Module
   @Override
   public void reload( Component owner )
   {
-    this.rom = FileUtil.readFile(
+    this.rom = ROMCache.readFile(
 			owner,
 			this.fileName,
-			true,
 			this.fullSize,
 			this.moduleName + " ROM-Datei" );
   }
@@ -4,22 +4,29 @@
  * Kleincomputer-Emulator
  *
  * Emulation der Floppy Disk Station D004
+ *
+ * Im Gleichschritt-Modus laeuft das Prozessorsystem nicht in einem
+ * eigenen Thread, sondern wird vom CPU-Emulations-Thread
+ * des Grundgeraets in kurzen Zeitscheiben mit ausgefuehrt.
+ * Die Anzahl der Taktzyklen einer Zeitscheibe wird dabei
+ * entsprechend dem Verhaeltnis der beiden Taktfrequenzen umgerechnet.
  */
 
 package jkcemu.emusys.kc85;
 
 import java.awt.Component;
 import java.util.Properties;
-import jkcemu.Main;
 import jkcemu.base.EmuUtil;
+import jkcemu.base.ROMCache;
 import jkcemu.disk.FloppyDiskDrive;
 import jkcemu.emusys.KC85;
-import jkcemu.file.FileUtil;
 import z80emu.Z80CPU;
 import z80emu.Z80Memory;
+import z80emu.Z80TStatesListener;
 
 
 public class D004 extends AbstractKC85Module
+			implements Z80TStatesListener
 {
   protected KC85        kc85;
   protected String      propPrefix;
@@ -40,6 +47,11 @@ public class D004 extends AbstractKC85Module
   private boolean          cpuResetValue;
   private boolean          cpuNMIValue;
   private boolean          pendingStartUp;
+  private boolean          lockstep;
+  private int              lockstepSliceTStates;
+  private int              kc85SpeedKHz;
+  private long             lockstepTStates;
+  private volatile boolean lockstepRunning;
   private Thread           thread;
 
 
@@ -56,13 +68,21 @@ public class D004 extends AbstractKC85Module
 				propPrefix + KC85.PROP_DISKSTATION_ROM );
     this.romBytes = loadROM( kc85 );
     this.thread   = null;
-    this.procSys  = createProcSys( props, propPrefix );
+    this.lockstep = EmuUtil.getBooleanProperty(
+			props,
+			propPrefix + KC85.PROP_DISKSTATION_LOCKSTEP_ENABLED,
+			KC85.DEFAULT_DISKSTATION_LOCKSTEP_ENABLED );
+    this.lockstepTStates = 0;
+    this.lockstepRunning = false;
+    updLockstepSettings( props );
+    this.procSys = createProcSys( props, propPrefix );
     reset( false );
   }
 
 
   public void applySettings( Properties props )
   {
+    updLockstepSettings( props );
     this.procSys.applySettings( props );
   }
 
@@ -70,6 +90,11 @@ public class D004 extends AbstractKC85Module
   public boolean canApplySettings( Properties props )
   {
     return this.procSys.canApplySettings( props )
+		&& (this.lockstep == EmuUtil.getBooleanProperty(
+			props,
+			this.propPrefix
+				+ KC85.PROP_DISKSTATION_LOCKSTEP_ENABLED,
+			KC85.DEFAULT_DISKSTATION_LOCKSTEP_ENABLED ))
 		&& this.romProp.equals(
 			EmuUtil.getProperty(
 				props,
@@ -99,6 +124,11 @@ public class D004 extends AbstractKC85Module
       this.procSys.fireStop();
       this.thread = null;
     }
+    if( this.lockstepRunning ) {
+      this.lockstepRunning = false;
+      this.kc85.getEmuThread().getZ80CPU().removeTStatesListener( this );
+      this.procSys.fireStop();
+    }
   }
 
 
@@ -146,7 +176,7 @@ public class D004 extends AbstractKC85Module
 
   public boolean isRunning()
   {
-    return this.thread != null;
+    return (this.thread != null) || this.lockstepRunning;
   }
 
 
@@ -165,10 +195,9 @@ public class D004 extends AbstractKC85Module
     if( (this.romProp.length() > KC85.VALUE_PREFIX_FILE.length())
 	&& this.romProp.startsWith( KC85.VALUE_PREFIX_FILE ) )
     {
-      romBytes = FileUtil.readFile(
+      romBytes = ROMCache.readFile(
 		kc85.getScreenFrm(),
 		this.romProp.substring( KC85.VALUE_PREFIX_FILE.length() ),
-		true,
 		0x2000,
 		TEXT_D004_ROM_FILE );
     }
@@ -205,6 +234,43 @@ public class D004 extends AbstractKC85Module
   }
 
 
+	/* --- Z80TStatesListener --- */
+
+  /*
+   * Die Methode wird im Gleichschritt-Modus im CPU-Emulations-Thread
+   * des Grundgeraets aufgerufen.
+   * Die Taktzyklen des Grundgeraets werden mit der Taktfrequenz
+   * des Prozessorsystems multipliziert aufsummiert,
+   * damit bei der Umrechnung kein Rest verloren geht.
+   */
+  @Override
+  public void z80TStatesProcessed( Z80CPU cpu, int tStates )
+  {
+    if( this.lockstepRunning ) {
+      int kc85KHz = cpu.getMaxSpeedKHz();
+      if( kc85KHz <= 0 ) {
+	kc85KHz = this.kc85SpeedKHz;
+      }
+      int d004KHz = this.procSys.getZ80CPU().getMaxSpeedKHz();
+      if( d004KHz <= 0 ) {
+	d004KHz = kc85KHz;
+      }
+      this.lockstepTStates += ((long) tStates * (long) d004KHz);
+      if( this.lockstepTStates
+		>= ((long) this.lockstepSliceTStates * (long) d004KHz) )
+      {
+	long n    = this.lockstepTStates / kc85KHz;
+	long done = this.procSys.execLockstep( (int) n );
+	if( done > 0 ) {
+	  this.lockstepTStates -= (done * kc85KHz);
+	} else {
+	  this.lockstepTStates = 0;
+	}
+      }
+    }
+  }
+
+
 	/* --- ueberschriebene Methoden --- */
 
   @Override
@@ -285,10 +351,9 @@ public class D004 extends AbstractKC85Module
     if( (this.romProp.length() > KC85.VALUE_PREFIX_FILE.length())
 	&& this.romProp.startsWith( KC85.VALUE_PREFIX_FILE ) )
     {
-      byte[] romBytes = FileUtil.readFile(
+      byte[] romBytes = ROMCache.readFile(
 		owner,
 		this.romProp.substring( KC85.VALUE_PREFIX_FILE.length() ),
-		true,
 		0x2000,
 		TEXT_D004_ROM_FILE );
       if( romBytes != null ) {
@@ -303,7 +368,8 @@ public class D004 extends AbstractKC85Module
   {
     if( powerOn ) {
       fireStop();
-      this.procSys.clearRAM( Main.getProperties() );
+      this.procSys.clearRAM(
+		this.kc85.getEmuThread().getContext().getProperties() );
     }
     this.connected      = false;
     this.cpuEnableValue = false;
@@ -353,14 +419,14 @@ public class D004 extends AbstractKC85Module
 	  state = ((value & 0x04) != 0);
 	  if( state != this.cpuResetValue ) {
 	    this.cpuResetValue = state;
-	    if( state && (this.thread != null) ) {
+	    if( state && isRunning() ) {
 	      this.procSys.fireReset();
 	    }
 	  }
 	  state = ((value & 0x08) != 0);
 	  if( state != this.cpuNMIValue ) {
 	    this.cpuNMIValue = state;
-	    if( state && (this.thread != null) ) {
+	    if( state && isRunning() ) {
 	      this.procSys.fireNMI();
 	    }
 	  }
@@ -376,8 +442,18 @@ public class D004 extends AbstractKC85Module
 
   private synchronized void enableCPU()
   {
-    if( this.thread == null ) {
-      Thread t = new Thread( Main.getThreadGroup(), this.procSys, "D004" );
+    if( this.lockstep ) {
+      if( !this.lockstepRunning ) {
+	this.lockstepTStates = 0;
+	this.procSys.startLockstep();
+	this.lockstepRunning = true;
+	this.kc85.getEmuThread().getZ80CPU().addTStatesListener( this );
+      }
+    } else if( this.thread == null ) {
+      Thread t = new Thread(
+		this.kc85.getEmuThread().getContext().getThreadGroup(),
+		this.procSys,
+		"D004" );
       this.thread = t;
       t.start();
     }
@@ -415,4 +491,21 @@ public class D004 extends AbstractKC85Module
     }
     return romD004_35_4;
   }
+
+
+  private void updLockstepSettings( Properties props )
+  {
+    int sliceTStates = EmuUtil.getIntProperty(
+			props,
+			this.propPrefix
+				+ KC85.PROP_DISKSTATION_LOCKSTEP_SLICE_TSTATES,
+			KC85.DEFAULT_DISKSTATION_LOCKSTEP_SLICE_TSTATES );
+    if( sliceTStates < 10 ) {
+      sliceTStates = 10;
+    } else if( sliceTStates > 100000 ) {
+      sliceTStates = 100000;
+    }
+    this.lockstepSliceTStates = sliceTStates;
+    this.kc85SpeedKHz         = KC85.getDefaultSpeedKHz( props );
+  }
 }
@@ -12,6 +12,7 @@ import java.awt.EventQueue;
 import java.util.Arrays;
 import java.util.Properties;
 import jkcemu.Main;
+import jkcemu.base.EmuContext;
 import jkcemu.base.EmuUtil;
 import jkcemu.base.ErrorMsg;
 import jkcemu.base.ScreenFrm;
@@ -50,6 +51,7 @@ public class D004ProcSys implements
   private volatile int      gideTStatesCounter;
   private int               gideTStatesInit;
   private volatile int      runLevel;
+  private volatile boolean  lockstep;
   private Object            runLock;
   private GIDE              gide;
   private FDC8272           fdc;
@@ -70,6 +72,7 @@ public class D004ProcSys implements
     this.gideTStatesCounter = 0;
     this.gideTStatesInit    = 0;
     this.runLevel           = DOWN;
+    this.lockstep           = false;
     this.runLock            = new Object();
     this.curFDDrive         = null;
     this.fdDrives           = new FloppyDiskDrive[ 4 ];
@@ -77,12 +80,13 @@ public class D004ProcSys implements
     clearRAM( props );
     Arrays.fill( this.fdDrives, null );
 
+    EmuContext context = this.kc85.getContext();
     if( alwaysEmulatesGIDE() ) {
-      this.gide = GIDE.createGIDE( screenFrm, props, propPrefix );
+      this.gide = GIDE.createGIDE( screenFrm, context, props, propPrefix );
     } else {
-      this.gide = GIDE.getGIDE( screenFrm, props, propPrefix );
+      this.gide = GIDE.getGIDE( screenFrm, context, props, propPrefix );
     }
-    this.fdc = new FDC8272( this, 4 );
+    this.fdc = new FDC8272( context.getThreadGroup(), this, 4 );
     this.cpu = new Z80CPU( this, this );
     this.ctc = new Z80CTC( "CTC (FCh-FFh)" );
     this.ctc.setTimerConnection( 0, 1 );
@@ -145,21 +149,58 @@ public class D004ProcSys implements
   }
 
 
+  /*
+   * Die Methode wird bei der Emulation im Gleichschritt
+   * im CPU-Emulations-Thread des Grundgeraets aufgerufen
+   * und fuehrt die uebergebene Anzahl an Taktzyklen aus.
+   *
+   * Rueckgabewert: Anzahl der tatsaechlich verarbeiteten Taktzyklen
+   */
+  public long execLockstep( int tStates )
+  {
+    long rv = 0;
+    if( this.lockstep && (this.runLevel > DOWN) ) {
+      try {
+	rv = this.cpu.execTStates( tStates );
+      }
+      catch( Exception ex ) {
+	this.runLevel = DOWN;
+	ErrorMsg.showLater(
+		this.screenFrm,
+		this.d004.getModuleName() + " aufgrund eines Fehlers"
+			+ " in Dauer-RESET gegangen",
+		ex );
+      }
+    }
+    return rv;
+  }
+
+
   public void fireNMI()
   {
     this.cpu.fireNMI();
   }
 
 
+  /*
+   * Bei der Emulation im Gleichschritt laeuft die CPU
+   * des Prozessorsystems beim Aufruf nicht,
+   * sodass sofort zurueckgesetzt werden kann.
+   */
   public void fireReset()
   {
-    this.cpu.fireExit();
+    if( this.lockstep ) {
+      reset();
+    } else {
+      this.cpu.fireExit();
+    }
   }
 
 
   public void fireStop()
   {
     this.runLevel = DOWN;
+    this.lockstep = false;
     this.cpu.fireExit();
   }
 
@@ -223,6 +264,19 @@ public class D004ProcSys implements
   }
 
 
+  /*
+   * Die Methode startet die Emulation im Gleichschritt mit dem Grundgeraet.
+   * Anstelle eines eigenen Threads fuehrt dann der CPU-Emulations-Thread
+   * des Grundgeraets die Befehle ueber execLockstep(...) aus.
+   */
+  public void startLockstep()
+  {
+    this.lockstep = true;
+    this.runLevel = START_UP;
+    reset();
+  }
+
+
   protected void setMaxSpeedKHz( int maxSpeedKHz )
   {
     this.cpu.setMaxSpeedKHz( maxSpeedKHz );
@@ -11,8 +11,8 @@ package jkcemu.emusys.kc85;
 import java.awt.Component;
 import java.util.Properties;
 import jkcemu.base.EmuUtil;
+import jkcemu.base.ROMCache;
 import jkcemu.emusys.KC85;
-import jkcemu.file.FileUtil;
 
 
 public class D008 extends D004
@@ -109,10 +109,9 @@ public class D008 extends D004
     if( (this.romProp.length() > KC85.VALUE_PREFIX_FILE.length())
 	&& this.romProp.startsWith( KC85.VALUE_PREFIX_FILE ) )
     {
-      romBytes = FileUtil.readFile(
+      romBytes = ROMCache.readFile(
 		kc85.getScreenFrm(),
 		this.romProp.substring( KC85.VALUE_PREFIX_FILE.length() ),
-		true,
 		0x8000,
 		TEXT_D008_ROM_FILE );
     }
@@ -154,10 +153,9 @@ public class D008 extends D004
     if( (this.romProp.length() > KC85.VALUE_PREFIX_FILE.length())
 	&& this.romProp.startsWith( KC85.VALUE_PREFIX_FILE ) )
     {
-      byte[] romBytes = FileUtil.readFile(
+      byte[] romBytes = ROMCache.readFile(
 		owner,
 		this.romProp.substring( KC85.VALUE_PREFIX_FILE.length() ),
-		true,
 		0x8000,
 		TEXT_D008_ROM_FILE );
       if( romBytes != null ) {
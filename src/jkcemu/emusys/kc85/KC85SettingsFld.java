@@ -193,6 +193,7 @@ public class KC85SettingsFld
   private JRadioButton         rbDiskStationSpeedDefault;
   private JRadioButton         rbDiskStationSpeed8MHz;
   private JRadioButton         rbDiskStationSpeed16MHz;
+  private JCheckBox            cbDiskStationLockstep;
   private FileNameFld          fldDiskStationRomFile;
   private JButton              btnDiskStationRomFileSelect;
   private JButton              btnDiskStationRomFileRemove;
@@ -202,6 +203,7 @@ public class KC85SettingsFld
   private JButton[]            altRomRemoveBtns;
   private JCheckBox            cbKeysDirectToBuf;
   private JCheckBox            cbPasteFast;
+  private JCheckBox            cbTapeFast;
   private JCheckBox            cbVideoTiming;
 
 
@@ -493,6 +495,15 @@ public class KC85SettingsFld
     grpDiskStationSpeed.add( this.rbDiskStationSpeed16MHz );
     panelDiskStationSpeed.add( this.rbDiskStationSpeed16MHz );
 
+    this.cbDiskStationLockstep = GUIFactory.createCheckBox(
+		"Im Gleichschritt mit dem Grundger\u00E4t emulieren"
+			+ " (genaueres Zeitverhalten)",
+		KC85.DEFAULT_DISKSTATION_LOCKSTEP_ENABLED );
+    this.cbDiskStationLockstep.addActionListener( this );
+    gbcDiskStation.insets.top = 5;
+    gbcDiskStation.gridy++;
+    this.tabDiskStation.add( this.cbDiskStationLockstep, gbcDiskStation );
+
 
     // Tab GIDE
     this.tabGIDE = new GIDESettingsFld( settingsFrm, propPrefix );
@@ -588,6 +599,13 @@ public class KC85SettingsFld
     this.cbPasteFast.addActionListener( this );
     this.tabEtc.add( this.cbPasteFast, gbcEtc );
 
+    this.cbTapeFast = GUIFactory.createCheckBox(
+		"Kassettenroutinen abfangen"
+			+ " (Laden und Speichern ohne Audiodaten)" );
+    gbcEtc.gridy++;
+    this.cbTapeFast.addActionListener( this );
+    this.tabEtc.add( this.cbTapeFast, gbcEtc );
+
     gbcEtc.fill       = GridBagConstraints.HORIZONTAL;
     gbcEtc.weightx    = 1.0;
     gbcEtc.insets.top = 10;
@@ -837,6 +855,10 @@ public class KC85SettingsFld
 		this.propPrefix + KC85.PROP_DISKSTATION_MAXSPEED_KHZ,
 		KC85.VALUE_DEFAULT );
       }
+      EmuUtil.setProperty(
+		props,
+		this.propPrefix + KC85.PROP_DISKSTATION_LOCKSTEP_ENABLED,
+		this.cbDiskStationLockstep.isSelected() );
 
       // Tab GIDE
       tab = this.tabGIDE;
@@ -861,6 +883,10 @@ public class KC85SettingsFld
 		props,
 		this.propPrefix + KC85.PROP_PASTE_FAST,
 		this.cbPasteFast.isSelected() );
+      EmuUtil.setProperty(
+		props,
+		this.propPrefix + KC85.PROP_TAPE_FAST,
+		this.cbTapeFast.isSelected() );
       EmuUtil.setProperty(
 		props,
 		this.propPrefix + KC85.PROP_EMULATE_VIDEO_TIMING,
@@ -921,7 +947,8 @@ public class KC85SettingsFld
 	       || (src == this.rbDiskStationD008)
 	       || (src == this.rbDiskStationSpeedDefault)
 	       || (src == this.rbDiskStationSpeed8MHz)
-	       || (src == this.rbDiskStationSpeed16MHz) )
+	       || (src == this.rbDiskStationSpeed16MHz)
+	       || (src == this.cbDiskStationLockstep) )
       {
 	rv = true;
 	fireDataChanged();
@@ -1127,6 +1154,11 @@ public class KC85SettingsFld
       default:
 	this.rbDiskStationSpeedDefault.setSelected( true );
     }
+    this.cbDiskStationLockstep.setSelected(
+		EmuUtil.getBooleanProperty(
+		  props,
+		  this.propPrefix + KC85.PROP_DISKSTATION_LOCKSTEP_ENABLED,
+		  KC85.DEFAULT_DISKSTATION_LOCKSTEP_ENABLED ) );
     updDiskStationFieldsEnabled();
 
     // Tab GIDE
@@ -1153,6 +1185,11 @@ public class KC85SettingsFld
 			props,
 			this.propPrefix + KC85.PROP_PASTE_FAST,
 			true ) );
+    this.cbTapeFast.setSelected(
+		EmuUtil.getBooleanProperty(
+			props,
+			this.propPrefix + KC85.PROP_TAPE_FAST,
+			false ) );
     this.cbVideoTiming.setSelected(
 		EmuUtil.getBooleanProperty(
 			props,
@@ -1658,6 +1695,7 @@ public class KC85SettingsFld
     this.rbDiskStationSpeedDefault.setEnabled( state );
     this.rbDiskStationSpeed8MHz.setEnabled( state );
     this.rbDiskStationSpeed16MHz.setEnabled( state );
+    this.cbDiskStationLockstep.setEnabled( state );
   }
 
 
@@ -9,7 +9,7 @@
 package jkcemu.emusys.kc85;
 
 import java.awt.Component;
-import jkcemu.file.FileUtil;
+import jkcemu.base.ROMCache;
 
 
 public class M040 extends AbstractKC85Module
@@ -102,10 +102,9 @@ public class M040 extends AbstractKC85Module
   @Override
   public void reload( Component owner )
   {
-    this.rom = FileUtil.readFile(
+    this.rom = ROMCache.readFile(
 			owner,
 			this.fileName,
-			true,
 			0x4000,
 			"M040 ROM-Datei" );
     if( (this.typeByte == 0x01) && (this.rom != null) ) {
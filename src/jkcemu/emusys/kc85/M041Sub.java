@@ -9,7 +9,7 @@
 package jkcemu.emusys.kc85;
 
 import java.awt.Component;
-import jkcemu.file.FileUtil;
+import jkcemu.base.ROMCache;
 
 
 public class M041Sub extends AbstractKC85Module
@@ -104,10 +104,9 @@ public class M041Sub extends AbstractKC85Module
   public void reload( Component owner )
   {
     if( this.m041Sub0 == null ) {
-      this.rom = FileUtil.readFile(
+      this.rom = ROMCache.readFile(
 				owner,
 				this.fileName,
-				true,
 				0x8000,
 				"M041 ROM-Datei" );
     }
@@ -9,8 +9,9 @@
 package jkcemu.emusys.kc85;
 
 import java.awt.Component;
+import jkcemu.base.EmuContext;
 import jkcemu.base.EmuUtil;
-import jkcemu.file.FileUtil;
+import jkcemu.base.ROMCache;
 import jkcemu.net.KCNet;
 import jkcemu.usb.VDIP;
 import z80emu.Z80CPU;
@@ -42,11 +43,12 @@ public class M052 extends AbstractKC85Module
 
   public M052(
 	    int       slot,
-	    Component owner,
-	    Z80CPU    z80cpu,
-	    int       vdipNum,
-	    boolean   usbOnly,
-	    String    fileName )
+	    Component  owner,
+	    EmuContext context,
+	    Z80CPU     z80cpu,
+	    int        vdipNum,
+	    boolean    usbOnly,
+	    String     fileName )
   {
     super( slot );
     this.owner    = owner;
@@ -54,7 +56,7 @@ public class M052 extends AbstractKC85Module
     if( usbOnly ) {
       this.kcNet = null;
     } else {
-      this.kcNet = new KCNet( "Netzwerk-PIO" );
+      this.kcNet = new KCNet( context, "Netzwerk-PIO" );
     }
     this.vdip = new VDIP( vdipNum, z80cpu, "USB-PIO" );
     this.vdip.setModuleTitle(
@@ -304,10 +306,9 @@ public class M052 extends AbstractKC85Module
   {
     if( this.fileName != null ) {
       if( !this.fileName.isEmpty() ) {
-	this.rom = FileUtil.readFile(
+	this.rom = ROMCache.readFile(
 			owner,
 			this.fileName,
-			true,
 			0x8000,
 			"M052 ROM-Datei" );
       }
@@ -51,7 +51,10 @@ public class M066 extends AbstractKC85Module
     this.levelValue    = 0;
     this.maxSpeedKHz   = 0;
     this.psgReg        = 0;
-    this.psg           = new PSG8910( 2000000, this );
+    this.psg           = new PSG8910(
+					kc85.getContext().getThreadGroup(),
+					2000000,
+					this );
     this.soundDevice   = null;
   }
 
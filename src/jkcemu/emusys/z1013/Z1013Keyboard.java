@@ -9,7 +9,6 @@
 package jkcemu.emusys.z1013;
 
 import java.util.Properties;
-import jkcemu.Main;
 import jkcemu.emusys.Z1013;
 import z80emu.Z80PIO;
 
@@ -22,13 +21,13 @@ public class Z1013Keyboard
   private volatile int            selectedCol;
 
 
-  public Z1013Keyboard( Z80PIO z80pio )
+  public Z1013Keyboard( Z80PIO z80pio, Properties props )
   {
     this.z80pio         = z80pio;
     this.keyboardMatrix = null;
     this.fontAltEnabled = false;
     this.selectedCol    = 0;
-    applySettings( Main.getProperties() );
+    applySettings( props );
     if( this.keyboardMatrix == null ) {
       this.keyboardMatrix = new KeyboardMatrix8x4();
     }
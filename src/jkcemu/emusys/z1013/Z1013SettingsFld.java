@@ -82,6 +82,7 @@ public class Z1013SettingsFld extends AbstractSettingsFld
   private JCheckBox              cbCatchPrintCalls;
   private JCheckBox              cbCatchJoyCalls;
   private JCheckBox              cbPasteFast;
+  private JCheckBox              cbTapeFast;
   private ROMFileSettingsFld     fldAltOS;
   private ROMFileSettingsFld     fldAltFont;
   private ROMFileSettingsFld     fldAltFont2;
@@ -468,10 +469,15 @@ public class Z1013SettingsFld extends AbstractSettingsFld
 
     this.cbPasteFast = GUIFactory.createCheckBox(
 	"Einf\u00FCgen von Text durch Abfangen des Systemaufrufs" );
-    gbcEtc.insets.bottom = 5;
     gbcEtc.gridy++;
     this.tabEtc.add( this.cbPasteFast, gbcEtc );
 
+    this.cbTapeFast = GUIFactory.createCheckBox(
+	"Kassettenroutinen abfangen (Laden ohne Audiodaten)" );
+    gbcEtc.insets.bottom = 5;
+    gbcEtc.gridy++;
+    this.tabEtc.add( this.cbTapeFast, gbcEtc );
+
     gbcEtc.fill          = GridBagConstraints.HORIZONTAL;
     gbcEtc.weightx       = 1.0;
     gbcEtc.insets.top    = 10;
@@ -562,6 +568,7 @@ public class Z1013SettingsFld extends AbstractSettingsFld
     this.cbCatchPrintCalls.addActionListener( this );
     this.cbCatchJoyCalls.addActionListener( this );
     this.cbPasteFast.addActionListener( this );
+    this.cbTapeFast.addActionListener( this );
   }
 
 
@@ -753,6 +760,10 @@ public class Z1013SettingsFld extends AbstractSettingsFld
 		props,
 		this.propPrefix + Z1013.PROP_PASTE_FAST,
 		this.cbPasteFast.isSelected() );
+      EmuUtil.setProperty(
+		props,
+		this.propPrefix + Z1013.PROP_TAPE_FAST,
+		this.cbTapeFast.isSelected() );
       this.fldAltOS.applyInput( props, selected );
       this.fldAltFont.applyInput( props, selected );
 
@@ -1112,6 +1123,11 @@ public class Z1013SettingsFld extends AbstractSettingsFld
 			props,
 			this.propPrefix + Z1013.PROP_PASTE_FAST,
 			true ) );
+    this.cbTapeFast.setSelected(
+	EmuUtil.getBooleanProperty(
+			props,
+			this.propPrefix + Z1013.PROP_TAPE_FAST,
+			false ) );
     this.fldAltOS.updFields( props );
     this.fldAltFont.updFields( props );
 
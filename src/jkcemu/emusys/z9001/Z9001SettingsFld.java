@@ -82,6 +82,7 @@ public class Z9001SettingsFld extends AbstractSettingsFld
   private JCheckBox                            cbRTC;
   private JCheckBox                            cbVDIP;
   private JCheckBox                            cbPasteFast;
+  private JCheckBox                            cbTapeFast;
   private ROMFileSettingsFld                   fldAltOS;
   private ROMFileSettingsFld                   fldAltBASIC;
   private ROMFileSettingsFld                   fldAltFont;
@@ -436,6 +437,13 @@ public class Z9001SettingsFld extends AbstractSettingsFld
     gbcEtc.gridy++;
     this.tabEtc.add( this.cbPasteFast, gbcEtc );
 
+    this.cbTapeFast = GUIFactory.createCheckBox(
+		"Kassettenroutinen abfangen"
+			+ " (Laden und Speichern ohne Audiodaten)" );
+    gbcEtc.insets.top = 0;
+    gbcEtc.gridy++;
+    this.tabEtc.add( this.cbTapeFast, gbcEtc );
+
     gbcEtc.fill          = GridBagConstraints.HORIZONTAL;
     gbcEtc.weightx       = 1.0;
     gbcEtc.insets.top    = 10;
@@ -518,6 +526,7 @@ public class Z9001SettingsFld extends AbstractSettingsFld
     this.cbRTC.addActionListener( this );
     this.cbVDIP.addActionListener( this );
     this.cbPasteFast.addActionListener( this );
+    this.cbTapeFast.addActionListener( this );
   }
 
 
@@ -678,6 +687,10 @@ public class Z9001SettingsFld extends AbstractSettingsFld
 		props,
 		this.propPrefix + Z9001.PROP_PASTE_FAST,
 		this.cbPasteFast.isSelected() );
+      EmuUtil.setProperty(
+		props,
+		this.propPrefix + Z9001.PROP_TAPE_FAST,
+		this.cbTapeFast.isSelected() );
 
       this.fldAltOS.applyInput( props, selected );
       if( this.fldAltBASIC != null ) {
@@ -888,6 +901,11 @@ public class Z9001SettingsFld extends AbstractSettingsFld
 		props,
 		this.propPrefix + Z9001.PROP_PASTE_FAST,
 		true ) );
+    this.cbTapeFast.setSelected(
+	EmuUtil.getBooleanProperty(
+		props,
+		this.propPrefix + Z9001.PROP_TAPE_FAST,
+		false ) );
     this.fldAltOS.updFields( props );
     if( this.fldAltBASIC != null ) {
       this.fldAltBASIC.updFields( props );
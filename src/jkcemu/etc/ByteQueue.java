@@ -151,6 +151,56 @@ public class ByteQueue
   }
 
 
+  /*
+   * Die Methode haengt mehrere Bytes an das Ende der Queue an.
+   * Solange die Queue nicht leer ist und die Bytes nicht mehr
+   * in den internen Puffer passen, wird gewartet.
+   * Anschliessend werden alle Bytes in einem Zug angehaengt.
+   */
+  public void write( byte[] srcBuf, int srcPos, int len ) throws IOException
+  {
+    if( len > 0 ) {
+      synchronized( this.writeLock ) {
+	while( !hasSpaceFor( len ) ) {
+	  try {
+	    this.writeLock.wait();
+	  }
+	  catch( IllegalMonitorStateException ex ) {}
+	  catch( InterruptedException ex ) {
+	    throw new InterruptedIOException();
+	  }
+	}
+      }
+      synchronized( this.readLock ) {
+	synchronized( this.modifyLock ) {
+	  if( getFreeCapacity() < len ) {
+	    // Puffer vergroessern und Inhalt linear umkopieren
+	    int    used = this.buf.length - getFreeCapacity();
+	    byte[] a    = new byte[ used + len + 1024 ];
+	    for( int i = 0; i < used; i++ ) {
+	      a[ i ] = this.buf[ (this.front + i) % this.buf.length ];
+	    }
+	    this.buf   = a;
+	    this.front = 0;
+	    this.rear  = used;
+	  }
+	  for( int i = 0; i < len; i++ ) {
+	    this.buf[ this.rear++ ] = srcBuf[ srcPos + i ];
+	    if( this.rear >= this.buf.length ) {
+	      this.rear = 0;
+	    }
+	  }
+	  this.empty = false;
+	}
+	try {
+	  this.readLock.notify();
+	}
+	catch( IllegalMonitorStateException ex ) {}
+      }
+    }
+  }
+
+
   /*
    * Die Methode haengt ein Byte an das Ende der Queue an.
    * Ist der interne Puffer voll, wird gewartet,
@@ -171,4 +221,26 @@ public class ByteQueue
     }
     add( b );
   }
+
+
+	/* --- private Methoden --- */
+
+  private boolean hasSpaceFor( int len )
+  {
+    boolean rv = false;
+    synchronized( this.modifyLock ) {
+      rv = this.empty || (getFreeCapacity() >= len);
+    }
+    return rv;
+  }
+
+
+  private int getFreeCapacity()
+  {
+    int rv = this.buf.length;
+    if( !this.empty ) {
+      rv = (this.front - this.rear + this.buf.length) % this.buf.length;
+    }
+    return rv;
+  }
 }
@@ -0,0 +1,159 @@
+/*
+ * (c) 2021 Jens Mueller
+ *
+ * Kleincomputer-Emulator
+ *
+ * Sperrfreier Ringpuffer fuer Bytes
+ * mit genau einem schreibenden und genau einem lesenden Thread
+ * (Single Producer, Single Consumer)
+ *
+ * Die Lese- und die Schreibposition werden jeweils nur von einem Thread
+ * veraendert, sodass fuer den Datenaustausch keine Monitore
+ * notwendig sind.
+ * Nur wenn der lesende Thread auf Daten warten muss,
+ * wird er geparkt und vom schreibenden Thread wieder aufgeweckt.
+ */
+
+package jkcemu.etc;
+
+import java.io.InterruptedIOException;
+import java.util.concurrent.locks.LockSupport;
+
+
+public class ByteRingBuffer
+{
+  private byte[]           buf;
+  private int              mask;
+  private volatile long    readPos;
+  private volatile long    writePos;
+  private volatile Thread  waitingReader;
+
+
+  /*
+   * Die Kapazitaet wird auf die naechste Zweierpotenz aufgerundet.
+   */
+  public ByteRingBuffer( int capacity )
+  {
+    int size = 1;
+    while( size < capacity ) {
+      size <<= 1;
+    }
+    this.buf           = new byte[ size ];
+    this.mask          = size - 1;
+    this.readPos       = 0;
+    this.writePos      = 0;
+    this.waitingReader = null;
+  }
+
+
+  /*
+   * Die Methode leert den Puffer.
+   * Sie darf nur aufgerufen werden,
+   * wenn gerade kein anderer Thread auf den Puffer zugreift.
+   */
+  public void clear()
+  {
+    this.readPos = this.writePos;
+  }
+
+
+  public int getCapacity()
+  {
+    return this.buf.length;
+  }
+
+
+  public boolean isEmpty()
+  {
+    return this.writePos == this.readPos;
+  }
+
+
+  public boolean isFull()
+  {
+    return (this.writePos - this.readPos) >= this.buf.length;
+  }
+
+
+  /*
+   * Schreibender Thread:
+   * Die Methode haengt ein Byte an und liefert false,
+   * wenn der Puffer voll ist.
+   */
+  public boolean offer( byte b )
+  {
+    boolean rv       = false;
+    long    writePos = this.writePos;
+    if( (writePos - this.readPos) < this.buf.length ) {
+      this.buf[ (int) writePos & this.mask ] = b;
+      this.writePos = writePos + 1;
+      Thread t      = this.waitingReader;
+      if( t != null ) {
+	LockSupport.unpark( t );
+      }
+      rv = true;
+    }
+    return rv;
+  }
+
+
+  /*
+   * Lesender Thread:
+   * Die Methode liefert das naechste Byte
+   * oder -1, wenn der Puffer leer ist.
+   */
+  public int poll()
+  {
+    int  rv      = -1;
+    long readPos = this.readPos;
+    if( readPos != this.writePos ) {
+      rv           = (int) this.buf[ (int) readPos & this.mask ] & 0xFF;
+      this.readPos = readPos + 1;
+    }
+    return rv;
+  }
+
+
+  /*
+   * Lesender Thread:
+   * Die Methode liest die verfuegbaren Bytes, maximal jedoch len Bytes.
+   * Ist der Puffer leer, wird gewartet, bis mindestens ein Byte
+   * verfuegbar ist.
+   *
+   * Rueckgabewert: Anzahl der gelesenen Bytes
+   */
+  public int read( byte[] dstBuf, int dstPos, int len )
+					throws InterruptedIOException
+  {
+    int rv = 0;
+    if( len > 0 ) {
+      for(;;) {
+	long readPos = this.readPos;
+	long avail   = this.writePos - readPos;
+	if( avail > 0 ) {
+	  rv = (int) Math.min( avail, len );
+	  for( int i = 0; i < rv; i++ ) {
+	    dstBuf[ dstPos + i ] = this.buf[ (int) (readPos + i) & this.mask ];
+	  }
+	  this.readPos = readPos + rv;
+	  break;
+	}
+	this.waitingReader = Thread.currentThread();
+	if( this.writePos == this.readPos ) {
+	  LockSupport.park( this );
+	}
+	this.waitingReader = null;
+	if( Thread.interrupted() ) {
+	  throw new InterruptedIOException();
+	}
+      }
+    }
+    return rv;
+  }
+
+
+  public int size()
+  {
+    return (int) (this.writePos - this.readPos);
+  }
+}
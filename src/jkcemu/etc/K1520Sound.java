@@ -54,7 +54,10 @@ public class K1520Sound implements
     this.maxSpeedKHz = 0;
     this.psgReg      = 0;
 
-    this.psg         = new PSG8910( PSG_CLOCK_KHZ * 1000, this );
+    this.psg         = new PSG8910(
+					emuSys.getContext().getThreadGroup(),
+					PSG_CLOCK_KHZ * 1000,
+					this );
     this.soundDevice = new PSGSoundDevice(
 				"K1520-Sound-Karte",
 				true,
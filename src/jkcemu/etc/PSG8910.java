@@ -17,7 +17,6 @@
 package jkcemu.etc;
 
 import java.net.URL;
-import jkcemu.Main;
 
 
 public class PSG8910 extends Thread
@@ -91,9 +90,12 @@ public class PSG8910 extends Thread
   private Object           waitMonitor;
 
 
-  public PSG8910( int clockHz, Callback callback )
+  public PSG8910(
+		ThreadGroup threadGroup,
+		int         clockHz,
+		Callback    callback )
   {
-    super( Main.getThreadGroup(), "JKCEMU PSG" );
+    super( threadGroup, "JKCEMU PSG" );
     this.clockHz       = clockHz;
     this.callback      = callback;
     this.frameRate     = 0;
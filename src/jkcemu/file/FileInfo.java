@@ -1130,6 +1130,24 @@ public class FileInfo
   }
 
 
+  /*
+   * Die Methode prueft, ob an der Stelle ein Headersave-Kopf beginnt,
+   * auf den noch Daten folgen.
+   */
+  public static boolean isHeadersaveAt( byte[] fileBytes, int offs )
+  {
+    boolean rv = false;
+    if( fileBytes != null ) {
+      if( (offs >= 0) && ((offs + 32) < fileBytes.length) ) {
+	rv = ((fileBytes[ offs + 13 ] == (byte) 0xD3)
+		&& (fileBytes[ offs + 14 ] == (byte) 0xD3)
+		&& (fileBytes[ offs + 15 ] == (byte) 0xD3));
+      }
+    }
+    return rv;
+  }
+
+
   public static boolean isKCBasicProgramFormat( FileFormat fileFmt )
   {
     boolean rv = false;
@@ -36,7 +36,7 @@ public class JoystickThread extends Thread
 		boolean   interactive )
   {
     super(
-	Main.getThreadGroup(),
+	emuThread.getContext().getThreadGroup(),
 	String.format( "JKCEMU joystick %d listener", joyNum ) );
     this.emuThread   = emuThread;
     this.joyNum      = joyNum;
@@ -1,12 +1,14 @@
 /*
- * (c) 2015-2020 Jens Mueller
+ * (c) 2015-2021 Jens Mueller
  *
  * Kleincomputer-Emulator
  *
- * Wrapper-Klasse fuer DatagramSocket und MulticastSocket
+ * Wrapper-Klasse fuer einen nicht blockierenden DatagramChannel
  *
  * Der Sinn der Wrapper-Klasse besteht darin,
  * DHCP-Pakete abfangen und simulieren zu koennen.
+ * In dem Fall existiert kein Kanal und die Pakete
+ * muessen zyklisch beim simulierten DHCP-Server abgefragt werden.
  */
 
 package jkcemu.net;
@@ -14,35 +16,42 @@ package jkcemu.net;
 import java.io.Closeable;
 import java.io.IOException;
 import java.net.DatagramPacket;
-import java.net.DatagramSocket;
+import java.net.Inet4Address;
 import java.net.InetAddress;
-import java.net.MulticastSocket;
+import java.net.InetSocketAddress;
 import java.net.NetworkInterface;
 import java.net.SocketAddress;
-import java.net.SocketException;
+import java.net.StandardProtocolFamily;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.util.Enumeration;
+import jkcemu.base.EmuUtil;
 
 
 public class EmuDatagramSocket implements AutoCloseable, Closeable
 {
-  private DatagramSocket datagramSocket;
-  private int            port;
+  private DatagramChannel channel;
+  private int             port;
+  private boolean         multicast;
+  private byte[]          dhcpBuf;
 
 
   public static EmuDatagramSocket createDatagramSocket()
-						throws SocketException
+						throws IOException
   {
-    return new EmuDatagramSocket( new DatagramSocket(), 0 );
+    return new EmuDatagramSocket( openChannel( 0, false ), 0, false );
   }
 
 
   public static EmuDatagramSocket createDatagramSocket( int port )
-						throws SocketException
+						throws IOException
   {
     EmuDatagramSocket ds = null;
     if( port == DhcpProcess.CLIENT_PORT ) {
-      ds = new EmuDatagramSocket( null, port );
+      ds = new EmuDatagramSocket( null, port, false );
     } else {
-      ds = new EmuDatagramSocket( new DatagramSocket( port ), port );
+      ds = new EmuDatagramSocket( openChannel( port, false ), port, false );
     }
     return ds;
   }
@@ -51,7 +60,7 @@ public class EmuDatagramSocket implements AutoCloseable, Closeable
   public static EmuDatagramSocket createMulticastSocket()
 						throws IOException
   {
-    return new EmuDatagramSocket( new MulticastSocket(), 0 );
+    return new EmuDatagramSocket( openChannel( 0, true ), 0, true );
   }
 
 
@@ -60,79 +69,115 @@ public class EmuDatagramSocket implements AutoCloseable, Closeable
   {
     EmuDatagramSocket ds = null;
     if( port == DhcpProcess.CLIENT_PORT ) {
-      ds = new EmuDatagramSocket( null, port );
+      ds = new EmuDatagramSocket( null, port, true );
     } else {
-      ds = new EmuDatagramSocket( new MulticastSocket( port ), port );
+      ds = new EmuDatagramSocket( openChannel( port, true ), port, true );
     }
     return ds;
   }
 
 
+  /*
+   * Rueckgabewert: null beim simulierten DHCP-Client-Port
+   */
+  public DatagramChannel getChannel()
+  {
+    return this.channel;
+  }
+
+
   public int getLocalPort()
   {
-    return this.datagramSocket != null ?
-			this.datagramSocket.getLocalPort()
-			: this.port;
+    return this.port;
   }
 
 
   public boolean isMulticastSocket()
   {
-    boolean rv = false;
-    if( this.datagramSocket != null ) {
-      if( this.datagramSocket instanceof MulticastSocket ) {
-	rv = true;
-      }
-    }
-    return rv;
+    return this.multicast && (this.channel != null);
   }
 
 
+  /*
+   * Ist keine Netzwerkschnittstelle angegeben,
+   * wird die erste aktive multicastfaehige IPv4-Schnittstelle verwendet.
+   */
   public void joinGroup(
 		SocketAddress    multicastAddr,
 		NetworkInterface netIf ) throws IOException
   {
-    if( this.datagramSocket != null ) {
-      if( this.datagramSocket instanceof MulticastSocket ) {
-	((MulticastSocket) this.datagramSocket).joinGroup(
-							multicastAddr,
-							netIf );
+    if( this.multicast
+	&& (this.channel != null)
+	&& (multicastAddr instanceof InetSocketAddress) )
+    {
+      if( netIf == null ) {
+	netIf = getDefaultMulticastInterface();
       }
+      if( netIf == null ) {
+	throw new IOException( "Keine multicastf\u00E4hige"
+				+ " Netzwerkschnittstelle vorhanden" );
+      }
+      this.channel.join(
+		((InetSocketAddress) multicastAddr).getAddress(),
+		netIf );
     }
   }
 
 
-  public boolean receive(
-			W5100          w5100,
-			DatagramPacket packet ) throws IOException
+  /*
+   * Die Methode wartet nicht auf ein Paket.
+   * Die empfangenen Bytes werden ab der aktuellen Position
+   * in den uebergebenen Puffer geschrieben.
+   *
+   * Rueckgabewert:
+   *   Absenderadresse oder null, wenn kein Paket vorhanden ist
+   */
+  public SocketAddress receive(
+			W5100      w5100,
+			ByteBuffer dst ) throws IOException
   {
-    boolean rv = false;
-    if( this.datagramSocket != null ) {
-      this.datagramSocket.receive( packet );
-      rv = true;
+    SocketAddress rv = null;
+    if( this.channel != null ) {
+      rv = this.channel.receive( dst );
     } else {
-      rv = w5100.getDhcpServer().receive( packet );
+      byte[] buf = getDhcpBuf( dst.remaining() );
+      DatagramPacket packet = new DatagramPacket( buf, dst.remaining() );
+      if( w5100.getDhcpServer().receive( packet ) ) {
+	dst.put( buf, 0, packet.getLength() );
+	rv = packet.getSocketAddress();
+      }
     }
     return rv;
   }
 
 
-  public void send( W5100 w5100, DatagramPacket packet ) throws IOException
+  /*
+   * Gesendet werden die Bytes von der aktuellen Position
+   * bis zur Grenze des Puffers.
+   * Kann das Paket wegen eines vollen Sendepuffers
+   * nicht sofort gesendet werden, wird es verworfen,
+   * was bei UDP zulaessig ist.
+   */
+  public void send(
+		W5100         w5100,
+		ByteBuffer    src,
+		SocketAddress dstAddr ) throws IOException
   {
-    if( this.datagramSocket != null ) {
-      this.datagramSocket.send( packet );
+    if( this.channel != null ) {
+      this.channel.send( src, dstAddr );
     } else {
-      w5100.getDhcpServer().send( packet );
+      int    len = src.remaining();
+      byte[] buf = getDhcpBuf( len );
+      src.get( buf, 0, len );
+      w5100.getDhcpServer().send( new DatagramPacket( buf, len, dstAddr ) );
     }
   }
 
 
   public void setTimeToLive( int ttl ) throws IOException
   {
-    if( this.datagramSocket != null ) {
-      if( this.datagramSocket instanceof MulticastSocket ) {
-	((MulticastSocket) this.datagramSocket).setTimeToLive( ttl );
-      }
+    if( this.multicast && (this.channel != null) ) {
+      this.channel.setOption( StandardSocketOptions.IP_MULTICAST_TTL, ttl );
     }
   }
 
@@ -142,16 +187,94 @@ public class EmuDatagramSocket implements AutoCloseable, Closeable
   @Override
   public void close()
   {
-    if( this.datagramSocket != null )
-      this.datagramSocket.close();
+    EmuUtil.closeSilently( this.channel );
   }
 
 
 	/* --- Konstruktor --- */
 
-  private EmuDatagramSocket( DatagramSocket datagramSocket, int port )
+  private EmuDatagramSocket(
+			DatagramChannel channel,
+			int             port,
+			boolean         multicast ) throws IOException
+  {
+    this.channel   = channel;
+    this.port      = port;
+    this.multicast = multicast;
+    this.dhcpBuf   = null;
+    if( channel != null ) {
+      SocketAddress addr = channel.getLocalAddress();
+      if( addr instanceof InetSocketAddress ) {
+	this.port = ((InetSocketAddress) addr).getPort();
+      }
+    }
+  }
+
+
+	/* --- private Methoden --- */
+
+  private byte[] getDhcpBuf( int size )
+  {
+    byte[] buf = this.dhcpBuf;
+    if( buf != null ) {
+      if( buf.length < size ) {
+	buf = null;
+      }
+    }
+    if( buf == null ) {
+      buf          = new byte[ size ];
+      this.dhcpBuf = buf;
+    }
+    return buf;
+  }
+
+
+  private static NetworkInterface getDefaultMulticastInterface()
+						throws IOException
   {
-    this.datagramSocket = datagramSocket;
-    this.port           = port;
+    NetworkInterface              loopbackIf = null;
+    Enumeration<NetworkInterface> netIfs     =
+				NetworkInterface.getNetworkInterfaces();
+    if( netIfs != null ) {
+      while( netIfs.hasMoreElements() ) {
+	NetworkInterface netIf = netIfs.nextElement();
+	if( netIf.isUp() && netIf.supportsMulticast() ) {
+	  Enumeration<InetAddress> addrs = netIf.getInetAddresses();
+	  while( addrs.hasMoreElements() ) {
+	    if( addrs.nextElement() instanceof Inet4Address ) {
+	      if( !netIf.isLoopback() ) {
+		return netIf;
+	      }
+	      if( loopbackIf == null ) {
+		loopbackIf = netIf;
+	      }
+	      break;
+	    }
+	  }
+	}
+      }
+    }
+    return loopbackIf;
+  }
+
+
+  private static DatagramChannel openChannel(
+					int     port,
+					boolean multicast ) throws IOException
+  {
+    DatagramChannel channel = DatagramChannel.open(
+					StandardProtocolFamily.INET );
+    try {
+      if( multicast ) {
+	channel.setOption( StandardSocketOptions.SO_REUSEADDR, true );
+      }
+      channel.configureBlocking( false );
+      channel.bind( new InetSocketAddress( port ) );
+    }
+    catch( IOException ex ) {
+      EmuUtil.closeSilently( channel );
+      throw ex;
+    }
+    return channel;
   }
 }
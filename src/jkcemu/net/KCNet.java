@@ -9,7 +9,9 @@
 package jkcemu.net;
 
 import java.util.Arrays;
-import jkcemu.Main;
+import java.util.Properties;
+import jkcemu.base.EmuContext;
+import jkcemu.base.EmuUtil;
 import z80emu.Z80CPU;
 import z80emu.Z80InterruptSource;
 import z80emu.Z80MaxSpeedListener;
@@ -91,30 +93,32 @@ public class KCNet implements
 
   private static byte[] idBytes = null;
 
-  private String   title;
-  private Command  cmd;
-  private int      debugMask;
-  private int[]    args;
-  private int      argIdx;
-  private int      curAddr;
-  private int      byteCnt;
-  private int      errorCnt;
-  private int      portSeqNum;
-  private int      tStatesPerMilli;
-  private long     tStatesCounterValue;
-  private long     tStatesCounterWrap;
-  private long     tStatesToTimeout;
-  private int      resultPos;
-  private byte[]   resultBytes;
-  private byte[]   doubleByteBuf;
-  private byte[]   emptyIpAddr;
-  private byte[][] ipAddrMem;
-  private W5100    w5100;
-  private Z80PIO   pio;
-
-
-  public KCNet( String title )
+  private EmuContext context;
+  private String     title;
+  private Command    cmd;
+  private int        debugMask;
+  private int[]      args;
+  private int        argIdx;
+  private int        curAddr;
+  private int        byteCnt;
+  private int        errorCnt;
+  private int        portSeqNum;
+  private int        tStatesPerMilli;
+  private long       tStatesCounterValue;
+  private long       tStatesCounterWrap;
+  private long       tStatesToTimeout;
+  private int        resultPos;
+  private byte[]     resultBytes;
+  private byte[]     doubleByteBuf;
+  private byte[]     emptyIpAddr;
+  private byte[][]   ipAddrMem;
+  private W5100      w5100;
+  private Z80PIO     pio;
+
+
+  public KCNet( EmuContext context, String title )
   {
+    this.context       = context;
     this.title         = title;
     this.debugMask     = 0;
     this.portSeqNum    = PORT_NUM_MIN;
@@ -127,7 +131,7 @@ public class KCNet implements
     for( int i = 0; i < this.ipAddrMem.length; i++ ) {
       this.ipAddrMem[ i ] = new byte[ 4 ];
     }
-    this.w5100 = new W5100();
+    this.w5100 = new W5100( context );
     this.pio   = new Z80PIO( title );
     this.pio.addPIOPortListener( this, Z80PIO.PortInfo.A );
 
@@ -148,9 +152,10 @@ public class KCNet implements
   }
 
 
-  public static boolean getAutoConfig()
+  public static boolean getAutoConfig( Properties props )
   {
-    return Main.getBooleanProperty(
+    return EmuUtil.getBooleanProperty(
+			props,
 			PROP_PREFIX + PROP_AUTOCONFIG,
 			DEFAULT_AUTOCONFIG );
   }
@@ -193,7 +198,7 @@ public class KCNet implements
       NetConfig netConfig = this.w5100.getNetConfig();
       if( netConfig != null ) {
 	byte[] dnsServerIpAddr = null;
-	if( KCNet.getAutoConfig() ) {
+	if( KCNet.getAutoConfig( this.context.getProperties() ) ) {
 	  dnsServerIpAddr = netConfig.getDnsServerIpAddr();
 	} else {
 	  dnsServerIpAddr = netConfig.getManualDnsServerIpAddr();
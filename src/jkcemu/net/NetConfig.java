@@ -16,6 +16,7 @@ import java.net.InterfaceAddress;
 import java.net.NetworkInterface;
 import java.util.Enumeration;
 import java.util.Hashtable;
+import java.util.Properties;
 import java.util.regex.PatternSyntaxException;
 import javax.naming.Context;
 import javax.naming.NamingException;
@@ -87,7 +88,7 @@ public class NetConfig
   }
 
 
-  public static NetConfig readNetConfig()
+  public static NetConfig readNetConfig( Properties props )
   {
     int    debugMask = 0;
     String text      = System.getProperty( KCNet.SYSPROP_DEBUG );
@@ -295,18 +296,22 @@ public class NetConfig
      * Manuelle Einstellungen lesen und uebernehmen
      */
     byte[] manualIpAddr = getIpAddrByProp(
+				props,
 				KCNet.PROP_PREFIX + KCNet.PROP_IP_ADDR );
     if( manualIpAddr != null ) {
       ipAddr = manualIpAddr;
     }
     byte[] manualSubnetMask = getIpAddrByProp(
+				props,
 				KCNet.PROP_PREFIX + KCNet.PROP_SUBNET_MASK );
     if( manualSubnetMask != null ) {
       subnetMask = manualSubnetMask;
     }
     byte[] manualGatewayIpAddr = getIpAddrByProp(
+				props,
 				KCNet.PROP_PREFIX + KCNet.PROP_GATEWAY );
     byte[] manualDnsServerIpAddr = getIpAddrByProp(
+				props,
 				KCNet.PROP_PREFIX + KCNet.PROP_DNS_SERVER );
     if( manualDnsServerIpAddr != null ) {
       dnsServerIpAddr = manualDnsServerIpAddr;
@@ -378,9 +383,11 @@ public class NetConfig
 
 	/* --- private Methoden --- */
 
-  private static byte[] getIpAddrByProp( String propName )
+  private static byte[] getIpAddrByProp(
+				Properties props,
+				String     propName )
   {
-    String text = Main.getProperty( propName );
+    String text = (props != null ? props.getProperty( propName ) : null);
     return text != null ? getIpAddr( text ) : null;
   }
 }
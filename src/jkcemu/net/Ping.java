@@ -25,7 +25,6 @@ import java.io.OutputStream;
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.net.Socket;
-import jkcemu.Main;
 import jkcemu.base.EmuUtil;
 
 
@@ -36,6 +35,7 @@ public class Ping
 
   private static byte[] httpRequestBytes = null;
 
+  private ThreadGroup threadGroup;
   private InetAddress inetAddress;
   private byte[]      packageData;
   private Thread      thread1;
@@ -44,8 +44,12 @@ public class Ping
   private boolean     err;
 
 
-  public Ping( InetAddress inetAddress, byte[] packageData )
+  public Ping(
+		ThreadGroup threadGroup,
+		InetAddress inetAddress,
+		byte[]      packageData )
   {
+    this.threadGroup = threadGroup;
     this.inetAddress = inetAddress;
     this.packageData = packageData;
     this.thread1     = null;
@@ -83,7 +87,7 @@ public class Ping
   {
     if( this.thread2 == null ) {
       this.thread1 = new Thread(
-			Main.getThreadGroup(),
+			this.threadGroup,
 			new Runnable()
 			{
 			  @Override
@@ -95,7 +99,7 @@ public class Ping
 			"JKCEMU ping 1" );
       this.thread1.start();
       this.thread2 = new Thread(
-			Main.getThreadGroup(),
+			this.threadGroup,
 			new Runnable()
 			{
 			  @Override
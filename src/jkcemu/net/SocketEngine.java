@@ -0,0 +1,236 @@
+/*
+ * (c) 2021 Jens Mueller
+ *
+ * Kleincomputer-Emulator
+ *
+ * Gemeinsamer Netzwerk-Thread fuer alle emulierten W5100-Sockets
+ *
+ * Alle Sockets aller KCNet-Instanzen werden von einem einzigen Thread
+ * bedient, der mit nicht blockierenden Kanaelen an einem Selector wartet.
+ * Kommandos des CPU-Emulations-Threads werden ueber eine Warteschlange
+ * uebergeben, die ohne Sperren auskommt.
+ * Sockets, die nicht ueber einen Kanal abgebildet werden koennen
+ * (simulierter DHCP-Server, Ping) oder auf einen Timeout warten,
+ * werden zusaetzlich zyklisch abgefragt.
+ *
+ * Die Methoden register(...) und setPolling(...) duerfen nur
+ * im Netzwerk-Thread aufgerufen werden.
+ *
+ * Wirft ein Handler eine Exception, wird diese an ihn
+ * ueber engineFailed(...) zurueckgemeldet, damit er den Socket
+ * in einen definierten Zustand bringen kann.
+ * Der Netzwerk-Thread selbst laeuft weiter.
+ */
+
+package jkcemu.net;
+
+import java.io.IOException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import jkcemu.Main;
+
+
+class SocketEngine implements Runnable
+{
+  interface Handler
+  {
+    /*
+     * Die Methode wird im Netzwerk-Thread aufgerufen,
+     * nachdem der CPU-Emulations-Thread ein Kommando uebergeben hat.
+     */
+    public void engineCommand();
+
+    /*
+     * Die Methode wird im Netzwerk-Thread aufgerufen,
+     * wenn der registrierte Kanal bereit ist.
+     */
+    public void engineReady( SelectionKey key );
+
+    /*
+     * Die Methode wird im Netzwerk-Thread zyklisch aufgerufen,
+     * solange die zyklische Abfrage eingeschaltet ist.
+     */
+    public void enginePoll( long millis );
+
+    /*
+     * Die Methode wird im Netzwerk-Thread aufgerufen,
+     * wenn eine der obigen Methoden eine Exception geworfen hat.
+     */
+    public void engineFailed( RuntimeException ex );
+  };
+
+
+  private static final int POLL_MILLIS = 10;
+
+  private static SocketEngine instance = null;
+
+  private Selector                       selector;
+  private ConcurrentLinkedQueue<Handler> cmdQueue;
+  private Set<Handler>                   pollHandlers;
+  private Handler[]                      pollBuf;
+  private volatile long                  wakeupCount;
+
+
+  public static synchronized SocketEngine getInstance()
+  {
+    if( instance == null ) {
+      instance = new SocketEngine();
+      if( instance.selector != null ) {
+	Thread thread = new Thread(
+				Main.getThreadGroup(),
+				instance,
+				"JKCEMU KCNet socket engine" );
+	thread.setDaemon( true );
+	thread.start();
+      }
+    }
+    return instance;
+  }
+
+
+  /*
+   * Die Methode liefert, wie oft der Netzwerk-Thread aufgewacht ist,
+   * und dient der Durchsatzmessung.
+   */
+  public long getWakeupCount()
+  {
+    return this.wakeupCount;
+  }
+
+
+  /*
+   * Die Methode uebergibt ein Kommando an den Netzwerk-Thread.
+   * Sollte kein Selector zur Verfuegung stehen,
+   * wird das Kommando sofort ausgefuehrt.
+   */
+  public void post( Handler handler )
+  {
+    if( this.selector != null ) {
+      this.cmdQueue.add( handler );
+      this.selector.wakeup();
+    } else {
+      handler.engineCommand();
+    }
+  }
+
+
+  public SelectionKey register(
+			SelectableChannel channel,
+			int               ops,
+			Handler           handler ) throws IOException
+  {
+    if( this.selector == null ) {
+      throw new ClosedChannelException();
+    }
+    channel.configureBlocking( false );
+    return channel.register( this.selector, ops, handler );
+  }
+
+
+  public void setPolling( Handler handler, boolean state )
+  {
+    if( state ) {
+      this.pollHandlers.add( handler );
+    } else {
+      this.pollHandlers.remove( handler );
+    }
+  }
+
+
+	/* --- Runnable --- */
+
+  @Override
+  public void run()
+  {
+    for(;;) {
+      try {
+	this.selector.select( this.pollHandlers.isEmpty() ? 0 : POLL_MILLIS );
+      }
+      catch( IOException ex ) {}
+      this.wakeupCount++;
+
+      // Kommandos des CPU-Emulations-Threads
+      Handler handler = this.cmdQueue.poll();
+      while( handler != null ) {
+	try {
+	  handler.engineCommand();
+	}
+	catch( RuntimeException ex ) {
+	  fireFailed( handler, ex );
+	}
+	handler = this.cmdQueue.poll();
+      }
+
+      // bereite Kanaele
+      Iterator<SelectionKey> iter = this.selector.selectedKeys().iterator();
+      while( iter.hasNext() ) {
+	SelectionKey key = iter.next();
+	iter.remove();
+	if( key.isValid() ) {
+	  Object o = key.attachment();
+	  if( o instanceof Handler ) {
+	    try {
+	      ((Handler) o).engineReady( key );
+	    }
+	    catch( RuntimeException ex ) {
+	      fireFailed( (Handler) o, ex );
+	    }
+	  }
+	}
+      }
+
+      // zyklische Abfragen, die Handler duerfen sich dabei abmelden
+      if( !this.pollHandlers.isEmpty() ) {
+	long millis  = System.currentTimeMillis();
+	this.pollBuf = this.pollHandlers.toArray( this.pollBuf );
+	for( Handler h : this.pollBuf ) {
+	  if( h == null ) {
+	    break;
+	  }
+	  try {
+	    h.enginePoll( millis );
+	  }
+	  catch( RuntimeException ex ) {
+	    fireFailed( h, ex );
+	  }
+	}
+      }
+    }
+  }
+
+
+	/* --- private Methoden --- */
+
+  private static void fireFailed( Handler handler, RuntimeException ex )
+  {
+    try {
+      handler.engineFailed( ex );
+    }
+    catch( RuntimeException ex2 ) {
+      ex2.printStackTrace( System.out );
+    }
+  }
+
+
+	/* --- Konstruktor --- */
+
+  private SocketEngine()
+  {
+    this.cmdQueue     = new ConcurrentLinkedQueue<>();
+    this.pollHandlers = new HashSet<>();
+    this.pollBuf      = new Handler[ 4 ];
+    this.wakeupCount  = 0L;
+    try {
+      this.selector = Selector.open();
+    }
+    catch( IOException ex ) {
+      this.selector = null;
+    }
+  }
+}
@@ -0,0 +1,244 @@
+/*
+ * (c) 2021 Jens Mueller
+ *
+ * Kleincomputer-Emulator
+ *
+ * Pruefprogramm fuer den gemeinsamen Netzwerk-Thread
+ *
+ * Das Programm startet einen TCP-Echo-Server an der Loopback-Adresse
+ * und spricht ihn ueber einen emulierten W5100-Socket so an,
+ * wie es ein Programm im emulierten System tun wuerde
+ * (OPEN, CONNECT, SEND, RECV, DISCON, CLOSE ueber die Socket-Register).
+ * Die empfangenen Bytes muessen mit den gesendeten uebereinstimmen.
+ *
+ * Aufruf:
+ *   java -cp jkcemu.jar jkcemu.net.SocketEngineCheck
+ *
+ * Mit der System-Property "jkcemu.debug.net" koennen zusaetzlich
+ * die Registerzugriffe und Statusaenderungen ausgegeben werden.
+ */
+
+package jkcemu.net;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Arrays;
+import java.util.Properties;
+import jkcemu.base.EmuContext;
+
+
+class SocketEngineCheck implements Runnable
+{
+  private static final int TIMEOUT_MILLIS = 5000;
+
+  // Register des Sockets 0 bei Standard-Speicheraufteilung
+  private static final int S0_MR     = 0x0400;
+  private static final int S0_CR     = 0x0401;
+  private static final int S0_SR     = 0x0403;
+  private static final int S0_DIPR   = 0x040C;
+  private static final int S0_DPORT  = 0x0410;
+  private static final int S0_TX_WR  = 0x0424;
+  private static final int S0_RX_RSR = 0x0426;
+  private static final int S0_RX_RD  = 0x0428;
+  private static final int S0_TX_BUF = 0x4000;
+  private static final int S0_RX_BUF = 0x6000;
+  private static final int BUF_MASK  = 0x07FF;
+
+  private ServerSocket serverSocket;
+
+
+  public static void main( String[] args )
+  {
+    boolean status = false;
+    try {
+      status = new SocketEngineCheck().check();
+    }
+    catch( Exception ex ) {
+      System.out.println( "FEHLER: " + ex.getMessage() );
+      ex.printStackTrace( System.out );
+    }
+    System.exit( status ? 0 : 1 );
+  }
+
+
+	/* --- Runnable --- */
+
+  /*
+   * Echo-Server, bedient genau eine Verbindung
+   */
+  @Override
+  public void run()
+  {
+    try( Socket socket = this.serverSocket.accept() ) {
+      InputStream  in  = socket.getInputStream();
+      OutputStream out = socket.getOutputStream();
+      byte[]       buf = new byte[ 256 ];
+      int          n   = in.read( buf );
+      while( n >= 0 ) {
+	out.write( buf, 0, n );
+	out.flush();
+	n = in.read( buf );
+      }
+    }
+    catch( IOException ex ) {}
+  }
+
+
+	/* --- Konstruktor --- */
+
+  private SocketEngineCheck() throws IOException
+  {
+    this.serverSocket = new ServerSocket(
+				0,
+				1,
+				InetAddress.getByName( "127.0.0.1" ) );
+  }
+
+
+	/* --- private Methoden --- */
+
+  private boolean check() throws IOException
+  {
+    boolean rv = false;
+    Thread  t  = new Thread( this, "JKCEMU echo server" );
+    t.setDaemon( true );
+    t.start();
+    try {
+      // eigene Umgebung, unabhaengig von den Einstellungen der Klasse Main
+      W5100 w5100 = new W5100(
+			new EmuContext(
+				new Properties(),
+				new ThreadGroup( "JKCEMU check" ) ) );
+      w5100.writeMemByte( 0x0000, 0x80 );		// Software-Reset
+
+      // Socket 0 als TCP-Socket oeffnen
+      w5100.writeMemByte( S0_MR, 0x01 );
+      command( w5100, 0x01 );				// OPEN
+      waitForStatus( w5100, 0x13, "INIT" );
+
+      // mit dem Echo-Server verbinden
+      w5100.writeMemByte( S0_DIPR, 127 );
+      w5100.writeMemByte( S0_DIPR + 1, 0 );
+      w5100.writeMemByte( S0_DIPR + 2, 0 );
+      w5100.writeMemByte( S0_DIPR + 3, 1 );
+      writeWord( w5100, S0_DPORT, this.serverSocket.getLocalPort() );
+      command( w5100, 0x04 );				// CONNECT
+      waitForStatus( w5100, 0x17, "ESTABLISHED" );
+      System.out.println( "Verbindung zum Echo-Server hergestellt" );
+
+      // Senden
+      byte[] txData = "JKCEMU SocketEngine Echo-Test".getBytes( "US-ASCII" );
+      int    txPtr  = readWord( w5100, S0_TX_WR );
+      for( int i = 0; i < txData.length; i++ ) {
+	w5100.writeMemByte(
+		S0_TX_BUF + ((txPtr + i) & BUF_MASK),
+		txData[ i ] );
+      }
+      writeWord( w5100, S0_TX_WR, txPtr + txData.length );
+      command( w5100, 0x20 );				// SEND
+      System.out.printf( "%d Bytes gesendet\n", txData.length );
+
+      // Empfangen
+      command( w5100, 0x40 );				// RECV
+      long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+      while( readWord( w5100, S0_RX_RSR ) < txData.length ) {
+	if( System.currentTimeMillis() > deadline ) {
+	  throw new IOException( "Timeout beim Empfangen" );
+	}
+	sleep();
+      }
+      byte[] rxData = new byte[ txData.length ];
+      int    rxPtr  = readWord( w5100, S0_RX_RD );
+      for( int i = 0; i < rxData.length; i++ ) {
+	rxData[ i ] = (byte) w5100.readMemByte(
+				S0_RX_BUF + ((rxPtr + i) & BUF_MASK) );
+      }
+      writeWord( w5100, S0_RX_RD, rxPtr + rxData.length );
+      command( w5100, 0x40 );				// RECV
+      System.out.printf( "%d Bytes empfangen\n", rxData.length );
+
+      // Verbindung beenden
+      command( w5100, 0x08 );				// DISCON
+      command( w5100, 0x10 );				// CLOSE
+      waitForStatus( w5100, 0x00, "CLOSED" );
+      w5100.die();
+
+      rv = Arrays.equals( txData, rxData );
+      System.out.println( rv ?
+		"OK: Empfangene Daten stimmen mit den gesendeten \u00FCberein"
+		: "FEHLER: Empfangene Daten weichen ab" );
+    }
+    finally {
+      this.serverSocket.close();
+    }
+    return rv;
+  }
+
+
+  /*
+   * Die Methode schreibt ein Kommando in das Kommandoregister
+   * und wartet, bis es vom Netzwerk-Thread zurueckgesetzt wurde.
+   */
+  private static void command( W5100 w5100, int cmd ) throws IOException
+  {
+    w5100.writeMemByte( S0_CR, cmd );
+    long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+    while( w5100.readMemByte( S0_CR ) != 0 ) {
+      if( System.currentTimeMillis() > deadline ) {
+	throw new IOException( String.format(
+		"Kommando %02Xh wurde nicht beendet (Status: %02Xh)",
+		cmd,
+		w5100.readMemByte( S0_SR ) ) );
+      }
+      sleep();
+    }
+  }
+
+
+  private static int readWord( W5100 w5100, int addr )
+  {
+    return (w5100.readMemByte( addr ) << 8) | w5100.readMemByte( addr + 1 );
+  }
+
+
+  private static void sleep()
+  {
+    try {
+      Thread.sleep( 10 );
+    }
+    catch( InterruptedException ex ) {}
+  }
+
+
+  private static void waitForStatus(
+				W5100  w5100,
+				int    status,
+				String statusText ) throws IOException
+  {
+    long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+    while( w5100.readMemByte( S0_SR ) != status ) {
+      if( System.currentTimeMillis() > deadline ) {
+	throw new IOException( String.format(
+		"Status %s nicht erreicht (Status: %02Xh)",
+		statusText,
+		w5100.readMemByte( S0_SR ) ) );
+      }
+      sleep();
+    }
+  }
+
+
+  /*
+   * Laut Datenblatt muss bei 16-Bit-Registern
+   * das hoeherwertige Byte zuerst geschrieben werden.
+   */
+  private static void writeWord( W5100 w5100, int addr, int value )
+  {
+    w5100.writeMemByte( addr, (value >> 8) & 0xFF );
+    w5100.writeMemByte( addr + 1, value & 0xFF );
+  }
+}
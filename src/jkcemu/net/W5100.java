@@ -1,5 +1,5 @@
 /*
- * (c) 2011-2020 Jens Mueller
+ * (c) 2011-2021 Jens Mueller
  *
  * Kleincomputer-Emulator
  *
@@ -8,24 +8,22 @@
 
 package jkcemu.net;
 
-import java.io.BufferedOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.OutputStream;
 import java.net.BindException;
-import java.net.DatagramPacket;
 import java.net.Inet6Address;
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.net.NetworkInterface;
-import java.net.ServerSocket;
-import java.net.Socket;
 import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
 import java.util.ArrayList;
-import java.util.Arrays;
-import javax.net.ServerSocketFactory;
-import javax.net.SocketFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 import jkcemu.Main;
+import jkcemu.base.EmuContext;
 import jkcemu.base.EmuUtil;
 
 
@@ -36,6 +34,7 @@ public class W5100
   private static final int DEBUG_MASK_STATUS = 0x20;
   private static final int DEBUG_MASK_READ   = 0x40;
   private static final int DEBUG_MASK_WRITE  = 0x80;
+  private static final int DEBUG_MASK_STATS  = 0x100;
 
   // Adressen der Register
   private static final int ADDR_MR     = 0x0000;
@@ -50,8 +49,10 @@ public class W5100
   private static final int ADDR_TMSR   = 0x001B;
   private static final int ADDR_PTIMER = 0x0028;
 
+  private static final int MEM_SIZE = 0x8000;
 
-  public class SocketData
+
+  public class SocketData implements SocketEngine.Handler
   {
     // Socket-Kommandos
     private static final int CMD_NONE      = 0x00;
@@ -102,27 +103,46 @@ public class W5100
     private static final int INT_SEND_OK_MASK = 0x10;
 
 
-    private int               socketNum;
-    private int               baseAddr;
-    private int               lastStatus;
-    private int               rxReadReg;
-    private int               rxWriteReg;
-    private int               txReadReg;
-    private int               txWriteReg;
-    private boolean           rxFilled;
-    private boolean           nonIPv4MsgShown;
-    private boolean           recvEnabled;
-    private volatile boolean  threadsEnabled;
-    private volatile boolean  cmdThreadNoWait;
-    private byte[]            recvBuf;
-    private byte[]            sendBuf;
-    private Thread            cmdThread;
-    private Thread            recvThread;
-    private EmuDatagramSocket datagramSocket;
-    private ServerSocket      serverSocket;
-    private Socket            socket;
-    private InputStream       recvStream;
-    private OutputStream      sendStream;
+    /*
+     * Die Lese- und Schreibzeiger der Ringpuffer werden ohne Sperren
+     * zwischen dem CPU-Emulations-Thread und dem Netzwerk-Thread
+     * ausgetauscht:
+     * Der Empfangspuffer wird vom Netzwerk-Thread nur beschrieben,
+     * solange recvEnabled gesetzt ist, und recvEnabled wird erst
+     * nach dem Schreibzeiger zurueckgesetzt.
+     * Interrupt-Bits meldet der Netzwerk-Thread ueber irBits,
+     * die der CPU-Emulations-Thread beim Lesen bzw. Schreiben
+     * des Interrupt-Registers uebernimmt.
+     */
+    private int                        socketNum;
+    private int                        baseAddr;
+    private int                        lastStatus;
+    private volatile int               rxReadReg;
+    private volatile int               rxWriteReg;
+    private volatile int               txReadReg;
+    private volatile int               txWriteReg;
+    private volatile boolean           rxFilled;
+    private volatile boolean           recvEnabled;
+    private volatile boolean           closeRequested;
+    private boolean                    nonIPv4MsgShown;
+    private ByteBuffer                 recvBuf;
+    private ByteBuffer                 sendBuf;
+    private AtomicInteger              irBits;
+    private SelectionKey               selKey;
+    private SocketAddress              connectAddr;
+    private long                       connectDeadline;
+    private int                        connectTimeout;
+    private ByteBuffer[]               sendBufs;
+    private int                        sendEndReg;
+    private int                        sendLen;
+    private ServerSocketChannel        serverChannel;
+    private volatile SocketChannel     tcpChannel;
+    private volatile EmuDatagramSocket datagramSocket;
+    private long                       bytesReceived;
+    private long                       bytesSent;
+    private long                       engineCalls;
+    private long                       statsBegMillis;
+    private long                       statsBegWakeups;
 
 
     private SocketData( int socketNum, int baseAddr )
@@ -130,21 +150,253 @@ public class W5100
       this.socketNum       = socketNum;
       this.baseAddr        = baseAddr;
       this.lastStatus      = SOCK_CLOSED;
-      this.threadsEnabled  = true;
-      this.cmdThreadNoWait = false;
+      this.closeRequested  = false;
       this.recvBuf         = null;
       this.sendBuf         = null;
-      this.cmdThread       = null;
-      this.recvThread      = null;
+      this.irBits          = new AtomicInteger( 0 );
+      this.selKey          = null;
+      this.connectAddr     = null;
+      this.connectDeadline = 0L;
+      this.connectTimeout  = 0;
+      this.sendBufs        = null;
+      this.sendEndReg      = 0;
+      this.sendLen         = 0;
+      this.serverChannel   = null;
+      this.tcpChannel      = null;
       this.datagramSocket  = null;
-      this.serverSocket    = null;
-      this.socket          = null;
-      this.recvStream      = null;
-      this.sendStream      = null;
+      this.bytesReceived   = 0L;
+      this.bytesSent       = 0L;
+      this.engineCalls     = 0L;
+      this.statsBegMillis  = 0L;
+      this.statsBegWakeups = 0L;
       initialize();
     }
 
 
+	/* --- SocketEngine.Handler --- */
+
+    @Override
+    public void engineCommand()
+    {
+      this.engineCalls++;
+      if( this.closeRequested ) {
+	this.closeRequested = false;
+	closeChannels();
+      }
+      int sr = getSR();
+      switch( getCR() ) {
+	case CMD_OPEN:
+	  if( (sr == SOCK_UDP) && (this.datagramSocket == null) ) {
+	    try {
+	      this.datagramSocket = createDatagramSocket( false );
+	      startStatistics();
+	      if( (getDebugMask() & DEBUG_MASK_STATUS) != 0 ) {
+		logDatagramSocketBound();
+	      }
+	    }
+	    catch( IOException ex ) {
+	      checkPermissionDenied( ex );
+	      if( (getDebugMask() & DEBUG_MASK_MSG) != 0 ) {
+		ex.printStackTrace( System.out );
+	      }
+	      closeSocket();
+	    }
+	    if( this.datagramSocket != null ) {
+	      this.recvEnabled = true;
+	    }
+	  }
+	  setCR( CMD_NONE );
+	  break;
+	case CMD_LISTEN:
+	  doSocketListen();
+	  break;
+	case CMD_CONNECT:
+	  doSocketConnect();
+	  break;
+	case CMD_DISCON:
+	  boolean connected = (this.tcpChannel != null);
+	  closeSocket();
+	  if( connected ) {
+	    signalIRBits( INT_DISCON_MASK );
+	  }
+	  setCR( CMD_NONE );
+	  break;
+	case CMD_CLOSE:
+	  closeSocket();
+	  setCR( CMD_NONE );
+	  break;
+	case CMD_SEND:
+	  switch( sr ) {
+	    case SOCK_IPRAW:
+	      sendIPRAW();
+	      setCR( CMD_NONE );
+	      break;
+	    case SOCK_ESTABLISHED:
+	      // Kommando ist erst nach dem Senden aller Bytes beendet
+	      sendTCP();
+	      break;
+	    case SOCK_UDP:
+	      sendUDP();
+	      setCR( CMD_NONE );
+	      break;
+	    default:
+	      /*
+	       * Da bei den verbindungslosen Diensten laut Spezifikation
+	       * die erfolgreiche Uebertragung eines konkreten Paketes
+	       * nicht garantiert ist, wird hier einfach so getan,
+	       * als wenn das Paket gesendet wurde,
+	       * wohl wissend, dass dem nicht so ist.
+	       */
+	      this.txReadReg = this.txWriteReg;
+	      signalIRBits( INT_SEND_OK_MASK );
+	      setCR( CMD_NONE );
+	  }
+	  break;
+	case CMD_RECV:
+	  if( (sr == SOCK_ESTABLISHED)
+	      || (sr == SOCK_UDP)
+	      || (sr == SOCK_IPRAW) )
+	  {
+	    this.recvEnabled = true;
+	  }
+	  setCR( CMD_NONE );
+	  break;
+      }
+      if( getSR() == SOCK_CLOSED ) {
+	closeSocket();
+      }
+      updateEngineState();
+    }
+
+
+    @Override
+    public void engineReady( SelectionKey key )
+    {
+      this.engineCalls++;
+      if( key.isValid() && key.isConnectable() ) {
+	finishConnect();
+      }
+      if( key.isValid() && key.isAcceptable() ) {
+	acceptConnection();
+      }
+      if( key.isValid() && key.isReadable() && this.recvEnabled ) {
+	switch( getSR() ) {
+	  case SOCK_ESTABLISHED:
+	    receiveTCP();
+	    break;
+	  case SOCK_UDP:
+	    receiveUDP();
+	    break;
+	}
+      }
+      if( key.isValid() && key.isWritable() ) {
+	continueSendTCP();
+      }
+      updateEngineState();
+    }
+
+
+    @Override
+    public void enginePoll( long millis )
+    {
+      this.engineCalls++;
+      if( this.connectAddr != null ) {
+	if( (this.connectDeadline > 0L) && (millis >= this.connectDeadline) ) {
+	  connectFailed( null );
+	}
+      } else if( this.recvEnabled ) {
+	switch( getSR() ) {
+	  case SOCK_UDP:
+	    receiveUDP();
+	    break;
+	  case SOCK_IPRAW:
+	    receiveIPRAW();
+	    break;
+	}
+      }
+      updateEngineState();
+    }
+
+
+    /*
+     * Ein fehlgeschlagenes Kommando darf den Socket nicht
+     * mit gesetztem Kommandoregister zuruecklassen,
+     * da das emulierte Programm sonst endlos auf dessen Ruecksetzen wartet.
+     * Deshalb wird der Socket geschlossen und das Kommandoregister
+     * zurueckgesetzt.
+     */
+    @Override
+    public void engineFailed( RuntimeException ex )
+    {
+      if( getDebugMask() != 0 ) {
+	synchronized( getLoggingLockObj() ) {
+	  System.out.printf(
+		"W5100 Socket %d: internal error, socket closed\n",
+		this.socketNum );
+	  ex.printStackTrace( System.out );
+	}
+      }
+      this.recvEnabled = false;
+      try {
+	closeSocket();
+      }
+      finally {
+	setSR( SOCK_CLOSED );
+	setCR( CMD_NONE );
+	updateEngineState();
+      }
+    }
+
+
+	/* --- private Methoden --- */
+
+    private void acceptConnection()
+    {
+      ServerSocketChannel serverChannel = this.serverChannel;
+      if( serverChannel != null ) {
+	SocketChannel channel = null;
+	try {
+	  channel = serverChannel.accept();
+	  if( channel != null ) {
+	    /*
+	     * Ein W5100-Socket bedient nur eine Verbindung,
+	     * weshalb der Port nach dem Annehmen freigegeben wird.
+	     */
+	    EmuUtil.closeSilently( serverChannel );
+	    this.serverChannel = null;
+
+	    channel.configureBlocking( false );
+	    SocketAddress remoteAddr = channel.getRemoteAddress();
+	    if( remoteAddr instanceof InetSocketAddress ) {
+	      InetSocketAddress iAddr = (InetSocketAddress) remoteAddr;
+	      if( !setMemIpAddr(
+			this.baseAddr + Sn_DIPR,
+			iAddr.getAddress() ) )
+	      {
+		checkShowNonIPv4Msg( iAddr.getAddress() );
+	      }
+	      setMemWord( this.baseAddr + Sn_DPORT, iAddr.getPort() );
+	    }
+	    this.tcpChannel  = channel;
+	    this.recvEnabled = true;
+	    startStatistics();
+	    setSR( SOCK_ESTABLISHED );
+	    if( getCR() == CMD_LISTEN ) {
+	      setCR( CMD_NONE );
+	    }
+	    signalIRBits( INT_CON_MASK );
+	  }
+	}
+	catch( IOException ex ) {
+	  if( (getDebugMask() & DEBUG_MASK_MSG) != 0 ) {
+	    ex.printStackTrace( System.out );
+	  }
+	  EmuUtil.closeSilently( channel );
+	}
+      }
+    }
+
+
     private void checkShowNonIPv4Msg( InetAddress inetAddr )
     {
       if( !this.nonIPv4MsgShown ) {
@@ -184,21 +436,31 @@ public class W5100
     }
 
 
-    private synchronized void closeSocket()
+    /*
+     * Die Methode schliesst die Kanaele,
+     * laesst aber die Register unveraendert.
+     */
+    private void closeChannels()
     {
+      logStatistics();
       EmuDatagramSocket datagramSocket = this.datagramSocket;
       if( datagramSocket != null ) {
         datagramSocket.close();
       }
-      EmuUtil.closeSilently( this.sendStream );
-      EmuUtil.closeSilently( this.recvStream );
-      EmuUtil.closeSilently( this.socket );
-      EmuUtil.closeSilently( this.serverSocket );
-      this.sendStream      = null;
-      this.recvStream      = null;
-      this.socket          = null;
-      this.serverSocket    = null;
+      EmuUtil.closeSilently( this.tcpChannel );
+      EmuUtil.closeSilently( this.serverChannel );
+      this.tcpChannel      = null;
+      this.serverChannel   = null;
       this.datagramSocket  = null;
+      this.connectAddr     = null;
+      this.connectDeadline = 0L;
+      this.sendBufs        = null;
+    }
+
+
+    private void closeSocket()
+    {
+      closeChannels();
       this.rxReadReg       = 0;
       this.rxWriteReg      = 0;
       this.txReadReg       = 0;
@@ -209,6 +471,88 @@ public class W5100
     }
 
 
+    private void connectFailed( Exception ex )
+    {
+      if( (getDebugMask() & DEBUG_MASK_MSG) != 0 ) {
+	String s = null;
+	if( this.connectAddr != null ) {
+	  s = this.connectAddr.toString();
+	}
+	if( s == null ) {
+	  s = "";
+	}
+	System.out.printf(
+			"connect to: %s, timeout=%dms\n",
+			s.isEmpty() ? "?" : s,
+			this.connectTimeout );
+	if( ex != null ) {
+	  ex.printStackTrace( System.out );
+	}
+      }
+      closeSocket();
+      signalIRBits( INT_TIMEOUT_MASK );
+      setCR( CMD_NONE );
+    }
+
+
+    private void connectionEstablished()
+    {
+      SocketAddress socketAddr = this.connectAddr;
+      this.connectAddr         = null;
+      this.connectDeadline     = 0L;
+      this.recvEnabled         = true;
+      startStatistics();
+      setSR( SOCK_ESTABLISHED );
+      setCR( CMD_NONE );
+      signalIRBits( INT_CON_MASK );
+
+      // Debug-Meldung
+      if( (getDebugMask() & DEBUG_MASK_MSG) != 0 ) {
+	System.out.printf(
+			"W5100 Socket %d: connected to %s\n",
+			this.socketNum,
+			String.valueOf( socketAddr ) );
+      }
+    }
+
+
+    private void continueSendTCP()
+    {
+      SocketChannel channel  = this.tcpChannel;
+      ByteBuffer[]  sendBufs = this.sendBufs;
+      if( (channel != null) && (sendBufs != null) ) {
+	try {
+	  this.bytesSent += channel.write( sendBufs );
+	  if( !sendBufs[ sendBufs.length - 1 ].hasRemaining() ) {
+
+	    // Daten als gesendet markieren
+	    this.sendBufs  = null;
+	    this.txReadReg = this.sendEndReg;
+	    signalIRBits( INT_SEND_OK_MASK );
+	    setCR( CMD_NONE );
+
+	    // Debug-Meldung
+	    if( (getDebugMask() & DEBUG_MASK_MSG) != 0 ) {
+	      System.out.printf(
+			"W5100 Socket %d: %d bytes sent\n",
+			this.socketNum,
+			this.sendLen );
+	    }
+	  }
+	}
+	catch( IOException ex ) {
+	  if( (getDebugMask() & DEBUG_MASK_MSG) != 0 ) {
+	    ex.printStackTrace( System.out );
+	  }
+	  this.sendBufs = null;
+	  setCR( CMD_NONE );
+	  setSR( SOCK_CLOSE_WAIT );
+	  closeSocket();
+	}
+      }
+    }
+
+
     private EmuDatagramSocket createDatagramSocket( boolean forceCreation )
 							throws IOException
     {
@@ -228,10 +572,10 @@ public class W5100
       if( mc ) {
 	if( ds != null ) {
 	  /*
-	   * Da MulticastSocket benoetigt wird,
-	   * kann der reservierte DatagramSocket nicht verwendet werden.
+	   * Da ein Multicast-faehiger Kanal benoetigt wird,
+	   * kann der reservierte nicht verwendet werden.
 	   * Deshalb diesen schliessen, um den Port freizugeben,
-	   * und danach schnell den MulticastSocket an diesen Port binden.
+	   * und danach schnell den neuen Kanal an diesen Port binden.
 	   */
 	  ds.close();
 	  ds = null;
@@ -250,9 +594,15 @@ public class W5100
 	  catch( IllegalArgumentException ex ) {}
 	  InetAddress iAddr = createInetAddrByMem( this.baseAddr + Sn_DIPR );
 	  if( iAddr != null ) {
-	    ds.joinGroup(
+	    try {
+	      ds.joinGroup(
 			new InetSocketAddress( iAddr, ds.getLocalPort() ),
 			NetworkInterface.getByInetAddress( iAddr ) );
+	    }
+	    catch( IOException ex ) {
+	      ds.close();
+	      throw ex;
+	    }
 	  }
 	}
       } else {
@@ -270,252 +620,157 @@ public class W5100
     }
 
 
-    private void die()
-    {
-      this.threadsEnabled = false;
-      wakeUpThread( this.cmdThread, true );
-      wakeUpThread( this.recvThread, true );
-    }
-
-
     private void doSocketConnect()
     {
-      if( getSR() == SOCK_INIT ) {
-	boolean       done          = false;
-	int           timeoutMillis = 0;
-	SocketAddress socketAddr    = null;
-	Exception     socketEx      = null;
+      if( (getSR() == SOCK_INIT) && (this.tcpChannel == null) ) {
+	boolean   done     = false;
+	Exception socketEx = null;
+	this.connectAddr     = null;
+	this.connectTimeout  = 0;
+	this.connectDeadline = 0L;
 	if( !isIpAddrConflict( this.baseAddr + Sn_DIPR ) ) {
-	  Socket socket = null;
 	  try {
-	    socketAddr = new InetSocketAddress(
+	    this.connectAddr = new InetSocketAddress(
 			createInetAddrByMem( this.baseAddr + Sn_DIPR ),
 			getMemWord( this.baseAddr + Sn_DPORT ) );
-	    timeoutMillis = getTimeoutMillis();
-	    socket        = createSocket();
-	    socket.connect( socketAddr, timeoutMillis );
-	    int bufSize = getTxBufSize( this.socketNum );
-	    if( bufSize > 0 ) {
-	      this.sendStream = new BufferedOutputStream(
-					socket.getOutputStream(),
-					bufSize );
+	    this.connectTimeout = getTimeoutMillis();
+	    SocketChannel channel = SocketChannel.open();
+	    this.tcpChannel       = channel;
+	    channel.configureBlocking( false );
+	    if( channel.connect( this.connectAddr ) ) {
+	      connectionEstablished();
 	    } else {
-	      this.sendStream = new BufferedOutputStream(
-					socket.getOutputStream() );
-	    }
-	    this.recvStream = socket.getInputStream();
-	    this.socket     = socket;
-	    synchronized( this ) {
-	      setSR( SOCK_ESTABLISHED );
-	      setSnIRBits( INT_CON_MASK );
-	      this.recvEnabled = true;
+	      // Verbindungsaufbau wird im Netzwerk-Thread fortgesetzt
+	      if( this.connectTimeout > 0 ) {
+		this.connectDeadline = System.currentTimeMillis()
+						+ this.connectTimeout;
+	      }
 	    }
-	    fireRunRecvThread();
 	    done = true;
-
-	    // Debug-Meldung
-	    if( (getDebugMask() & DEBUG_MASK_MSG) != 0 ) {
-	      System.out.printf(
-			"W5100 Socket %d: connected to %s\n",
-			this.socketNum,
-			socketAddr.toString() );
-	    }
 	  }
 	  catch( Exception ex ) {
 	    socketEx = ex;
 	  }
 	}
 	if( !done ) {
-	  if( (getDebugMask() & DEBUG_MASK_MSG) != 0 ) {
-	    String s = null;
-	    if( socketAddr != null ) {
-	      s = socketAddr.toString();
-	    }
-	    if( s == null ) {
-	      s = "";
-	    }
-	    System.out.printf(
-			"connect to: %s, timeout=%dms\n",
-			s.isEmpty() ? "?" : s,
-			timeoutMillis );
-	    if( socketEx != null ) {
-	      socketEx.printStackTrace( System.out );
-	    }
-	  }
-	  EmuUtil.closeSilently( socket );
-	  closeSocket();
-	  setSnIRBits( INT_TIMEOUT_MASK );
+	  connectFailed( socketEx );
+	}
+      } else {
+	if( this.connectAddr == null ) {
+	  setCR( CMD_NONE );
 	}
       }
-      setCR( CMD_NONE );
     }
 
 
     private void doSocketListen()
     {
       if( getSR() == SOCK_LISTEN ) {
-	try {
-	  ServerSocket serverSocket = this.serverSocket;
-	  if( serverSocket == null ) {
-	    serverSocket = createServerSocket(
-				getMemWord( this.baseAddr + Sn_PORT ),
-				1 );
-	    this.serverSocket = serverSocket;
-	    if( (serverSocket != null)
-		&& ((getDebugMask() & DEBUG_MASK_MSG) != 0) )
-	    {
+	if( (this.serverChannel == null) && (this.tcpChannel == null) ) {
+	  ServerSocketChannel serverChannel = null;
+	  try {
+	    serverChannel = ServerSocketChannel.open();
+	    serverChannel.configureBlocking( false );
+	    serverChannel.bind(
+		new InetSocketAddress( getMemWord( this.baseAddr + Sn_PORT ) ),
+		1 );
+	    this.serverChannel = serverChannel;
+	    if( (getDebugMask() & DEBUG_MASK_MSG) != 0 ) {
 	      System.out.printf(
 		"W5100 Socket %d: tcp server socket bound at port %d\n",
 		this.socketNum,
-		serverSocket.getLocalPort() );
+		serverChannel.socket().getLocalPort() );
 	    }
 	  }
-	  Socket socket   = serverSocket.accept();
-	  this.sendStream = socket.getOutputStream();
-	  this.recvStream = socket.getInputStream();
-	  this.socket     = socket;
-	  if( !setMemIpAddr(
-			this.baseAddr + Sn_DIPR,
-			socket.getInetAddress() ) )
-	  {
-	    checkShowNonIPv4Msg( socket.getInetAddress() );
-	  }
-	  setMemWord( this.baseAddr + Sn_DPORT, socket.getPort() );
-	  synchronized( this ) {
-	    setSR( SOCK_ESTABLISHED );
-	    setSnIRBits( INT_CON_MASK );
-	    this.recvEnabled = true;
-	  }
-	  fireRunRecvThread();
-	}
-	catch( Exception ex ) {
-	  /*
-	   * Beim realen W5100-Chip kann ein LISTEN nicht fehlschlagen.
-	   * Aus diesem Grund wird hier kein Fehler signalisiert,
-	   * sondern weiterhin der Zustand SOCK_LISTEN vorgegaukelt.
-	   */
-	  if( getCR() == CMD_LISTEN ) {
+	  catch( IOException ex ) {
+	    /*
+	     * Beim realen W5100-Chip kann ein LISTEN nicht fehlschlagen.
+	     * Aus diesem Grund wird hier kein Fehler signalisiert,
+	     * sondern weiterhin der Zustand SOCK_LISTEN vorgegaukelt.
+	     */
 	    checkPermissionDenied( ex );
 	    if( (getDebugMask() & DEBUG_MASK_MSG) != 0 ) {
 	      ex.printStackTrace( System.out );
 	    }
+	    EmuUtil.closeSilently( serverChannel );
+	    setCR( CMD_NONE );
 	  }
-	  EmuUtil.closeSilently( socket );
 	}
-      }
-      switch( getCR() ) {
-	case CMD_CLOSE:
-	case CMD_DISCON:
-	  closeSocket();
-	  break;
-	case CMD_LISTEN:
-	  setCR( CMD_NONE );
-	  break;
+	/*
+	 * Das Kommando ist erst mit dem Annehmen einer Verbindung beendet,
+	 * was im Netzwerk-Thread geschieht.
+	 */
+      } else {
+	setCR( CMD_NONE );
       }
     }
 
 
-    private byte[] getRecvBuf( int size )
+    /*
+     * Die Methode uebernimmt die vom Netzwerk-Thread
+     * gemeldeten Interrupt-Bits in das Interrupt-Register.
+     * Sie wird im CPU-Emulations-Thread aufgerufen.
+     */
+    private void fetchIRBits()
     {
-      byte[] buf = this.recvBuf;
-      if( buf != null ) {
-	if( buf.length < size ) {
-	  buf = null;
-	}
-      }
-      if( buf == null ) {
-	buf = new byte[ size ];
-	this.recvBuf = buf;
+      int bits = this.irBits.getAndSet( 0 );
+      if( bits != 0 ) {
+	setSnIRBits( bits );
       }
-      return buf;
     }
 
 
-    private byte[] getSendBuf( int size )
+    private void finishConnect()
     {
-      byte[] buf = this.sendBuf;
-      if( buf != null ) {
-	if( buf.length < size ) {
-	  buf = null;
+      SocketChannel channel = this.tcpChannel;
+      if( (channel != null) && (this.connectAddr != null) ) {
+	try {
+	  if( channel.finishConnect() ) {
+	    connectionEstablished();
+	  }
+	}
+	catch( IOException ex ) {
+	  connectFailed( ex );
 	}
       }
-      if( buf == null ) {
-	buf = new byte[ size ];
-	this.sendBuf = buf;
-      }
-      return buf;
     }
 
 
-    private synchronized void fireRunCmdThread()
+    private int getCR()
     {
-      if( this.cmdThread != null ) {
-	synchronized( this.cmdThread ) {
-	  try {
-	    this.cmdThread.notify();
-	  }
-	  catch( IllegalMonitorStateException ex ) {
-	    this.cmdThreadNoWait = true;
-	  }
-	}
-      } else {
-	if( this.threadsEnabled ) {
-	  Thread t = new Thread(
-		Main.getThreadGroup(),
-		new Runnable()
-		{
-		  @Override
-		  public void run()
-		  {
-		    runCmdThread();
-		  }
-		},
-	        String.format(
-			"JKCEMU KCNET socket %d send",
-			this.socketNum ) );
-	  t.start();
-	  Thread.State threadState = t.getState();
-	  while( threadState == Thread.State.NEW ) {
-	    try {
-	      Thread.sleep( 10 );
-	    }
-	    catch( InterruptedException ex ) {}
-	    threadState = t.getState();
-	  }
-	  this.cmdThread = t;
-	}
-      }
+      return getMemByte( this.baseAddr + Sn_CR );
     }
 
 
-    private synchronized void fireRunRecvThread()
+    private ByteBuffer getRecvBuf( int size )
     {
-      if( this.recvThread == null ) {
-	if( this.threadsEnabled ) {
-	  this.recvThread = new Thread(
-		Main.getThreadGroup(),
-		new Runnable()
-		{
-		  @Override
-		  public void run()
-		  {
-		    runRecvThread();
-		  }
-		},
-	        String.format(
-			"JKCEMU KCNET socket %d receive",
-			this.socketNum ) );
-	  this.recvThread.start();
+      ByteBuffer buf = this.recvBuf;
+      if( buf != null ) {
+	if( buf.capacity() < size ) {
+	  buf = null;
 	}
-      } else {
-	wakeUpThread( this.recvThread, false );
       }
+      if( buf == null ) {
+	buf = ByteBuffer.allocate( size );
+	this.recvBuf = buf;
+      }
+      return buf;
     }
 
 
-    private int getCR()
+    private ByteBuffer getSendBuf( int size )
     {
-      return getMemByte( this.baseAddr + Sn_CR );
+      ByteBuffer buf = this.sendBuf;
+      if( buf != null ) {
+	if( buf.capacity() < size ) {
+	  buf = null;
+	}
+      }
+      if( buf == null ) {
+	buf = ByteBuffer.allocate( size );
+	this.sendBuf = buf;
+      }
+      return buf;
     }
 
 
@@ -553,8 +808,8 @@ public class W5100
       this.txWriteReg      = 0;
       this.rxFilled        = false;
       this.recvEnabled     = false;
-      this.cmdThreadNoWait = false;
       this.nonIPv4MsgShown = false;
+      this.irBits.set( 0 );
     }
 
 
@@ -571,6 +826,37 @@ public class W5100
     }
 
 
+    private void logStatistics()
+    {
+      if( (this.statsBegMillis > 0L)
+	  && ((getDebugMask() & DEBUG_MASK_STATS) != 0) )
+      {
+	long millis = Math.max(
+			System.currentTimeMillis() - this.statsBegMillis,
+			1L );
+	System.out.printf(
+		"W5100 Socket %d: %d ms, %d bytes received (%d bytes/s),"
+			+ " %d bytes sent (%d bytes/s),"
+			+ " %d socket calls, %d engine wakeups\n",
+		this.socketNum,
+		millis,
+		this.bytesReceived,
+		this.bytesReceived * 1000L / millis,
+		this.bytesSent,
+		this.bytesSent * 1000L / millis,
+		this.engineCalls,
+		getEngine().getWakeupCount() - this.statsBegWakeups );
+      }
+      this.statsBegMillis = 0L;
+    }
+
+
+    private void postCommand()
+    {
+      getEngine().post( this );
+    }
+
+
     private int readMemByte( int addr )
     {
       /*
@@ -581,8 +867,11 @@ public class W5100
        * aus dem dann auch gelesen wird.
        */
       switch( addr & 0x00FF ) {
+	case Sn_IR:
+	  fetchIRBits();
+	  break;
 	case Sn_TX_FSR:
-	  synchronized( this ) {
+	  {
 	    int fsr     = 0;
 	    int bufSize = getTxBufSize( this.socketNum );
 	    if( bufSize > 0 ) {
@@ -602,20 +891,16 @@ public class W5100
 	  }
 	  break;
 	case Sn_TX_RR:
-	  synchronized( this ) {
-	    setMemWord( addr, this.txReadReg );
-	  }
+	  setMemWord( addr, this.txReadReg );
 	  break;
 	case Sn_TX_WR:
-	  synchronized( this ) {
-	    setMemWord( addr, this.txWriteReg );
-	  }
+	  setMemWord( addr, this.txWriteReg );
 	  break;
 	case Sn_RX_RSR:
 	  // Anzahl der Bytes im Empfangspuffer
-	  synchronized( this ) {
+	  {
 	    int rsr = 0;
-	    if( rxFilled ) {
+	    if( this.rxFilled ) {
 	      int bufSize = getRxBufSize( this.socketNum );
 	      if( bufSize > 0 ) {
 		int mask = bufSize - 1;
@@ -635,14 +920,10 @@ public class W5100
 	  }
 	  break;
 	case Sn_RX_RD:
-	  synchronized( this ) {
-	    setMemWord( addr, this.rxReadReg );
-	  }
+	  setMemWord( addr, this.rxReadReg );
 	  break;
 	case Sn_RX_WR:
-	  synchronized( this ) {
-	    setMemWord( addr, this.rxWriteReg );
-	  }
+	  setMemWord( addr, this.rxWriteReg );
 	  break;
       }
       int rv = 0;
@@ -668,435 +949,244 @@ public class W5100
 
     private void receiveIPRAW()
     {
-      boolean received = false;
-      while( !received && (getSR() == SOCK_IPRAW) ) {
-	int bufAddr = 0;
-	int bufSize = 0;
-	int rr      = 0;
-	int wr      = 0;
-	synchronized( this ) {
-	  bufAddr = getRxBufAddr( this.socketNum );
-	  bufSize = getRxBufSize( this.socketNum );
-	  rr      = this.rxReadReg;
-	  wr      = this.rxWriteReg;
-	}
-	if( (bufSize > 0)
-	    && getMemByte( this.baseAddr + Sn_PROTO ) == 0x01 )
-	{
-	  /*
-	   * ICMP Paket empfangen,
-	   * Das kann in der Emulation nur eine simulierte Ping-Antwort sein.
-	   * Dazu wird die Liste der gesendeten Pings durchgegangen.
-	   * Pings mit einer Antwort (Echo, Timeout oder Fehler)
-	   * werden in jedem Fall aus der Liste entfernt.
-	   * Im Falle einer positiven Antwort oder eines Fehlers
-	   * wird der Empfang eines entsprechendes
-	   * ICMP Pakets simuliert.
-	   */
-	  Ping                 usedPing = null;
-	  java.util.List<Ping> pings    = getPings();
-	  synchronized( pings ) {
-	    int idx = 0;
-	    while( (usedPing == null) && (idx < pings.size()) ) {
-	      Ping ping = pings.get( idx );
-	      if( ping.checkError() ) {
-		usedPing = ping;
+      int bufAddr = getRxBufAddr( this.socketNum );
+      int bufSize = getRxBufSize( this.socketNum );
+      int rr      = this.rxReadReg;
+      int wr      = this.rxWriteReg;
+      if( (bufSize > 0)
+	  && getMemByte( this.baseAddr + Sn_PROTO ) == 0x01 )
+      {
+	/*
+	 * ICMP Paket empfangen,
+	 * Das kann in der Emulation nur eine simulierte Ping-Antwort sein.
+	 * Dazu wird die Liste der gesendeten Pings durchgegangen.
+	 * Pings mit einer Antwort (Echo, Timeout oder Fehler)
+	 * werden in jedem Fall aus der Liste entfernt.
+	 * Im Falle einer positiven Antwort oder eines Fehlers
+	 * wird der Empfang eines entsprechendes
+	 * ICMP Pakets simuliert.
+	 */
+	Ping                 usedPing = null;
+	java.util.List<Ping> pings    = getPings();
+	synchronized( pings ) {
+	  int idx = 0;
+	  while( (usedPing == null) && (idx < pings.size()) ) {
+	    Ping ping = pings.get( idx );
+	    if( ping.checkError() ) {
+	      usedPing = ping;
+	      pings.remove( idx );
+	    } else {
+	      Boolean status = ping.getReachable();
+	      if( status != null ) {
+		if( status.booleanValue() ) {
+		  usedPing = ping;
+		}
 		pings.remove( idx );
 	      } else {
-		Boolean status = ping.getReachable();
-		if( status != null ) {
-		  if( status.booleanValue() ) {
-		    usedPing = ping;
-		  }
-		  pings.remove( idx );
-		} else {
-		  idx++;
-		}
+		idx++;
 	      }
 	    }
 	  }
-	  if( usedPing != null ) {
-	    byte[] pkg = usedPing.getPackageData();
-	    if( pkg != null ) {
-	      int nFree = bufSize;
-	      int mask  = bufSize - 1;
-	      rr &= mask;
-	      wr &= mask;
-	      if( wr != rr ) {
-		if( wr < rr ) {
-		  wr += bufSize;
-		}
-		nFree = (wr - rr) & mask;
+	}
+	if( usedPing != null ) {
+	  byte[] pkg = usedPing.getPackageData();
+	  if( pkg != null ) {
+	    int nFree = bufSize;
+	    int mask  = bufSize - 1;
+	    rr &= mask;
+	    wr &= mask;
+	    if( wr != rr ) {
+	      if( wr < rr ) {
+		wr += bufSize;
 	      }
-	      if( (pkg.length >= 4) && ((pkg.length + 6) <  nFree) ) {
+	      nFree = (wr - rr) & mask;
+	    }
+	    if( (pkg.length >= 4) && ((pkg.length + 6) <  nFree) ) {
 
-		// W5100 IPRAW Header fuellen
-		setMemIpAddr(
+	      // W5100 IPRAW Header fuellen
+	      setMemIpAddr(
 			bufAddr + (wr & mask),
 			usedPing.getInetAddress() );
-		wr += 4;
-		setMemWord(
+	      wr += 4;
+	      setMemWord(
 			bufAddr + (wr & mask),
 			pkg.length );
-		wr += 2;
-
-		// ICMP Echo Reply Header
-		pkg[ 0 ] = (byte) (usedPing.checkError() ? 3 : 0);
-		pkg[ 1 ] = (byte) 0;
-		pkg[ 2 ] = (byte) 0;
-		pkg[ 3 ] = (byte) 0;
-		long cks = computeChecksum( pkg, 0, pkg.length );
-		pkg[ 2 ] = (byte) ((cks >> 8) & 0xFF);
-		pkg[ 3 ] = (byte) (cks & 0xFF);
-		for( int i = 0; i < pkg.length; i++ ) {
-		  setMemByte( bufAddr + (wr & mask), pkg[ i ] );
-		  wr++;
-		}
-
-		// Empfang signalisieren
-		synchronized( this ) {
-		  this.recvEnabled = false;
-		  this.rxFilled    = true;
-		  this.rxWriteReg  = wr & mask;
-		  setSnIRBits( INT_RECV_MASK );
-		}
-		received = true;
+	      wr += 2;
+
+	      // ICMP Echo Reply Header
+	      pkg[ 0 ] = (byte) (usedPing.checkError() ? 3 : 0);
+	      pkg[ 1 ] = (byte) 0;
+	      pkg[ 2 ] = (byte) 0;
+	      pkg[ 3 ] = (byte) 0;
+	      long cks = computeChecksum( pkg, 0, pkg.length );
+	      pkg[ 2 ] = (byte) ((cks >> 8) & 0xFF);
+	      pkg[ 3 ] = (byte) (cks & 0xFF);
+	      for( int i = 0; i < pkg.length; i++ ) {
+		setMemByte( bufAddr + (wr & mask), pkg[ i ] );
+		wr++;
 	      }
+
+	      // Empfang signalisieren
+	      this.rxWriteReg  = wr & mask;
+	      this.rxFilled    = true;
+	      this.recvEnabled = false;
+	      signalIRBits( INT_RECV_MASK );
 	    }
 	  }
 	}
-	if( !received ) {
-	  try {
-	    Thread.sleep( 10 );
-	  }
-	  catch( InterruptedException ex ) {}
-	}
       }
     }
 
 
+    /*
+     * Die Bytes werden direkt in den Empfangspuffer
+     * des W5100-Speichers gelesen.
+     */
     private void receiveTCP()
     {
-      int bufAddr = 0;
-      int bufSize = 0;
-      int rr      = 0;
-      int wr      = 0;
-      synchronized( this ) {
-	bufAddr = getRxBufAddr( this.socketNum );
-	bufSize = getRxBufSize( this.socketNum );
-	rr      = this.rxReadReg;
-	wr      = this.rxWriteReg;
-      }
-      if( bufSize > 0 ) {
-	try {
-	  InputStream in = this.recvStream;
-	  if( in != null ) {
-	    int mask = bufSize - 1;
-	    rr &= mask;
-	    wr &= mask;
-	    if( !this.rxFilled || (wr != rr) ) {
-
-	      // warten auf das erste Byte
-	      int b = in.read();
-	      if( b >= 0 ) {
-		int nRead = 1;
-		setMemByte( bufAddr + (wr & mask), b );
-		wr = (wr + 1) & mask;
-
-		// weitere Bytes empfangen?
-		int nAvailable = in.available();
-		while( (nAvailable > 0) && (wr != rr) ) {
-		  b = in.read();
-		  if( b < 0 ) {
-		    break;
-		  }
-		  nRead++;
-		  setMemByte( bufAddr + (wr & mask), b );
-		  wr = (wr + 1) & mask;
-		  --nAvailable;
-		  if( nAvailable == 0 ) {
-		    // zwischenzeitlich neue Bytes empfangen?
-		    nAvailable = in.available();
-		  }
-		}
-		synchronized( this ) {
-		  this.recvEnabled = false;
-		  this.rxFilled    = true;
-		  this.rxWriteReg  = wr;
-		  setSnIRBits( INT_RECV_MASK );
-		}
-		if( (nRead > 0)
-		    && ((getDebugMask() & DEBUG_MASK_MSG) != 0) )
-		{
-		  System.out.printf(
+      SocketChannel channel = this.tcpChannel;
+      int           bufAddr = getRxBufAddr( this.socketNum );
+      int           bufSize = getRxBufSize( this.socketNum );
+      if( (channel != null) && (bufSize > 0) ) {
+	int mask  = bufSize - 1;
+	int rr    = this.rxReadReg & mask;
+	int wr    = this.rxWriteReg & mask;
+	int nFree = bufSize;
+	if( this.rxFilled ) {
+	  nFree = (rr - wr) & mask;
+	}
+	if( nFree > 0 ) {
+	  try {
+	    long nRead = channel.read(
+			wrapRingBuf( bufAddr, bufSize, wr, nFree ) );
+	    if( nRead > 0 ) {
+	      this.bytesReceived += nRead;
+	      this.rxWriteReg  = (wr + (int) nRead) & mask;
+	      this.rxFilled    = true;
+	      this.recvEnabled = false;
+	      signalIRBits( INT_RECV_MASK );
+	      if( (getDebugMask() & DEBUG_MASK_MSG) != 0 ) {
+		System.out.printf(
 			"W5100 Socket %d: %d bytes received\n",
 			this.socketNum,
 			nRead );
-		}
-	      }
-	      if( b < 0 ) {
-		if( (getDebugMask() & DEBUG_MASK_MSG) != 0 ) {
-		  System.out.printf(
-			"W5100 Socket %d: tcp connection closed"
-				+ " by remote host\n",
-			this.socketNum );
-		}
-		setCR( CMD_NONE );
-		setSR( SOCK_CLOSE_WAIT );
-		Socket socket = this.socket;
-		if( socket != null ) {
-		  EmuUtil.closeSilently( socket );
-		  this.recvStream = null;
-		  this.sendStream = null;
-		  this.socket     = null;
-		}
-		setSR( SOCK_CLOSED );
-		fireRunCmdThread();
 	      }
+	    } else if( nRead < 0 ) {
+	      remoteClosed();
 	    }
 	  }
-	}
-	catch( IOException ex ) {
-	  EmuUtil.closeSilently( this.recvStream );
-	  this.recvStream = null;
+	  catch( IOException ex ) {
+	    if( (getDebugMask() & DEBUG_MASK_MSG) != 0 ) {
+	      ex.printStackTrace( System.out );
+	    }
+	    remoteClosed();
+	  }
 	}
       }
     }
 
 
+    /*
+     * Passt das Paket ohne Ueberlauf am Pufferende
+     * in den Empfangspuffer, wird es direkt dorthin gelesen,
+     * anderenfalls ueber einen Zwischenpuffer.
+     */
     private void receiveUDP()
     {
-      boolean           received = false;
-      EmuDatagramSocket dSocket  = this.datagramSocket;
-      if( dSocket != null ) {
-	int bufAddr = 0;
-	int bufSize = 0;
-	int rr      = 0;
-	int wr      = 0;
-	synchronized( this ) {
-	  bufAddr = getRxBufAddr( this.socketNum );
-	  bufSize = getRxBufSize( this.socketNum );
-	  rr      = this.rxReadReg;
-	  wr      = this.rxWriteReg;
+      EmuDatagramSocket dSocket = this.datagramSocket;
+      int               bufAddr = getRxBufAddr( this.socketNum );
+      int               bufSize = getRxBufSize( this.socketNum );
+      if( (dSocket != null) && (bufSize > 0) ) {
+	int mask  = bufSize - 1;
+	int rr    = this.rxReadReg & mask;
+	int wr    = this.rxWriteReg & mask;
+	int nFree = bufSize;
+	if( this.rxFilled ) {
+	  nFree = (rr - wr) & mask;
 	}
-	if( bufSize > 0 ) {
-	  int nFree = bufSize;
-	  int mask  = bufSize - 1;
-	  rr &= mask;
-	  wr &= mask;
-	  if( wr != rr ) {
-	    if( wr < rr ) {
-	      wr += bufSize;
-	    }
-	    nFree = (wr - rr) & mask;
+
+	// 8 Bytes Platz fuer den W5100 UDP Header lassen
+	if( nFree > 8 ) {
+	  int        maxLen  = nFree - 8;
+	  int        dataPos = (wr + 8) & mask;
+	  boolean    direct  = ((dataPos + maxLen) <= bufSize);
+	  ByteBuffer dst     = null;
+	  if( direct ) {
+	    dst = wrapRingBuf( bufAddr, bufSize, dataPos, maxLen )[ 0 ];
+	  } else {
+	    dst = getRecvBuf( bufSize );
+	    dst.clear();
+	    dst.limit( maxLen );
 	  }
+	  try {
+	    SocketAddress srcAddr = dSocket.receive( getW5100(), dst );
+	    if( srcAddr instanceof InetSocketAddress ) {
+	      InetSocketAddress iAddr = (InetSocketAddress) srcAddr;
+	      int               len   = dst.position();
+	      if( !direct ) {
+		dst.flip();
+		for( ByteBuffer view : wrapRingBuf(
+						bufAddr,
+						bufSize,
+						dataPos,
+						len ) )
+		{
+		  dst.limit( dst.position() + view.remaining() );
+		  view.put( dst );
+		}
+	      }
 
-	  // 8 Bytes Platz fuer den W5100 UDP Header lassen
-	  if( nFree > 8 ) {
-	    try {
-	      byte[]         recvBuf = getRecvBuf( bufSize );
-	      DatagramPacket packet  = new DatagramPacket(
-							recvBuf,
-							nFree - 8 );
-	      if( dSocket.receive( getW5100(), packet ) ) {
-		int len = packet.getLength();
-		if( len > 0 ) {
-		  String msgAddon = "";
-		  if( (len <= bufSize) && (len <= (nFree - 8)) ) {
-
-		    // W5100 UP Header fuellen
-		    if( !setMemIpAddr(
-				bufAddr + (wr & mask),
-				packet.getAddress() ) )
-		    {
-		      checkShowNonIPv4Msg( packet.getAddress() );
-		    }
-		    wr += 4;
-		    setMemWord( bufAddr + (wr & mask), packet.getPort() );
-		    wr += 2;
-		    setMemWord( bufAddr + (wr & mask), len );
-		    wr += 2;
-
-		    // Daten kopieren
-		    byte[] data = packet.getData();
-		    if( data != null ) {
-		      int pos = packet.getOffset();
-		      for( int i = 0; i < len; i++ ) {
-			int b = 0;
-			if( (pos >= 0) && (pos < data.length) ) {
-			  b = data[ pos ] & 0xFF;
-			}
-			setMemByte( bufAddr + (wr & mask), b );
-			pos++;
-			wr++;
-		      }
-		    }
-
-		    // Empfang signalisieren
-		    synchronized( this ) {
-		      this.recvEnabled = false;
-		      this.rxFilled    = true;
-		      this.rxWriteReg  = wr & mask;
-		      setSnIRBits( INT_RECV_MASK );
-		    }
-		    received = true;
-		  } else {
-		    msgAddon = " but ignored due limited buffer size";
-		  }
-		  if( (getDebugMask() & DEBUG_MASK_MSG) != 0 ) {
-		    System.out.printf(
-			"W5100 Socket %d: %d bytes received%s\n",
+	      // W5100 UP Header fuellen
+	      if( !setMemIpAddr( bufAddr + wr, iAddr.getAddress() ) ) {
+		checkShowNonIPv4Msg( iAddr.getAddress() );
+	      }
+	      setMemWord( bufAddr + ((wr + 4) & mask), iAddr.getPort() );
+	      setMemWord( bufAddr + ((wr + 6) & mask), len );
+	      this.bytesReceived += len;
+
+	      // Empfang signalisieren
+	      this.rxWriteReg  = (dataPos + len) & mask;
+	      this.rxFilled    = true;
+	      this.recvEnabled = false;
+	      signalIRBits( INT_RECV_MASK );
+	      if( (getDebugMask() & DEBUG_MASK_MSG) != 0 ) {
+		System.out.printf(
+			"W5100 Socket %d: %d bytes received\n",
 			this.socketNum,
-			len,
-			msgAddon );
-		  }
-		}
+			len );
 	      }
 	    }
-	    catch( Exception ex ) {}
 	  }
+	  catch( Exception ex ) {}
 	}
       }
-      if( !received ) {
-	try {
-	  Thread.sleep( 10 );
-	}
-	catch( InterruptedException ex ) {}
-      }
     }
 
 
-    private void runCmdThread()
+    private void remoteClosed()
     {
-      while( this.threadsEnabled ) {
-	int sr = getSR();
-	switch( getCR() ) {
-	  case CMD_OPEN:
-	    if( sr == SOCK_UDP ) {
-	      if( this.datagramSocket == null ) {
-		try {
-		  this.datagramSocket = createDatagramSocket( false );
-		  if( (getDebugMask() & DEBUG_MASK_STATUS) != 0 ) {
-		    logDatagramSocketBound();
-		  }
-		}
-		catch( IOException ex ) {
-		  checkPermissionDenied( ex );
-		  if( (getDebugMask() & DEBUG_MASK_MSG) != 0 ) {
-		    ex.printStackTrace( System.out );
-		  }
-		  closeSocket();
-		}
-		if( this.datagramSocket != null ) {
-		  this.recvEnabled = true;
-		  fireRunRecvThread();
-		}
-	      }
-	    }
-	    break;
-	  case CMD_LISTEN:
-	    doSocketListen();
-	    break;
-	  case CMD_CONNECT:
-	    doSocketConnect();
-	    break;
-	  case CMD_DISCON:
-	    boolean connected = (this.socket != null);
-	    closeSocket();
-	    if( connected ) {
-	      setSnIRBits( INT_DISCON_MASK );
-	    }
-	    break;
-	  case CMD_CLOSE:
-	    closeSocket();
-	    break;
-	  case CMD_SEND:
-	    switch( sr ) {
-	      case SOCK_IPRAW:
-		sendIPRAW();
-		break;
-	      case SOCK_ESTABLISHED:
-		sendTCP();
-		break;
-	      case SOCK_UDP:
-		sendUDP();
-		break;
-	      default:
-		/*
-		 * Da bei den verbindungslosen Diensten laut Spezifikation
-		 * die erfolgreiche Uebertragung eines konkreten Paketes
-		 * nicht garantiert ist, wird hier einfach so getan,
-		 * als wenn das Paket gesendet wurde,
-		 * wohl wissend, dass dem nicht so ist.
-		 */
-		this.txReadReg = this.txWriteReg;
-		setSnIRBits( INT_SEND_OK_MASK );
-	    }
-	    break;
-	  case CMD_RECV:
-	    if( (sr == SOCK_ESTABLISHED)
-		|| (sr == SOCK_UDP)
-		|| (sr == SOCK_IPRAW) )
-	    {
-	      this.recvEnabled = true;
-	      fireRunRecvThread();
-	    }
-	    break;
-	}
-	setCR( CMD_NONE );
-	if( getSR() == SOCK_CLOSED ) {
-	  closeSocket();
-	}
-
-	// warten
-	if( this.cmdThreadNoWait ) {
-	  this.cmdThreadNoWait = false;
-	} else {
-	  Thread thread = this.cmdThread;
-	  if( thread != null ) {
-	    synchronized( thread ) {
-	      try {
-		thread.wait();
-	      }
-	      catch( IllegalMonitorStateException ex ) {}
-	      catch( InterruptedException ex ) {}
-	    }
-	  }
-	}
+      if( (getDebugMask() & DEBUG_MASK_MSG) != 0 ) {
+	System.out.printf(
+		"W5100 Socket %d: tcp connection closed by remote host\n",
+		this.socketNum );
       }
+      setCR( CMD_NONE );
+      setSR( SOCK_CLOSE_WAIT );
       closeSocket();
     }
 
 
-    private void runRecvThread()
+    /*
+     * Die Methode veranlasst das Schliessen der Kanaele
+     * im Netzwerk-Thread.
+     * Sie wird beim Ruecksetzen und Entfernen
+     * des W5100 im CPU-Emulations-Thread aufgerufen.
+     */
+    private void requestClose()
     {
-      while( this.threadsEnabled ) {
-	if( this.recvEnabled ) {
-	  switch( getSR() ) {
-	    case SOCK_ESTABLISHED:
-	      receiveTCP();
-	      break;
-	    case SOCK_UDP:
-	      receiveUDP();
-	      break;
-	    case SOCK_IPRAW:
-	      receiveIPRAW();
-	      break;
-	  }
-	}
-
-	// warten auf Empfangsfreigabe
-	Thread thread = this.recvThread;
-	if( thread != null ) {
-	  synchronized( thread ) {
-	    try {
-	      thread.wait( 30 );
-	    }
-	    catch( IllegalMonitorStateException ex ) {}
-	    catch( InterruptedException ex ) {}
-	  }
-	}
-      }
+      this.closeRequested = true;
+      this.recvEnabled    = false;
+      postCommand();
     }
 
 
@@ -1112,19 +1202,13 @@ public class W5100
       if( getMemByte( this.baseAddr + Sn_PROTO ) == 0x01 ) {
 
 	// ICMP
-	int bufAddr = 0;
-	int bufSize = 0;
-	int rr      = 0;
-	int wr      = 0;
-	synchronized( this ) {
-	  bufAddr = getTxBufAddr( this.socketNum );
-	  bufSize = getTxBufSize( this.socketNum );
-	  rr      = this.txReadReg;
-	  wr      = this.txWriteReg;
-	}
-	int mask = bufSize - 1;
+	int bufAddr = getTxBufAddr( this.socketNum );
+	int bufSize = getTxBufSize( this.socketNum );
+	int rr      = this.txReadReg;
+	int wr      = this.txWriteReg;
+	int mask    = bufSize - 1;
 	if( (bufSize > 0)
-	    && getMemByte( bufAddr + (this.txReadReg & mask) ) == 0x08 )
+	    && getMemByte( bufAddr + (rr & mask) ) == 0x08 )
 	{
 	  // ICMP Echo Request
 	  rr &= mask;
@@ -1158,12 +1242,15 @@ public class W5100
 
 	      // Daten als gesendet markieren
 	      this.txReadReg = wr;
-	      setSnIRBits( INT_SEND_OK_MASK );
+	      signalIRBits( INT_SEND_OK_MASK );
 	      done = true;
 
 	      // Ping starten
 	      if( packageData != null ) {
-		Ping ping = new Ping( dstInetAddr, packageData );
+		Ping ping = new Ping(
+				W5100.this.context.getThreadGroup(),
+				dstInetAddr,
+				packageData );
 		ping.start();
 		addPing( ping );
 	      }
@@ -1176,97 +1263,52 @@ public class W5100
 	 * Daten konnten nicht gesendet werden
 	 * (z.B. in der Emulation nicht unterstuetzt) -> Fehler melden
 	 */
-	synchronized( this ) {
-	  this.txReadReg = this.txWriteReg;
-	  setSnIRBits( INT_TIMEOUT_MASK );
-	}
+	this.txReadReg = this.txWriteReg;
+	signalIRBits( INT_TIMEOUT_MASK );
       }
     }
 
 
+    /*
+     * Die Bytes werden direkt aus dem Sendepuffer
+     * des W5100-Speichers geschrieben.
+     * Kann der Kanal nicht alle Bytes sofort aufnehmen,
+     * wird der Rest geschrieben, sobald der Kanal wieder bereit ist.
+     */
     private void sendTCP()
     {
-      try {
-	boolean      done = false;
-	OutputStream out  = this.sendStream;
-	if( out != null ) {
-	  int bufSize = 0;
-	  int bufAddr = 0;
-	  int rr      = 0;
-	  int wr      = 0;
-	  synchronized( this ) {
-	    bufSize = getTxBufSize( this.socketNum );
-	    bufAddr = getTxBufAddr( this.socketNum );
-	    rr      = this.txReadReg;
-	    wr      = this.txWriteReg;
-	  }
-	  if( bufSize > 0 ) {
-	    int nWritten = 0;
-	    int mask     = bufSize - 1;
-	    rr &= mask;
-	    wr &= mask;
-	    do {
-	      out.write( getMemByte( bufAddr + rr ) );
-	      nWritten++;
-	      rr = (rr + 1) & mask;
-	    } while( rr != wr );
-	    out.flush();
-
-	    // Daten als gesendet markieren
-	    this.txReadReg = wr;
-	    setSnIRBits( INT_SEND_OK_MASK );
-	    done = true;
-
-	    // Debug-Meldung
-	    if( (nWritten > 0)
-		&& ((getDebugMask() & DEBUG_MASK_MSG) != 0) )
-	    {
-	      System.out.printf(
-			"W5100 Socket %d: %d bytes sent\n",
-			this.socketNum,
-			nWritten );
-	    }
-	  }
-	}
-	if( !done ) {
-	  synchronized( this ) {
-	    this.txReadReg = this.txWriteReg;
-	    setSnIRBits( INT_TIMEOUT_MASK );
+      if( this.sendBufs == null ) {
+	SocketChannel channel = this.tcpChannel;
+	int           bufSize = getTxBufSize( this.socketNum );
+	int           bufAddr = getTxBufAddr( this.socketNum );
+	if( (channel != null) && (bufSize > 0) ) {
+	  int mask = bufSize - 1;
+	  int rr   = this.txReadReg & mask;
+	  int wr   = this.txWriteReg & mask;
+	  int len  = (wr - rr) & mask;
+	  if( len == 0 ) {
+	    len = bufSize;
 	  }
+	  this.sendBufs   = wrapRingBuf( bufAddr, bufSize, rr, len );
+	  this.sendEndReg = wr;
+	  this.sendLen    = len;
+	  continueSendTCP();
+	} else {
+	  this.txReadReg = this.txWriteReg;
+	  signalIRBits( INT_TIMEOUT_MASK );
+	  setCR( CMD_NONE );
 	}
       }
-      catch( IOException ex ) {
-	if( (getDebugMask() & DEBUG_MASK_MSG) != 0 ) {
-	  ex.printStackTrace( System.out );
-	}
-	setCR( CMD_NONE );
-	setSR( SOCK_CLOSE_WAIT );
-	Socket socket = this.socket;
-	if( socket != null ) {
-	  EmuUtil.closeSilently( socket );
-	  this.recvStream = null;
-	  this.sendStream = null;
-	  this.socket     = null;
-	}
-	setSR( SOCK_CLOSED );
-	fireRunCmdThread();
-      }
     }
 
 
     private void sendUDP()
     {
       boolean done    = false;
-      int     bufSize = 0;
-      int     bufAddr = 0;
-      int     rr      = 0;
-      int     wr      = 0;
-      synchronized( this ) {
-	bufSize = getTxBufSize( this.socketNum );
-	bufAddr = getTxBufAddr( this.socketNum );
-	rr      = this.txReadReg;
-	wr      = this.txWriteReg;
-      }
+      int     bufSize = getTxBufSize( this.socketNum );
+      int     bufAddr = getTxBufAddr( this.socketNum );
+      int     rr      = this.txReadReg;
+      int     wr      = this.txWriteReg;
       if( bufSize > 0 ) {
 	int len  = bufSize;
 	int mask = bufSize - 1;
@@ -1287,29 +1329,37 @@ public class W5100
 	    if( dSocket == null ) {
 	      dSocket             = createDatagramSocket( true );
 	      this.datagramSocket = dSocket;
+	      startStatistics();
 	      if( (getDebugMask() & DEBUG_MASK_STATUS) != 0 ) {
 		logDatagramSocketBound();
 	      }
 	      this.recvEnabled = true;
-	      fireRunRecvThread();
 	    }
 	    if( !isIpAddrConflict( this.baseAddr + Sn_DIPR ) ) {
-	      byte[] sendBuf = getSendBuf( bufSize );
-	      for( int i = 0; i < len; i++ ) {
-		sendBuf[ i ] = (byte) getMemByte(
-					bufAddr + ((rr + i) & mask) );
+	      /*
+	       * Liegt das Paket zusammenhaengend im Sendepuffer,
+	       * wird es direkt von dort gesendet.
+	       */
+	      ByteBuffer[] views = wrapRingBuf( bufAddr, bufSize, rr, len );
+	      ByteBuffer   src   = views[ 0 ];
+	      if( views.length > 1 ) {
+		src = getSendBuf( bufSize );
+		src.clear();
+		for( ByteBuffer view : views ) {
+		  src.put( view );
+		}
+		src.flip();
 	      }
-	      int            dstPort = getMemWord( this.baseAddr + Sn_DPORT );
-	      DatagramPacket packet  = new DatagramPacket(
-							sendBuf,
-							len,
-							dstInetAddr,
-							dstPort );
-	      dSocket.send( getW5100(), packet );
+	      int dstPort = getMemWord( this.baseAddr + Sn_DPORT );
+	      dSocket.send(
+			getW5100(),
+			src,
+			new InetSocketAddress( dstInetAddr, dstPort ) );
+	      this.bytesSent += len;
 
 	      // Daten als gesendet markieren
 	      this.txReadReg = wr;
-	      setSnIRBits( INT_SEND_OK_MASK );
+	      signalIRBits( INT_SEND_OK_MASK );
 	      done = true;
 
 	      // Debug-Meldung
@@ -1334,14 +1384,18 @@ public class W5100
 	}
       }
       if( !done ) {
-	synchronized( this ) {
-	  this.txReadReg = this.txWriteReg;
-	  setSnIRBits( INT_TIMEOUT_MASK );
-	}
+	this.txReadReg = this.txWriteReg;
+	signalIRBits( INT_TIMEOUT_MASK );
       }
     }
 
 
+    private void setCR( int value )
+    {
+      setMemByte( this.baseAddr + Sn_CR, value );
+    }
+
+
     private void setSnIRBits( int value )
     {
       setSnIRValue( getMemByte( this.baseAddr + Sn_IR ) | value );
@@ -1386,14 +1440,6 @@ public class W5100
       }
       setMemByte( ADDR_IR, irValue );
     }
-
-
-    private void setCR( int value )
-    {
-      setMemByte( this.baseAddr + Sn_CR, value );
-    }
-
-
     private void setSR( int value )
     {
       if( (getDebugMask() & DEBUG_MASK_STATUS) != 0 ) {
@@ -1455,6 +1501,113 @@ public class W5100
     }
 
 
+    /*
+     * Die Methode wird im Netzwerk-Thread aufgerufen.
+     * Sie setzt die Bits nicht direkt im Interrupt-Register,
+     * sondern meldet sie ohne Sperre dem CPU-Emulations-Thread.
+     * Alle anderen Register muessen vorher geschrieben sein.
+     */
+    private void signalIRBits( int value )
+    {
+      int bits = this.irBits.get();
+      while( !this.irBits.compareAndSet( bits, bits | value ) ) {
+	bits = this.irBits.get();
+      }
+    }
+
+
+    /*
+     * Die Methode beginnt die Durchsatzmessung
+     * fuer eine neue Verbindung bzw. einen neuen UDP-Socket.
+     * Das Ergebnis wird beim Schliessen ausgegeben,
+     * wenn in der Eigenschaft KCNet.SYSPROP_DEBUG
+     * das Bit DEBUG_MASK_STATS gesetzt ist.
+     */
+    private void startStatistics()
+    {
+      this.bytesReceived   = 0L;
+      this.bytesSent       = 0L;
+      this.engineCalls     = 0L;
+      this.statsBegWakeups = getEngine().getWakeupCount();
+      this.statsBegMillis  = System.currentTimeMillis();
+    }
+
+
+    /*
+     * Die Methode meldet den Kanal des Sockets mit den benoetigten
+     * Ereignissen am Selector an bzw. schaltet die zyklische Abfrage ein,
+     * wenn es keinen Kanal gibt oder ein Timeout ueberwacht werden muss.
+     * Sie wird im Netzwerk-Thread aufgerufen.
+     */
+    private void updateEngineState()
+    {
+      SocketEngine      engine  = getEngine();
+      SelectableChannel channel = null;
+      int               ops     = 0;
+      boolean           polling = false;
+      if( this.tcpChannel != null ) {
+	channel = this.tcpChannel;
+	if( this.connectAddr != null ) {
+	  ops     = SelectionKey.OP_CONNECT;
+	  polling = (this.connectDeadline > 0L);
+	} else {
+	  if( this.recvEnabled ) {
+	    ops |= SelectionKey.OP_READ;
+	  }
+	  if( this.sendBufs != null ) {
+	    ops |= SelectionKey.OP_WRITE;
+	  }
+	}
+      } else if( this.serverChannel != null ) {
+	channel = this.serverChannel;
+	ops     = SelectionKey.OP_ACCEPT;
+      } else {
+	EmuDatagramSocket ds = this.datagramSocket;
+	if( ds != null ) {
+	  channel = ds.getChannel();
+	  if( this.recvEnabled ) {
+	    if( channel != null ) {
+	      ops = SelectionKey.OP_READ;
+	    } else {
+	      // simulierter DHCP-Server
+	      polling = true;
+	    }
+	  }
+	} else {
+	  polling = (this.recvEnabled && (getSR() == SOCK_IPRAW));
+	}
+      }
+      SelectionKey key = this.selKey;
+      if( key != null ) {
+	if( key.channel() != channel ) {
+	  key.cancel();
+	  key = null;
+	}
+      }
+      if( channel != null ) {
+	try {
+	  if( (key != null) && key.isValid() ) {
+	    key.interestOps( ops );
+	  } else {
+	    key = engine.register( channel, ops, this );
+	  }
+	}
+	catch( IOException ex ) {
+	  if( (getDebugMask() & DEBUG_MASK_MSG) != 0 ) {
+	    ex.printStackTrace( System.out );
+	  }
+	  key = null;
+	  closeSocket();
+	  signalIRBits( INT_TIMEOUT_MASK );
+	  setCR( CMD_NONE );
+	  polling = false;
+	}
+      }
+      this.selKey = key;
+      engine.setPolling( this, polling );
+    }
+
+
     private void writeCommand( int addr, int value )
     {
       if( (getDebugMask() & DEBUG_MASK_MSG) != 0 ) {
@@ -1500,25 +1653,23 @@ public class W5100
       switch( value ) {
 	case CMD_OPEN:
 	  if( getSR() == SOCK_CLOSED ) {
-	    synchronized( this ) {
-	      int bufSize = getRxBufSize( this.socketNum );
-	      if( bufSize > 0 ) {
-		int mask = bufSize - 1;
-		this.rxReadReg &= mask;
-		this.rxWriteReg &= mask;
-	      } else {
-		this.rxReadReg  = 0;
-		this.rxWriteReg = 0;
-	      }
-	      bufSize = getTxBufSize( this.socketNum );
-	      if( bufSize > 0 ) {
-		int mask = bufSize - 1;
-		this.txReadReg &= mask;
-		this.txWriteReg &= mask;
-	      } else {
-		this.txReadReg  = 0;
-		this.txWriteReg = 0;
-	      }
+	    int bufSize = getRxBufSize( this.socketNum );
+	    if( bufSize > 0 ) {
+	      int mask = bufSize - 1;
+	      this.rxReadReg &= mask;
+	      this.rxWriteReg &= mask;
+	    } else {
+	      this.rxReadReg  = 0;
+	      this.rxWriteReg = 0;
+	    }
+	    bufSize = getTxBufSize( this.socketNum );
+	    if( bufSize > 0 ) {
+	      int mask = bufSize - 1;
+	      this.txReadReg &= mask;
+	      this.txWriteReg &= mask;
+	    } else {
+	      this.txReadReg  = 0;
+	      this.txWriteReg = 0;
 	    }
 	    switch( getMemByte( this.baseAddr ) & 0x0F ) {
 	      case 0x01:
@@ -1528,14 +1679,14 @@ public class W5100
 	      case 0x02:
 		setSR( SOCK_UDP );
 		setMemByte( addr, value );
-		// Kommando wird im runThread fortgesetzt.
-		fireRunCmdThread();
+		// Kommando wird im Netzwerk-Thread fortgesetzt.
+		postCommand();
 		break;
 	      case 0x03:
 		setSR( SOCK_IPRAW );
 		setCR( CMD_NONE );
 		this.recvEnabled = true;
-		fireRunRecvThread();	// Empfang ermoeglichen
+		postCommand();		// Empfang ermoeglichen
 		break;
 	      default:
 		/*
@@ -1552,43 +1703,32 @@ public class W5100
 	  break;
 	case CMD_LISTEN:
 	  /*
-	   * Kommando wird im runThread fortgesetzt.
+	   * Kommando wird im Netzwerk-Thread fortgesetzt.
 	   * Der Status muss aber sofort auf SOCK_LISTEN gehen.
 	   */
 	  setMemByte( addr, value );
 	  setSR( SOCK_LISTEN );
-	  fireRunCmdThread();
+	  postCommand();
 	  break;
 	case CMD_CONNECT:
 	case CMD_SEND:
 	case CMD_RECV:
-	  // Diese Kommandos werden im cmdThread ausgefuehrt.
+	  // Diese Kommandos werden im Netzwerk-Thread ausgefuehrt.
 	  setMemByte( addr, value );
-	  fireRunCmdThread();
+	  postCommand();
 	  break;
 	case CMD_DISCON:
 	case CMD_CLOSE:
 	  setMemByte( addr, value );
-	  if( (getSR() == SOCK_CLOSE_WAIT) && (this.socket != null) ) {
+	  if( (getSR() == SOCK_CLOSE_WAIT) && (this.tcpChannel != null) ) {
 	    setSR( SOCK_CLOSING );
 	  }
-	  if( this.cmdThread != null ) {
-	    /*
-	     * ServerSocket schliessen, falls der Kommando-Thread
-	     * in der accept-Methode haengt
-	     */
-	    ServerSocket serverSocket = this.serverSocket;
-	    if( serverSocket != null ) {
-	      try {
-		serverSocket.close();
-	      }
-	      catch( IOException ex ) {}
-	    }
-	    // Diese Kommandos werden im cmdThread ausgefuehrt.
-	    wakeUpThread( this.cmdThread, false );
-	  } else {
-	    closeSocket();
-	  }
+	  /*
+	   * Diese Kommandos werden im Netzwerk-Thread ausgefuehrt,
+	   * der dabei auch einen noch laufenden Verbindungsaufbau
+	   * bzw. ein LISTEN abbricht.
+	   */
+	  postCommand();
 	  // uebriggebliebene reservierte DatagramSockets freigeben
 	  releaseReservedDatagramSockets();
 	  break;
@@ -1601,10 +1741,7 @@ public class W5100
 	  setMemByte( addr, 0 );
 	  break;
 	case CMD_SEND_KEEP:
-	  if( (this.socket == null)
-	      || (this.recvStream == null)
-	      || (this.sendStream == null) )
-	  {
+	  if( this.tcpChannel == null ) {
 	    setSnIRBits( INT_TIMEOUT_MASK );
 	  }
 	  setMemByte( addr, 0 );
@@ -1640,24 +1777,24 @@ public class W5100
 	  break;
 	case Sn_IR:
 	  setSnIRValue( getMemByte( addr ) & ~value );
+	  fetchIRBits();
 	  break;
 	case Sn_CR:
 	  writeCommand( addr, value );
 	  break;
 	case Sn_TX_WR + 1:
 	  setMemByte( addr, value );
-	  synchronized( this ) {
-	    this.txWriteReg = getMemWord( addr - 1 );
-	  }
+	  this.txWriteReg = getMemWord( addr - 1 );
 	  break;
 	case Sn_RX_RD + 1:
 	  setMemByte( addr, value );
-	  synchronized( this ) {
+	  {
 	    int mask = getRxBufSize( this.socketNum ) - 1;
-	    this.rxReadReg = getMemWord( addr - 1 ) & mask;
-	    if( (this.rxReadReg & mask) == (this.rxWriteReg & mask) ) {
+	    int rr   = getMemWord( addr - 1 ) & mask;
+	    if( rr == (this.rxWriteReg & mask) ) {
 	      this.rxFilled = false;
 	    }
+	    this.rxReadReg = rr;
 	  }
 	  break;
 
@@ -1668,24 +1805,25 @@ public class W5100
   };
 
 
+  private EmuContext                        context;
   private byte[]                            localIpAddr;
-  private byte[]                            mem;
+  private ByteBuffer                        mem;
   private Object                            loggingLockObj;
   private SocketData[]                      sockets;
   private java.util.List<Ping>              pings;
   private java.util.List<EmuDatagramSocket> reservedDatagramSockets;
-  private ServerSocketFactory               serverSocketFactory;
-  private SocketFactory                     socketFactory;
+  private SocketEngine                      engine;
   private DhcpServer                        dhcpServer;
   private NetConfig                         netConfig;
   private int                               debugMask;
 
 
-  public W5100()
+  public W5100( EmuContext context )
   {
+    this.context     = context;
     this.localIpAddr = null;
-    this.mem         = new byte[ 0x8000 ];
-    Arrays.fill( this.mem, (byte) 0 );
+    this.engine      = SocketEngine.getInstance();
+    this.mem         = ByteBuffer.allocateDirect( MEM_SIZE );
 
     this.sockets = new SocketData[ 4 ];
     for( int i = 0; i < 4; i++ ) {
@@ -1693,8 +1831,6 @@ public class W5100
     }
 
     this.loggingLockObj          = new Object();
-    this.serverSocketFactory     = ServerSocketFactory.getDefault();
-    this.socketFactory           = SocketFactory.getDefault();
     this.dhcpServer              = new DhcpServer( this );
     this.reservedDatagramSockets = new ArrayList<>();
     this.pings                   = new ArrayList<>();
@@ -1722,7 +1858,7 @@ public class W5100
   public void die()
   {
     for( SocketData socket : this.sockets ) {
-      socket.die();
+      socket.requestClose();
     }
   }
 
@@ -1774,22 +1910,20 @@ public class W5100
 
   public void reset( boolean powerOn )
   {
-    // Sockets schliessen
+    /*
+     * Kanaele im Netzwerk-Thread schliessen,
+     * die Register werden weiter unten initialisiert.
+     */
     for( int i = 0; i < this.sockets.length; i++ ) {
-      this.sockets[ i ].closeSocket();
+      this.sockets[ i ].requestClose();
     }
 
-    // Threads aufwachen, falls sie blockiert sind
-    wakeUpThreads();
-
-    // Threads nochnals aufwachen, um ggf. Socket-Objekte zu schliessen
-    wakeUpThreads();
-
     if( powerOn ) {
-      Arrays.fill( this.mem, (byte) 0 );
+      clearMem( 0 );
 
       synchronized( this ) {
-	this.netConfig = NetConfig.readNetConfig();
+	this.netConfig = NetConfig.readNetConfig(
+					this.context.getProperties() );
       }
       if( netConfig != null ) {
 	byte[] hwAddr = netConfig.getHardwareAddr();
@@ -1797,7 +1931,7 @@ public class W5100
 	  if( hwAddr.length == 6 ) {
 	    int addr = ADDR_SHAR;
 	    for( byte b : hwAddr ) {
-	      this.mem[ addr++ ] = b;
+	      this.mem.put( addr++, b );
 	    }
 	  }
 	}
@@ -1806,7 +1940,7 @@ public class W5100
 	  if( gatewayIpAddr.length == 4 ) {
 	    int addr = ADDR_GWR;
 	    for( byte b : gatewayIpAddr ) {
-	      this.mem[ addr++ ] = b;
+	      this.mem.put( addr++, b );
 	    }
 	  }
 	}
@@ -1816,7 +1950,7 @@ public class W5100
 	  ipAddr = new byte[] { (byte) 127, (byte) 0, (byte) 0, (byte) 1 };
 	}
 	byte[] subnetMask = netConfig.getSubnetMask();
-	if( !KCNet.getAutoConfig() ) {
+	if( !KCNet.getAutoConfig( this.context.getProperties() ) ) {
 	  ipAddr     = netConfig.getManualIpAddr();
 	  subnetMask = netConfig.getManualSubnetMask();
 	}
@@ -1824,7 +1958,7 @@ public class W5100
 	  if( ipAddr.length == 4 ) {
 	    int addr = ADDR_SIPR;
 	    for( byte b : ipAddr ) {
-	      this.mem[ addr++ ] = b;
+	      this.mem.put( addr++, b );
 	    }
 	  }
 	}
@@ -1832,22 +1966,22 @@ public class W5100
 	  if( subnetMask.length == 4 ) {
 	    int addr = ADDR_SUBR;
 	    for( byte b : subnetMask ) {
-	      this.mem[ addr++ ] = b;
+	      this.mem.put( addr++, b );
 	    }
 	  }
 	}
       }
     } else {
-      Arrays.fill( this.mem, 0x0013, this.mem.length, (byte) 0 );
+      clearMem( 0x0013 );
     }
 
     // Default-Werte
-    this.mem[ ADDR_RTR ]     = (byte) 0x07;	// Retry Time-value (16 Bit)
-    this.mem[ ADDR_RTR + 1 ] = (byte) 0xD0;
-    this.mem[ ADDR_RCR ]     = (byte) 0x08;	// Retry Count
-    this.mem[ ADDR_RMSR ]    = (byte) 0x55;	// RX Memory Size
-    this.mem[ ADDR_TMSR ]    = (byte) 0x55;	// TX Memory Size
-    this.mem[ ADDR_PTIMER ]  = (byte) 0x28;
+    this.mem.put( ADDR_RTR, (byte) 0x07 );	// Retry Time-value (16 Bit)
+    this.mem.put( ADDR_RTR + 1, (byte) 0xD0 );
+    this.mem.put( ADDR_RCR, (byte) 0x08 );	// Retry Count
+    this.mem.put( ADDR_RMSR, (byte) 0x55 );	// RX Memory Size
+    this.mem.put( ADDR_TMSR, (byte) 0x55 );	// TX Memory Size
+    this.mem.put( ADDR_PTIMER, (byte) 0x28 );
 
     // Sockets
     for( int i = 0; i < this.sockets.length; i++ ) {
@@ -1869,19 +2003,19 @@ public class W5100
     if( (addr == ADDR_MR) && ((value & 0x80) != 0) ) {
       reset( true );
     }
-    if( (addr >= 0) && (addr < this.mem.length) ) {
+    if( (addr >= 0) && (addr < MEM_SIZE) ) {
       if( addr == 0x0000 ) {
-	this.mem[ addr ] = (byte) (value & 0x74);
+	this.mem.put( addr, (byte) (value & 0x74) );
       } else if( addr == ADDR_IR ) {
 	/*
 	 * Bits werden im Interrupt Register zurueckgesetzt,
 	 * wenn diese Bits im uebergebenen Wert gesetzt sind.
 	 */
-	this.mem[ addr ] &= ~value;
+	this.mem.put( addr, (byte) (this.mem.get( addr ) & ~value) );
       } else if( (addr >= 0x0400) && (addr < 0x0800) ) {
 	this.sockets[ (addr >> 8) & 0x03 ].writeMemByte( addr, value );
       } else if( (addr < ADDR_SHAR) || (addr > (ADDR_SHAR + 5)) ) {
-	this.mem[ addr ] = (byte) value;
+	this.mem.put( addr, (byte) value );
       }
     }
   }
@@ -1912,6 +2046,14 @@ public class W5100
   }
 
 
+  private void clearMem( int begAddr )
+  {
+    for( int addr = begAddr; addr < MEM_SIZE; addr++ ) {
+      this.mem.put( addr, (byte) 0 );
+    }
+  }
+
+
   private static int computeChecksum( byte[] data, int pos, int len )
   {
     long cks = 0;
@@ -1931,11 +2073,11 @@ public class W5100
   private InetAddress createInetAddrByMem( int addr )
   {
     InetAddress inetAddr = null;
-    if( (addr + 3) < this.mem.length ) {
+    if( (addr + 3) < MEM_SIZE ) {
       try {
 	byte[] ipAddr = new byte[ 4 ];
 	for( int i = 0; i < ipAddr.length; i++ ) {
-	  ipAddr[ i ] = this.mem[ addr++ ];
+	  ipAddr[ i ] = this.mem.get( addr++ );
 	}
 	inetAddr = InetAddress.getByAddress( ipAddr );
       }
@@ -1949,31 +2091,19 @@ public class W5100
   }
 
 
-  private Socket createSocket() throws IOException
-  {
-    Socket socket = null;
-    if( this.socketFactory != null ) {
-      socket = this.socketFactory.createSocket();
-    } else {
-      socket = new Socket();
-    }
-    return socket;
-  }
-
-
-  private ServerSocket createServerSocket(
-				int port,
-				int backlog) throws IOException
+  private boolean equalsMem( byte[] a, int addr )
   {
-    ServerSocket serverSocket = null;
-    if( this.serverSocketFactory != null ) {
-      serverSocket = this.serverSocketFactory.createServerSocket(
-							port,
-							backlog );
-    } else {
-      serverSocket = new ServerSocket( port, backlog );
+    boolean rv = false;
+    if( (addr >= 0) && ((addr + a.length) <= MEM_SIZE) ) {
+      rv = true;
+      for( int i = 0; i < a.length; i++ ) {
+	if( a[ i ] != this.mem.get( addr + i ) ) {
+	  rv = false;
+	  break;
+	}
+      }
     }
-    return serverSocket;
+    return rv;
   }
 
 
@@ -2033,6 +2163,12 @@ public class W5100
   }
 
 
+  private SocketEngine getEngine()
+  {
+    return this.engine;
+  }
+
+
   private Object getLoggingLockObj()
   {
     return this.loggingLockObj;
@@ -2042,8 +2178,8 @@ public class W5100
   private int getMemByte( int addr )
   {
     int rv = 0;
-    if( (addr >= 0) && (addr < this.mem.length) ) {
-      rv = (int) this.mem[ addr ] & 0xFF;
+    if( (addr >= 0) && (addr < MEM_SIZE) ) {
+      rv = (int) this.mem.get( addr ) & 0xFF;
     }
     return rv;
   }
@@ -2052,9 +2188,9 @@ public class W5100
   private int getMemWord( int addr )
   {
     int rv = 0;
-    if( (addr >= 0) && ((addr + 1) < this.mem.length) ) {
-      rv = (((int) this.mem[ addr ] << 8) & 0xFF00)
-			| (((int) this.mem[ addr + 1 ]) & 0x00FF);
+    if( (addr >= 0) && ((addr + 1) < MEM_SIZE) ) {
+      rv = (((int) this.mem.get( addr ) << 8) & 0xFF00)
+			| (((int) this.mem.get( addr + 1 )) & 0x00FF);
     }
     return rv;
   }
@@ -2151,14 +2287,8 @@ public class W5100
      */
     boolean rv = false;
     if( this.localIpAddr != null ) {
-      rv = (!EmuUtil.equalsRegion(
-			this.localIpAddr, 0,
-			this.mem, ADDR_SIPR,
-			4 )
-	    && EmuUtil.equalsRegion(
-			this.localIpAddr, 0,
-			this.mem, dstAddrIdx,
-			4 ));
+      rv = (!equalsMem( this.localIpAddr, ADDR_SIPR )
+	    && equalsMem( this.localIpAddr, dstAddrIdx ));
     }
     return rv;
   }
@@ -2170,8 +2300,13 @@ public class W5100
     if( (addr >= 0x0400) && (addr < 0x0800) ) {
       rv = this.sockets[ (addr >> 8) & 0x03 ].readMemByte( addr );
     } else {
-      if( (addr >= 0) && (addr < this.mem.length) ) {
-	rv = (int) this.mem[ addr ] & 0xFF;
+      if( addr == ADDR_IR ) {
+	for( SocketData socket : this.sockets ) {
+	  socket.fetchIRBits();
+	}
+      }
+      if( (addr >= 0) && (addr < MEM_SIZE) ) {
+	rv = (int) this.mem.get( addr ) & 0xFF;
       }
     }
     return rv;
@@ -2191,8 +2326,8 @@ public class W5100
 
   private void setMemByte( int addr, int value )
   {
-    if( (addr >= 0) && (addr < this.mem.length) )
-      this.mem[ addr ] = (byte) value;
+    if( (addr >= 0) && (addr < MEM_SIZE) )
+      this.mem.put( addr, (byte) value );
   }
 
 
@@ -2228,36 +2363,45 @@ public class W5100
 
   private void setMemWord( int addr, int value )
   {
-    if( (addr >= 0) && (addr < this.mem.length) ) {
-      this.mem[ addr++ ] = (byte) (value >> 8);
-      if( addr < this.mem.length ) {
-	this.mem[ addr ] = (byte) value;
+    if( (addr >= 0) && (addr < MEM_SIZE) ) {
+      this.mem.put( addr++, (byte) (value >> 8) );
+      if( addr < MEM_SIZE ) {
+	this.mem.put( addr, (byte) value );
       }
     }
   }
 
 
-  private static void wakeUpThread( Thread thread, boolean interrupt )
+  private ByteBuffer viewMem( int addr, int len )
   {
-    if( thread != null ) {
-      if( interrupt ) {
-	thread.interrupt();
-      }
-      synchronized( thread ) {
-	try {
-	  thread.notify();
-	}
-	catch( IllegalMonitorStateException ex ) {}
-      }
-    }
+    ByteBuffer buf = this.mem.duplicate();
+    buf.limit( addr + len );
+    buf.position( addr );
+    return buf.slice();
   }
 
 
-  private void wakeUpThreads()
+  /*
+   * Die Methode liefert Sichten auf einen Bereich eines Ringpuffers
+   * im W5100-Speicher, ueber die Kanaele direkt lesen und schreiben.
+   * Bei einem Ueberlauf am Pufferende werden zwei Sichten geliefert.
+   * Die Sichten beginnen jeweils bei Position 0.
+   */
+  private ByteBuffer[] wrapRingBuf(
+				int bufAddr,
+				int bufSize,
+				int pos,
+				int len )
   {
-    for( SocketData socket : this.sockets ) {
-      wakeUpThread( socket.cmdThread, true );
-      wakeUpThread( socket.recvThread, true );
+    ByteBuffer[] rv   = null;
+    int          len1 = Math.min( len, bufSize - pos );
+    if( len1 < len ) {
+      rv = new ByteBuffer[] {
+		viewMem( bufAddr + pos, len1 ),
+		viewMem( bufAddr, len - len1 ) };
+    } else {
+      rv = new ByteBuffer[] { viewMem( bufAddr + pos, len ) };
     }
+    return rv;
   }
 }
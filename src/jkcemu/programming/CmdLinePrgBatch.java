@@ -0,0 +1,359 @@
+/*
+ * (c) 2021 Jens Mueller
+ *
+ * Kleincomputer-Emulator
+ *
+ * Kommandozeilenschnittstelle zum Assemblieren und Compilieren
+ * im Stapelbetrieb
+ *
+ * Jede Zeile einer Auftragsdatei enthaelt einen Auftrag,
+ * bestehend aus dem Werkzeug (as bzw. bc) und dessen Argumenten.
+ * Die Auftraege werden parallel in mehreren Threads abgearbeitet,
+ * wobei jeder Auftrag eine eigene Assembler- bzw. Compiler-Instanz
+ * und einen eigenen Logger erhaelt.
+ * Die Ausgaben eines Auftrags werden gesammelt
+ * und nach dessen Ende zusammenhaengend ausgegeben.
+ *
+ * Ist keine Auftragsdatei angegeben, werden die Auftraege
+ * solange von der Standardeingabe gelesen, bis diese geschlossen wird.
+ * Damit kann der Prozess als langlebiger Hintergrunddienst
+ * fuer eine Entwicklungsumgebung dienen,
+ * ohne fuer jede Datei die JVM neu starten zu muessen.
+ */
+
+package jkcemu.programming;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import jkcemu.Main;
+import jkcemu.base.EmuUtil;
+import jkcemu.programming.assembler.CmdLineAssembler;
+import jkcemu.programming.basic.CmdLineBasicCompiler;
+
+
+public class CmdLinePrgBatch implements Runnable
+{
+  private static final String[] usageLines = {
+	"",
+	"Aufruf:",
+	"  java -jar jkcemu.jar --pb [Optionen] [<Auftragsdatei>...]",
+	"  java -jar jkcemu.jar --prgbatch [Optionen] [<Auftragsdatei>...]",
+	"",
+	"Optionen:",
+	"  -h              diese Hilfe anzeigen",
+	"  -j <Anzahl>     Anzahl der parallel arbeitenden Threads",
+	"",
+	"Jede Zeile einer Auftragsdatei enth\u00E4lt einen Auftrag:",
+	"  as <Assembler-Optionen> <Quelltextdatei>",
+	"  bc <Compiler-Optionen> <Quelltextdatei>",
+	"Leere Zeilen und Zeilen, die mit \'#\' beginnen,"
+					+ " werden ignoriert.",
+	"Ist keine Auftragsdatei angegeben, werden die Auftr\u00E4ge",
+	"von der Standardeingabe gelesen, bis diese geschlossen wird.",
+	"" };
+
+  private LinkedList<String> jobs;
+  private boolean            inputDone;
+  private int                nOK;
+  private int                nFailed;
+
+
+  public static boolean execute( String[] args, int argIdx )
+  {
+    java.util.List<String> jobFileNames = new ArrayList<>();
+
+    boolean status   = false;
+    boolean helpFlag = false;
+    int     nThreads = Runtime.getRuntime().availableProcessors();
+
+    CmdLineArgIterator iter = CmdLineArgIterator.createFromStringArray(
+								args,
+								argIdx );
+    try {
+      String arg = iter.next();
+      while( arg != null ) {
+	if( !arg.isEmpty() ) {
+	  if( arg.charAt( 0 ) == '-' ) {
+	    int len = arg.length();
+	    if( len < 2 ) {
+	      throwWrongCmdLine();
+	    }
+	    int pos = 1;
+	    while( pos < len ) {
+	      char ch = arg.charAt( pos++ );
+	      switch( ch ) {
+		case 'h':
+		case 'H':
+		  helpFlag = true;
+		  break;
+		case 'j':
+		  {
+		    String value = null;
+		    if( pos < len ) {
+		      value = arg.substring( pos );
+		      pos   = len;		// Schleife verlassen
+		    } else {
+		      value = iter.next();
+		    }
+		    if( value == null ) {
+		      throwWrongCmdLine();
+		    }
+		    try {
+		      nThreads = Integer.parseInt( value.trim() );
+		    }
+		    catch( NumberFormatException ex ) {
+		      nThreads = 0;
+		    }
+		    if( nThreads < 1 ) {
+		      throw new IOException(
+				"Ung\u00FCltige Anzahl an Threads" );
+		    }
+		  }
+		  break;
+		default:
+		  throw new IOException(
+			String.format( "Unbekannte Option \'%c\'", ch ) );
+	      }
+	    }
+	  } else {
+	    jobFileNames.add( arg );
+	  }
+	}
+	arg = iter.next();
+      }
+      if( helpFlag ) {
+	Main.printlnOut();
+	Main.printlnOut( Main.APPINFO
+			+ " Assembler und BASIC-Compiler im Stapelbetrieb" );
+	for( String s : usageLines ) {
+	  Main.printlnOut( s );
+	}
+	status = true;
+      } else {
+	CmdLinePrgBatch batch = new CmdLinePrgBatch();
+	Thread[]        threads = batch.startThreads( nThreads );
+	try {
+	  if( jobFileNames.isEmpty() ) {
+	    batch.readJobs( new InputStreamReader( System.in ) );
+	  } else {
+	    for( String fileName : jobFileNames ) {
+	      batch.readJobs( new FileReader( fileName ) );
+	    }
+	  }
+	}
+	finally {
+	  batch.setInputDone();
+	}
+	status = batch.waitForThreads( threads );
+      }
+    }
+    catch( IOException ex ) {
+      Main.printlnErr();
+      Main.printlnErr( Main.APPINFO
+			+ " Assembler und BASIC-Compiler im Stapelbetrieb:" );
+      String msg = ex.getMessage();
+      if( msg != null ) {
+	if( !msg.isEmpty() ) {
+	  Main.printlnErr( msg );
+	}
+      }
+      for( String s : usageLines ) {
+	Main.printlnErr( s );
+      }
+      status = false;
+    }
+    finally {
+      EmuUtil.closeSilently( iter );
+    }
+    return status;
+  }
+
+
+	/* --- Runnable --- */
+
+  @Override
+  public void run()
+  {
+    for(;;) {
+      String job = null;
+      synchronized( this ) {
+	while( this.jobs.isEmpty() && !this.inputDone ) {
+	  try {
+	    wait();
+	  }
+	  catch( InterruptedException ex ) {}
+	}
+	if( !this.jobs.isEmpty() ) {
+	  job = this.jobs.removeFirst();
+	}
+      }
+      if( job == null ) {
+	break;
+      }
+      StringBuilder logBuf = new StringBuilder( 0x400 );
+      PrgLogger     logger = PrgLogger.createLogger( logBuf );
+      boolean       ok     = false;
+      try {
+	ok = executeJob( job, logger );
+      }
+      catch( Exception ex ) {
+	String msg = ex.getMessage();
+	if( msg != null ) {
+	  if( msg.isEmpty() ) {
+	    msg = null;
+	  }
+	}
+	logger.appendToErrLog(
+		(msg != null ? msg : ex.getClass().getName()) + "\n" );
+      }
+      report( job, ok, logBuf );
+    }
+  }
+
+
+	/* --- Konstruktor --- */
+
+  private CmdLinePrgBatch()
+  {
+    this.jobs      = new LinkedList<>();
+    this.inputDone = false;
+    this.nOK       = 0;
+    this.nFailed   = 0;
+  }
+
+
+	/* --- private Methoden --- */
+
+  private static boolean executeJob(
+				String    job,
+				PrgLogger logger ) throws IOException
+  {
+    java.util.List<String> args = new ArrayList<>();
+    CmdLineArgIterator     iter = CmdLineArgIterator.createFromReader(
+						new StringReader( job ) );
+    try {
+      String arg = iter.next();
+      while( arg != null ) {
+	args.add( arg );
+	arg = iter.next();
+      }
+    }
+    finally {
+      EmuUtil.closeSilently( iter );
+    }
+    boolean rv = false;
+    if( !args.isEmpty() ) {
+      String   tool    = args.get( 0 );
+      String[] argsArr = args.toArray( new String[ args.size() ] );
+      if( tool.equalsIgnoreCase( "as" )
+	  || tool.equals( "--as" )
+	  || tool.equalsIgnoreCase( "--assembler" ) )
+      {
+	rv = CmdLineAssembler.execute( argsArr, 1, logger );
+      }
+      else if( tool.equalsIgnoreCase( "bc" )
+	       || tool.equals( "--bc" )
+	       || tool.equalsIgnoreCase( "--basiccompiler" ) )
+      {
+	rv = CmdLineBasicCompiler.execute( argsArr, 1, logger );
+      } else {
+	throw new IOException( "Unbekanntes Werkzeug \'" + tool + "\'" );
+      }
+    }
+    return rv;
+  }
+
+
+  private void readJobs( Reader reader ) throws IOException
+  {
+    BufferedReader in = null;
+    try {
+      in          = new BufferedReader( reader );
+      String line = in.readLine();
+      while( line != null ) {
+	line = line.trim();
+	if( !line.isEmpty() && !line.startsWith( "#" ) ) {
+	  synchronized( this ) {
+	    this.jobs.add( line );
+	    notify();
+	  }
+	}
+	line = in.readLine();
+      }
+    }
+    finally {
+      EmuUtil.closeSilently( in );
+    }
+  }
+
+
+  private synchronized void report(
+				String        job,
+				boolean       ok,
+				CharSequence  log )
+  {
+    if( ok ) {
+      this.nOK++;
+      Main.printlnOut( "OK      " + job );
+    } else {
+      this.nFailed++;
+      Main.printlnOut( "FEHLER  " + job );
+    }
+    for( String line : log.toString().split( "\n" ) ) {
+      if( !line.trim().isEmpty() ) {
+	Main.printlnOut( "        " + line );
+      }
+    }
+  }
+
+
+  private synchronized void setInputDone()
+  {
+    this.inputDone = true;
+    notifyAll();
+  }
+
+
+  private Thread[] startThreads( int nThreads )
+  {
+    Thread[] threads = new Thread[ nThreads ];
+    for( int i = 0; i < threads.length; i++ ) {
+      threads[ i ] = new Thread(
+			Main.getThreadGroup(),
+			this,
+			"JKCEMU programming batch " + (i + 1) );
+      threads[ i ].start();
+    }
+    return threads;
+  }
+
+
+  private static void throwWrongCmdLine() throws IOException
+  {
+    throw new IOException( "Fehlerhafte Kommandozeile" );
+  }
+
+
+  private boolean waitForThreads( Thread[] threads )
+  {
+    for( Thread t : threads ) {
+      try {
+	t.join();
+      }
+      catch( InterruptedException ex ) {}
+    }
+    Main.printlnOut();
+    Main.printlnOut( String.format(
+			"%d Auftrag/Auftr\u00E4ge erfolgreich,"
+				+ " %d fehlgeschlagen",
+			this.nOK,
+			this.nFailed ) );
+    return this.nFailed == 0;
+  }
+}
@@ -35,6 +35,19 @@ public class PrgSource
   private Map<Integer,Integer>   lineNum2Addr;
 
 
+  /*
+   * Die Methode legt eine Kopie mit eigener Leseposition an.
+   */
+  public PrgSource duplicate()
+  {
+    return new PrgSource(
+		this.lines != null ? new ArrayList<>( this.lines ) : null,
+		this.orgText,
+		this.name,
+		this.file );
+  }
+
+
   public File getFile()
   {
     return this.file;
@@ -0,0 +1,179 @@
+/*
+ * (c) 2021 Jens Mueller
+ *
+ * Kleincomputer-Emulator
+ *
+ * Zwischenspeicher fuer die vom Assembler gelesenen Dateien
+ *
+ * Bei Projekten, die aus mehreren Dateien bestehen,
+ * werden beim wiederholten Assemblieren meistens
+ * nur wenige Dateien geaendert.
+ * Die per INCLUDE und BINCLUDE eingebundenen Dateien werden deshalb
+ * fuer die gesamte Sitzung gemerkt und nur dann neu gelesen,
+ * wenn sich ihre Groesse oder ihr Aenderungszeitpunkt geaendert hat.
+ * Da der Aenderungszeitpunkt je nach Dateisystem nur sekundengenau
+ * (oder noch grober) gespeichert wird, gilt eine Datei,
+ * die kurz vor dem Lesen geaendert wurde, nicht als sicher unveraendert
+ * und wird beim naechsten Mal erneut gelesen.
+ * Damit der Speicherbedarf begrenzt bleibt, werden nur
+ * die zuletzt verwendeten Dateien gemerkt.
+ * Zusammen mit dem Zwischenspeicher fuer zerlegte Zeilen
+ * (AsmLineCache) muessen dadurch unveraenderte Dateien
+ * weder gelesen noch zerlegt werden.
+ */
+
+package jkcemu.programming.assembler;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import jkcemu.file.FileUtil;
+import jkcemu.programming.PrgSource;
+
+
+public class AsmFileCache
+{
+  /*
+   * Zeitspanne in Millisekunden, innerhalb der eine erneute Aenderung
+   * der Datei nicht zwingend zu einem anderen Aenderungszeitpunkt fuehrt
+   * (z.B. 2 Sekunden bei FAT)
+   */
+  private static final long MTIME_GRANULARITY = 2000L;
+
+  private static final int MAX_BIN_FILES = 64;
+  private static final int MAX_SRC_FILES = 256;
+
+  private static class FileData
+  {
+    private long      lastModified;
+    private long      length;
+    private boolean   reliable;
+    private PrgSource source;
+    private byte[]    bytes;
+
+    private FileData( File file )
+    {
+      this.lastModified = file.lastModified();
+      this.length       = file.length();
+      this.reliable     = ((System.currentTimeMillis() - this.lastModified)
+							> MTIME_GRANULARITY);
+      this.source       = null;
+      this.bytes        = null;
+    }
+
+    private boolean isUpToDate( File file )
+    {
+      return this.reliable
+		&& (file.lastModified() == this.lastModified)
+		&& (file.length() == this.length);
+    }
+  };
+
+
+  private static class FileDataMap extends LinkedHashMap<File,FileData>
+  {
+    private int maxEntries;
+
+    private FileDataMap( int maxEntries )
+    {
+      super( 16, 0.75F, true );
+      this.maxEntries = maxEntries;
+    }
+
+    @Override
+    protected boolean removeEldestEntry( Map.Entry<File,FileData> eldest )
+    {
+      return size() > this.maxEntries;
+    }
+  };
+
+
+  private static final Map<File,FileData> binFiles
+					= new FileDataMap( MAX_BIN_FILES );
+  private static final Map<File,FileData> srcFiles
+					= new FileDataMap( MAX_SRC_FILES );
+
+
+  public static void clear()
+  {
+    synchronized( binFiles ) {
+      binFiles.clear();
+    }
+    synchronized( srcFiles ) {
+      srcFiles.clear();
+    }
+  }
+
+
+  /*
+   * Lesen einer Binaerdatei
+   *
+   * Das zurueckgelieferte Array darf nicht veraendert werden.
+   */
+  public static byte[] readBinFile(
+				File file,
+				int  maxLen ) throws IOException
+  {
+    byte[]   rv   = null;
+    FileData data = null;
+    synchronized( binFiles ) {
+      data = binFiles.get( file );
+    }
+    if( data != null ) {
+      if( data.isUpToDate( file ) ) {
+	rv = data.bytes;
+      }
+    }
+    if( rv == null ) {
+      data = new FileData( file );
+      rv   = FileUtil.readFile( file, false, maxLen );
+      if( rv != null ) {
+	data.bytes = rv;
+	synchronized( binFiles ) {
+	  binFiles.put( file, data );
+	}
+      }
+    }
+    return rv;
+  }
+
+
+  /*
+   * Lesen einer Quelltextdatei
+   *
+   * Es wird immer ein neues PrgSource-Objekt zurueckgeliefert,
+   * da dieses eine Leseposition hat
+   * und einzelne Zeilen ersetzt werden koennen.
+   */
+  public static PrgSource readSrcFile( File file ) throws IOException
+  {
+    PrgSource rv   = null;
+    FileData  data = null;
+    synchronized( srcFiles ) {
+      data = srcFiles.get( file );
+    }
+    if( data != null ) {
+      if( data.isUpToDate( file ) ) {
+	rv = data.source;
+      }
+    }
+    if( rv == null ) {
+      data        = new FileData( file );
+      rv          = PrgSource.readFile( file );
+      data.source = rv;
+      synchronized( srcFiles ) {
+	srcFiles.put( file, data );
+      }
+    }
+    return rv.duplicate();
+  }
+
+
+	/* --- Konstruktor --- */
+
+  private AsmFileCache()
+  {
+    // Klasse nicht instanziierbar
+  }
+}
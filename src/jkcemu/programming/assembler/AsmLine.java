@@ -24,6 +24,7 @@ public class AsmLine
   private String   instruction;
   private AsmArg[] args;
   private int      argPos;
+  private String   warning;
 
 
   public static AsmLine scanLine(
@@ -42,6 +43,7 @@ public class AsmLine
 	String                 label          = null;
 	int                    begOfInst      = -1;
 	String                 instruction    = null;
+	String                 warning        = null;
 	java.util.List<AsmArg> args           = null;
 
 	if( ch == ';' ) {
@@ -90,8 +92,7 @@ public class AsmLine
 		  reserved = AsmArg.isUndocRegister( upperLabel );
 		}
 		if( reserved ) {
-		  asm.putWarning(
-			"Marke \'" + label + "\': Reserviertes Wort" );
+		  warning = "Marke \'" + label + "\': Reserviertes Wort";
 		}
 	      }
 	    }
@@ -170,7 +171,8 @@ public class AsmLine
 			instruction,
 			args != null ?
 				args.toArray( new AsmArg[ args.size() ] )
-				: null );
+				: null,
+			warning );
       }
     }
     return rv;
@@ -241,6 +243,24 @@ public class AsmLine
   }
 
 
+  /*
+   * Die Methode liefert eine Kopie der zerlegten Zeile
+   * mit zurueckgesetzter Argumentposition.
+   * Die Bestandteile sind unveraenderlich und werden gemeinsam genutzt.
+   */
+  public AsmLine duplicate()
+  {
+    return new AsmLine(
+		this.commentAtStart,
+		this.comment,
+		this.label,
+		this.begOfInst,
+		this.instruction,
+		this.args,
+		this.warning );
+  }
+
+
   public int getBegOfInstruction()
   {
     return this.begOfInst;
@@ -259,6 +279,15 @@ public class AsmLine
   }
 
 
+  /*
+   * Warnung, die beim Zerlegen der Zeile festgestellt wurde
+   */
+  public String getWarning()
+  {
+    return this.warning;
+  }
+
+
   public boolean hasMoreArgs()
   {
     boolean rv = false;
@@ -286,15 +315,26 @@ public class AsmLine
   }
 
 
+  /*
+   * Die Methode setzt die Argumentposition wieder an den Anfang,
+   * damit eine bereits zerlegte Zeile erneut ausgewertet werden kann.
+   */
+  public void rewind()
+  {
+    this.argPos = 0;
+  }
+
+
 	/* --- private Konstruktoren und Methoden --- */
 
   private AsmLine(
-		boolean commentAtStart,
-		String  comment,
-		String  label,
-		int     begOfInst,
-		String  instruction,
-		AsmArg[] args )
+		boolean  commentAtStart,
+		String   comment,
+		String   label,
+		int      begOfInst,
+		String   instruction,
+		AsmArg[] args,
+		String   warning )
   {
     this.commentAtStart = commentAtStart;
     this.comment        = comment;
@@ -303,6 +343,7 @@ public class AsmLine
     this.instruction    = instruction;
     this.args           = args;
     this.argPos         = 0;
+    this.warning        = warning;
   }
 
 
@@ -0,0 +1,114 @@
+/*
+ * (c) 2021 Jens Mueller
+ *
+ * Kleincomputer-Emulator
+ *
+ * Zwischenspeicher fuer zerlegte Assemblerzeilen
+ *
+ * Der vom BASIC-Compiler erzeugte Assemblerquelltext besteht
+ * zum grossen Teil aus den Routinen der Laufzeitbibliothek,
+ * die bei jedem Compilieren in gleicher Form erzeugt werden.
+ * Ausserdem wiederholen sich im Programmcode viele Zeilen
+ * (z.B. PUSH HL oder CALL ...).
+ * Damit solche Zeilen nicht jedes Mal neu zerlegt werden muessen,
+ * werden die zerlegten Zeilen anhand ihres Textes
+ * fuer die gesamte Sitzung gemerkt.
+ * Da das Ergebnis der Zerlegung von einigen Assembleroptionen abhaengt,
+ * gehen diese mit in den Schluessel ein.
+ *
+ * Die gemerkten Objekte werden nicht direkt herausgegeben,
+ * sondern nur Kopien davon,
+ * da ein AsmLine-Objekt eine Leseposition fuer die Argumente hat.
+ */
+
+package jkcemu.programming.assembler;
+
+import java.util.HashMap;
+import java.util.Map;
+import jkcemu.programming.PrgException;
+import jkcemu.programming.PrgOptions;
+
+
+public class AsmLineCache
+{
+  /*
+   * Maximale Anzahl an gemerkten Zeilen,
+   * bei Ueberschreitung wird der Zwischenspeicher geleert
+   */
+  private static final int MAX_ENTRIES = 0x20000;
+
+  /*
+   * Maximale Laenge einer Zeile, die gemerkt wird
+   * (laengere Zeilen sind meistens Kommentare oder Zeichenketten,
+   * die sich kaum wiederholen)
+   */
+  private static final int MAX_LINE_LEN = 80;
+
+  private static final Map<String,AsmLine> lines = new HashMap<>();
+
+
+  public static void clear()
+  {
+    synchronized( lines ) {
+      lines.clear();
+    }
+  }
+
+
+  public static AsmLine scanLine(
+				Z80Assembler asm,
+				String       text,
+				boolean      labelsCaseSensitive )
+							throws PrgException
+  {
+    AsmLine rv = null;
+    if( text != null ) {
+      if( (asm != null) && (text.length() <= MAX_LINE_LEN) ) {
+	String  key     = createKey( asm.getOptions(), text );
+	AsmLine asmLine = null;
+	synchronized( lines ) {
+	  asmLine = lines.get( key );
+	}
+	if( asmLine == null ) {
+	  asmLine = AsmLine.scanLine( asm, text, labelsCaseSensitive );
+	  if( asmLine != null ) {
+	    synchronized( lines ) {
+	      if( lines.size() >= MAX_ENTRIES ) {
+		lines.clear();
+	      }
+	      lines.put( key, asmLine );
+	    }
+	  }
+	}
+	if( asmLine != null ) {
+	  rv = asmLine.duplicate();
+	}
+      } else {
+	rv = AsmLine.scanLine( asm, text, labelsCaseSensitive );
+      }
+    }
+    return rv;
+  }
+
+
+	/* --- Konstruktor --- */
+
+  private AsmLineCache()
+  {
+    // Klasse nicht instanziierbar
+  }
+
+
+	/* --- private Methoden --- */
+
+  private static String createKey( PrgOptions options, String text )
+  {
+    StringBuilder buf = new StringBuilder( text.length() + 4 );
+    buf.append( options.getLabelsCaseSensitive() ? 'C' : 'c' );
+    buf.append( options.getAllowUndocInst() ? 'U' : 'u' );
+    buf.append( options.getAsmSyntax().ordinal() );
+    buf.append( ':' );
+    buf.append( text );
+    return buf.toString();
+  }
+}
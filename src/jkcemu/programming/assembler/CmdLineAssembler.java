@@ -56,6 +56,21 @@ public class CmdLineAssembler
 
 
   public static boolean execute( String[] args, int argIdx )
+  {
+    return execute( args, argIdx, PrgLogger.createStandardLogger() );
+  }
+
+
+  /*
+   * Die Methode fuehrt den Assembler mit den uebergebenen Argumenten aus,
+   * wobei alle Ausgaben ueber den uebergebenen Logger erfolgen.
+   * Damit koennen mehrere Assembler-Laeufe parallel erfolgen,
+   * ohne dass sich ihre Ausgaben vermischen.
+   */
+  public static boolean execute(
+				String[]  args,
+				int       argIdx,
+				PrgLogger logger )
   {
     java.util.List<Map.Entry<String,Integer>> labels = new ArrayList<>();
 
@@ -191,10 +206,10 @@ public class CmdLineAssembler
 	}
       }
       if( helpFlag ) {
-	Main.printlnOut();
-	Main.printlnOut( Main.APPINFO + " Assembler" );
+	logger.appendToOutLog( "\n" );
+	logger.appendToOutLog( Main.APPINFO + " Assembler\n" );
 	for( String s : usageLines ) {
-	  Main.printlnOut( s );
+	  logger.appendToOutLog( s + "\n" );
 	}
       } else {
 
@@ -229,20 +244,21 @@ public class CmdLineAssembler
 			outFileName,
 			forZ9001,
 			labels,
-			options );
+			options,
+			logger );
       }
     }
     catch( IOException ex ) {
-      Main.printlnErr();
-      Main.printlnErr( Main.APPINFO + " Assembler:" );
+      logger.appendToErrLog( "\n" );
+      logger.appendToErrLog( Main.APPINFO + " Assembler:\n" );
       String msg = ex.getMessage();
       if( msg != null ) {
 	if( !msg.isEmpty() ) {
-	  Main.printlnErr( msg );
+	  logger.appendToErrLog( msg + "\n" );
 	}
       }
       for( String s : usageLines ) {
-	Main.printlnErr( s );
+	logger.appendToErrLog( s + "\n" );
       }
       status = false;
     }
@@ -260,7 +276,8 @@ public class CmdLineAssembler
 		String                                    outFileName,
 		boolean                                   forZ9001,
 		java.util.List<Map.Entry<String,Integer>> labels,
-		PrgOptions                                options )
+		PrgOptions                                options,
+		PrgLogger                                 logger )
   {
     boolean status = false;
     try {
@@ -291,7 +308,7 @@ public class CmdLineAssembler
 					null,
 					srcFile,
 					options,
-					PrgLogger.createStandardLogger(),
+					logger,
 					false );
       for( Map.Entry<String,Integer> label : labels ) {
 	String  s = label.getKey();
@@ -329,7 +346,7 @@ public class CmdLineAssembler
       String msg = ex.getMessage();
       if( msg != null ) {
 	if( !msg.isEmpty() ) {
-	  Main.printlnErr( msg );
+	  logger.appendToErrLog( msg + "\n" );
 	}
       }
     }
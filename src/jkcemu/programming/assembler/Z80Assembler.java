@@ -22,7 +22,6 @@ import jkcemu.base.EmuUtil;
 import jkcemu.etc.ReadableByteArrayOutputStream;
 import jkcemu.file.FileFormat;
 import jkcemu.file.FileSaver;
-import jkcemu.file.FileUtil;
 import jkcemu.file.LoadData;
 import jkcemu.programming.PrgException;
 import jkcemu.programming.PrgLogger;
@@ -71,6 +70,7 @@ public class Z80Assembler
   private Stack<AsmStackEntry>          stack;
   private Map<File,byte[]>              file2Bytes;
   private Map<File,PrgSource>           file2Source;
+  private Map<PrgSource,AsmLine[]>      source2Lines;
   private Map<String,AsmLabel>          labels;
   private AsmLabel[]                    sortedLabels;
   private StringBuilder                 srcOut;
@@ -118,8 +118,9 @@ public class Z80Assembler
     this.appName     = null;
     this.stack       = new Stack<>();
     this.file2Bytes  = new HashMap<>();
-    this.file2Source = new HashMap<>();
-    this.labels      = new HashMap<>();
+    this.file2Source  = new HashMap<>();
+    this.source2Lines = new HashMap<>();
+    this.labels       = new HashMap<>();
     if( this.options.getFormatSource() && (srcText != null) ) {
       this.srcOut = new StringBuilder( Math.max( srcText.length(), 16 ) );
     }
@@ -134,7 +135,7 @@ public class Z80Assembler
     } else {
       if( srcFile != null ) {
 	try {
-	  this.mainSource = PrgSource.readFile( srcFile );
+	  this.mainSource = AsmFileCache.readSrcFile( srcFile );
 	}
 	catch( IOException ex ) {
 	  String msg = ex.getMessage();
@@ -663,11 +664,12 @@ public class Z80Assembler
     boolean listOff       = false;
     String  labelName     = null;
     try {
-      AsmLine asmLine = AsmLine.scanLine(
-				this,
-				line,
-				this.options.getLabelsCaseSensitive() );
+      AsmLine asmLine = getScannedLine( line );
       if( asmLine != null ) {
+	String warning = asmLine.getWarning();
+	if( warning != null ) {
+	  putWarning( warning );
+	}
 	labelName = asmLine.getLabel();
 	if( labelName != null ) {
 	  if( this.passNum == 1 ) {
@@ -1495,7 +1497,7 @@ public class Z80Assembler
     byte[] fileBytes = this.file2Bytes.get( file );
     try {
       if( fileBytes == null ) {
-	fileBytes = FileUtil.readFile( file, false, 0x10000 );
+	fileBytes = AsmFileCache.readBinFile( file, 0x10000 );
 	this.file2Bytes.put( file, fileBytes );
       }
       if( fileBytes == null ) {
@@ -2116,7 +2118,7 @@ public class Z80Assembler
       this.curSource = source;
     } else {
       try {
-	source = PrgSource.readFile( file );
+	source = AsmFileCache.readSrcFile( file );
 	this.file2Source.put( file, source );
 	this.curSource = source;
       }
@@ -3117,6 +3119,7 @@ public class Z80Assembler
 		    }
 		  }
 		  if( this.curSource.replaceCurLine( buf.toString() ) ) {
+		    setScannedLine( null );
 		    putWarning( "Relativer Sprung wird als absoluter"
 			+ " \u00FCbersetzt, da Sprungdistanz zu gro\u00DF" );
 		    this.restartAsm = true;
@@ -3137,6 +3140,39 @@ public class Z80Assembler
   }
 
 
+  /*
+   * Die Methode liefert die zerlegte Quelltextzeile.
+   * Da sich der Quelltext zwischen den Assemblerlaeufen nicht aendert,
+   * wird jede Zeile nur im ersten Lauf zerlegt
+   * und im zweiten Lauf das gemerkte Objekt verwendet.
+   */
+  private AsmLine getScannedLine( String line ) throws PrgException
+  {
+    AsmLine   rv    = null;
+    AsmLine[] lines = null;
+    int       idx   = -1;
+    if( this.curSource != null ) {
+      lines = this.source2Lines.get( this.curSource );
+      idx   = this.curSource.getLineNum() - 1;
+      if( (lines != null) && (idx >= 0) && (idx < lines.length) ) {
+	rv = lines[ idx ];
+      }
+    }
+    if( rv != null ) {
+      rv.rewind();
+    } else {
+      rv = AsmLineCache.scanLine(
+			this,
+			line,
+			this.options.getLabelsCaseSensitive() );
+      if( (rv != null) && (idx >= 0) ) {
+	setScannedLine( rv );
+      }
+    }
+    return rv;
+  }
+
+
   private File getIncludeFile( AsmLine asmLine ) throws PrgException
   {
     String fileName = null;
@@ -3437,6 +3473,29 @@ public class Z80Assembler
   }
 
 
+  private void setScannedLine( AsmLine asmLine )
+  {
+    if( this.curSource != null ) {
+      int       idx   = this.curSource.getLineNum() - 1;
+      AsmLine[] lines = this.source2Lines.get( this.curSource );
+      if( (idx >= 0) && (lines != null) && (idx < lines.length) ) {
+	lines[ idx ] = asmLine;
+      } else if( (idx >= 0) && (asmLine != null) ) {
+	int n = Math.max( idx + 1, 256 );
+	if( lines != null ) {
+	  n = Math.max( n, lines.length * 2 );
+	}
+	AsmLine[] a = new AsmLine[ n ];
+	if( lines != null ) {
+	  System.arraycopy( lines, 0, a, 0, lines.length );
+	}
+	a[ idx ] = asmLine;
+	this.source2Lines.put( this.curSource, a );
+      }
+    }
+  }
+
+
   private boolean writeCodeToFile( boolean forZ9001 )
   {
     boolean status = false;
@@ -304,12 +304,20 @@ public class AsmCodeOptimizer
   private static void removeUselessJumpsAndUnreachableCode(
 					java.util.List<String> lines )
   {
+    /*
+     * Jede Zeile wird nur einmal zerlegt.
+     * Die zerlegten Zeilen werden parallel zu den Textzeilen gehalten
+     * und beim Entfernen von Zeilen entsprechend mitgefuehrt.
+     */
+    java.util.List<AsmLine> asmLines = scanLines( lines );
+
     boolean enabled = false;
     int     idx     = 0;
     while( idx < lines.size() ) {
       try {
-	AsmLine asmLine = AsmLine.scanLine( null, lines.get( idx++ ), true );
+	AsmLine asmLine = asmLines.get( idx++ );
 	if( asmLine != null ) {
+	  asmLine.rewind();
 	  String label = asmLine.getLabel();
 	  if( !enabled && (label != null) ) {
 	    if( label.equals( BasicCompiler.START_LABEL ) ) {
@@ -345,10 +353,7 @@ public class AsmCodeOptimizer
 		String                 nextInstr  = null;
 		int                    idx2       = idx;
 		while( (nextInstr == null) & (idx2 < lines.size()) ) {
-		  AsmLine asmLine2 = AsmLine.scanLine(
-						null,
-						lines.get( idx2++ ),
-						true );
+		  AsmLine asmLine2 = asmLines.get( idx2++ );
 		  if( asmLine2 != null ) {
 		    nextInstr        = asmLine2.getInstruction();
 		    String nextLabel = asmLine2.getLabel();
@@ -366,6 +371,7 @@ public class AsmCodeOptimizer
 		    if( uncondJump && (nextLabels == null) ) {
 		      --idx2;
 		      lines.remove( idx2 );
+		      asmLines.remove( idx2 );
 		      nextInstr = null;
 		    }
 		  }
@@ -378,10 +384,13 @@ public class AsmCodeOptimizer
 		if( (dstLabel != null) && (nextLabels != null) ) {
 		  if( nextLabels.contains( dstLabel ) ) {
 		    if( label != null ) {
-		      lines.set( idx - 1, label + ":\n" );
+		      String line = label + ":\n";
+		      lines.set( idx - 1, line );
+		      asmLines.set( idx - 1, scanLine( line ) );
 		    } else {
 		      --idx;
 		      lines.remove( idx );
+		      asmLines.remove( idx );
 		    }
 		  }
 		}
@@ -536,4 +545,26 @@ public class AsmCodeOptimizer
       }
     }
   }
+
+
+  private static AsmLine scanLine( String line )
+  {
+    AsmLine rv = null;
+    try {
+      rv = AsmLine.scanLine( null, line, true );
+    }
+    catch( PrgException ex ) {}
+    return rv;
+  }
+
+
+  private static java.util.List<AsmLine> scanLines(
+					java.util.List<String> lines )
+  {
+    java.util.List<AsmLine> asmLines = new ArrayList<>( lines.size() );
+    for( String line : lines ) {
+      asmLines.add( scanLine( line ) );
+    }
+    return asmLines;
+  }
 }
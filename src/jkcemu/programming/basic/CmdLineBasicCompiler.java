@@ -100,6 +100,19 @@ public class CmdLineBasicCompiler
 
 
   public static boolean execute( String[] args, int argIdx )
+  {
+    return execute( args, argIdx, PrgLogger.createStandardLogger() );
+  }
+
+
+  /*
+   * Die Methode fuehrt den Compiler mit den uebergebenen Argumenten aus,
+   * wobei alle Ausgaben ueber den uebergebenen Logger erfolgen.
+   */
+  public static boolean execute(
+				String[]  args,
+				int       argIdx,
+				PrgLogger logger )
   {
     boolean                  status         = false;
     boolean                  asmFlag        = false;
@@ -253,10 +266,10 @@ public class CmdLineBasicCompiler
 	}
       }
       if( helpFlag ) {
-	Main.printlnOut();
-	Main.printlnOut( Main.APPINFO + " BASIC-Compiler" );
+	logger.appendToOutLog( "\n" );
+	logger.appendToOutLog( Main.APPINFO + " BASIC-Compiler\n" );
 	for( String s : usageLines ) {
-	  Main.printlnOut( s );
+	  logger.appendToOutLog( s + "\n" );
 	}
       } else {
 
@@ -509,20 +522,21 @@ public class CmdLineBasicCompiler
 			outFileName,
 			forZ9001,
 			options,
-			asmFlag );
+			asmFlag,
+			logger );
       }
     }
     catch( IOException ex ) {
-      Main.printlnErr();
-      Main.printlnErr( Main.APPINFO + " BASIC-Compiler:" );
+      logger.appendToErrLog( "\n" );
+      logger.appendToErrLog( Main.APPINFO + " BASIC-Compiler:\n" );
       String msg = ex.getMessage();
       if( msg != null ) {
 	if( !msg.isEmpty() ) {
-	  Main.printlnErr( msg );
+	  logger.appendToErrLog( msg + "\n" );
 	}
       }
       for( String s : usageLines ) {
-	Main.printlnErr( s );
+	logger.appendToErrLog( s + "\n" );
       }
       status = false;
     }
@@ -540,7 +554,8 @@ public class CmdLineBasicCompiler
 				String       outFileName,
 				boolean      forZ9001,
 				BasicOptions options,
-				boolean      suppressAssembler )
+				boolean      suppressAssembler,
+				PrgLogger    logger )
   {
     boolean status = false;
     try {
@@ -583,7 +598,6 @@ public class CmdLineBasicCompiler
       } else {
 	options.setCodeToFile( true, outFile );
       }
-      PrgLogger     logger   = PrgLogger.createStandardLogger();
       BasicCompiler compiler = new BasicCompiler(
 					null,
 					srcFile,
@@ -621,8 +635,8 @@ public class CmdLineBasicCompiler
 						false );
 	  status = assembler.assemble( forZ9001 );
 	  if( assembler.getRelJumpsTooLong() ) {
-	    Main.printlnErr( "Compilieren Sie bitte mit einer"
-			+ " niedrigeren Optimierungsstufe (max. \'-O3\')." );
+	    logger.appendToErrLog( "Compilieren Sie bitte mit einer"
+			+ " niedrigeren Optimierungsstufe (max. \'-O3\').\n" );
 	  }
 	}
       }
@@ -631,7 +645,7 @@ public class CmdLineBasicCompiler
       String msg = ex.getMessage();
       if( msg != null ) {
 	if( !msg.isEmpty() ) {
-	  Main.printlnErr( msg );
+	  logger.appendToErrLog( msg + "\n" );
 	}
       }
       status = false;
@@ -39,6 +39,7 @@ public class RAMFloppySettingsFld extends AbstractSettingsFld
   private FileNameFld       fileNameFld;
   private JButton           btnSelect;
   private JButton           btnRemove;
+  private JCheckBox         cbMapped;
 
 
   public RAMFloppySettingsFld(
@@ -120,12 +121,22 @@ public class RAMFloppySettingsFld extends AbstractSettingsFld
     gbc.gridx++;
     add( this.btnRemove, gbc );
 
+    this.cbMapped = GUIFactory.createCheckBox(
+		"Datei direkt als Speicher verwenden"
+			+ " (\u00C4nderungen sofort speichern)" );
+    gbc.insets.left = 50;
+    gbc.gridwidth   = GridBagConstraints.REMAINDER;
+    gbc.gridx       = 0;
+    gbc.gridy++;
+    add( this.cbMapped, gbc );
+
     if( this.cbRF != null ) {
       this.cbRF.addActionListener( this );
     }
     if( this.comboSize != null ) {
       this.comboSize.addActionListener( this );
     }
+    this.cbMapped.addActionListener( this );
     enableFileDrop( this.fileNameFld );
     updFieldsEnabled();
   }
@@ -169,6 +180,10 @@ public class RAMFloppySettingsFld extends AbstractSettingsFld
       props.setProperty(
 		this.propPrefix + RAMFloppy.PROP_FILE,
 		file != null ? file.getPath() : "" );
+      EmuUtil.setProperty(
+		props,
+		this.propPrefix + RAMFloppy.PROP_MAPPED,
+		this.cbMapped.isSelected() );
     }
   }
 
@@ -179,7 +194,10 @@ public class RAMFloppySettingsFld extends AbstractSettingsFld
     boolean rv  = false;
     Object  src = e.getSource();
     if( src != null ) {
-      if( (src == this.cbRF) || (src == this.comboSize) ) {
+      if( (src == this.cbRF)
+	  || (src == this.comboSize)
+	  || (src == this.cbMapped) )
+      {
 	updFieldsEnabled();
 	fireDataChanged();
 	rv = true;
@@ -298,6 +316,11 @@ public class RAMFloppySettingsFld extends AbstractSettingsFld
 		EmuUtil.getProperty(
 			props,
 			this.propPrefix + RAMFloppy.PROP_FILE ) );
+    this.cbMapped.setSelected(
+		EmuUtil.getBooleanProperty(
+			props,
+			this.propPrefix + RAMFloppy.PROP_MAPPED,
+			false ) );
     updFieldsEnabled();
   }
 
@@ -321,5 +344,6 @@ public class RAMFloppySettingsFld extends AbstractSettingsFld
     this.btnSelect.setEnabled( state );
     this.btnRemove.setEnabled(
 		state && (this.fileNameFld.getFile() != null) );
+    this.cbMapped.setEnabled( state );
   }
 }
@@ -1,5 +1,5 @@
 /*
- * (c) 2020 Jens Mueller
+ * (c) 2020-2021 Jens Mueller
  *
  * Kleincomputer-Emulator
  *
@@ -18,6 +18,7 @@ import java.text.ParseException;
 import java.util.EventObject;
 import java.util.Properties;
 import javax.swing.ButtonGroup;
+import javax.swing.JCheckBox;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
 import javax.swing.JRadioButton;
@@ -40,6 +41,7 @@ public class SpeedSettingsFld
   private JRadioButton rbSpeedDefault;
   private JRadioButton rbSpeedValue;
   private JTextField   fldSpeed;
+  private JCheckBox    cbBlockExec;
   private Document     docSpeed;
   private NumberFormat fmtSpeed;
 
@@ -97,10 +99,22 @@ public class SpeedSettingsFld
     gbc.gridx++;
     panel.add( this.labelSpeedUnit, gbc );
 
+    this.cbBlockExec = GUIFactory.createCheckBox(
+		"Befehle blockweise ausf\u00FChren (schneller,"
+			+ " aber ungenaueres Zeitverhalten)" );
+    gbc.insets.top    = 10;
+    gbc.insets.left   = 5;
+    gbc.insets.bottom = 5;
+    gbc.gridwidth     = GridBagConstraints.REMAINDER;
+    gbc.gridx         = 0;
+    gbc.gridy++;
+    panel.add( this.cbBlockExec, gbc );
+
 
     // Listener
     this.rbSpeedDefault.addActionListener( this );
     this.rbSpeedValue.addActionListener( this );
+    this.cbBlockExec.addActionListener( this );
     if( this.docSpeed != null ) {
       this.docSpeed.addDocumentListener( this );
     }
@@ -173,6 +187,9 @@ public class SpeedSettingsFld
     } else {
       props.setProperty( EmuThread.PROP_MAXSPEED_KHZ, "default" );
     }
+    props.setProperty(
+		EmuThread.PROP_CPU_BLOCK_EXEC,
+		Boolean.toString( this.cbBlockExec.isSelected() ) );
   }
 
 
@@ -185,6 +202,9 @@ public class SpeedSettingsFld
       rv = true;
       updSpeedFieldsEnabled();
       fireDataChanged();
+    } else if( src == this.cbBlockExec ) {
+      rv = true;
+      fireDataChanged();
     }
     return rv;
   }
@@ -213,6 +233,11 @@ public class SpeedSettingsFld
       setSpeedValueFld( defaultKHz );
       this.rbSpeedDefault.setSelected( true );
     }
+    this.cbBlockExec.setSelected(
+		EmuUtil.getBooleanProperty(
+			props,
+			EmuThread.PROP_CPU_BLOCK_EXEC,
+			EmuThread.DEFAULT_CPU_BLOCK_EXEC ) );
     updSpeedFieldsEnabled();
   }
 
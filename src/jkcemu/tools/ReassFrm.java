@@ -33,6 +33,7 @@ import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
 import java.util.TreeSet;
+import javax.swing.JCheckBoxMenuItem;
 import javax.swing.JTextArea;
 import javax.swing.JTextField;
 import javax.swing.JLabel;
@@ -65,8 +66,10 @@ import jkcemu.programming.assembler.AsmLabel;
 import jkcemu.text.TextFinder;
 import jkcemu.text.TextUtil;
 import jkcemu.tools.debugger.DebugFrm;
+import z80emu.Z80CPU;
+import z80emu.Z80MemAccessRecorder;
 import z80emu.Z80Memory;
-import z80emu.Z80Reassembler;
+import z80emu.Z80ReassCache;
 import z80emu.Z80ReassInstr;
 
 
@@ -95,6 +98,10 @@ public class ReassFrm
   private File                       lastLabelFile;
   private String                     labelPrefix;
   private Map<Integer,Set<String>>   addr2Labels;
+  private Map<Integer,String>        addr2ArgLabel;
+  private Z80ReassCache              reassCache;
+  private Z80MemAccessRecorder       ownMemAccessRecorder;
+  private String                     reassText;
   private TextFinder                 textFinder;
   private JTextArea                  textArea;
   private JTextComponent             selectionFld;
@@ -113,6 +120,7 @@ public class ReassFrm
   private JMenuItem                  mnuFindNext;
   private JMenuItem                  mnuFindPrev;
   private JMenuItem                  mnuSelectAll;
+  private JCheckBoxMenuItem          mnuMemAccess;
   private JMenuItem                  mnuHelpContent;
   private JTextField                 fldBegAddr;
   private JTextField                 fldEndAddr;
@@ -140,6 +148,10 @@ public class ReassFrm
     this.lastFile       = null;
     this.lastLabelFile  = null;
     this.addr2Labels    = null;
+    this.addr2ArgLabel  = null;
+    this.reassCache     = new Z80ReassCache( memory );
+    this.ownMemAccessRecorder = null;
+    this.reassText      = null;
     this.textFinder     = null;
     this.selectionFld   = null;
     this.textArea       = GUIFactory.createCodeArea();
@@ -254,6 +266,16 @@ public class ReassFrm
     mnuEdit.add( this.mnuSelectAll );
 
 
+    // Menu Einstellungen
+    JMenu mnuSettings = createMenuSettings();
+
+    this.mnuMemAccess = GUIFactory.createCheckBoxMenuItem(
+		"Aufgezeichnete Speicherzugriffe ber\u00FCcksichtigen",
+		false );
+    this.mnuMemAccess.addActionListener( this );
+    mnuSettings.add( this.mnuMemAccess );
+
+
     // Menu Hilfe
     JMenu mnuHelp = createMenuHelp();
 
@@ -263,7 +285,11 @@ public class ReassFrm
 
 
     // Menu
-    setJMenuBar( GUIFactory.createMenuBar( mnuFile, mnuEdit, mnuHelp ) );
+    setJMenuBar( GUIFactory.createMenuBar(
+					mnuFile,
+					mnuEdit,
+					mnuSettings,
+					mnuHelp ) );
 
 
     // Fensterinhalt
@@ -473,6 +499,10 @@ public class ReassFrm
 	this.textArea.selectAll();
 	rv = true;
       }
+      else if( src == this.mnuMemAccess ) {
+	doMemAccess();
+	rv = true;
+      }
       else if( src == this.mnuHelpContent ) {
 	HelpFrm.openPage( HELP_PAGE );
 	rv = true;
@@ -516,6 +546,8 @@ public class ReassFrm
       this.popupFindNext.setEnabled( false );
       this.popupFindPrev.setEnabled( false );
       this.popupSelectAll.setEnabled( false );
+      this.mnuMemAccess.setSelected( false );
+      removeOwnMemAccessRecorder();
       setText( "" );
     }
     return rv;
@@ -702,6 +734,34 @@ public class ReassFrm
   }
 
 
+  private void doMemAccess()
+  {
+    if( this.mnuMemAccess.isSelected() ) {
+      Z80CPU cpu = this.screenFrm.getZ80CPU( this.memory );
+      if( cpu != null ) {
+	if( cpu.getMemAccessRecorder() == null ) {
+	  this.ownMemAccessRecorder = new Z80MemAccessRecorder();
+	  cpu.setMemAccessRecorder( this.ownMemAccessRecorder );
+	  BaseDlg.showInfoDlg(
+		this,
+		"Die Aufzeichnung der Speicherzugriffe wurde eingeschaltet.\n"
+			+ "Lassen Sie das zu untersuchende Programm laufen\n"
+			+ "und reassemblieren Sie anschlie\u00DFend erneut." );
+	}
+      } else {
+	this.mnuMemAccess.setSelected( false );
+	BaseDlg.showErrorDlg(
+		this,
+		"Die CPU, die auf diesen Speicher zugreift,"
+			+ " konnte nicht ermittelt werden." );
+      }
+    } else {
+      removeOwnMemAccessRecorder();
+    }
+    reassemble();
+  }
+
+
   private void doReass()
   {
     try {
@@ -733,6 +793,7 @@ public class ReassFrm
 		"M\u00F6chten Sie die importierten Marken entfernen?" ) )
       {
 	this.addr2Labels = null;
+	updLabelIndex();
 	this.mnuRemoveLabels.setEnabled( false );
 	reassemble();
       }
@@ -824,6 +885,76 @@ public class ReassFrm
   }
 
 
+  /*
+   * Die Methode gibt die ab der Adresse folgenden Bytes,
+   * die laut Aufzeichnung nur als Daten verwendet wurden,
+   * als DB-Anweisung aus.
+   *
+   * Rueckgabewert: Anzahl der ausgegebenen Bytes oder 0
+   */
+  private int appendData(
+			StringBuilder        buf,
+			Z80MemAccessRecorder recorder,
+			int                  addr,
+			Set<Integer>         destAddrs,
+			boolean              srcMode )
+  {
+    int len = getDataLen( recorder, addr, destAddrs );
+    if( len > 0 ) {
+      int bol = buf.length();
+      if( srcMode ) {
+	appendSpaces( buf, bol + COL_SRC_MNEMONIC );
+      } else {
+	buf.append( String.format( "%04X ", addr ) );
+	for( int i = 0; i < len; i++ ) {
+	  buf.append( String.format(
+			" %02X",
+			this.memory.getMemByte( addr + i, false ) ) );
+	}
+	appendSpaces( buf, bol + COL_MNEMONIC );
+      }
+      buf.append( "DB" );
+      appendSpaces( buf, bol + (srcMode ? COL_SRC_ARGS : COL_ARGS) );
+      int accessFlags = 0;
+      for( int i = 0; i < len; i++ ) {
+	if( i > 0 ) {
+	  buf.append( ',' );
+	}
+	int b = this.memory.getMemByte( addr + i, false );
+	if( b >= 0xA0 ) {
+	  buf.append( '0' );
+	}
+	buf.append( String.format( "%02XH", b ) );
+	accessFlags |= recorder.getFlags( addr + i );
+      }
+      if( !srcMode ) {
+	appendRemark(
+		buf,
+		bol + COL_REMARK,
+		(accessFlags & Z80MemAccessRecorder.FLAG_WRITE) != 0 ?
+			"Daten, beschrieben"
+			: "Daten, gelesen" );
+      }
+      buf.append( '\n' );
+    }
+    return len;
+  }
+
+
+  private static void appendRemark(
+				StringBuilder buf,
+				int           pos,
+				String        text )
+  {
+    if( buf.length() >= pos ) {
+      buf.append( '\u0020' );
+    }
+    appendSpaces( buf, pos );
+    buf.append( ';' );
+    buf.append( text );
+  }
+
+
   private static void appendSpaces( StringBuilder buf, int endPos )
   {
     for( int i = buf.length(); i < endPos; i++ )
@@ -856,9 +987,10 @@ public class ReassFrm
 	  }
 	}
 	if( prefixOK ) {
-	  this.labelPrefix     = labelPrefix;
-	  StringBuilder buf    = new StringBuilder( 0x4000 );
-	  EmuSys        emuSys = getEmuSys();
+	  this.labelPrefix              = labelPrefix;
+	  StringBuilder        buf      = new StringBuilder( 0x4000 );
+	  EmuSys               emuSys   = getEmuSys();
+	  Z80MemAccessRecorder recorder = getMemAccessRecorder();
 
 	  // Pass 1: Adressen ermitteln
 	  Set<Integer> instrAddrs = new TreeSet<>();
@@ -868,7 +1000,13 @@ public class ReassFrm
 	    instrAddrs.add( addr );
 
 	    int len = 0;
-	    if( emuSys != null ) {
+	    if( recorder != null ) {
+	      // jedes Datenbyte kann eine Marke erhalten
+	      if( recorder.isData( addr ) ) {
+		len = 1;
+	      }
+	    }
+	    if( (len == 0) && (emuSys != null) ) {
 	      len = emuSys.reassembleSysCall(
 					this.memory,
 					addr,
@@ -881,9 +1019,7 @@ public class ReassFrm
 	    if( len > 0 ) {
 	      addr += len;
 	    } else {
-	      Z80ReassInstr instr = Z80Reassembler.reassInstruction(
-							this.memory,
-							addr );
+	      Z80ReassInstr instr = this.reassCache.getInstruction( addr );
 	      if( instr != null ) {
 		Integer tmpAddr = instr.getAddress1();
 		if( tmpAddr != null ) {
@@ -951,7 +1087,10 @@ public class ReassFrm
 	      buf.append( ":\n" );
 	    }
 	    int len = 0;
-	    if( emuSys != null ) {
+	    if( recorder != null ) {
+	      len = appendData( buf, recorder, addr, destAddrs, true );
+	    }
+	    if( (len == 0) && (emuSys != null) ) {
 	      len = emuSys.reassembleSysCall(
 					this.memory,
 					addr,
@@ -968,9 +1107,7 @@ public class ReassFrm
 	      for( int i = 0; i < COL_SRC_MNEMONIC; i++ ) {
 		buf.append( '\u0020' );
 	      }
-	      Z80ReassInstr instr = Z80Reassembler.reassInstruction(
-							this.memory,
-							addr );
+	      Z80ReassInstr instr = this.reassCache.getInstruction( addr );
 	      if( instr != null ) {
 		String s = instr.getName();
 		if( s != null ) {
@@ -1032,21 +1169,8 @@ public class ReassFrm
   {
     String rv    = arg;
     String label = null;
-    if( (this.addr2Labels != null) && (addr != null) ) {
-      Set<String> labels = this.addr2Labels.get( addr );
-      if( labels != null ) {
-	for( String tmpLabel : labels ) {
-	  if( tmpLabel != null ) {
-	    if( !tmpLabel.isEmpty() ) {
-	      if( label != null ) {
-		label = null;
-		break;
-	      }
-	      label = tmpLabel;
-	    }
-	  }
-	}
-      }
+    if( (this.addr2ArgLabel != null) && (addr != null) ) {
+      label = this.addr2ArgLabel.get( addr );
     }
     if( (label == null) && (addr != null) && (destAddrs != null) ) {
       if( destAddrs.contains( addr ) ) {
@@ -1064,6 +1188,41 @@ public class ReassFrm
   }
 
 
+  /*
+   * Die Methode ermittelt die Anzahl der ab der Adresse folgenden Bytes,
+   * die laut Aufzeichnung nur als Daten verwendet wurden.
+   * Eine DB-Anweisung umfasst maximal vier Bytes und endet
+   * vor einer Adresse, fuer die eine Marke erzeugt wird.
+   */
+  private int getDataLen(
+			Z80MemAccessRecorder recorder,
+			int                  addr,
+			Set<Integer>         destAddrs )
+  {
+    int rv = 0;
+    while( (rv < 4)
+	   && ((addr + rv) <= this.endAddr)
+	   && recorder.isData( addr + rv ) )
+    {
+      if( rv > 0 ) {
+	Integer tmpAddr = addr + rv;
+	if( destAddrs != null ) {
+	  if( destAddrs.contains( tmpAddr ) ) {
+	    break;
+	  }
+	}
+	if( this.addr2Labels != null ) {
+	  if( this.addr2Labels.containsKey( tmpAddr ) ) {
+	    break;
+	  }
+	}
+      }
+      rv++;
+    }
+    return rv;
+  }
+
+
   /*
    * EmuSys nur zurueckliefern,
    * wenn auf das Grundsystem zugegriffen wird
@@ -1076,6 +1235,23 @@ public class ReassFrm
   }
 
 
+  /*
+   * Aufzeichnung der Speicherzugriffe nur zurueckliefern,
+   * wenn diese beruecksichtigt werden soll
+   */
+  private Z80MemAccessRecorder getMemAccessRecorder()
+  {
+    Z80MemAccessRecorder rv = null;
+    if( this.mnuMemAccess.isSelected() ) {
+      Z80CPU cpu = this.screenFrm.getZ80CPU( this.memory );
+      if( cpu != null ) {
+	rv = cpu.getMemAccessRecorder();
+      }
+    }
+    return rv;
+  }
+
+
   private boolean importLabels(
 			jkcemu.tools.Label[] labels,
 			boolean              addrLabelsOnly,
@@ -1136,6 +1312,7 @@ public class ReassFrm
 	}
 	this.addr2Labels = map;
 	rv               = true;
+	updLabelIndex();
         this.mnuRemoveLabels.setEnabled( true );
 	reassemble();
       }
@@ -1147,9 +1324,11 @@ public class ReassFrm
   private void reassemble()
   {
     if( (this.begAddr >= 0) && (this.endAddr >= this.begAddr) ) {
-      StringBuilder buf    = new StringBuilder( 0x4000 );
-      EmuSys        emuSys = getEmuSys();
-      int           addr   = this.begAddr;
+      StringBuilder        buf      = new StringBuilder(
+				(this.endAddr - this.begAddr + 1) * 32 );
+      EmuSys               emuSys   = getEmuSys();
+      Z80MemAccessRecorder recorder = getMemAccessRecorder();
+      int                  addr     = this.begAddr;
       while( addr <= endAddr ) {
 	if( this.addr2Labels != null ) {
 	  Set<String> labelNames = this.addr2Labels.get( addr );
@@ -1163,7 +1342,10 @@ public class ReassFrm
 	  }
 	}
 	int len = 0;
-	if( emuSys != null ) {
+	if( recorder != null ) {
+	  len = appendData( buf, recorder, addr, null, false );
+	}
+	if( (len == 0) && (emuSys != null) ) {
 	  len = emuSys.reassembleSysCall(
 					this.memory,
 					addr,
@@ -1179,10 +1361,12 @@ public class ReassFrm
 	  int bol = buf.length();
 	  buf.append( String.format( "%04X", addr ) );
 
-	  Z80ReassInstr instr = Z80Reassembler.reassInstruction(
-						this.memory,
-						addr );
+	  Z80ReassInstr instr = this.reassCache.getInstruction( addr );
 	  if( instr != null ) {
+	    int execCount = 0;
+	    if( recorder != null ) {
+	      execCount = recorder.getExecCount( addr );
+	    }
 	    buf.append( '\u0020' );
 	    len = instr.getLength();
 	    for( int i = 0; i < len; i++ ) {
@@ -1217,6 +1401,12 @@ public class ReassFrm
 		}
 	      }
 	    }
+	    if( execCount > 0 ) {
+	      appendRemark(
+			buf,
+			bol + COL_REMARK,
+			String.format( "%d mal ausgef\u00FChrt", execCount ) );
+	    }
 	  } else {
 	    buf.append( String.format(
 				"  %02X",
@@ -1225,7 +1415,16 @@ public class ReassFrm
 	  buf.append( '\n' );
 	}
       }
-      setText( buf.toString() );
+      /*
+       * Text nur bei Aenderungen neu setzen,
+       * damit bei einer Aktualisierung ohne geaenderten Speicherinhalt
+       * die Textkomponente nicht neu umgebrochen werden muss
+       * und die Cursor-Position erhalten bleibt
+       */
+      String text = buf.toString();
+      if( !text.equals( this.reassText ) ) {
+	setText( text );
+      }
       this.textArea.requestFocus();
       if( buf.length() > 0 ) {
 	this.mnuSourceOpen.setEnabled( true );
@@ -1241,12 +1440,67 @@ public class ReassFrm
   }
 
 
+  /*
+   * Eine von diesem Fenster eingeschaltete Aufzeichnung
+   * der Speicherzugriffe wieder ausschalten,
+   * da die CPU sonst die schnellere Blockausfuehrung nicht nutzen kann.
+   */
+  private void removeOwnMemAccessRecorder()
+  {
+    Z80MemAccessRecorder recorder = this.ownMemAccessRecorder;
+    if( recorder != null ) {
+      this.ownMemAccessRecorder = null;
+      recorder.setRecording( false );
+      Z80CPU cpu = this.screenFrm.getZ80CPU( this.memory );
+      if( cpu != null ) {
+	if( cpu.getMemAccessRecorder() == recorder ) {
+	  cpu.setMemAccessRecorder( null );
+	}
+      }
+    }
+  }
+
+
   private void setText( String text )
   {
+    this.reassText = text;
     try {
       this.textArea.setText( text );
       this.textArea.setCaretPosition( 0 );
     }
     catch( IllegalArgumentException ex ) {}
   }
+
+
+  /*
+   * Die Methode erzeugt einen Index, der fuer jede Adresse die Marke
+   * enthaelt, mit der ein Befehlsargument bezeichnet wird.
+   * Das ist nur dann der Fall,
+   * wenn fuer die Adresse genau eine Marke importiert wurde.
+   */
+  private void updLabelIndex()
+  {
+    Map<Integer,String> addr2ArgLabel = null;
+    if( this.addr2Labels != null ) {
+      addr2ArgLabel = new HashMap<>();
+      for( Map.Entry<Integer,Set<String>> e : this.addr2Labels.entrySet() ) {
+	String label = null;
+	for( String tmpLabel : e.getValue() ) {
+	  if( tmpLabel != null ) {
+	    if( !tmpLabel.isEmpty() ) {
+	      if( label != null ) {
+		label = null;
+		break;
+	      }
+	      label = tmpLabel;
+	    }
+	  }
+	}
+	if( label != null ) {
+	  addr2ArgLabel.put( e.getKey(), label );
+	}
+      }
+    }
+    this.addr2ArgLabel = addr2ArgLabel;
+  }
 }
@@ -26,11 +26,13 @@ public abstract class AbstractBreakpoint
   public static final String ATTR_TYPE         = "type";
   public static final String ATTR_LOG_ENABLED  = "log_enabled";
   public static final String ATTR_STOP_ENABLED = "stop_enabled";
+  public static final String ATTR_EXPR         = "expr";
 
-  private DebugFrm debugFrm;
-  private String   text;
-  private boolean  stopEnabled;
-  private boolean  logEnabled;
+  private DebugFrm               debugFrm;
+  private String                 text;
+  private boolean                stopEnabled;
+  private boolean                logEnabled;
+  private volatile ConditionExpr condExpr;
 
 
   protected AbstractBreakpoint( DebugFrm debugFrm )
@@ -39,6 +41,7 @@ public abstract class AbstractBreakpoint
     this.text        = "";
     this.stopEnabled = false;
     this.logEnabled  = false;
+    this.condExpr    = null;
   }
 
 
@@ -50,6 +53,10 @@ public abstract class AbstractBreakpoint
     elem.setAttribute(
 		ATTR_STOP_ENABLED,
 		Boolean.toString( this.stopEnabled ) );
+    ConditionExpr condExpr = this.condExpr;
+    if( condExpr != null ) {
+      elem.setAttribute( ATTR_EXPR, condExpr.getText() );
+    }
   }
 
 
@@ -120,6 +127,12 @@ public abstract class AbstractBreakpoint
   }
 
 
+  public ConditionExpr getConditionExpr()
+  {
+    return this.condExpr;
+  }
+
+
   public String getText()
   {
     return this.text;
@@ -142,7 +155,10 @@ public abstract class AbstractBreakpoint
   {
     boolean rv = false;
     if( this.logEnabled || this.stopEnabled ) {
-      if( matchesImpl( cpu, iSource ) ) {
+      ConditionExpr condExpr = this.condExpr;
+      if( matchesImpl( cpu, iSource )
+	  && ((condExpr == null) || condExpr.isTrue( cpu )) )
+      {
 	if( this.logEnabled ) {
 	  this.debugFrm.appendLogEntry( iSource );
 	}
@@ -155,11 +171,39 @@ public abstract class AbstractBreakpoint
   }
 
 
+  /*
+   * Die Methode prueft wie matches(...), ob die Programmausfuehrung
+   * angehalten werden wuerde, erzeugt dabei aber keinen Log-Eintrag.
+   * Sie wird beim Ruecklauf im Ausfuehrungsprotokoll verwendet.
+   */
+  public boolean matchesStop( Z80CPU cpu )
+  {
+    boolean rv = false;
+    if( this.stopEnabled ) {
+      ConditionExpr condExpr = this.condExpr;
+      rv = matchesImpl( cpu, null )
+		&& ((condExpr == null) || condExpr.isTrue( cpu ));
+    }
+    return rv;
+  }
+
+
   protected abstract boolean matchesImpl(
 				Z80CPU             cpu,
 				Z80InterruptSource iSource );
 
 
+  /*
+   * Die Methode setzt einen zusaetzlichen Bedingungsausdruck,
+   * der erfuellt sein muss, damit der Halte-/Log-Punkt anspricht.
+   * Mit null wird der Ausdruck entfernt.
+   */
+  public void setConditionExpr( ConditionExpr condExpr )
+  {
+    this.condExpr = condExpr;
+  }
+
+
   public void setLogEnabled( boolean state )
   {
     this.logEnabled = state;
@@ -223,6 +267,9 @@ public abstract class AbstractBreakpoint
   @Override
   public String toString()
   {
-    return this.text;
+    ConditionExpr condExpr = this.condExpr;
+    return condExpr != null ?
+		String.format( "%s [%s]", this.text, condExpr.getText() )
+		: this.text;
   }
 }
@@ -18,6 +18,7 @@ import java.util.EventObject;
 import javax.swing.JButton;
 import javax.swing.JCheckBox;
 import javax.swing.JPanel;
+import javax.swing.JTextField;
 import jkcemu.base.BaseDlg;
 import jkcemu.base.GUIFactory;
 
@@ -36,6 +37,7 @@ public abstract class AbstractBreakpointDlg extends BaseDlg
   private AbstractBreakpoint approvedBreakpoint;
   private JCheckBox          cbStopEnabled;
   private JCheckBox          cbLogEnabled;
+  private JTextField         fldCondExpr;
   private JButton            btnOK;
   private JButton            btnCancel;
 
@@ -59,6 +61,20 @@ public abstract class AbstractBreakpointDlg extends BaseDlg
 
   protected void approveBreakpoint( AbstractBreakpoint breakpoint )
   {
+    // zusaetzliche Bedingung uebersetzen
+    if( (breakpoint != null) && (this.fldCondExpr != null) ) {
+      try {
+	breakpoint.setConditionExpr(
+		ConditionExpr.compile(
+			this.fldCondExpr.getText(),
+			this.debugFrm.getZ80Memory() ) );
+      }
+      catch( InvalidParamException ex ) {
+	showErrorDlg( this, ex.getMessage() );
+	breakpoint = null;
+      }
+    }
+
     if( breakpoint instanceof ImportableBreakpoint ) {
 
       /*
@@ -159,9 +175,24 @@ public abstract class AbstractBreakpointDlg extends BaseDlg
 						new Insets( 5, 5, 0, 5 ),
 						0, 0 );
 
+    panel.add(
+	GUIFactory.createLabel( "Zus\u00E4tzliche Bedingung (Ausdruck):" ),
+	gbc );
+
+    this.fldCondExpr = GUIFactory.createTextField();
+    gbc.fill         = GridBagConstraints.HORIZONTAL;
+    gbc.weightx      = 1.0;
+    gbc.insets.top   = 0;
+    gbc.gridy++;
+    panel.add( this.fldCondExpr, gbc );
+
     this.cbStopEnabled = GUIFactory.createCheckBox(
 		"Programmausf\u00FChrung anhalten (Haltepunkt)",
 		lastStopEnabled );
+    gbc.fill         = GridBagConstraints.NONE;
+    gbc.weightx      = 0.0;
+    gbc.insets.top   = 5;
+    gbc.gridy++;
     panel.add( this.cbStopEnabled, gbc );
 
     this.cbLogEnabled = GUIFactory.createCheckBox(
@@ -192,6 +223,11 @@ public abstract class AbstractBreakpointDlg extends BaseDlg
     if( this.oldBP != null ) {
       this.cbStopEnabled.setSelected( this.oldBP.isStopEnabled() );
       this.cbLogEnabled.setSelected( this.oldBP.isLogEnabled() );
+
+      ConditionExpr condExpr = this.oldBP.getConditionExpr();
+      if( condExpr != null ) {
+	this.fldCondExpr.setText( condExpr.getText() );
+      }
     }
 
     return panel;
@@ -254,7 +254,7 @@ public class BreakpointVarLoader extends DefaultHandler
 						this.debugFrm,
 						attrs );
     if( bp != null ) {
-      updLogStopEnabled( bp, attrs );
+      updBreakpointAttrs( bp, attrs );
       this.inpModel.put( bp );
       this.loaded = true;
     }
@@ -272,7 +272,7 @@ public class BreakpointVarLoader extends DefaultHandler
 	    InterruptBreakpoint bp = new InterruptBreakpoint(
 							this.debugFrm,
 							iSource );
-	    updLogStopEnabled( bp, attrs );
+	    updBreakpointAttrs( bp, attrs );
 	    this.intModel.put( bp );
 	    this.loaded = true;
 	    break;
@@ -289,7 +289,7 @@ public class BreakpointVarLoader extends DefaultHandler
 						this.debugFrm,
 						attrs );
     if( bp != null ) {
-      updLogStopEnabled( bp, attrs );
+      updBreakpointAttrs( bp, attrs );
       this.memModel.put( bp );
       this.loaded = true;
     }
@@ -302,7 +302,7 @@ public class BreakpointVarLoader extends DefaultHandler
 						this.debugFrm,
 						attrs );
     if( bp != null ) {
-      updLogStopEnabled( bp, attrs );
+      updBreakpointAttrs( bp, attrs );
       this.outModel.put( bp );
       this.loaded = true;
     }
@@ -313,14 +313,14 @@ public class BreakpointVarLoader extends DefaultHandler
   {
     PCBreakpoint bp = PCBreakpoint.createByAttrs( this.debugFrm, attrs );
     if( bp != null ) {
-      updLogStopEnabled( bp, attrs );
+      updBreakpointAttrs( bp, attrs );
       this.pcModel.put( bp );
       this.loaded = true;
     }
   }
 
 
-  private static void updLogStopEnabled(
+  private void updBreakpointAttrs(
 				AbstractBreakpoint bp,
 				Attributes         attrs )
   {
@@ -328,5 +328,16 @@ public class BreakpointVarLoader extends DefaultHandler
 	getBooleanValue( attrs, AbstractBreakpoint.ATTR_LOG_ENABLED ) );
     bp.setStopEnabled(
 	getBooleanValue( attrs, AbstractBreakpoint.ATTR_STOP_ENABLED ) );
+    try {
+      bp.setConditionExpr(
+		ConditionExpr.compile(
+			attrs.getValue( AbstractBreakpoint.ATTR_EXPR ),
+			this.debugFrm.getZ80Memory() ) );
+    }
+    catch( InvalidParamException ex ) {
+      // ohne gueltige Bedingung nicht unbedingt ansprechen
+      bp.setLogEnabled( false );
+      bp.setStopEnabled( false );
+    }
   }
 }
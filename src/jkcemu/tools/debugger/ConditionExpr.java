@@ -0,0 +1,658 @@
+/*
+ * (c) 2021 Jens Mueller
+ *
+ * Kleincomputer-Emulator
+ *
+ * Bedingungsausdruck fuer Halte-/Log-Punkte
+ *
+ * Der Ausdruck wird einmalig in einen Baum aus Knoten uebersetzt,
+ * der bei jeder Pruefung nur noch ausgewertet wird.
+ * Zur Laufzeit findet somit weder eine Textanalyse
+ * noch ein Vergleich von Registernamen statt.
+ *
+ * Syntax (Gross-/Kleinschreibung wird nicht unterschieden):
+ *   Zahlen:       dezimal oder hexadezimal mit nachgestelltem H
+ *   Register:     A, B, C, D, E, F, H, L, I, R,
+ *                 AF, BC, DE, HL, IX, IY, IXH, IXL, IYH, IYL, SP, PC,
+ *                 AF', BC', DE', HL'
+ *   Flags (0/1):  CF, NF, PF, HF, ZF, SF, IFF1, IFF2
+ *   Taktzyklen:   TSTATES
+ *   Speicher:     PEEK(Adresse), DEEK(Adresse)
+ *   Operatoren (nach steigendem Vorrang):
+ *                 OR ||, AND &&, NOT !,
+ *                 = == <> != < <= > >=,
+ *                 |, ^, &, << >>, + -, * / MOD %, unaeres - ~
+ */
+
+package jkcemu.tools.debugger;
+
+import z80emu.Z80CPU;
+import z80emu.Z80MemView;
+
+
+public class ConditionExpr
+{
+  private static final int OP_CONST    = 0;
+  private static final int OP_REG_A    = 1;
+  private static final int OP_REG_B    = 2;
+  private static final int OP_REG_C    = 3;
+  private static final int OP_REG_D    = 4;
+  private static final int OP_REG_E    = 5;
+  private static final int OP_REG_F    = 6;
+  private static final int OP_REG_H    = 7;
+  private static final int OP_REG_L    = 8;
+  private static final int OP_REG_I    = 9;
+  private static final int OP_REG_R    = 10;
+  private static final int OP_REG_AF   = 11;
+  private static final int OP_REG_BC   = 12;
+  private static final int OP_REG_DE   = 13;
+  private static final int OP_REG_HL   = 14;
+  private static final int OP_REG_IX   = 15;
+  private static final int OP_REG_IY   = 16;
+  private static final int OP_REG_IXH  = 17;
+  private static final int OP_REG_IXL  = 18;
+  private static final int OP_REG_IYH  = 19;
+  private static final int OP_REG_IYL  = 20;
+  private static final int OP_REG_SP   = 21;
+  private static final int OP_REG_PC   = 22;
+  private static final int OP_REG_AF2  = 23;
+  private static final int OP_REG_BC2  = 24;
+  private static final int OP_REG_DE2  = 25;
+  private static final int OP_REG_HL2  = 26;
+  private static final int OP_FLAG_C   = 27;
+  private static final int OP_FLAG_N   = 28;
+  private static final int OP_FLAG_PV  = 29;
+  private static final int OP_FLAG_H   = 30;
+  private static final int OP_FLAG_Z   = 31;
+  private static final int OP_FLAG_S   = 32;
+  private static final int OP_IFF1     = 33;
+  private static final int OP_IFF2     = 34;
+  private static final int OP_TSTATES  = 35;
+  private static final int OP_PEEK     = 36;
+  private static final int OP_DEEK     = 37;
+  private static final int OP_NEG      = 38;
+  private static final int OP_INV      = 39;
+  private static final int OP_NOT      = 40;
+  private static final int OP_OR       = 41;
+  private static final int OP_AND      = 42;
+  private static final int OP_EQ       = 43;
+  private static final int OP_NE       = 44;
+  private static final int OP_LT       = 45;
+  private static final int OP_LE       = 46;
+  private static final int OP_GT       = 47;
+  private static final int OP_GE       = 48;
+  private static final int OP_BIT_OR   = 49;
+  private static final int OP_BIT_XOR  = 50;
+  private static final int OP_BIT_AND  = 51;
+  private static final int OP_SHL      = 52;
+  private static final int OP_SHR      = 53;
+  private static final int OP_ADD      = 54;
+  private static final int OP_SUB      = 55;
+  private static final int OP_MUL      = 56;
+  private static final int OP_DIV      = 57;
+  private static final int OP_MOD      = 58;
+
+  // Namen und zugehoerige Operationen der Operanden ohne Argument
+  private static final String[] operandNames = {
+		"A", "B", "C", "D", "E", "F", "H", "L", "I", "R",
+		"AF", "BC", "DE", "HL", "IX", "IY",
+		"IXH", "IXL", "IYH", "IYL", "SP", "PC",
+		"AF'", "BC'", "DE'", "HL'",
+		"CF", "NF", "PF", "HF", "ZF", "SF",
+		"IFF1", "IFF2", "TSTATES" };
+
+  private static final int[] operandOps = {
+		OP_REG_A, OP_REG_B, OP_REG_C, OP_REG_D, OP_REG_E,
+		OP_REG_F, OP_REG_H, OP_REG_L, OP_REG_I, OP_REG_R,
+		OP_REG_AF, OP_REG_BC, OP_REG_DE, OP_REG_HL,
+		OP_REG_IX, OP_REG_IY,
+		OP_REG_IXH, OP_REG_IXL, OP_REG_IYH, OP_REG_IYL,
+		OP_REG_SP, OP_REG_PC,
+		OP_REG_AF2, OP_REG_BC2, OP_REG_DE2, OP_REG_HL2,
+		OP_FLAG_C, OP_FLAG_N, OP_FLAG_PV, OP_FLAG_H,
+		OP_FLAG_Z, OP_FLAG_S,
+		OP_IFF1, OP_IFF2, OP_TSTATES };
+
+
+  private static class Node
+  {
+    private int  op;
+    private long value;
+    private Node left;
+    private Node right;
+
+    private Node( int op, long value, Node left, Node right )
+    {
+      this.op    = op;
+      this.value = value;
+      this.left  = left;
+      this.right = right;
+    }
+
+    private long eval( Z80CPU cpu, Z80MemView mem )
+    {
+      switch( this.op ) {
+	case OP_CONST:
+	  return this.value;
+	case OP_REG_A:
+	  return cpu.getRegA();
+	case OP_REG_B:
+	  return cpu.getRegB();
+	case OP_REG_C:
+	  return cpu.getRegC();
+	case OP_REG_D:
+	  return cpu.getRegD();
+	case OP_REG_E:
+	  return cpu.getRegE();
+	case OP_REG_F:
+	  return cpu.getRegF();
+	case OP_REG_H:
+	  return cpu.getRegH();
+	case OP_REG_L:
+	  return cpu.getRegL();
+	case OP_REG_I:
+	  return cpu.getRegI();
+	case OP_REG_R:
+	  return cpu.getRegR();
+	case OP_REG_AF:
+	  return cpu.getRegAF();
+	case OP_REG_BC:
+	  return cpu.getRegBC();
+	case OP_REG_DE:
+	  return cpu.getRegDE();
+	case OP_REG_HL:
+	  return cpu.getRegHL();
+	case OP_REG_IX:
+	  return cpu.getRegIX();
+	case OP_REG_IY:
+	  return cpu.getRegIY();
+	case OP_REG_IXH:
+	  return cpu.getRegIXH();
+	case OP_REG_IXL:
+	  return cpu.getRegIXL();
+	case OP_REG_IYH:
+	  return cpu.getRegIYH();
+	case OP_REG_IYL:
+	  return cpu.getRegIYL();
+	case OP_REG_SP:
+	  return cpu.getRegSP();
+	case OP_REG_PC:
+	  return cpu.getRegPC();
+	case OP_REG_AF2:
+	  return cpu.getRegAF2();
+	case OP_REG_BC2:
+	  return cpu.getRegBC2();
+	case OP_REG_DE2:
+	  return cpu.getRegDE2();
+	case OP_REG_HL2:
+	  return cpu.getRegHL2();
+	case OP_FLAG_C:
+	  return cpu.getFlagCarry() ? 1 : 0;
+	case OP_FLAG_N:
+	  return cpu.getFlagN() ? 1 : 0;
+	case OP_FLAG_PV:
+	  return cpu.getFlagPV() ? 1 : 0;
+	case OP_FLAG_H:
+	  return cpu.getFlagHalf() ? 1 : 0;
+	case OP_FLAG_Z:
+	  return cpu.getFlagZero() ? 1 : 0;
+	case OP_FLAG_S:
+	  return cpu.getFlagSign() ? 1 : 0;
+	case OP_IFF1:
+	  return cpu.getIFF1() ? 1 : 0;
+	case OP_IFF2:
+	  return cpu.getIFF2() ? 1 : 0;
+	case OP_TSTATES:
+	  return cpu.getProcessedTStates();
+	case OP_PEEK:
+	  return mem.getMemByte(
+			(int) this.left.eval( cpu, mem ) & 0xFFFF,
+			false ) & 0xFF;
+	case OP_DEEK:
+	  {
+	    int addr = (int) this.left.eval( cpu, mem ) & 0xFFFF;
+	    return (mem.getMemByte( addr, false ) & 0xFF)
+		| ((mem.getMemByte( (addr + 1) & 0xFFFF, false ) & 0xFF)
+								<< 8);
+	  }
+	case OP_NEG:
+	  return -this.left.eval( cpu, mem );
+	case OP_INV:
+	  return ~this.left.eval( cpu, mem );
+	case OP_NOT:
+	  return this.left.eval( cpu, mem ) == 0 ? 1 : 0;
+	case OP_OR:
+	  return (this.left.eval( cpu, mem ) != 0)
+			|| (this.right.eval( cpu, mem ) != 0) ? 1 : 0;
+	case OP_AND:
+	  return (this.left.eval( cpu, mem ) != 0)
+			&& (this.right.eval( cpu, mem ) != 0) ? 1 : 0;
+	case OP_EQ:
+	  return this.left.eval( cpu, mem )
+			== this.right.eval( cpu, mem ) ? 1 : 0;
+	case OP_NE:
+	  return this.left.eval( cpu, mem )
+			!= this.right.eval( cpu, mem ) ? 1 : 0;
+	case OP_LT:
+	  return this.left.eval( cpu, mem )
+			< this.right.eval( cpu, mem ) ? 1 : 0;
+	case OP_LE:
+	  return this.left.eval( cpu, mem )
+			<= this.right.eval( cpu, mem ) ? 1 : 0;
+	case OP_GT:
+	  return this.left.eval( cpu, mem )
+			> this.right.eval( cpu, mem ) ? 1 : 0;
+	case OP_GE:
+	  return this.left.eval( cpu, mem )
+			>= this.right.eval( cpu, mem ) ? 1 : 0;
+	case OP_BIT_OR:
+	  return this.left.eval( cpu, mem ) | this.right.eval( cpu, mem );
+	case OP_BIT_XOR:
+	  return this.left.eval( cpu, mem ) ^ this.right.eval( cpu, mem );
+	case OP_BIT_AND:
+	  return this.left.eval( cpu, mem ) & this.right.eval( cpu, mem );
+	case OP_SHL:
+	  return this.left.eval( cpu, mem )
+			<< (int) this.right.eval( cpu, mem );
+	case OP_SHR:
+	  return this.left.eval( cpu, mem )
+			>>> (int) this.right.eval( cpu, mem );
+	case OP_ADD:
+	  return this.left.eval( cpu, mem ) + this.right.eval( cpu, mem );
+	case OP_SUB:
+	  return this.left.eval( cpu, mem ) - this.right.eval( cpu, mem );
+	case OP_MUL:
+	  return this.left.eval( cpu, mem ) * this.right.eval( cpu, mem );
+	case OP_DIV:
+	  {
+	    long v1 = this.left.eval( cpu, mem );
+	    long v2 = this.right.eval( cpu, mem );
+	    return v2 != 0 ? v1 / v2 : 0;
+	  }
+	case OP_MOD:
+	  {
+	    long v1 = this.left.eval( cpu, mem );
+	    long v2 = this.right.eval( cpu, mem );
+	    return v2 != 0 ? v1 % v2 : 0;
+	  }
+      }
+      return 0;
+    }
+  }
+
+
+  private String     text;
+  private Z80MemView memory;
+  private Node       rootNode;
+  private int        pos;
+
+
+  /*
+   * Die Methode uebersetzt den Ausdruck.
+   * Der Speicher wird fuer PEEK und DEEK benoetigt.
+   *
+   * Rueckgabewert: null, wenn der Text leer ist
+   */
+  public static ConditionExpr compile(
+				String     text,
+				Z80MemView memory ) throws InvalidParamException
+  {
+    ConditionExpr rv = null;
+    if( text != null ) {
+      text = text.trim();
+      if( !text.isEmpty() ) {
+	rv          = new ConditionExpr( text, memory );
+	rv.rootNode = rv.parseOr();
+	rv.skipSpaces();
+	if( rv.pos < text.length() ) {
+	  rv.throwSyntaxError();
+	}
+      }
+    }
+    return rv;
+  }
+
+
+  public String getText()
+  {
+    return this.text;
+  }
+
+
+  public long getValue( Z80CPU cpu )
+  {
+    return this.rootNode.eval( cpu, this.memory );
+  }
+
+
+  public boolean isTrue( Z80CPU cpu )
+  {
+    return this.rootNode.eval( cpu, this.memory ) != 0;
+  }
+
+
+	/* --- ueberschriebene Methoden --- */
+
+  @Override
+  public String toString()
+  {
+    return this.text;
+  }
+
+
+	/* --- Konstruktor --- */
+
+  private ConditionExpr( String text, Z80MemView memory )
+  {
+    this.text     = text;
+    this.memory   = memory;
+    this.rootNode = null;
+    this.pos      = 0;
+  }
+
+
+	/* --- private Methoden --- */
+
+  /*
+   * Die Methode prueft, ob an der aktuellen Position
+   * das uebergebene Symbol steht und ueberliest es ggf.
+   * Ein Wortsymbol muss dabei vollstaendig sein.
+   */
+  private boolean accept( String symbol )
+  {
+    boolean rv = false;
+    skipSpaces();
+    int len = symbol.length();
+    if( this.text.regionMatches( true, this.pos, symbol, 0, len ) ) {
+      rv = true;
+      if( Character.isLetter( symbol.charAt( len - 1 ) )
+	  && ((this.pos + len) < this.text.length()) )
+      {
+	if( isIdentPart( this.text.charAt( this.pos + len ) ) ) {
+	  rv = false;
+	}
+      }
+      if( rv ) {
+	this.pos += len;
+      }
+    }
+    return rv;
+  }
+
+
+  private void expect( char ch ) throws InvalidParamException
+  {
+    skipSpaces();
+    if( (this.pos < this.text.length())
+	&& (this.text.charAt( this.pos ) == ch) )
+    {
+      this.pos++;
+    } else {
+      throw new InvalidParamException(
+		String.format(
+			"%s: \'%c\' an Position %d erwartet",
+			this.text,
+			ch,
+			this.pos + 1 ) );
+    }
+  }
+
+
+  private static boolean isIdentPart( char ch )
+  {
+    return Character.isLetterOrDigit( ch ) || (ch == '_') || (ch == '\'');
+  }
+
+
+  private Node parseAdd() throws InvalidParamException
+  {
+    Node node = parseMul();
+    for(;;) {
+      if( accept( "+" ) ) {
+	node = new Node( OP_ADD, 0, node, parseMul() );
+      } else if( accept( "-" ) ) {
+	node = new Node( OP_SUB, 0, node, parseMul() );
+      } else {
+	break;
+      }
+    }
+    return node;
+  }
+
+
+  private Node parseAnd() throws InvalidParamException
+  {
+    Node node = parseNot();
+    while( accept( "&&" ) || accept( "AND" ) ) {
+      node = new Node( OP_AND, 0, node, parseNot() );
+    }
+    return node;
+  }
+
+
+  private Node parseBitAnd() throws InvalidParamException
+  {
+    Node node = parseShift();
+    for(;;) {
+      skipSpaces();
+      if( this.text.startsWith( "&&", this.pos ) || !accept( "&" ) ) {
+	break;
+      }
+      node = new Node( OP_BIT_AND, 0, node, parseShift() );
+    }
+    return node;
+  }
+
+
+  private Node parseBitOr() throws InvalidParamException
+  {
+    Node node = parseBitXor();
+    for(;;) {
+      skipSpaces();
+      if( this.text.startsWith( "||", this.pos ) || !accept( "|" ) ) {
+	break;
+      }
+      node = new Node( OP_BIT_OR, 0, node, parseBitXor() );
+    }
+    return node;
+  }
+
+
+  private Node parseBitXor() throws InvalidParamException
+  {
+    Node node = parseBitAnd();
+    while( accept( "^" ) ) {
+      node = new Node( OP_BIT_XOR, 0, node, parseBitAnd() );
+    }
+    return node;
+  }
+
+
+  private Node parseCompare() throws InvalidParamException
+  {
+    Node node = parseBitOr();
+    int  op   = -1;
+    if( accept( "==" ) || accept( "=" ) ) {
+      op = OP_EQ;
+    } else if( accept( "<>" ) || accept( "!=" ) ) {
+      op = OP_NE;
+    } else if( accept( "<=" ) ) {
+      op = OP_LE;
+    } else if( accept( ">=" ) ) {
+      op = OP_GE;
+    } else {
+      skipSpaces();
+      if( !this.text.startsWith( "<<", this.pos ) && accept( "<" ) ) {
+	op = OP_LT;
+      } else if( !this.text.startsWith( ">>", this.pos ) && accept( ">" ) ) {
+	op = OP_GT;
+      }
+    }
+    if( op >= 0 ) {
+      node = new Node( op, 0, node, parseBitOr() );
+    }
+    return node;
+  }
+
+
+  private Node parseMul() throws InvalidParamException
+  {
+    Node node = parseUnary();
+    for(;;) {
+      if( accept( "*" ) ) {
+	node = new Node( OP_MUL, 0, node, parseUnary() );
+      } else if( accept( "/" ) ) {
+	node = new Node( OP_DIV, 0, node, parseUnary() );
+      } else if( accept( "%" ) || accept( "MOD" ) ) {
+	node = new Node( OP_MOD, 0, node, parseUnary() );
+      } else {
+	break;
+      }
+    }
+    return node;
+  }
+
+
+  private Node parseNot() throws InvalidParamException
+  {
+    Node node = null;
+    skipSpaces();
+    if( this.text.startsWith( "!=", this.pos ) ) {
+      throwSyntaxError();
+    }
+    if( accept( "!" ) || accept( "NOT" ) ) {
+      node = new Node( OP_NOT, 0, parseNot(), null );
+    } else {
+      node = parseCompare();
+    }
+    return node;
+  }
+
+
+  private Node parseOr() throws InvalidParamException
+  {
+    Node node = parseAnd();
+    while( accept( "||" ) || accept( "OR" ) ) {
+      node = new Node( OP_OR, 0, node, parseAnd() );
+    }
+    return node;
+  }
+
+
+  private Node parsePrimary() throws InvalidParamException
+  {
+    Node node = null;
+    skipSpaces();
+    int len = this.text.length();
+    if( this.pos < len ) {
+      char ch = this.text.charAt( this.pos );
+      if( ch == '(' ) {
+	this.pos++;
+	node = parseOr();
+	expect( ')' );
+      } else if( (ch >= '0') && (ch <= '9') ) {
+	int begPos = this.pos;
+	while( (this.pos < len)
+	       && Character.isLetterOrDigit( this.text.charAt( this.pos ) ) )
+	{
+	  this.pos++;
+	}
+	String s = this.text.substring( begPos, this.pos ).toUpperCase();
+	try {
+	  long value = 0;
+	  if( s.endsWith( "H" ) ) {
+	    value = Long.parseLong( s.substring( 0, s.length() - 1 ), 16 );
+	  } else {
+	    value = Long.parseLong( s );
+	  }
+	  node = new Node( OP_CONST, value, null, null );
+	}
+	catch( NumberFormatException ex ) {
+	  throw new InvalidParamException( s + ": Ung\u00FCltige Zahl" );
+	}
+      } else if( Character.isLetter( ch ) ) {
+	int begPos = this.pos;
+	while( (this.pos < len)
+	       && isIdentPart( this.text.charAt( this.pos ) ) )
+	{
+	  this.pos++;
+	}
+	String s = this.text.substring( begPos, this.pos ).toUpperCase();
+	if( s.equals( "PEEK" ) || s.equals( "DEEK" ) ) {
+	  expect( '(' );
+	  node = new Node(
+			s.equals( "PEEK" ) ? OP_PEEK : OP_DEEK,
+			0,
+			parseOr(),
+			null );
+	  expect( ')' );
+	} else {
+	  for( int i = 0; i < operandNames.length; i++ ) {
+	    if( operandNames[ i ].equals( s ) ) {
+	      node = new Node( operandOps[ i ], 0, null, null );
+	      break;
+	    }
+	  }
+	  if( node == null ) {
+	    throw new InvalidParamException(
+				s + ": Unbekanntes Register oder Flag" );
+	  }
+	}
+      }
+    }
+    if( node == null ) {
+      throwSyntaxError();
+    }
+    return node;
+  }
+
+
+  private Node parseShift() throws InvalidParamException
+  {
+    Node node = parseAdd();
+    for(;;) {
+      if( accept( "<<" ) ) {
+	node = new Node( OP_SHL, 0, node, parseAdd() );
+      } else if( accept( ">>" ) ) {
+	node = new Node( OP_SHR, 0, node, parseAdd() );
+      } else {
+	break;
+      }
+    }
+    return node;
+  }
+
+
+  private Node parseUnary() throws InvalidParamException
+  {
+    Node node = null;
+    if( accept( "-" ) ) {
+      node = new Node( OP_NEG, 0, parseUnary(), null );
+    } else if( accept( "~" ) ) {
+      node = new Node( OP_INV, 0, parseUnary(), null );
+    } else {
+      node = parsePrimary();
+    }
+    return node;
+  }
+
+
+  private void skipSpaces()
+  {
+    while( (this.pos < this.text.length())
+	   && Character.isWhitespace( this.text.charAt( this.pos ) ) )
+    {
+      this.pos++;
+    }
+  }
+
+
+  private void throwSyntaxError() throws InvalidParamException
+  {
+    throw new InvalidParamException(
+		String.format(
+			"%s: Syntaxfehler an Position %d",
+			this.text,
+			this.pos + 1 ) );
+  }
+}
@@ -47,7 +47,9 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.EventObject;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
 import java.util.TreeSet;
@@ -100,6 +102,7 @@ import jkcemu.base.GUIFactory;
 import jkcemu.base.HelpFrm;
 import jkcemu.base.PopupMenusOwner;
 import jkcemu.base.ReplyIntDlg;
+import jkcemu.base.ReplyTextDlg;
 import jkcemu.file.FileUtil;
 import jkcemu.text.TextUtil;
 import jkcemu.tools.ToolUtil;
@@ -108,10 +111,13 @@ import org.w3c.dom.Element;
 import org.xml.sax.SAXException;
 import z80emu.Z80Breakpoint;
 import z80emu.Z80CPU;
+import z80emu.Z80ExecJournal;
 import z80emu.Z80InterruptSource;
+import z80emu.Z80MemAccessRecorder;
+import z80emu.Z80MemSnapshot;
 import z80emu.Z80Memory;
+import z80emu.Z80ReassCache;
 import z80emu.Z80ReassInstr;
-import z80emu.Z80Reassembler;
 import z80emu.Z80StatusListener;
 
 
@@ -222,6 +228,7 @@ public class DebugFrm extends BaseFrm implements
   private EmuThread                 emuThread;
   private Z80CPU                    cpu;
   private Z80Memory                 memory;
+  private Z80ReassCache             reassCache;
   private LabelImportOptions        labelImportOptions;
   private int                       maxLogCnt;
   private int                       memPCClickAddr;
@@ -253,6 +260,14 @@ public class DebugFrm extends BaseFrm implements
   private JMenuItem                 mnuExecStepInto;
   private JMenuItem                 mnuExecStepToRET;
   private JCheckBoxMenuItem         mnuExecTracer;
+  private JMenuItem                 mnuExecProfiler;
+  private JCheckBoxMenuItem         mnuExecMemAccess;
+  private JMenuItem                 mnuExecMemAccessSave;
+  private JMenuItem                 mnuExecMemAccessReset;
+  private JCheckBoxMenuItem         mnuExecJournal;
+  private JMenuItem                 mnuExecStepBack;
+  private JMenuItem                 mnuExecRunBack;
+  private JMenuItem                 mnuExecLastWrite;
   private JMenuItem                 mnuBpInterruptAdd;
   private JMenuItem                 mnuBpInputAdd;
   private JMenuItem                 mnuBpOutputAdd;
@@ -274,6 +289,7 @@ public class DebugFrm extends BaseFrm implements
   private JMenuItem                 mnuVarBpAdd;
   private JMenuItem                 mnuVarRemove;
   private JMenuItem                 mnuVarRemoveAll;
+  private JCheckBoxMenuItem         mnuVarLive;
   private JMenuItem                 mnuLogCopy;
   private JMenuItem                 mnuLogSelectAll;
   private JMenuItem                 mnuLogRemove;
@@ -310,6 +326,7 @@ public class DebugFrm extends BaseFrm implements
   private JMenuItem                 popupWalk300;
   private JMenuItem                 popupWalk500;
   private JPopupMenu                popupMemPC;
+  private ProfilerFrm               profilerFrm;
   private JMenuItem                 popupMemPCCopy;
   private JMenuItem                 popupMemPCBreak;
   private JTabbedPane               tabbedPane;
@@ -376,6 +393,8 @@ public class DebugFrm extends BaseFrm implements
   private ListSelectionModel        selectionModelVar;
   private JEditorPane               fldEtc;
   private javax.swing.Timer         timerForClear;
+  private javax.swing.Timer         timerForVarLive;
+  private Z80MemSnapshot            varLiveSnapshot;
 
 
   public DebugFrm(
@@ -386,6 +405,7 @@ public class DebugFrm extends BaseFrm implements
     this.emuThread          = emuThread;
     this.cpu                = cpu;
     this.memory             = memory;
+    this.reassCache         = new Z80ReassCache( memory );
     this.labelImportOptions = null;
     this.maxLogCnt          = DEFAULT_MAX_LOG_CNT;
     this.memPCClickAddr     = -1;
@@ -396,6 +416,7 @@ public class DebugFrm extends BaseFrm implements
     this.lastBreakpointFile = null;
     this.lastTraceFile      = null;
     this.traceWriter        = null;
+    this.profilerFrm        = null;
     this.bpDlg              = null;
     this.bpModels           = new BreakpointListModel[ BP_GROUP_CNT ];
     this.bpLists            = new BreakpointList[ BP_GROUP_CNT ];
@@ -494,6 +515,46 @@ public class DebugFrm extends BaseFrm implements
     this.mnuExecTracer.addActionListener( this );
     mnuExec.add( this.mnuExecTracer );
 
+    this.mnuExecProfiler = createMenuItem( "Laufzeitprofil..." );
+    mnuExec.add( this.mnuExecProfiler );
+    mnuExec.addSeparator();
+
+    this.mnuExecMemAccess = GUIFactory.createCheckBoxMenuItem(
+						"Speicherzugriffe aufzeichnen",
+						false );
+    this.mnuExecMemAccess.addActionListener( this );
+    mnuExec.add( this.mnuExecMemAccess );
+
+    this.mnuExecMemAccessSave = createMenuItem(
+		"Aufgezeichnete Speicherzugriffe speichern..." );
+    mnuExec.add( this.mnuExecMemAccessSave );
+
+    this.mnuExecMemAccessReset = createMenuItem(
+		"Aufgezeichnete Speicherzugriffe l\u00F6schen" );
+    mnuExec.add( this.mnuExecMemAccessReset );
+    mnuExec.addSeparator();
+
+    this.mnuExecJournal = GUIFactory.createCheckBoxMenuItem(
+				"Befehle f\u00FCr R\u00FCckw\u00E4rtsschritte"
+					+ " protokollieren",
+				false );
+    this.mnuExecJournal.addActionListener( this );
+    mnuExec.add( this.mnuExecJournal );
+
+    this.mnuExecStepBack = createMenuItemWithDirectAccelerator(
+					"Schritt zur\u00FCck",
+					KeyEvent.VK_F7,
+					true );
+    mnuExec.add( this.mnuExecStepBack );
+
+    this.mnuExecRunBack = createMenuItem(
+		"Zur\u00FCck bis zum vorherigen Haltepunkt" );
+    mnuExec.add( this.mnuExecRunBack );
+
+    this.mnuExecLastWrite = createMenuItem(
+		"Letzten Schreibzugriff auf Adresse suchen..." );
+    mnuExec.add( this.mnuExecLastWrite );
+
 
     // Menu Halte-/Log-Punkte
     JMenu mnuBp = GUIFactory.createMenu( "Halte-/Log-Punkte" );
@@ -608,6 +669,13 @@ public class DebugFrm extends BaseFrm implements
 
     this.mnuVarRemoveAll = createMenuItem( TEXT_VAR_REMOVE_ALL );
     mnuVar.add( this.mnuVarRemoveAll );
+    mnuVar.addSeparator();
+
+    this.mnuVarLive = GUIFactory.createCheckBoxMenuItem(
+		"Werte w\u00E4hrend der Programmausf\u00FChrung aktualisieren",
+		false );
+    this.mnuVarLive.addActionListener( this );
+    mnuVar.add( this.mnuVarLive );
 
 
     // Menu Hilfe
@@ -1368,7 +1436,9 @@ public class DebugFrm extends BaseFrm implements
 
 
     // sonstiges
-    this.timerForClear = new javax.swing.Timer( 300, this );
+    this.timerForClear   = new javax.swing.Timer( 300, this );
+    this.timerForVarLive = new javax.swing.Timer( 250, this );
+    this.varLiveSnapshot = null;
     setResizable( true );
     if( !applySettings( Main.getProperties() ) ) {
       pack();
@@ -1464,6 +1534,25 @@ public class DebugFrm extends BaseFrm implements
   }
 
 
+  /*
+   * Die Methode liefert die Namen der PC-Haltepunkte
+   * (i.d.R. importierte Marken) zu ihren Adressen.
+   */
+  public Map<Integer,String> getPCLabels()
+  {
+    Map<Integer,String> rv = new HashMap<>();
+    for( AbstractBreakpoint bp : this.bpModels[ BP_PC_IDX ] ) {
+      if( bp instanceof PCBreakpoint ) {
+	String name = ((PCBreakpoint) bp).getName();
+	if( name != null ) {
+	  rv.put( ((PCBreakpoint) bp).getAddress(), name );
+	}
+      }
+    }
+    return rv;
+  }
+
+
   public VarData getVarByName( String name )
   {
     VarData rv    = null;
@@ -1829,6 +1918,38 @@ public class DebugFrm extends BaseFrm implements
 	rv = true;
 	doExecTracer();
       }
+      else if( src == this.mnuExecProfiler ) {
+	rv = true;
+	doExecProfiler();
+      }
+      else if( src == this.mnuExecMemAccess ) {
+	rv = true;
+	doExecMemAccess();
+      }
+      else if( src == this.mnuExecMemAccessSave ) {
+	rv = true;
+	doExecMemAccessSave();
+      }
+      else if( src == this.mnuExecMemAccessReset ) {
+	rv = true;
+	doExecMemAccessReset();
+      }
+      else if( src == this.mnuExecJournal ) {
+	rv = true;
+	doExecJournal();
+      }
+      else if( src == this.mnuExecStepBack ) {
+	rv = true;
+	doExecStepBack();
+      }
+      else if( src == this.mnuExecRunBack ) {
+	rv = true;
+	doExecRunBack();
+      }
+      else if( src == this.mnuExecLastWrite ) {
+	rv = true;
+	doExecLastWrite();
+      }
       else if( src == this.mnuBpInputAdd ) {
 	rv = true;
 	doBpInputAdd();
@@ -2076,6 +2197,14 @@ public class DebugFrm extends BaseFrm implements
 	rv = true;
 	clear();
       }
+      else if( src == this.timerForVarLive ) {
+	rv = true;
+	doVarLiveTimer();
+      }
+      else if( src == this.mnuVarLive ) {
+	rv = true;
+	doVarLive();
+      }
       else if( src == this.walkTimer ) {
 	rv = true;
 	doWalkTimer();
@@ -2125,6 +2254,14 @@ public class DebugFrm extends BaseFrm implements
   public boolean doClose()
   {
     closeTrace();
+    if( this.profilerFrm != null ) {
+      this.profilerFrm.doClose();
+      this.profilerFrm = null;
+    }
+    this.mnuExecJournal.setSelected( false );
+    this.cpu.setExecJournal( null );
+    this.mnuVarLive.setSelected( false );
+    setVarLiveEnabled( false );
     this.cpu.setDebugEnabled( false );
     return super.doClose();
   }
@@ -2827,6 +2964,51 @@ public class DebugFrm extends BaseFrm implements
   }
 
 
+  private void doExecRunBack()
+  {
+    Z80ExecJournal journal = this.cpu.getExecJournal();
+    if( (journal != null) && this.cpu.isPause() ) {
+      java.util.List<AbstractBreakpoint> bps = new ArrayList<>();
+      for( int i = 0; i < this.bpModels.length; i++ ) {
+	BreakpointListModel model = this.bpModels[ i ];
+	if( model != null ) {
+	  for( AbstractBreakpoint bp : model ) {
+	    if( bp.isStopEnabled() ) {
+	      bps.add( bp );
+	    }
+	  }
+	}
+      }
+      AbstractBreakpoint foundBP   = null;
+      boolean            ioWritten = false;
+      int                nSteps    = 0;
+      while( foundBP == null ) {
+	if( journal.wasIOWritten() ) {
+	  ioWritten = true;
+	}
+	if( !journal.stepBack( this.cpu, this.memory ) ) {
+	  break;
+	}
+	nSteps++;
+	for( AbstractBreakpoint bp : bps ) {
+	  if( bp.matchesStop( this.cpu ) ) {
+	    foundBP = bp;
+	    break;
+	  }
+	}
+      }
+      updExecStepBack( nSteps, ioWritten );
+      if( foundBP == null ) {
+	this.labelStatus.setText(
+		String.format(
+			"Anfang des Protokolls erreicht (%d Befehle"
+				+ " zur\u00FCckgenommen)",
+			nSteps ) );
+      }
+    }
+  }
+
+
   private void doExecRun()
   {
     this.walkMillis = 0;
@@ -2853,6 +3035,20 @@ public class DebugFrm extends BaseFrm implements
   }
 
 
+  private void doExecStepBack()
+  {
+    Z80ExecJournal journal = this.cpu.getExecJournal();
+    if( (journal != null) && this.cpu.isPause() ) {
+      boolean ioWritten = journal.wasIOWritten();
+      if( journal.stepBack( this.cpu, this.memory ) ) {
+	updExecStepBack( 1, ioWritten );
+      } else {
+	this.labelStatus.setText( "Anfang des Protokolls erreicht" );
+      }
+    }
+  }
+
+
   private void doExecStepOver()
   {
     this.walkMillis = 0;
@@ -2874,6 +3070,138 @@ public class DebugFrm extends BaseFrm implements
   }
 
 
+  private void doExecJournal()
+  {
+    if( this.mnuExecJournal.isSelected() ) {
+      if( this.cpu.getExecJournal() == null ) {
+	this.cpu.setExecJournal( new Z80ExecJournal() );
+      }
+    } else {
+      // Protokoll freigeben, damit keine Kosten mehr entstehen
+      this.cpu.setExecJournal( null );
+    }
+    boolean state = this.cpu.isPause() && (this.walkMillis == 0);
+    updExecJournalActionsEnabled( state );
+  }
+
+
+  private void doExecLastWrite()
+  {
+    Z80ExecJournal journal = this.cpu.getExecJournal();
+    if( journal != null ) {
+      String text = ReplyTextDlg.showDlg(
+				this,
+				"Adresse (hexadezimal):",
+				"Letzter Schreibzugriff",
+				null );
+      if( text != null ) {
+	int addr = -1;
+	try {
+	  addr = Integer.parseInt( text.trim(), 16 );
+	}
+	catch( NumberFormatException ex ) {}
+	if( (addr < 0) || (addr > 0xFFFF) ) {
+	  BaseDlg.showErrorDlg( this, "Ung\u00FCltige Adresse" );
+	} else {
+	  int stepsBack = journal.findLastWrite( addr );
+	  if( stepsBack >= 0 ) {
+	    BaseDlg.showInfoDlg(
+		this,
+		String.format(
+			"Die Adresse %04XH wurde zuletzt von dem Befehl"
+				+ " auf Adresse %04XH beschrieben.\n"
+				+ "Seitdem wurden %d Befehle ausgef\u00FChrt.",
+			addr,
+			journal.getInstructionAddr( stepsBack ),
+			stepsBack ) );
+	  } else {
+	    BaseDlg.showInfoDlg(
+		this,
+		String.format(
+			"Im Protokoll ist kein Schreibzugriff"
+				+ " auf die Adresse %04XH enthalten.",
+			addr ) );
+	  }
+	}
+      }
+    }
+  }
+
+
+  private void doExecMemAccess()
+  {
+    Z80MemAccessRecorder recorder = this.cpu.getMemAccessRecorder();
+    if( this.mnuExecMemAccess.isSelected() ) {
+      if( recorder != null ) {
+	recorder.setRecording( true );
+      } else {
+	this.cpu.setMemAccessRecorder( new Z80MemAccessRecorder() );
+      }
+    } else {
+      /*
+       * Die Aufzeichnung nur anhalten,
+       * damit Speichereditor und Reassembler die Daten
+       * weiterhin anzeigen koennen
+       */
+      if( recorder != null ) {
+	recorder.setRecording( false );
+      }
+    }
+  }
+
+
+  private void doExecMemAccessReset()
+  {
+    Z80MemAccessRecorder recorder = this.cpu.getMemAccessRecorder();
+    if( recorder != null ) {
+      recorder.reset();
+    }
+  }
+
+
+  private void doExecMemAccessSave()
+  {
+    Z80MemAccessRecorder recorder = this.cpu.getMemAccessRecorder();
+    if( recorder != null ) {
+      File file = FileUtil.showFileSaveDlg(
+			this,
+			"Aufgezeichnete Speicherzugriffe speichern",
+			Main.getLastDirFile( Main.FILE_GROUP_DEBUG_TRACE ),
+			FileUtil.getTextFileFilter() );
+      if( file != null ) {
+	BufferedWriter out = null;
+	try {
+	  out = new BufferedWriter( new FileWriter( file ) );
+	  recorder.writeRangeList( out );
+	  out.close();
+	  out = null;
+	  Main.setLastFile( file, Main.FILE_GROUP_DEBUG_TRACE );
+	}
+	catch( IOException ex ) {
+	  BaseDlg.showErrorDlg( this, ex );
+	}
+	finally {
+	  EmuUtil.closeSilently( out );
+	}
+      }
+    } else {
+      BaseDlg.showInfoDlg(
+		this,
+		"Es wurden keine Speicherzugriffe aufgezeichnet." );
+    }
+  }
+
+
+  private void doExecProfiler()
+  {
+    if( this.profilerFrm == null ) {
+      this.profilerFrm = new ProfilerFrm( this, this.cpu, this.memory );
+    }
+    this.profilerFrm.toFront();
+    this.profilerFrm.setVisible( true );
+  }
+
+
   private void doExecTracer()
   {
     if( this.mnuExecTracer.isSelected() ) {
@@ -3095,6 +3423,30 @@ public class DebugFrm extends BaseFrm implements
   }
 
 
+  private void doVarLive()
+  {
+    if( this.cpu.isActive() && !this.cpu.isPause() ) {
+      setVarLiveEnabled( this.mnuVarLive.isSelected() );
+    }
+  }
+
+
+  /*
+   * Die Werte werden aus dem Abbild des Adressraums ermittelt,
+   * welches die CPU zwischen zwei Befehlen erstellt.
+   * Ist das Abbild unveraendert, entfaellt die Aktualisierung.
+   */
+  private void doVarLiveTimer()
+  {
+    Z80MemSnapshot snapshot = this.cpu.getMemSnapshot();
+    if( (snapshot != null) && (snapshot != this.varLiveSnapshot) ) {
+      this.varLiveSnapshot = snapshot;
+      this.tableModelVar.updateChanged( snapshot );
+    }
+    this.cpu.requestMemSnapshot();
+  }
+
+
   private void doVarRemoveAll()
   {
     if( !this.tableModelVar.isEmpty() ) {
@@ -3816,6 +4168,7 @@ public class DebugFrm extends BaseFrm implements
     this.mnuExecStepOver.setEnabled( false );
     this.mnuExecStepInto.setEnabled( false );
     this.mnuExecStepToRET.setEnabled( false );
+    updExecJournalActionsEnabled( false );
     this.btnRun.setEnabled( false );
     this.btnWalk.setEnabled( false );
     this.popupWalk30.setEnabled( false );
@@ -3827,6 +4180,7 @@ public class DebugFrm extends BaseFrm implements
     this.btnStepInto.setEnabled( false );
     this.btnStepToRET.setEnabled( false );
     this.btnResetTStates.setEnabled( false );
+    setVarLiveEnabled( false );
     this.tableModelVar.setValuesEnabled( false );
     this.labelStatus.setText( statusText );
   }
@@ -3845,6 +4199,7 @@ public class DebugFrm extends BaseFrm implements
     this.mnuExecStepOver.setEnabled( false );
     this.mnuExecStepInto.setEnabled( false );
     this.mnuExecStepToRET.setEnabled( false );
+    updExecJournalActionsEnabled( false );
     this.btnRun.setEnabled( false );
     this.btnWalk.setEnabled( true );
     this.popupWalk30.setEnabled( true );
@@ -3856,7 +4211,7 @@ public class DebugFrm extends BaseFrm implements
     this.btnStepInto.setEnabled( false );
     this.btnStepToRET.setEnabled( false );
     this.btnResetTStates.setEnabled( false );
-    this.tableModelVar.setValuesEnabled( false );
+    setVarLiveEnabled( this.mnuVarLive.isSelected() );
     this.labelStatus.setText( "Programm wird gerade ausgef\u00FChrt..." );
   }
 
@@ -3896,6 +4251,7 @@ public class DebugFrm extends BaseFrm implements
     this.mnuExecStepOver.setEnabled( stopped );
     this.mnuExecStepInto.setEnabled( stopped );
     this.mnuExecStepToRET.setEnabled( stopped );
+    updExecJournalActionsEnabled( stopped );
 
     this.btnRun.setEnabled( true );
     this.btnWalk.setEnabled( true );
@@ -3919,7 +4275,8 @@ public class DebugFrm extends BaseFrm implements
       }
     }
 
-    this.tableModelVar.update( this.memory );
+    this.timerForVarLive.stop();
+    this.tableModelVar.updateChanged( this.memory );
     this.tableModelVar.setValuesEnabled( true );
 
     this.fldEtc.setEnabled( true );
@@ -3976,6 +4333,26 @@ public class DebugFrm extends BaseFrm implements
   }
 
 
+  /*
+   * Bei eingeschalteter Aktualisierung werden die Werte
+   * der Variablen waehrend der Programmausfuehrung angezeigt.
+   */
+  private void setVarLiveEnabled( boolean state )
+  {
+    if( state ) {
+      if( !this.timerForVarLive.isRunning() ) {
+	this.varLiveSnapshot = null;
+	this.cpu.requestMemSnapshot();
+	this.timerForVarLive.start();
+      }
+    } else {
+      this.timerForVarLive.stop();
+      this.varLiveSnapshot = null;
+    }
+    this.tableModelVar.setValuesEnabled( state );
+  }
+
+
   private void showErrorNoXMLSupport( Exception ex )
   {
     BaseDlg.showErrorDlg(
@@ -4174,6 +4551,33 @@ public class DebugFrm extends BaseFrm implements
   }
 
 
+  private void updExecJournalActionsEnabled( boolean stopped )
+  {
+    boolean state = stopped && (this.cpu.getExecJournal() != null);
+    this.mnuExecStepBack.setEnabled( state );
+    this.mnuExecRunBack.setEnabled( state );
+    this.mnuExecLastWrite.setEnabled( state );
+  }
+
+
+  private void updExecStepBack( int nSteps, boolean ioWritten )
+  {
+    setDebugStopped( null, null );
+    StringBuilder buf = new StringBuilder( 128 );
+    if( nSteps == 1 ) {
+      buf.append( "1 Befehl" );
+    } else {
+      buf.append( nSteps );
+      buf.append( " Befehle" );
+    }
+    buf.append( " zur\u00FCckgenommen" );
+    if( ioWritten ) {
+      buf.append( ", E/A-Ausgaben bleiben jedoch wirksam" );
+    }
+    this.labelStatus.setText( buf.toString() );
+  }
+
+
   private void updFieldsInterrupt()
   {
     this.btnIFF1.setSelected( this.cpu.getIFF1() );
@@ -4388,9 +4792,7 @@ public class DebugFrm extends BaseFrm implements
 	this.fldMemPC.append( tmpBuf.toString() );
 	addr += len;
       } else {
-	Z80ReassInstr instr = Z80Reassembler.reassInstruction(
-						      this.memory,
-						      addr );
+	Z80ReassInstr instr = this.reassCache.getInstruction( addr );
 	if( instr != null ) {
 
 	  // Adresse ausgeben
@@ -0,0 +1,497 @@
+/*
+ * (c) 2021 Jens Mueller
+ *
+ * Kleincomputer-Emulator
+ *
+ * Anzeige des Laufzeitprofils einer CPU
+ *
+ * Das Fenster gehoert zu einem Debugger-Fenster und damit zu genau
+ * einer CPU.
+ * Solange das Profil aufgezeichnet wird, aktualisiert sich die Anzeige
+ * periodisch.
+ */
+
+package jkcemu.tools.debugger;
+
+import java.awt.BorderLayout;
+import java.awt.Dimension;
+import java.awt.event.KeyEvent;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.EventObject;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import javax.swing.JCheckBoxMenuItem;
+import javax.swing.JLabel;
+import javax.swing.JMenu;
+import javax.swing.JMenuItem;
+import javax.swing.JTabbedPane;
+import javax.swing.JTable;
+import javax.swing.ListSelectionModel;
+import javax.swing.table.AbstractTableModel;
+import jkcemu.Main;
+import jkcemu.base.BaseDlg;
+import jkcemu.base.BaseFrm;
+import jkcemu.base.EmuUtil;
+import jkcemu.base.GUIFactory;
+import jkcemu.file.FileUtil;
+import z80emu.Z80CPU;
+import z80emu.Z80MemView;
+import z80emu.Z80Profiler;
+import z80emu.Z80ReassInstr;
+import z80emu.Z80Reassembler;
+
+
+public class ProfilerFrm extends BaseFrm
+{
+  private static class ProfileTableModel extends AbstractTableModel
+  {
+    private static final long serialVersionUID = 1L;
+
+    private String[]                 colNames;
+    private Class<?>[]               colClasses;
+    private java.util.List<Object[]> rows;
+
+    private ProfileTableModel( String[] colNames, Class<?>[] colClasses )
+    {
+      this.colNames   = colNames;
+      this.colClasses = colClasses;
+      this.rows       = new ArrayList<>();
+    }
+
+    private void setRows( java.util.List<Object[]> rows )
+    {
+      this.rows = rows;
+      fireTableDataChanged();
+    }
+
+    @Override
+    public Class<?> getColumnClass( int col )
+    {
+      return (col >= 0) && (col < this.colClasses.length) ?
+					this.colClasses[ col ]
+					: Object.class;
+    }
+
+    @Override
+    public int getColumnCount()
+    {
+      return this.colNames.length;
+    }
+
+    @Override
+    public String getColumnName( int col )
+    {
+      return (col >= 0) && (col < this.colNames.length) ?
+					this.colNames[ col ]
+					: "";
+    }
+
+    @Override
+    public int getRowCount()
+    {
+      return this.rows.size();
+    }
+
+    @Override
+    public Object getValueAt( int row, int col )
+    {
+      Object rv = null;
+      if( (row >= 0) && (row < this.rows.size()) ) {
+	Object[] values = this.rows.get( row );
+	if( (col >= 0) && (col < values.length) ) {
+	  rv = values[ col ];
+	}
+      }
+      return rv;
+    }
+
+    @Override
+    public boolean isCellEditable( int row, int col )
+    {
+      return false;
+    }
+  }
+
+
+  private static final long serialVersionUID = 1L;
+
+  private static final int REFRESH_MILLIS = 2000;
+
+  private DebugFrm          debugFrm;
+  private Z80CPU            cpu;
+  private Z80MemView        memory;
+  private Z80Profiler       profiler;
+  private JMenuItem         mnuFileSaveFlameGraph;
+  private JMenuItem         mnuFileClose;
+  private JCheckBoxMenuItem mnuProfileRecord;
+  private JMenuItem         mnuProfileRefresh;
+  private JMenuItem         mnuProfileReset;
+  private JTabbedPane       tabbedPane;
+  private ProfileTableModel tableModelInst;
+  private ProfileTableModel tableModelSub;
+  private JLabel            labelStatus;
+  private javax.swing.Timer refreshTimer;
+
+
+  public ProfilerFrm( DebugFrm debugFrm, Z80CPU cpu, Z80MemView memory )
+  {
+    this.debugFrm     = debugFrm;
+    this.cpu          = cpu;
+    this.memory       = memory;
+    this.profiler     = null;
+    this.refreshTimer = new javax.swing.Timer( REFRESH_MILLIS, this );
+    setTitle( debugFrm.getTitle() + " - Laufzeitprofil" );
+
+
+    // Menu Datei
+    JMenu mnuFile = createMenuFile();
+
+    this.mnuFileSaveFlameGraph = createMenuItem(
+				"Als Flame-Graph-Datei speichern..." );
+    mnuFile.add( this.mnuFileSaveFlameGraph );
+    mnuFile.addSeparator();
+
+    this.mnuFileClose = createMenuItemClose();
+    mnuFile.add( this.mnuFileClose );
+
+
+    // Menu Profil
+    JMenu mnuProfile = GUIFactory.createMenu( "Profil" );
+    mnuProfile.setMnemonic( KeyEvent.VK_P );
+
+    this.mnuProfileRecord = GUIFactory.createCheckBoxMenuItem(
+							"Aufzeichnen",
+							false );
+    this.mnuProfileRecord.addActionListener( this );
+    mnuProfile.add( this.mnuProfileRecord );
+    mnuProfile.addSeparator();
+
+    this.mnuProfileRefresh = createMenuItemWithDirectAccelerator(
+							"Aktualisieren",
+							KeyEvent.VK_F5 );
+    mnuProfile.add( this.mnuProfileRefresh );
+
+    this.mnuProfileReset = createMenuItem( "Zur\u00FCcksetzen" );
+    mnuProfile.add( this.mnuProfileReset );
+
+    setJMenuBar( GUIFactory.createMenuBar( mnuFile, mnuProfile ) );
+
+
+    // Fensterinhalt
+    setLayout( new BorderLayout() );
+
+    this.tableModelInst = new ProfileTableModel(
+		new String[] {
+			"Adresse",
+			"Marke",
+			"Befehl",
+			"Ausf\u00FChrungen",
+			"Taktzyklen",
+			"Anteil %" },
+		new Class<?>[] {
+			String.class,
+			String.class,
+			String.class,
+			Long.class,
+			Long.class,
+			Double.class } );
+
+    this.tableModelSub = new ProfileTableModel(
+		new String[] {
+			"Adresse",
+			"Marke",
+			"Aufrufe",
+			"Taktzyklen gesamt",
+			"Taktzyklen eigene",
+			"Anteil %" },
+		new Class<?>[] {
+			String.class,
+			String.class,
+			Long.class,
+			Long.class,
+			Long.class,
+			Double.class } );
+
+    this.tabbedPane = GUIFactory.createTabbedPane();
+    this.tabbedPane.addTab(
+		"Befehle",
+		GUIFactory.createScrollPane(
+			createTable( this.tableModelInst ) ) );
+    this.tabbedPane.addTab(
+		"Unterprogramme",
+		GUIFactory.createScrollPane(
+			createTable( this.tableModelSub ) ) );
+    add( this.tabbedPane, BorderLayout.CENTER );
+
+    this.labelStatus = GUIFactory.createLabel();
+    add( this.labelStatus, BorderLayout.SOUTH );
+
+
+    // Fenstergroesse
+    setResizable( true );
+    if( !applySettings( Main.getProperties() ) ) {
+      this.tabbedPane.setPreferredSize( new Dimension( 600, 400 ) );
+      pack();
+      setScreenCentered();
+    }
+    updFields();
+  }
+
+
+	/* --- ueberschriebene Methoden --- */
+
+  @Override
+  protected boolean doAction( EventObject e )
+  {
+    boolean rv  = false;
+    Object  src = e.getSource();
+    if( src == this.refreshTimer ) {
+      rv = true;
+      updTables();
+    }
+    else if( src == this.mnuFileSaveFlameGraph ) {
+      rv = true;
+      doFileSaveFlameGraph();
+    }
+    else if( src == this.mnuFileClose ) {
+      rv = true;
+      doClose();
+    }
+    else if( src == this.mnuProfileRecord ) {
+      rv = true;
+      doProfileRecord();
+    }
+    else if( src == this.mnuProfileRefresh ) {
+      rv = true;
+      updTables();
+    }
+    else if( src == this.mnuProfileReset ) {
+      rv = true;
+      doProfileReset();
+    }
+    return rv;
+  }
+
+
+  @Override
+  public boolean doClose()
+  {
+    boolean rv = super.doClose();
+    if( rv ) {
+      this.refreshTimer.stop();
+      if( (this.profiler != null)
+	  && (this.cpu.getProfiler() == this.profiler) )
+      {
+	this.cpu.setProfiler( null );
+      }
+      this.mnuProfileRecord.setSelected( false );
+    }
+    return rv;
+  }
+
+
+	/* --- Aktionen --- */
+
+  private void doFileSaveFlameGraph()
+  {
+    Z80Profiler profiler = this.profiler;
+    if( profiler != null ) {
+      File file = FileUtil.showFileSaveDlg(
+			this,
+			"Flame-Graph-Datei speichern",
+			Main.getLastDirFile( Main.FILE_GROUP_DEBUG_TRACE ),
+			FileUtil.getTextFileFilter() );
+      if( file != null ) {
+	BufferedWriter out = null;
+	try {
+	  out = new BufferedWriter( new FileWriter( file ) );
+	  profiler.writeFlameGraph( out, this.debugFrm.getPCLabels() );
+	  out.close();
+	  out = null;
+	  Main.setLastFile( file, Main.FILE_GROUP_DEBUG_TRACE );
+	}
+	catch( IOException ex ) {
+	  BaseDlg.showErrorDlg( this, ex );
+	}
+	finally {
+	  EmuUtil.closeSilently( out );
+	}
+      }
+    }
+  }
+
+
+  private void doProfileRecord()
+  {
+    if( this.mnuProfileRecord.isSelected() ) {
+      if( this.profiler == null ) {
+	this.profiler = new Z80Profiler();
+      }
+      this.cpu.setProfiler( this.profiler );
+      this.refreshTimer.start();
+    } else {
+      this.cpu.setProfiler( null );
+      this.refreshTimer.stop();
+    }
+    updTables();
+  }
+
+
+  private void doProfileReset()
+  {
+    this.profiler = null;
+    if( this.mnuProfileRecord.isSelected() ) {
+      this.profiler = new Z80Profiler();
+      this.cpu.setProfiler( this.profiler );
+    }
+    updTables();
+  }
+
+
+	/* --- private Methoden --- */
+
+  /*
+   * Die Methode sammelt die Unterprogramme des Aufrufbaums
+   * und fasst die Werte gleicher Einsprungadressen zusammen.
+   * Bei rekursiven Aufrufen werden die Gesamttaktzyklen
+   * nur fuer den aeussersten Aufruf gezaehlt.
+   *
+   * Feldinhalt: Aufrufe, Taktzyklen gesamt, Taktzyklen eigene
+   */
+  private static void collectSubs(
+			Map<Integer,long[]>  dstMap,
+			Z80Profiler.CallNode node,
+			Set<Integer>         activeAddrs )
+  {
+    for( Z80Profiler.CallNode child : node.getChildren() ) {
+      Integer addr   = child.getAddress();
+      long[]  values = dstMap.get( addr );
+      if( values == null ) {
+	values = new long[ 3 ];
+	dstMap.put( addr, values );
+      }
+      values[ 0 ] += child.getCallCount();
+      values[ 2 ] += child.getSelfTStates();
+      if( activeAddrs.add( addr ) ) {
+	values[ 1 ] += child.getTotalTStates();
+	collectSubs( dstMap, child, activeAddrs );
+	activeAddrs.remove( addr );
+      } else {
+	collectSubs( dstMap, child, activeAddrs );
+      }
+    }
+  }
+
+
+  private JTable createTable( ProfileTableModel model )
+  {
+    JTable table = GUIFactory.createTable( model );
+    table.setAutoCreateRowSorter( true );
+    table.setAutoResizeMode( JTable.AUTO_RESIZE_OFF );
+    table.setColumnSelectionAllowed( false );
+    table.setRowSelectionAllowed( true );
+    table.setFillsViewportHeight( true );
+    table.setSelectionMode( ListSelectionModel.SINGLE_SELECTION );
+    EmuUtil.setTableColWidths( table, 70, 120, 150, 100, 120, 80 );
+    return table;
+  }
+
+
+  private String getInstText( int addr )
+  {
+    String        rv    = null;
+    Z80ReassInstr instr = Z80Reassembler.reassInstruction(
+							this.memory,
+							addr );
+    if( instr != null ) {
+      String s = instr.getName();
+      if( s != null ) {
+	StringBuilder buf = new StringBuilder( 24 );
+	buf.append( s );
+	s = instr.getArg1();
+	if( s != null ) {
+	  buf.append( ' ' );
+	  buf.append( s );
+	  s = instr.getArg2();
+	  if( s != null ) {
+	    buf.append( ',' );
+	    buf.append( s );
+	  }
+	}
+	rv = buf.toString();
+      }
+    }
+    return rv;
+  }
+
+
+  private static Double getPercent( long value, long total )
+  {
+    return total > 0 ?
+		Math.round( (double) value * 1000.0 / (double) total ) / 10.0
+		: 0.0;
+  }
+
+
+  private void updFields()
+  {
+    boolean state = (this.profiler != null);
+    this.mnuFileSaveFlameGraph.setEnabled( state );
+    this.mnuProfileReset.setEnabled( state );
+    this.mnuProfileRefresh.setEnabled( state );
+  }
+
+
+  private void updTables()
+  {
+    java.util.List<Object[]> instRows = new ArrayList<>();
+    java.util.List<Object[]> subRows  = new ArrayList<>();
+    long                     total    = 0;
+    Z80Profiler              profiler = this.profiler;
+    if( profiler != null ) {
+      Map<Integer,String> labels = this.debugFrm.getPCLabels();
+      total                      = profiler.getTotalTStates();
+      for( int addr = 0; addr < 0x10000; addr++ ) {
+	long execCount = profiler.getExecCount( addr );
+	if( execCount > 0 ) {
+	  long tStates = profiler.getTStates( addr );
+	  instRows.add( new Object[] {
+				String.format( "%04X", addr ),
+				labels.get( addr ),
+				getInstText( addr ),
+				execCount,
+				tStates,
+				getPercent( tStates, total ) } );
+	}
+      }
+      Map<Integer,long[]> subs = new HashMap<>();
+      collectSubs( subs, profiler.getRootNode(), new HashSet<Integer>() );
+      for( Map.Entry<Integer,long[]> e : subs.entrySet() ) {
+	int    addr   = e.getKey().intValue();
+	long[] values = e.getValue();
+	subRows.add( new Object[] {
+				String.format( "%04X", addr ),
+				labels.get( addr ),
+				values[ 0 ],
+				values[ 1 ],
+				values[ 2 ],
+				getPercent( values[ 1 ], total ) } );
+      }
+    }
+    this.tableModelInst.setRows( instRows );
+    this.tableModelSub.setRows( subRows );
+    this.labelStatus.setText( String.format(
+			" %d Befehlsadressen, %d Unterprogramme,"
+				+ " %d Taktzyklen",
+			instRows.size(),
+			subRows.size(),
+			total ) );
+    updFields();
+  }
+}
@@ -8,6 +8,7 @@
 
 package jkcemu.tools.debugger;
 
+import jkcemu.base.EmuUtil;
 import jkcemu.programming.basic.VarDecl;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
@@ -241,8 +242,14 @@ public class VarData
   }
 
 
-  public void update( Z80MemView mem )
+  /*
+   * Rueckgabewert:
+   *   true: Bytes oder Wert haben sich geaendert
+   */
+  public boolean update( Z80MemView mem )
   {
+    String oldByteText  = this.byteText;
+    String oldValueText = this.valueText;
     if( this.size > 0 ) {
       StringBuilder buf  = new StringBuilder( (this.size * 3) + 10 );
       int           size = this.size;
@@ -317,6 +324,8 @@ public class VarData
 	}
 	break;
     }
+    return !EmuUtil.equals( oldByteText, this.byteText )
+		|| !EmuUtil.equals( oldValueText, this.valueText );
   }
 
 
@@ -122,6 +122,22 @@ public class VarTableModel extends AbstractTableModel
   }
 
 
+  /*
+   * Die Methode aktualisiert die Werte wie update(...),
+   * meldet aber nur die Zeilen als geaendert,
+   * deren Anzeige sich tatsaechlich geaendert hat.
+   */
+  public void updateChanged( Z80MemView memory )
+  {
+    int nRows = this.rows.size();
+    for( int i = 0; i < nRows; i++ ) {
+      if( this.rows.get( i ).update( memory ) ) {
+	fireTableRowsUpdated( i, i );
+      }
+    }
+  }
+
+
 	/* --- ueberschriebene Methoden --- */
 
   @Override
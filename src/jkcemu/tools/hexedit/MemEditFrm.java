@@ -1,5 +1,5 @@
 /*
- * (c) 2009-2020 Jens Mueller
+ * (c) 2009-2021 Jens Mueller
  *
  * Kleincomputer-Emulator
  *
@@ -8,11 +8,13 @@
 
 package jkcemu.tools.hexedit;
 
+import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.Event;
 import java.awt.GridBagConstraints;
 import java.awt.GridBagLayout;
 import java.awt.Insets;
+import java.awt.SystemColor;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.event.InputEvent;
@@ -20,6 +22,7 @@ import java.awt.event.KeyEvent;
 import java.io.File;
 import java.util.EventObject;
 import java.util.Properties;
+import javax.swing.JCheckBoxMenuItem;
 import javax.swing.JLabel;
 import javax.swing.JMenu;
 import javax.swing.JMenuItem;
@@ -27,6 +30,7 @@ import javax.swing.JOptionPane;
 import javax.swing.JTextField;
 import jkcemu.Main;
 import jkcemu.base.BaseDlg;
+import jkcemu.base.ByteColorSource;
 import jkcemu.base.EmuSys;
 import jkcemu.base.EmuUtil;
 import jkcemu.base.EmuThread;
@@ -38,48 +42,72 @@ import jkcemu.base.ScreenFrm;
 import jkcemu.print.PrintOptionsDlg;
 import jkcemu.print.PrintUtil;
 import jkcemu.text.TextFinder;
+import z80emu.Z80CPU;
+import z80emu.Z80MemAccessRecorder;
+import z80emu.Z80MemSnapshot;
 import z80emu.Z80Memory;
 
 
 public class MemEditFrm extends AbstractHexCharFrm
+			implements ByteColorSource
 {
-  private static final String HELP_PAGE  = "/help/tools/memeditor.htm";
-
-  private Z80Memory   memory;
-  private int         begAddr;
-  private int         endAddr;
-  private int         savedAddr;
-  private File        lastFile;
-  private String      textFind;
-  private JMenuItem   mnuRefresh;
-  private JMenuItem   mnuClose;
-  private JMenuItem   mnuBytesCopyHex;
-  private JMenuItem   mnuBytesCopyAscii;
-  private JMenuItem   mnuBytesCopyDump;
-  private JMenuItem   mnuPrintOptions;
-  private JMenuItem   mnuPrint;
-  private JMenuItem   mnuOverwrite;
-  private JMenuItem   mnuSaveAddr;
-  private JMenuItem   mnuGotoSavedAddr;
-  private JMenuItem   mnuSelectToSavedAddr;
-  private JMenuItem   mnuChecksum;
-  private JMenuItem   mnuFind;
-  private JMenuItem   mnuFindNext;
-  private JMenuItem   mnuHelpContent;
-  private JTextField  fldBegAddr;
-  private JTextField  fldEndAddr;
-  private HexDocument docBegAddr;
-  private HexDocument docEndAddr;
+  private static final String HELP_PAGE      = "/help/tools/memeditor.htm";
+  private static final int    HEATMAP_LEVELS = 16;
+  private static final int    LIVE_MILLIS    = 250;
+
+  private Z80Memory            memory;
+  private Z80MemAccessRecorder heatmapRecorder;
+  private long                 heatmapMax;
+  private Color[]              heatmapExecColors;
+  private Color[]              heatmapReadColors;
+  private Color[]              heatmapWriteColors;
+  private JCheckBoxMenuItem    mnuHeatmap;
+  private JCheckBoxMenuItem    mnuLiveUpdate;
+  private javax.swing.Timer    liveTimer;
+  private Z80CPU               liveCPU;
+  private Z80MemSnapshot       liveSnapshot;
+  private int                  begAddr;
+  private int                  endAddr;
+  private int                  savedAddr;
+  private File                 lastFile;
+  private String               textFind;
+  private JMenuItem            mnuRefresh;
+  private JMenuItem            mnuClose;
+  private JMenuItem            mnuBytesCopyHex;
+  private JMenuItem            mnuBytesCopyAscii;
+  private JMenuItem            mnuBytesCopyDump;
+  private JMenuItem            mnuPrintOptions;
+  private JMenuItem            mnuPrint;
+  private JMenuItem            mnuOverwrite;
+  private JMenuItem            mnuSaveAddr;
+  private JMenuItem            mnuGotoSavedAddr;
+  private JMenuItem            mnuSelectToSavedAddr;
+  private JMenuItem            mnuChecksum;
+  private JMenuItem            mnuFind;
+  private JMenuItem            mnuFindNext;
+  private JMenuItem            mnuHelpContent;
+  private JTextField           fldBegAddr;
+  private JTextField           fldEndAddr;
+  private HexDocument          docBegAddr;
+  private HexDocument          docEndAddr;
 
 
   public MemEditFrm( Z80Memory memory )
   {
-    this.memory    = memory;
-    this.begAddr   = -1;
-    this.endAddr   = -1;
-    this.savedAddr = -1;
-    this.lastFile  = null;
-    this.textFind  = null;
+    this.memory             = memory;
+    this.begAddr            = -1;
+    this.endAddr            = -1;
+    this.savedAddr          = -1;
+    this.lastFile           = null;
+    this.textFind           = null;
+    this.heatmapRecorder    = null;
+    this.heatmapMax         = 0;
+    this.heatmapExecColors  = createHeatmapColors( Color.RED );
+    this.heatmapReadColors  = createHeatmapColors( Color.GREEN );
+    this.heatmapWriteColors = createHeatmapColors( Color.BLUE );
+    this.liveCPU            = null;
+    this.liveSnapshot       = null;
+    this.liveTimer          = new javax.swing.Timer( LIVE_MILLIS, this );
     setTitle( "JKCEMU Speichereditor" );
 
 
@@ -161,6 +189,19 @@ public class MemEditFrm extends AbstractHexCharFrm
     JMenu mnuSettings = createMenuSettings();
     addDirectEditMenuItemTo( mnuSettings );
 
+    this.mnuHeatmap = GUIFactory.createCheckBoxMenuItem(
+			"Speicherzugriffe farblich hervorheben",
+			false );
+    this.mnuHeatmap.addActionListener( this );
+    mnuSettings.add( this.mnuHeatmap );
+
+    this.mnuLiveUpdate = GUIFactory.createCheckBoxMenuItem(
+			"Anzeige w\u00E4hrend der Programmausf\u00FChrung"
+				+ " aktualisieren",
+			false );
+    this.mnuLiveUpdate.addActionListener( this );
+    mnuSettings.add( this.mnuLiveUpdate );
+
 
     // Menu Hilfe
     JMenu mnuHelp       = createMenuHelp();
@@ -251,6 +292,52 @@ public class MemEditFrm extends AbstractHexCharFrm
   }
 
 
+	/* --- ByteColorSource --- */
+
+  /*
+   * Ausgefuehrte Bytes werden rot, beschriebene blau
+   * und nur gelesene gruen hinterlegt.
+   * Die Intensitaet richtet sich logarithmisch nach der Anzahl
+   * der Zugriffe im Verhaeltnis zur Adresse mit den meisten Zugriffen.
+   */
+  @Override
+  public Color getDataBackground( int idx )
+  {
+    Color                rv       = null;
+    Z80MemAccessRecorder recorder = this.heatmapRecorder;
+    if( (recorder != null)
+	&& (this.begAddr >= 0)
+	&& ((this.begAddr + idx) <= this.endAddr) )
+    {
+      int  addr  = this.begAddr + idx;
+      int  flags = recorder.getFlags( addr );
+      long n     = recorder.getAccessCount( addr );
+      if( (flags != 0) && (this.heatmapMax > 0) ) {
+	int level = (int) Math.round(
+			Math.log( 1.0 + (double) n )
+				/ Math.log( 1.0 + (double) this.heatmapMax )
+				* (double) (HEATMAP_LEVELS - 1) );
+	if( level < 0 ) {
+	  level = 0;
+	} else if( level >= HEATMAP_LEVELS ) {
+	  level = HEATMAP_LEVELS - 1;
+	}
+	if( (flags & (Z80MemAccessRecorder.FLAG_EXEC
+			| Z80MemAccessRecorder.FLAG_CODE)) != 0 )
+	{
+	  rv = this.heatmapExecColors[ level ];
+	}
+	else if( (flags & Z80MemAccessRecorder.FLAG_WRITE) != 0 ) {
+	  rv = this.heatmapWriteColors[ level ];
+	} else {
+	  rv = this.heatmapReadColors[ level ];
+	}
+      }
+    }
+    return rv;
+  }
+
+
 	/* --- ueberschriebene Methoden --- */
 
   @Override
@@ -304,6 +391,15 @@ public class MemEditFrm extends AbstractHexCharFrm
       } else if( src == this.mnuFindNext ) {
 	rv = true;
 	doFindNext();
+      } else if( src == this.mnuHeatmap ) {
+	rv = true;
+	doHeatmap();
+      } else if( src == this.mnuLiveUpdate ) {
+	rv = true;
+	doLiveUpdate();
+      } else if( src == this.liveTimer ) {
+	rv = true;
+	doLiveTimer();
       } else if( src == this.mnuHelpContent ) {
 	rv = true;
 	HelpFrm.openPage( HELP_PAGE );
@@ -315,6 +411,19 @@ public class MemEditFrm extends AbstractHexCharFrm
   }
 
 
+  @Override
+  public boolean doClose()
+  {
+    boolean rv = super.doClose();
+    if( rv ) {
+      this.liveTimer.stop();
+      this.liveCPU      = null;
+      this.liveSnapshot = null;
+    }
+    return rv;
+  }
+
+
   @Override
   public int getAddrOffset()
   {
@@ -322,12 +431,23 @@ public class MemEditFrm extends AbstractHexCharFrm
   }
 
 
+  /*
+   * Bei eingeschalteter Live-Aktualisierung wird aus dem Abbild
+   * des Adressraums gelesen, welches die CPU zwischen zwei Befehlen
+   * erstellt, damit die Anzeige nicht den sich gerade aendernden
+   * Speicher liest.
+   */
   @Override
   public int getDataByte( int idx )
   {
     int rv = 0;
     if( (this.begAddr >= 0) && ((this.begAddr + idx) <= this.endAddr) ) {
-      rv = this.memory.getMemByte( this.begAddr + idx, false );
+      Z80MemSnapshot snapshot = this.liveSnapshot;
+      if( snapshot != null ) {
+	rv = snapshot.getMemByte( this.begAddr + idx, false );
+      } else {
+	rv = this.memory.getMemByte( this.begAddr + idx, false );
+      }
     }
     return rv;
   }
@@ -420,6 +540,14 @@ public class MemEditFrm extends AbstractHexCharFrm
   }
 
 
+  @Override
+  protected void updView()
+  {
+    updHeatmapMax();
+    super.updView();
+  }
+
+
 	/* --- Aktionen --- */
 
   private void doBytesOverwrite()
@@ -512,6 +640,98 @@ public class MemEditFrm extends AbstractHexCharFrm
   }
 
 
+  private void doHeatmap()
+  {
+    Z80MemAccessRecorder recorder = null;
+    if( this.mnuHeatmap.isSelected() ) {
+      Z80CPU    cpu       = null;
+      ScreenFrm screenFrm = Main.getScreenFrm();
+      if( screenFrm != null ) {
+	cpu = screenFrm.getZ80CPU( this.memory );
+      }
+      if( cpu != null ) {
+	recorder = cpu.getMemAccessRecorder();
+	if( recorder == null ) {
+	  recorder = new Z80MemAccessRecorder();
+	  cpu.setMemAccessRecorder( recorder );
+	}
+      } else {
+	this.mnuHeatmap.setSelected( false );
+	BaseDlg.showErrorDlg(
+		this,
+		"Die CPU, die auf diesen Speicher zugreift,"
+			+ " konnte nicht ermittelt werden." );
+      }
+    }
+    this.heatmapRecorder = recorder;
+    updHeatmapMax();
+    this.hexCharFld.setColorSource( recorder != null ? this : null );
+  }
+
+
+  private void doLiveTimer()
+  {
+    Z80CPU cpu = this.liveCPU;
+    if( (cpu != null) && isVisible() ) {
+      Z80MemSnapshot snapshot = cpu.getMemSnapshot();
+      if( (snapshot != null) && (snapshot != this.liveSnapshot) ) {
+	if( this.heatmapRecorder != null ) {
+	  // Heatmap aendert sich auch ohne geaenderte Bytes
+	  updHeatmapMax();
+	  this.hexCharFld.repaint();
+	} else if( this.liveSnapshot == null ) {
+	  // erstes Abbild -> Anzeige komplett daraus neu zeichnen
+	  this.hexCharFld.repaint();
+	} else if( (this.begAddr >= 0) && (this.begAddr <= this.endAddr) )
+	{
+	  // nur die Zeilen mit geaenderten Bytes neu zeichnen
+	  int addr1 = snapshot.findFirstDiff(
+					this.liveSnapshot,
+					this.begAddr,
+					this.endAddr );
+	  if( addr1 >= 0 ) {
+	    int addr2 = snapshot.findLastDiff(
+					this.liveSnapshot,
+					addr1,
+					this.endAddr );
+	    this.hexCharFld.repaintBytes(
+				addr1 - this.begAddr,
+				addr2 - this.begAddr );
+	    updCaretPosFields();
+	  }
+	}
+	this.liveSnapshot = snapshot;
+      }
+      cpu.requestMemSnapshot();
+    }
+  }
+
+
+  private void doLiveUpdate()
+  {
+    this.liveTimer.stop();
+    this.liveCPU      = null;
+    this.liveSnapshot = null;
+    this.hexCharFld.repaint();
+    if( this.mnuLiveUpdate.isSelected() ) {
+      ScreenFrm screenFrm = Main.getScreenFrm();
+      if( screenFrm != null ) {
+	this.liveCPU = screenFrm.getZ80CPU( this.memory );
+      }
+      if( this.liveCPU != null ) {
+	this.liveCPU.requestMemSnapshot();
+	this.liveTimer.start();
+      } else {
+	this.mnuLiveUpdate.setSelected( false );
+	BaseDlg.showErrorDlg(
+		this,
+		"Die CPU, die auf diesen Speicher zugreift,"
+			+ " konnte nicht ermittelt werden." );
+      }
+    }
+  }
+
+
   private void doRefresh()
   {
     try {
@@ -537,4 +757,31 @@ public class MemEditFrm extends AbstractHexCharFrm
       }
     }
   }
+
+
+	/* --- private Methoden --- */
+
+  private static Color[] createHeatmapColors( Color color )
+  {
+    Color   bg = SystemColor.text;
+    Color[] rv = new Color[ HEATMAP_LEVELS ];
+    for( int i = 0; i < rv.length; i++ ) {
+      // auch die kleinste Stufe soll noch sichtbar sein
+      float f = 0.15F + (0.6F * (float) i / (float) (HEATMAP_LEVELS - 1));
+      rv[ i ] = new Color(
+		Math.round( (bg.getRed() * (1F - f)) + (color.getRed() * f) ),
+		Math.round( (bg.getGreen() * (1F - f))
+					+ (color.getGreen() * f) ),
+		Math.round( (bg.getBlue() * (1F - f))
+					+ (color.getBlue() * f) ) );
+    }
+    return rv;
+  }
+
+
+  private void updHeatmapMax()
+  {
+    Z80MemAccessRecorder recorder = this.heatmapRecorder;
+    this.heatmapMax = (recorder != null ? recorder.getMaxAccessCount() : 0);
+  }
 }
@@ -23,7 +23,10 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.Calendar;
 import java.util.HashMap;
 import java.util.Map;
@@ -34,6 +37,7 @@ import jkcemu.Main;
 import jkcemu.base.DeviceIO;
 import jkcemu.base.EmuUtil;
 import jkcemu.etc.ByteQueue;
+import jkcemu.etc.ByteRingBuffer;
 import jkcemu.file.FileTimesData;
 import z80emu.Z80CPU;
 import z80emu.Z80InterruptSource;
@@ -110,6 +114,12 @@ public class VDIP implements
    */
   private static final int DEFAULT_DATETIME_VALUE = 0x31940000;
 
+  /*
+   * Groesse der Bloecke, in denen Dateien gelesen und geschrieben werden
+   * bzw. die Datenbytes vom emulierten System entgegengenommen werden
+   */
+  private static final int IO_BLOCK_SIZE = 4096;
+
   private int                          vdipNum;
   private Z80CPU                       cpu;
   private String                       title;
@@ -127,13 +137,16 @@ public class VDIP implements
   private boolean                      readState;
   private boolean                      resetState;
   private boolean                      writeState;
-  private boolean                      writeEnabled;
+  private volatile boolean             writeEnabled;
   private volatile boolean             fileNameMapperEnabled;
   private volatile boolean             fileWrite;
   private volatile File                file;
   private volatile Long                fileMillis;
   private volatile RandomAccessFile    raf;
-  private volatile ByteQueue           ioOut;
+  private volatile ByteRingBuffer      ioOut;
+  private volatile long                ioOutRemain;
+  private ByteRingBuffer               ioOutRing;
+  private byte[]                       ioBuf;
   private volatile IOCmd               ioCmd;
   private volatile File                ioFile;
   private volatile Long                ioFileMillis;
@@ -144,6 +157,10 @@ public class VDIP implements
   private Long                         freeDiskSpace;
   private volatile VFATFileNameMapper  fileNameMapper;
   private Map<File,VFATFileNameMapper> dir2FileNameMapper;
+  private File                         dirCacheDir;
+  private long                         dirCacheMillis;
+  private boolean                      dirCacheMapperEnabled;
+  private byte[]                       dirCacheBytes;
   private volatile File                curDir;
   private volatile File                rootDir;
   private File                         newRootDir;
@@ -193,6 +210,13 @@ public class VDIP implements
     this.resultQueue           = new ByteQueue( 1024 );
     this.pio                   = new Z80PIO( title );
     this.ioOut                 = null;
+    this.ioOutRemain           = 0;
+    this.ioOutRing             = new ByteRingBuffer( IO_BLOCK_SIZE );
+    this.ioBuf                 = new byte[ IO_BLOCK_SIZE ];
+    this.dirCacheDir           = null;
+    this.dirCacheMillis        = 0;
+    this.dirCacheMapperEnabled = false;
+    this.dirCacheBytes         = null;
     this.ioCmd                 = IOCmd.NONE;
     this.ioFile                = null;
     this.ioFileMillis          = null;
@@ -564,9 +588,18 @@ public class VDIP implements
 		  if( this.writeEnabled ) {
 		    setWriteEnabled( false );
 		    int b = this.pio.fetchOutValuePortA( 0xFF );
-		    ByteQueue ioOut = this.ioOut;
+		    ByteRingBuffer ioOut = this.ioOut;
 		    if( ioOut != null ) {
-		      ioOut.add( (byte) b );
+		      ioOut.offer( (byte) b );
+		      /*
+		       * Solange noch Datenbytes erwartet werden
+		       * und im Puffer Platz ist,
+		       * wird das naechste Byte sofort angenommen,
+		       * ohne auf den IO-Thread zu warten.
+		       */
+		      if( (--this.ioOutRemain > 0) && !ioOut.isFull() ) {
+			setWriteEnabled( true );
+		      }
 		    } else {
 		      boolean done = false;
 		      if( b == '\r' ) {
@@ -769,6 +802,81 @@ public class VDIP implements
   }
 
 
+  /*
+   * Die Methode erzeugt die Ausgabe des DIR-Kommandos
+   * fuer das aktuelle Verzeichnis.
+   */
+  private byte[] createDirBytes( File curDir, File rootDir )
+  {
+    byte[] rv    = null;
+    File[] files = curDir.listFiles();
+    if( files != null ) {
+      StringBuilder buf = new StringBuilder( files.length * 16 );
+      // ggf. zuerst den Punkt und die zwei Punkte ausgeben
+      if( !curDir.equals( rootDir ) ) {
+	buf.append( ". DIR\r" );
+	buf.append( ".. DIR\r" );
+      }
+      /*
+       * Auf einem Betriebssystem mit Unterscheidung zwischen
+       * Gross-/Kleinschreibung kann nach der Wandlung des Dateinamens
+       * in Grossbuchstaben der gleiche Dateiname mehrfach vorkommen.
+       * Eine Mehrfachausgabe dieser Dateien wird unterbunden.
+       */
+      Set<String>        listedNames = new TreeSet<>();
+      VFATFileNameMapper fnMapper    = this.fileNameMapper;
+      for( File f : files ) {
+	String fName = f.getName();
+	if( fName != null ) {
+	  if( !fName.equals( "." ) && !fName.equals( ".." ) ) {
+	    boolean isShort = false;
+	    if( this.fileNameMapperEnabled ) {
+	      String sName = DeviceIO.getShortPathName( f.getPath() );
+	      if( sName != null ) {
+		sName = (new File( sName )).getName();
+	      }
+	      if( sName != null ) {
+		if( VFATFileNameMapper.isValidShortFileName( sName ) ) {
+		  fName   = sName;
+		  isShort = true;
+		}
+	      }
+	      if( !isShort && (fnMapper != null) ) {
+		fName   = fnMapper.toShortName( fName, curDir );
+		isShort = true;
+	      }
+	    }
+	    if( !isShort ) {
+	      if( !VFATFileNameMapper.isValidShortFileName( fName ) ) {
+		fName = null;
+	      }
+	    }
+	    if( fName != null ) {
+	      if( !listedNames.contains( fName ) ) {
+		listedNames.add( fName );
+		fName = fName.toUpperCase();
+		if( f.isFile() ) {
+		  buf.append( fName );
+		  buf.append( '\r' );
+		} else if( f.isDirectory() ) {
+		  buf.append( fName );
+		  buf.append( " DIR\r" );
+		}
+	      }
+	    }
+	  }
+	}
+      }
+      int len = buf.length();
+      rv      = new byte[ len ];
+      for( int i = 0; i < len; i++ ) {
+	rv[ i ] = (byte) buf.charAt( i );
+      }
+    }
+    return rv;
+  }
+
+
   private void doCmdExecute() throws IncompleteCmdException
   {
     if( this.debugLevel > 0 ) {
@@ -1195,6 +1303,7 @@ public class VDIP implements
 	  }
 	}
       }
+      invalidateDirCache();
       if( file.delete() ) {
 	this.dir2FileNameMapper.remove( file );
       } else {
@@ -1243,6 +1352,7 @@ public class VDIP implements
       if( this.readOnly || !file.canWrite() ) {
 	throwReadOnly();
       }
+      invalidateDirCache();
       if( !file.delete() ) {
 	throwCommandFailed();
       }
@@ -1346,62 +1456,33 @@ public class VDIP implements
 	if( (rootDir == null) || (curDir == null) ) {
 	  throwCommandFailed();
 	}
-	File[] files = curDir.listFiles();
-	if( files != null ) {
-	  // ggf. zuerst den Punkt und die zwei Punkte ausgeben
-	  if( !curDir.equals( rootDir ) ) {
-	    putString( ". DIR\r" );
-	    putString( ".. DIR\r" );
+	/*
+	 * Das Verzeichnis wird nur dann neu gelesen,
+	 * wenn es sich seit der letzten Ausgabe geaendert hat.
+	 */
+	byte[] dirBytes  = null;
+	long   dirMillis = curDir.lastModified();
+	if( (this.dirCacheBytes != null)
+	    && curDir.equals( this.dirCacheDir )
+	    && (dirMillis == this.dirCacheMillis)
+	    && (this.fileNameMapperEnabled == this.dirCacheMapperEnabled) )
+	{
+	  dirBytes = this.dirCacheBytes;
+	} else {
+	  dirBytes = createDirBytes( curDir, rootDir );
+	  if( dirBytes != null ) {
+	    this.dirCacheDir           = curDir;
+	    this.dirCacheMillis        = dirMillis;
+	    this.dirCacheMapperEnabled = this.fileNameMapperEnabled;
+	    this.dirCacheBytes         = dirBytes;
 	  }
-	  /*
-	   * Auf einem Betriebssystem mit Unterscheidung zwischen
-	   * Gross-/Kleinschreibung kann nach der Wandlung des Dateinamens
-	   * in Grossbuchstaben der gleiche Dateiname mehrfach vorkommen.
-	   * Eine Mehrfachausgabe dieser Dateien wird unterbunden.
-	   */
-	  Set<String>        listedNames = new TreeSet<>();
-	  VFATFileNameMapper fnMapper    = this.fileNameMapper;
-	  for( File f : files ) {
-	    String fName = f.getName();
-	    if( fName != null ) {
-	      if( !fName.equals( "." ) && !fName.equals( ".." ) ) {
-		boolean isShort = false;
-		if( this.fileNameMapperEnabled ) {
-		  String sName = DeviceIO.getShortPathName( f.getPath() );
-		  if( sName != null ) {
-		    sName = (new File( sName )).getName();
-		  }
-		  if( sName != null ) {
-		    if( VFATFileNameMapper.isValidShortFileName( sName ) ) {
-		      fName   = sName;
-		      isShort = true;
-		    }
-		  }
-		  if( !isShort && (fnMapper != null) ) {
-		    fName   = fnMapper.toShortName( fName, curDir );
-		    isShort = true;
-		  }
-		}
-		if( !isShort ) {
-		  if( !VFATFileNameMapper.isValidShortFileName( fName ) ) {
-		    fName = null;
-		  }
-		}
-		if( fName != null ) {
-		  if( !listedNames.contains( fName ) ) {
-		    listedNames.add( fName );
-		    fName = fName.toUpperCase();
-		    if( f.isFile() ) {
-		      putString( fName );
-		      putResultByte( '\r' );
-		    } else if( f.isDirectory() ) {
-		      putString( fName );
-		      putString( " DIR\r" );
-		    }
-		  }
-		}
-	      }
-	    }
+	}
+	if( dirBytes != null ) {
+	  try {
+	    writeResultBytes( dirBytes, 0, dirBytes.length );
+	  }
+	  catch( IOException ex ) {
+	    throwCommandFailed();
 	  }
 	}
       }
@@ -1669,6 +1750,7 @@ public class VDIP implements
 	 */
 	throwCommandFailed();
       }
+      invalidateDirCache();
       if( file.mkdir() ) {
 	if( !this.forceCurTimestamp ) {
 	  Long millis = this.ioFileMillis;
@@ -1783,6 +1865,7 @@ public class VDIP implements
 	}
 	RandomAccessFile raf = null;
 	try {
+	  invalidateDirCache();
 	  raf = new RandomAccessFile( file, "rw" );
 	  raf.seek( raf.length() );
 	  this.raf        = raf;
@@ -1882,11 +1965,11 @@ public class VDIP implements
       }
       InputStream in = null;
       try {
-	in = new FileInputStream( file );
-	int b = in.read();
-	while( b >= 0 ) {
-	  writeResultByte( b );
-	  b = in.read();
+	in    = new FileInputStream( file );
+	int n = in.read( this.ioBuf );
+	while( n >= 0 ) {
+	  writeResultBytes( this.ioBuf, 0, n );
+	  n = in.read( this.ioBuf );
 	}
       }
       catch( Exception ex ) {
@@ -1915,20 +1998,19 @@ public class VDIP implements
     synchronized( this.lockObj ) {
       long n = this.ioCount;
       try {
-	while( !err && (n > 0) ) {
-	  int b = -1;
-	  try {
-	    b = this.raf.read();
-	  }
-	  catch( EOFException ex ) {
-	    b = -1;
-	  }
-	  if( b < 0 ) {
+	FileChannel channel = this.raf.getChannel();
+	while( n > 0 ) {
+	  ByteBuffer buf = ByteBuffer.wrap(
+				this.ioBuf,
+				0,
+				(int) Math.min( n, this.ioBuf.length ) );
+	  int cnt = channel.read( buf );
+	  if( cnt <= 0 ) {
 	    err = true;
 	    break;
 	  }
-	  writeResultByte( b );
-	  --n;
+	  writeResultBytes( this.ioBuf, 0, cnt );
+	  n -= cnt;
 	}
       }
       catch( Exception ex ) {
@@ -1987,6 +2069,7 @@ public class VDIP implements
       if( this.forceLowerCase ) {
 	dstName = dstName.toLowerCase();
       }
+      invalidateDirCache();
       if( !srcFile.renameTo( new File( curDir, dstName ) ) ) {
 	throwCommandFailed();
       }
@@ -2008,13 +2091,10 @@ public class VDIP implements
   {
     synchronized( this.lockObj ) {
       try {
-	int n = 512;
-	this.ioOut = new ByteQueue( n );
-	setWriteEnabled( true );
+	long           n    = 512;
+	ByteRingBuffer ring = openDataIn( n );
 	while( n > 0 ) {
-	  this.ioOut.read();
-	  --n;
-	  setWriteEnabled( true );
+	  n -= readDataIn( ring, n );
 	}
       }
       catch( IOException ex ) {}
@@ -2054,12 +2134,9 @@ public class VDIP implements
       try {
 	long n = this.ioCount;
 	if( n > 0 ) {
-	  this.ioOut = new ByteQueue( 1 );
-	  setWriteEnabled( true );
+	  ByteRingBuffer ring = openDataIn( n );
 	  while( n > 0 ) {
-	    this.ioOut.read();
-	    --n;
-	    setWriteEnabled( true );
+	    n -= readDataIn( ring, n );
 	  }
 	}
       }
@@ -2122,24 +2199,26 @@ public class VDIP implements
       try {
 	long n = this.ioCount;
 	if( n > 0 ) {
-	  this.ioOut = new ByteQueue( 1 );
-	  setWriteEnabled( true );
+	  FileChannel    channel = this.raf.getChannel();
+	  ByteRingBuffer ring    = openDataIn( n );
 	  while( n > 0 ) {
-	    int b = this.ioOut.read();
+	    int cnt = readDataIn( ring, n );
 	    if( this.readOnly ) {
 	      err = true;
 	    }
 	    if( !err ) {
 	      try {
-		this.raf.write( b );
+		ByteBuffer buf = ByteBuffer.wrap( this.ioBuf, 0, cnt );
+		while( buf.hasRemaining() ) {
+		  channel.write( buf );
+		}
 		updLastModified( false );
 	      }
 	      catch( IOException ex ) {
 		err = true;
 	      }
 	    }
-	    --n;
-	    setWriteEnabled( true );
+	    n -= cnt;
 	  }
 	}
       }
@@ -2526,6 +2605,27 @@ public class VDIP implements
   }
 
 
+  private void invalidateDirCache()
+  {
+    this.dirCacheBytes = null;
+  }
+
+
+  /*
+   * Die Methode bereitet die Entgegennahme von Datenbytes vor,
+   * die das emulierte System sendet.
+   */
+  private ByteRingBuffer openDataIn( long n )
+  {
+    ByteRingBuffer ring = this.ioOutRing;
+    ring.clear();
+    this.ioOutRemain = n;
+    this.ioOut       = ring;
+    setWriteEnabled( true );
+    return ring;
+  }
+
+
   private void putDiskDetected()
   {
     putResult( "Disk Detected P2\r", "DD2" );
@@ -2624,6 +2724,29 @@ public class VDIP implements
   }
 
 
+  /*
+   * Die Methode liest die bereits empfangenen Datenbytes
+   * (maximal n und maximal die Groesse von ioBuf) in den Puffer ioBuf.
+   * Liegt noch kein Byte vor, wird gewartet.
+   * Hat das emulierte System aufgrund eines vollen Ringpuffers
+   * das Senden unterbrochen, wird es wieder freigegeben.
+   *
+   * Rueckgabewert: Anzahl der gelesenen Bytes
+   */
+  private int readDataIn( ByteRingBuffer ring, long n )
+					throws InterruptedIOException
+  {
+    int rv = ring.read(
+			this.ioBuf,
+			0,
+			(int) Math.min( n, this.ioBuf.length ) );
+    if( !this.writeEnabled ) {
+      setWriteEnabled( true );
+    }
+    return rv;
+  }
+
+
   private void putPrompt()
   {
     putResult( "D:\\>\r", ">\r" );
@@ -2803,6 +2926,22 @@ public class VDIP implements
   }
 
 
+  private void writeResultBytes(
+				byte[] buf,
+				int    pos,
+				int    len ) throws IOException
+  {
+    if( len > 0 ) {
+      boolean empty = this.resultQueue.isEmpty();
+      this.resultQueue.write( buf, pos, len );
+      if( empty ) {
+	this.pio.putInValuePortB( 0x00, 0x01 );
+	this.pio.strobePortB();
+      }
+    }
+  }
+
+
   private void writeResultByte( int b ) throws IOException
   {
     boolean empty = this.resultQueue.isEmpty();
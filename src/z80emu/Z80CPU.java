@@ -13,7 +13,10 @@ package z80emu;
 
 import java.io.PrintWriter;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.concurrent.atomic.AtomicInteger;
 
 
@@ -29,18 +32,15 @@ public class Z80CPU implements Runnable
 			DEBUG_STEP_INTO,
 			DEBUG_STEP_TO_RET };
 
-  private static class PCListenerItem
-  {
-    private Z80PCListener listener;
-    private int[]         pc;
-
-    private PCListenerItem( Z80PCListener listener, int... pc )
-    {
-      this.listener = listener;
-      this.pc       = pc;
-    }
-  };
+  // minimaler Abstand zwischen zwei Abbildern des Adressraums
+  public static final int MEM_SNAPSHOT_MIN_MILLIS = 100;
 
+  /*
+   * max. Anzahl Taktzyklen eines Blocks bei der Blockausfuehrung,
+   * bestimmt die max. Verzoegerung von Interrupts
+   * und der Meldung der verbrauchten Taktzyklen
+   */
+  private static final int BLOCK_MAX_TSTATES = 128;
 
   // Masken fuer die einzelnen Bits
   private static final int BIT0 = 0x01;
@@ -54,8 +54,10 @@ public class Z80CPU implements Runnable
 
 
   // private Attribute
-  private volatile PCListenerItem           pcListener;
+  private Map<Z80PCListener,int[]>          pcListenerMap;
+  private volatile Z80PCHooks               pcHooks;
   private volatile Z80AddressListener       addrListener;
+  private int                               lastMemAddr;
   private volatile Z80TStatesListener[]     tStatesListeners;
   private Z80Memory                         memory;
   private Z80IOSystem                       ioSys;
@@ -67,6 +69,15 @@ public class Z80CPU implements Runnable
   private Collection<Z80MaxSpeedListener>   maxSpeedListeners;
   private Collection<Z80StatusListener>     statusListeners;
   private volatile Z80InstrTStatesMngr      instTStatesMngr;
+  private volatile Z80Profiler              profiler;
+  private volatile Z80MemAccessRecorder     memAccessRecorder;
+  private Z80MemAccessRecorder              curMemAccessRecorder;
+  private volatile Z80ExecJournal           execJournal;
+  private Z80ExecJournal                    curExecJournal;
+  private volatile Z80MemSnapshot           memSnapshot;
+  private volatile boolean                  memSnapshotRequested;
+  private long                              memSnapshotVersion;
+  private long                              memSnapshotMillis;
   private boolean[]                         parity;
   private volatile boolean                  brakeEnabled;
   private volatile int                      maxSpeedKHz;
@@ -77,6 +88,9 @@ public class Z80CPU implements Runnable
   private volatile long                     speedTStates;
   private volatile long                     processedTStates;
   private volatile int                      instTStates;
+  private int                               blockTStates;
+  private boolean                           blockExec;
+  private volatile boolean                  blockExecEnabled;
   private volatile int                      debugCallLevel;
   private volatile Action                   action;
   private volatile int                      interruptMode;
@@ -135,8 +149,10 @@ public class Z80CPU implements Runnable
     this.memory                = memory;
     this.ioSys                 = ioSys;
     this.thread                = null;
-    this.pcListener            = null;
+    this.pcListenerMap         = new LinkedHashMap<>();
+    this.pcHooks               = null;
     this.addrListener          = null;
+    this.lastMemAddr           = 0;
     this.tStatesListeners      = null;
     this.interruptSources      = null;
     this.haltStateListeners    = new ArrayList<>();
@@ -147,12 +163,19 @@ public class Z80CPU implements Runnable
     this.debugTracer           = null;
     this.maxSpeedKHz           = -1;
     this.brakeEnabled          = true;
+    this.blockTStates          = 0;
+    this.blockExec             = false;
+    this.blockExecEnabled      = false;
     this.active                = false;
     this.haltState             = false;
     this.debugEnabled          = false;
     this.waitMode              = false;
     this.waitStates            = new AtomicInteger( 0 );
     this.waitMonitor           = new Object();
+    this.memSnapshot           = null;
+    this.memSnapshotRequested  = false;
+    this.memSnapshotVersion    = 0L;
+    this.memSnapshotMillis     = 0L;
 
     // Paritaeten fuer den Byte-Bereich berechnen
     this.parity = new boolean[ 0x100 ];
@@ -200,24 +223,23 @@ public class Z80CPU implements Runnable
 
 
   /*
-   * Es kann nur ein PCListener gesetzt werden.
+   * Es koennen mehrere PCListener gesetzt werden,
+   * auch fuer die gleiche Adresse.
+   * Wird ein bereits gesetzter Listener erneut hinzugefuegt,
+   * ersetzen die neuen Adressen die bisherigen.
+   * Die Methode kann aus jedem Thread aufgerufen werden.
    */
   public synchronized void addPCListener( Z80PCListener listener, int... pc )
   {
-    if( this.pcListener != null ) {
-      throw new IllegalStateException( "Zu viele Z80PCListeners" );
-    }
-    this.pcListener = new PCListenerItem( listener, pc );
+    this.pcListenerMap.put( listener, Arrays.copyOf( pc, pc.length ) );
+    updPCHooks();
   }
 
 
   public synchronized void removePCListener( Z80PCListener listener )
   {
-    PCListenerItem item = this.pcListener;
-    if( item != null ) {
-      if( item.listener == listener ) {
-	this.pcListener = null;
-      }
+    if( this.pcListenerMap.remove( listener ) != null ) {
+      updPCHooks();
     }
   }
 
@@ -328,6 +350,12 @@ public class Z80CPU implements Runnable
   }
 
 
+  public boolean isBlockExecEnabled()
+  {
+    return this.blockExecEnabled;
+  }
+
+
   public boolean isBrakeEnabled()
   {
     return this.brakeEnabled;
@@ -340,6 +368,21 @@ public class Z80CPU implements Runnable
   }
 
 
+  /*
+   * Bei der Blockausfuehrung werden mehrere Befehle hintereinander
+   * ohne die Pruefungen zwischen den Befehlen ausgefuehrt
+   * (siehe execBlock()).
+   * Solange der Debugger, der Profiler, die Aufzeichnung
+   * der Speicherzugriffe oder der Befehlsjournal aktiv sind
+   * oder ein AddressListener bzw. InstrTStatesMngr gesetzt ist,
+   * wird trotzdem jeder Befehl einzeln ausgefuehrt.
+   */
+  public void setBlockExecEnabled( boolean state )
+  {
+    this.blockExecEnabled = state;
+  }
+
+
   public synchronized void setBrakeEnabled( boolean state )
   {
     if( state != this.brakeEnabled ) {
@@ -371,6 +414,104 @@ public class Z80CPU implements Runnable
   }
 
 
+  public Z80ExecJournal getExecJournal()
+  {
+    return this.execJournal;
+  }
+
+
+  /*
+   * Die Methode liefert die Adresse des zuletzt erfolgten
+   * Speicherzugriffs, also die Adresse, die gerade am Adressbus anliegt.
+   * Damit koennen Systeme, bei denen eine Adressleitung
+   * mit einem Eingang verbunden ist, den Eingang erst dann setzen,
+   * wenn er tatsaechlich gelesen wird.
+   * Die Methode darf nur im CPU-Emulations-Thread aufgerufen werden.
+   */
+  public int getLastMemAddr()
+  {
+    return this.lastMemAddr;
+  }
+
+
+  public Z80MemAccessRecorder getMemAccessRecorder()
+  {
+    return this.memAccessRecorder;
+  }
+
+
+  /*
+   * Die Methode liefert das zuletzt erstellte Abbild des Adressraums
+   * oder null, wenn noch keins angefordert wurde.
+   */
+  public Z80MemSnapshot getMemSnapshot()
+  {
+    return this.memSnapshot;
+  }
+
+
+  public Z80Profiler getProfiler()
+  {
+    return this.profiler;
+  }
+
+
+  /*
+   * Die Methode setzt das Laufzeitprofil, in dem die ausgefuehrten Befehle
+   * gezaehlt werden sollen.
+   * Mit null wird die Profilierung ausgeschaltet.
+   */
+  public void setProfiler( Z80Profiler profiler )
+  {
+    this.profiler = profiler;
+  }
+
+
+  /*
+   * Die Methode setzt das Objekt, in dem die Speicherzugriffe
+   * aufgezeichnet werden sollen.
+   * Mit null wird die Aufzeichnung ausgeschaltet.
+   */
+  public void setMemAccessRecorder( Z80MemAccessRecorder recorder )
+  {
+    this.memAccessRecorder = recorder;
+  }
+
+
+  /*
+   * Die Methode setzt das Protokoll, in dem die Befehle
+   * fuer Rueckwaertsschritte aufgezeichnet werden sollen.
+   * Mit null wird die Protokollierung ausgeschaltet.
+   */
+  public void setExecJournal( Z80ExecJournal execJournal )
+  {
+    this.execJournal = execJournal;
+  }
+
+
+  /*
+   * Die Methode fordert ein neues Abbild des Adressraums an
+   * und kehrt sofort zurueck.
+   * Laeuft die CPU, erstellt sie das Abbild vor dem naechsten Befehl,
+   * ansonsten wird es im aufrufenden Thread erstellt.
+   * Anforderungen, die schneller als MEM_SNAPSHOT_MIN_MILLIS
+   * aufeinander folgen, werden ignoriert,
+   * damit mehrere Anzeigen die CPU nicht zusaetzlich bremsen.
+   */
+  public void requestMemSnapshot()
+  {
+    if( (System.currentTimeMillis() - this.memSnapshotMillis)
+					>= MEM_SNAPSHOT_MIN_MILLIS )
+    {
+      if( this.active && !this.pause ) {
+	this.memSnapshotRequested = true;
+      } else {
+	createMemSnapshot();
+      }
+    }
+  }
+
+
   public void reset( boolean powerOn )
   {
     this.nmiFired          = false;
@@ -395,6 +536,10 @@ public class Z80CPU implements Runnable
     this.preCode           = -1;
     this.regPC             = 0;
     setHaltState( false );
+    Z80ExecJournal execJournal = this.execJournal;
+    if( execJournal != null ) {
+      execJournal.clear();
+    }
     if( powerOn ) {
       setRegF( 0 );
       this.regA  = 0xFF;
@@ -516,6 +661,30 @@ public class Z80CPU implements Runnable
   }
 
 
+  /*
+   * Die Methode fuehrt im aufrufenden Thread so lange Befehle aus,
+   * bis mindestens die uebergebene Anzahl an Taktzyklen verarbeitet ist.
+   * Damit kann eine zweite CPU im Gleichschritt mit der CPU
+   * emuliert werden, in deren Thread die Methode aufgerufen wird.
+   * Die Geschwindigkeitsbremse ist dabei ausgeschaltet,
+   * da die Geschwindigkeit von der aufrufenden CPU bestimmt wird.
+   * fireExit() beendet nur die aktuelle Ausfuehrung.
+   *
+   * Rueckgabewert: Anzahl der tatsaechlich verarbeiteten Taktzyklen
+   */
+  public long execTStates( int tStates )
+  {
+    long begTStates = this.processedTStates;
+    this.active     = true;
+    try {
+      execLoop( begTStates, begTStates + tStates );
+    }
+    catch( InterruptedException ex ) {}
+    long rv = this.processedTStates - begTStates;
+    return rv > 0 ? rv : 0;
+  }
+
+
 	/* --- Empfang externer Signale aus einen anderen Thread --- */
 
   public void fireExit()
@@ -1119,6 +1288,87 @@ public class Z80CPU implements Runnable
   }
 
 
+	/* --- Zustand fuer das Ausfuehrungsprotokoll --- */
+
+  void loadJournalState( int[] buf, int pos )
+  {
+    this.regPC        = buf[ pos ];
+    this.regSP        = buf[ pos + 1 ];
+    setRegAF( buf[ pos + 2 ] );
+    setRegBC( buf[ pos + 3 ] );
+    setRegDE( buf[ pos + 4 ] );
+    setRegHL( buf[ pos + 5 ] );
+    setRegAF2( buf[ pos + 6 ] );
+    setRegBC2( buf[ pos + 7 ] );
+    setRegDE2( buf[ pos + 8 ] );
+    setRegHL2( buf[ pos + 9 ] );
+    this.regIX        = buf[ pos + 10 ];
+    this.regIY        = buf[ pos + 11 ];
+    this.interruptReg = buf[ pos + 12 ];
+    setRegR( buf[ pos + 13 ] );
+    this.instBegPC    = this.regPC;
+    this.preCode      = -1;
+
+    int afterHaltPC = buf[ pos + 14 ];
+    this.afterHaltPC = (afterHaltPC >= 0 ?
+				Integer.valueOf( afterHaltPC )
+				: null);
+
+    int bits = buf[ pos + Z80ExecJournal.STATE_IDX_BITS ];
+    this.iff1              = ((bits & 0x01) != 0);
+    this.iff2              = ((bits & 0x02) != 0);
+    this.lastInstWasEIorDI = ((bits & 0x04) != 0);
+    this.interruptMode     = (bits >> 4) & 0x03;
+
+    boolean haltState = ((bits & 0x08) != 0);
+    if( haltState != this.haltState ) {
+      this.haltState = haltState;
+      synchronized( this.haltStateListeners ) {
+	for( Z80HaltStateListener listener : this.haltStateListeners ) {
+	  listener.z80HaltStateChanged( this, haltState );
+	}
+      }
+    }
+  }
+
+
+  void saveJournalState( int[] buf, int pos )
+  {
+    buf[ pos ]      = this.regPC;
+    buf[ pos + 1 ]  = this.regSP;
+    buf[ pos + 2 ]  = getRegAF();
+    buf[ pos + 3 ]  = getRegBC();
+    buf[ pos + 4 ]  = getRegDE();
+    buf[ pos + 5 ]  = getRegHL();
+    buf[ pos + 6 ]  = getRegAF2();
+    buf[ pos + 7 ]  = getRegBC2();
+    buf[ pos + 8 ]  = getRegDE2();
+    buf[ pos + 9 ]  = getRegHL2();
+    buf[ pos + 10 ] = this.regIX;
+    buf[ pos + 11 ] = this.regIY;
+    buf[ pos + 12 ] = this.interruptReg;
+    buf[ pos + 13 ] = getRegR();
+    buf[ pos + 14 ] = (this.afterHaltPC != null ?
+				this.afterHaltPC.intValue()
+				: -1);
+
+    int bits = (this.interruptMode & 0x03) << 4;
+    if( this.iff1 ) {
+      bits |= 0x01;
+    }
+    if( this.iff2 ) {
+      bits |= 0x02;
+    }
+    if( this.lastInstWasEIorDI ) {
+      bits |= 0x04;
+    }
+    if( this.haltState ) {
+      bits |= 0x08;
+    }
+    buf[ pos + Z80ExecJournal.STATE_IDX_BITS ] = bits;
+  }
+
+
 	/* --- Runnable --- */
 
   @Override
@@ -1129,219 +1379,11 @@ public class Z80CPU implements Runnable
       this.thread = Thread.currentThread();
     }
 
-    int opCode = 0;
     resetSpeed();
     updStatusListeners( null, null );
 
     try {
-      while( this.active ) {
-	this.instTStates = 0;
-	if( this.preCode < 0 ) {
-	  this.instBegPC = this.regPC;
-
-	  // WAIT-Mode
-	  if( this.waitMode ) {
-	    Z80TStatesListener[] tStatesListeners = this.tStatesListeners;
-	    if( tStatesListeners != null ) {
-	      while( this.active && this.waitMode ) {
-		this.processedTStates++;
-		this.speedTStates++;
-		for( int i = 0; i < tStatesListeners.length; i++ ) {
-		  tStatesListeners[ i ].z80TStatesProcessed( this, 1 );
-		}
-	      }
-	    }
-	  }
-
-	  /*
-	   * Geschwindigkeitsverwaltung
-	   */
-	  checkSpeedBrake();
-
-
-	  /*
-	   * Interrupt-Verwaltung
-	   *
-	   * Unmittelbar nach einem EI- und DI-Befehl darf kein
-	   * maskierbarer Interrupt auftreten.
-	   */
-	  boolean            nmiAccepted     = false;
-	  Z80InterruptSource interruptSource = null;
-	  Z80Breakpoint      breakpoint      = null;
-	  if( this.nmiFired ) {
-	    this.nmiFired = false;
-	    this.iff2     = this.iff1;
-	    this.iff1     = false;
-	    setHaltState( false );
-	    incRegR();
-	    doPush( this.regPC );
-	    this.regPC  = 0x0066;
-	    nmiAccepted = true;
-	    this.processedTStates += 11;
-	    this.speedTStates     += 11;
-	  } else {
-	    if( this.lastInstWasEIorDI ) {
-	      this.lastInstWasEIorDI = false;
-	    } else {
-	      if( this.iff1 && (this.interruptSources != null) ) {
-		for( Z80InterruptSource iSource : this.interruptSources ) {
-		  if( iSource.isInterruptAccepted() ) {
-		    break;
-		  }
-		  if( iSource.isInterruptRequested() ) {
-		    this.iff1   = false;
-		    this.iff2   = false;
-		    int iVector = iSource.interruptAccept() & 0xFF;
-		    setHaltState( false );
-		    incRegR();
-
-		    switch( this.interruptMode ) {
-		      case 1:
-			doPush( this.regPC );
-			this.regPC = 0x0038;
-			this.instTStates += 13;
-			break;
-
-		      case 2:
-			{
-			  int m = (this.interruptReg << 8) | iVector;
-			  doPush( this.regPC );
-			  this.regPC = readMemWord( m );
-			  this.instTStates += 19;
-			}
-			break;
-
-		      default:			// IM 0
-			this.instBegPC = this.regPC;
-			this.preCode   = -1;
-			execInst( iVector );
-			// insgesamt 13 bei RST-Befehl
-			this.instTStates += 2;
-		    }
-		    this.processedTStates += this.instTStates;
-		    this.speedTStates     += this.instTStates;
-		    this.instTStates = 0;
-		    interruptSource  = iSource;
-		  }
-		}
-	      }
-	    }
-	  }
-
-	  /*
-	   * Debugger- und Pausesteuerung
-	   */
-	  if( (this.action == Action.PAUSE) || this.debugEnabled ) {
-	    if( this.debugEnabled && (this.debugTracer != null) ) {
-	      doDebugTrace( nmiAccepted, interruptSource );
-	    }
-
-	    /*
-	     * Pruefen, ob der Debugger anhalten soll
-	     */
-	    boolean         pause       = false;
-	    Z80Breakpoint[] breakpoints = this.breakpoints;
-	    if( breakpoints != null ) {
-	      for( int i = 0; i < breakpoints.length; i++ ) {
-		if( breakpoints[ i ].matches( this, interruptSource ) ) {
-		  breakpoint = breakpoints[ i ];
-		  break;
-		}
-	      }
-	    }
-	    if( (breakpoint == null)
-		&& ((this.action == Action.PAUSE)
-			|| (this.action == Action.DEBUG_STOP)
-			|| (this.action == Action.DEBUG_STEP_INTO)
-			|| ((this.action == Action.DEBUG_STEP_OVER)
-			    && (((this.regPC == this.stepOverBreakAddr)
-					|| (this.stepOverBreakAddr < 0))
-			        || (this.lastInstWasRET
-					&& (this.regSP == this.stepOverSP))))
-			|| ((this.action == Action.DEBUG_WALK)
-				&& ((this.regPC == this.walkBreakAddr)
-				    || (this.walkBreakAddr < 0)))
-			|| ((this.action == Action.DEBUG_STEP_TO_RET)
-				&& (this.debugCallLevel <= 0)
-				&& debugMatchesRETX())) )
-	    {
-	      pause = true;
-	    }
-	    if( pause || (breakpoint != null) ) {
-	      this.pause             = true;
-	      this.stepOverBreakAddr = -1;
-	      this.stepOverSP        = -1;
-	      this.walkBreakAddr     = -1;
-	      updStatusListeners( breakpoint, interruptSource );
-	      synchronized( this.waitMonitor ) {
-		this.speedNanosEnd = System.nanoTime();
-		try {
-		  this.waitMonitor.wait();
-		}
-		catch( IllegalMonitorStateException ex ) {}
-		finally {
-		  if( this.speedNanosEnd > 0L ) {
-		    this.speedNanosBeg += (System.nanoTime()
-						- this.speedNanosEnd);
-		  }
-		  this.speedNanosEnd = -1L;
-		  this.pause = false;
-		}
-	      }
-	      updStatusListeners( null, null );
-	      if( !this.active ) {
-		break;
-	      }
-	    }
-	  }
-	  this.lastInstWasRET = false;
-
-	  // ggf. in PCListener springen
-	  if( !this.haltState ) {
-	    PCListenerItem pcListener = this.pcListener;
-	    if( pcListener != null ) {
-	      for( int i = 0; i < pcListener.pc.length; i++ ) {
-		if( pcListener.pc[ i ] == this.regPC ) {
-		  pcListener.listener.z80PCChanged( this, this.regPC );
-		}
-	      }
-	    }
-	  }
-	}
-
-	if( this.haltState ) {
-	  // bei HALT NOP-Befehle ausfuehren
-	  incRegR();
-	  this.instTStates += 4;
-	} else {
-	  // BefehlsOpCode lesen und PC weitersetzen
-	  opCode     = readMemByteM1( this.regPC );
-	  this.regPC = (this.regPC + 1) & 0xFFFF;
-	  execInst( opCode );
-	}
-
-	Z80InstrTStatesMngr tStatesMngr = this.instTStatesMngr;
-	if( tStatesMngr != null ) {
-	  this.instTStates = tStatesMngr.z80IntructionProcessed(
-							this,
-							this.instBegPC,
-							this.instTStates );
-	}
-
-	this.instTStates      += this.waitStates.getAndSet( 0 );
-	this.processedTStates += this.instTStates;
-	this.speedTStates     += this.instTStates;
-
-	// verbrauchte Anzahl Taktzyklen melden
-	Z80TStatesListener[] tStatesListeners = this.tStatesListeners;
-	if( tStatesListeners != null ) {
-	  for( int i = 0; i < tStatesListeners.length; i++ ) {
-	    tStatesListeners[ i ].z80TStatesProcessed(
-						this,
-						this.instTStates );
-	  }
-	}
-      }
+      execLoop( -1L, -1L );
     }
     catch( InterruptedException ex ) {}
     finally {
@@ -1359,6 +1401,16 @@ public class Z80CPU implements Runnable
 
 	/* --- private Methoden --- */
 
+  private synchronized void createMemSnapshot()
+  {
+    this.memSnapshotRequested = false;
+    this.memSnapshotMillis    = System.currentTimeMillis();
+    this.memSnapshot          = new Z80MemSnapshot(
+					this.memory,
+					++this.memSnapshotVersion );
+  }
+
+
   private void checkSpeedBrake() throws InterruptedException
   {
     if( this.brakeEnabled
@@ -1394,6 +1446,344 @@ public class Z80CPU implements Runnable
   }
 
 
+  /*
+   * Ablegen der Rueckkehradresse bei CALL, RST, Interrupt und NMI
+   *
+   * Nur hierbei wird dem Profiler ein neuer Aufrufrahmen gemeldet,
+   * nicht jedoch bei PUSH-Befehlen.
+   */
+  private void doPushRetAddr()
+  {
+    doPush( this.regPC );
+    Z80Profiler profiler = this.profiler;
+    if( profiler != null ) {
+      profiler.z80FramePushed( this.regSP );
+    }
+  }
+
+
+  /*
+   * Befehlsausfuehrung
+   *
+   * Ist endTStates nicht negativ, endet die Ausfuehrung,
+   * sobald der Zaehler der verarbeiteten Taktzyklen diesen Wert erreicht
+   * oder zwischenzeitlich zurueckgesetzt wurde.
+   * Die Geschwindigkeitsbremse ist dann ausgeschaltet.
+   */
+  private void execLoop(
+			long begTStates,
+			long endTStates ) throws InterruptedException
+  {
+    int opCode = 0;
+    while( this.active ) {
+      if( endTStates >= 0 ) {
+	long tStates = this.processedTStates;
+	if( (tStates >= endTStates) || (tStates < begTStates) ) {
+	  break;
+	}
+      }
+      this.instTStates = 0;
+
+      // Aufzeichnung der Speicherzugriffe fuer diesen Befehl festlegen
+      Z80MemAccessRecorder memAccessRecorder = this.memAccessRecorder;
+      if( memAccessRecorder != null ) {
+	if( !memAccessRecorder.isRecording() ) {
+	  memAccessRecorder = null;
+	}
+      }
+      this.curMemAccessRecorder = memAccessRecorder;
+      if( this.preCode < 0 ) {
+	this.curExecJournal = this.execJournal;
+      }
+
+      if( this.preCode < 0 ) {
+	this.instBegPC = this.regPC;
+
+	// angefordertes Abbild des Adressraums erstellen
+	if( this.memSnapshotRequested ) {
+	  createMemSnapshot();
+	}
+
+	// WAIT-Mode
+	if( this.waitMode ) {
+	  Z80TStatesListener[] tStatesListeners = this.tStatesListeners;
+	  if( tStatesListeners != null ) {
+	    while( this.active && this.waitMode ) {
+	      this.processedTStates++;
+	      this.speedTStates++;
+	      for( int i = 0; i < tStatesListeners.length; i++ ) {
+		tStatesListeners[ i ].z80TStatesProcessed( this, 1 );
+	      }
+	    }
+	  }
+	}
+
+	/*
+	 * Geschwindigkeitsverwaltung
+	 */
+	if( endTStates < 0 ) {
+	  checkSpeedBrake();
+	}
+
+
+	/*
+	 * Interrupt-Verwaltung
+	 *
+	 * Unmittelbar nach einem EI- und DI-Befehl darf kein
+	 * maskierbarer Interrupt auftreten.
+	 */
+	boolean            nmiAccepted     = false;
+	Z80InterruptSource interruptSource = null;
+	Z80Breakpoint      breakpoint      = null;
+	if( this.nmiFired ) {
+	  this.nmiFired = false;
+	  this.iff2     = this.iff1;
+	  this.iff1     = false;
+	  setHaltState( false );
+	  incRegR();
+	  doPushRetAddr();
+	  this.regPC  = 0x0066;
+	  nmiAccepted = true;
+	  this.processedTStates += 11;
+	  this.speedTStates     += 11;
+	} else {
+	  if( this.lastInstWasEIorDI ) {
+	    this.lastInstWasEIorDI = false;
+	  } else {
+	    if( this.iff1 && (this.interruptSources != null) ) {
+	      for( Z80InterruptSource iSource : this.interruptSources ) {
+		if( iSource.isInterruptAccepted() ) {
+		  break;
+		}
+		if( iSource.isInterruptRequested() ) {
+		  this.iff1   = false;
+		  this.iff2   = false;
+		  int iVector = iSource.interruptAccept() & 0xFF;
+		  setHaltState( false );
+		  incRegR();
+
+		  switch( this.interruptMode ) {
+		    case 1:
+		      doPushRetAddr();
+		      this.regPC = 0x0038;
+		      this.instTStates += 13;
+		      break;
+
+		    case 2:
+		      {
+			int m = (this.interruptReg << 8) | iVector;
+			doPushRetAddr();
+			this.regPC = readMemWord( m );
+			this.instTStates += 19;
+		      }
+		      break;
+
+		    default:                  // IM 0
+		      this.instBegPC = this.regPC;
+		      this.preCode   = -1;
+		      execInst( iVector );
+		      // insgesamt 13 bei RST-Befehl
+		      this.instTStates += 2;
+		  }
+		  this.processedTStates += this.instTStates;
+		  this.speedTStates     += this.instTStates;
+		  this.instTStates = 0;
+		  interruptSource  = iSource;
+		}
+	      }
+	    }
+	  }
+	}
+
+	/*
+	 * Debugger- und Pausesteuerung
+	 */
+	if( (this.action == Action.PAUSE) || this.debugEnabled ) {
+	  if( this.debugEnabled && (this.debugTracer != null) ) {
+	    doDebugTrace( nmiAccepted, interruptSource );
+	  }
+
+	  /*
+	   * Pruefen, ob der Debugger anhalten soll
+	   */
+	  boolean         pause       = false;
+	  Z80Breakpoint[] breakpoints = this.breakpoints;
+	  if( breakpoints != null ) {
+	    for( int i = 0; i < breakpoints.length; i++ ) {
+	      if( breakpoints[ i ].matches( this, interruptSource ) ) {
+		breakpoint = breakpoints[ i ];
+		break;
+	      }
+	    }
+	  }
+	  if( (breakpoint == null)
+	      && ((this.action == Action.PAUSE)
+		      || (this.action == Action.DEBUG_STOP)
+		      || (this.action == Action.DEBUG_STEP_INTO)
+		      || ((this.action == Action.DEBUG_STEP_OVER)
+			  && (((this.regPC == this.stepOverBreakAddr)
+				      || (this.stepOverBreakAddr < 0))
+			      || (this.lastInstWasRET
+				      && (this.regSP == this.stepOverSP))))
+		      || ((this.action == Action.DEBUG_WALK)
+			      && ((this.regPC == this.walkBreakAddr)
+				  || (this.walkBreakAddr < 0)))
+		      || ((this.action == Action.DEBUG_STEP_TO_RET)
+			      && (this.debugCallLevel <= 0)
+			      && debugMatchesRETX())) )
+	  {
+	    pause = true;
+	  }
+	  if( pause || (breakpoint != null) ) {
+	    this.pause             = true;
+	    this.stepOverBreakAddr = -1;
+	    this.stepOverSP        = -1;
+	    this.walkBreakAddr     = -1;
+	    updStatusListeners( breakpoint, interruptSource );
+	    synchronized( this.waitMonitor ) {
+	      this.speedNanosEnd = System.nanoTime();
+	      try {
+		this.waitMonitor.wait();
+	      }
+	      catch( IllegalMonitorStateException ex ) {}
+	      finally {
+		if( this.speedNanosEnd > 0L ) {
+		  this.speedNanosBeg += (System.nanoTime()
+					      - this.speedNanosEnd);
+		}
+		this.speedNanosEnd = -1L;
+		this.pause = false;
+	      }
+	    }
+	    updStatusListeners( null, null );
+	    if( !this.active ) {
+	      break;
+	    }
+	  }
+	}
+	this.lastInstWasRET = false;
+
+	// ggf. in PCListener springen
+	if( !this.haltState ) {
+	  Z80PCHooks pcHooks = this.pcHooks;
+	  if( pcHooks != null ) {
+	    if( pcHooks.contains( this.regPC ) ) {
+	      pcHooks.dispatch( this, this.regPC );
+	    }
+	  }
+	}
+      }
+
+      // Laufzeitprofil
+      Z80Profiler profiler = this.profiler;
+      if( (profiler != null) && (this.preCode < 0) ) {
+	profiler.z80InstructionBeg( this.regPC, this.regSP );
+      }
+      if( (memAccessRecorder != null)
+	  && (this.preCode < 0)
+	  && !this.haltState )
+      {
+	memAccessRecorder.z80InstructionBeg( this.regPC );
+      }
+      if( (this.curExecJournal != null) && (this.preCode < 0) ) {
+	this.curExecJournal.z80InstructionBeg( this );
+      }
+
+      if( this.haltState ) {
+	// bei HALT NOP-Befehle ausfuehren
+	incRegR();
+	this.instTStates += 4;
+      } else if( this.blockExecEnabled
+		 && (this.preCode < 0)
+		 && !this.debugEnabled
+		 && (profiler == null)
+		 && (memAccessRecorder == null)
+		 && (this.curExecJournal == null)
+		 && (this.instTStatesMngr == null)
+		 && (this.addrListener == null) )
+      {
+	execBlock();
+      } else {
+	// BefehlsOpCode lesen und PC weitersetzen
+	opCode     = readMemByteM1( this.regPC );
+	this.regPC = (this.regPC + 1) & 0xFFFF;
+	execInst( opCode );
+      }
+
+      Z80InstrTStatesMngr tStatesMngr = this.instTStatesMngr;
+      if( tStatesMngr != null ) {
+	this.instTStates = tStatesMngr.z80IntructionProcessed(
+						      this,
+						      this.instBegPC,
+						      this.instTStates );
+      }
+
+      this.instTStates      += this.waitStates.getAndSet( 0 );
+      this.processedTStates += this.instTStates;
+      this.speedTStates     += this.instTStates;
+      if( profiler != null ) {
+	profiler.z80InstructionEnd( this.instTStates );
+      }
+
+      // verbrauchte Anzahl Taktzyklen melden
+      Z80TStatesListener[] tStatesListeners = this.tStatesListeners;
+      if( tStatesListeners != null ) {
+	for( int i = 0; i < tStatesListeners.length; i++ ) {
+	  tStatesListeners[ i ].z80TStatesProcessed(
+					      this,
+					      this.instTStates );
+	}
+      }
+    }
+  }
+
+
+  /*
+   * Blockausfuehrung:
+   * Es werden Befehle hintereinander ausgefuehrt, ohne dass dazwischen
+   * Interrupts, Haltepunkte und die Geschwindigkeitsbremse
+   * geprueft werden.
+   * Die verbrauchten Taktzyklen werden am Ende des Blocks
+   * als Summe gemeldet, bei einem E/A-Zugriff jedoch bereits vorher,
+   * damit die E/A-Bausteine den aktuellen Stand sehen.
+   * Der Block endet nach BLOCK_MAX_TSTATES Taktzyklen
+   * oder wenn der naechste Befehl wieder die Pruefungen benoetigt,
+   * z.B. nach EI, DI und HALT oder vor der Adresse eines PCListeners.
+   * Da die Befehle wie im Einzelbetrieb dekodiert werden,
+   * wirkt sich selbstmodifizierender Code sofort aus.
+   */
+  private void execBlock()
+  {
+    Z80PCHooks pcHooks = this.pcHooks;
+    int        tStates = this.instTStates;
+    this.blockTStates  = tStates;
+    this.blockExec     = true;
+    try {
+      do {
+	this.instTStates = 0;
+	this.instBegPC   = this.regPC;
+	do {
+	  int opCode = readMemByteM1( this.regPC );
+	  this.regPC = (this.regPC + 1) & 0xFFFF;
+	  execInst( opCode );
+	} while( this.preCode >= 0 );
+	this.blockTStates += this.instTStates;
+	tStates           += this.instTStates;
+      } while( (tStates < BLOCK_MAX_TSTATES)
+	       && !this.haltState
+	       && !this.lastInstWasEIorDI
+	       && !this.nmiFired
+	       && !this.waitMode
+	       && !this.memSnapshotRequested
+	       && ((pcHooks == null) || !pcHooks.contains( this.regPC )) );
+    }
+    finally {
+      this.blockExec = false;
+    }
+    this.instTStates = this.blockTStates;
+  }
+
+
   public void execInst( int opCode )
   {
     incRegR();
@@ -2149,7 +2539,7 @@ public class Z80CPU implements Runnable
 	  int nn = nextWord();
 	  setStepOverBreakAddrAndSP();
 	  if( !this.flagZero ) {
-	    doPush( this.regPC );
+	    doPushRetAddr();
 	    this.regPC = nn;
 	    this.instTStates += 17;
 	  } else {
@@ -2170,7 +2560,7 @@ public class Z80CPU implements Runnable
 	break;
       case 0xC7:				// RST 00
 	setStepOverBreakAddrAndSP();
-	doPush( this.regPC );
+	doPushRetAddr();
 	this.regPC = 0x0000;
 	this.instTStates += 11;
 	break;
@@ -2212,7 +2602,7 @@ public class Z80CPU implements Runnable
 	  int nn = nextWord();
 	  setStepOverBreakAddrAndSP();
 	  if( this.flagZero ) {
-	    doPush( this.regPC );
+	    doPushRetAddr();
 	    this.regPC = nn;
 	    this.instTStates += 17;
 	  } else {
@@ -2224,7 +2614,7 @@ public class Z80CPU implements Runnable
 	{
 	  int nn = nextWord();
 	  setStepOverBreakAddrAndSP();
-	  doPush( this.regPC );
+	  doPushRetAddr();
 	  this.regPC = nn;
 	  this.instTStates += 17;
 	}
@@ -2235,7 +2625,7 @@ public class Z80CPU implements Runnable
 	break;
       case 0xCF:				// RST 08
 	setStepOverBreakAddrAndSP();
-	doPush( this.regPC );
+	doPushRetAddr();
 	this.regPC = 0x0008;
 	this.instTStates += 11;
 	break;
@@ -2275,7 +2665,7 @@ public class Z80CPU implements Runnable
 	break;
       case 0xD3:				// OUT (n),A
 	if( this.ioSys != null ) {
-	  this.ioSys.writeIOByte(
+	  writeIOByte(
 			(this.regA << 8) | nextByte(),
 			this.regA,
 			11 );
@@ -2287,7 +2677,7 @@ public class Z80CPU implements Runnable
 	  int nn = nextWord();
 	  setStepOverBreakAddrAndSP();
 	  if( !this.flagCarry ) {
-	    doPush( this.regPC );
+	    doPushRetAddr();
 	    this.regPC = nn;
 	    this.instTStates += 17;
 	  } else {
@@ -2308,7 +2698,7 @@ public class Z80CPU implements Runnable
 	break;
       case 0xD7:				// RST 10
 	setStepOverBreakAddrAndSP();
-	doPush( this.regPC );
+	doPushRetAddr();
 	this.regPC = 0x0010;
 	this.instTStates += 11;
 	break;
@@ -2357,7 +2747,7 @@ public class Z80CPU implements Runnable
 	{
 	  int v = 0xFF;
 	  if( this.ioSys != null ) {
-	    v = this.ioSys.readIOByte( (this.regA << 8) | nextByte(), 11 );
+	    v = readIOByte( (this.regA << 8) | nextByte(), 11 );
 	  }
 	  this.regA        = v & 0xFF;
 	  this.instTStates += 11;
@@ -2368,7 +2758,7 @@ public class Z80CPU implements Runnable
 	  int nn = nextWord();
 	  setStepOverBreakAddrAndSP();
 	  if( this.flagCarry ) {
-	    doPush( this.regPC );
+	    doPushRetAddr();
 	    this.regPC = nn;
 	    this.instTStates += 17;
 	  } else {
@@ -2383,7 +2773,7 @@ public class Z80CPU implements Runnable
 	break;
       case 0xDF:				// RST 18
 	setStepOverBreakAddrAndSP();
-	doPush( this.regPC );
+	doPushRetAddr();
 	this.regPC = 0x0018;
 	this.instTStates += 11;
 	break;
@@ -2454,7 +2844,7 @@ public class Z80CPU implements Runnable
 	  int nn = nextWord();
 	  setStepOverBreakAddrAndSP();
 	  if( !this.flagPV ) {
-	    doPush( this.regPC );
+	    doPushRetAddr();
 	    this.regPC = nn;
 	    this.instTStates += 17;
 	  } else {
@@ -2478,7 +2868,7 @@ public class Z80CPU implements Runnable
 	break;
       case 0xE7:				// RST 20
 	setStepOverBreakAddrAndSP();
-	doPush( this.regPC );
+	doPushRetAddr();
 	this.regPC = 0x0020;
 	this.instTStates += 11;
 	break;
@@ -2523,7 +2913,7 @@ public class Z80CPU implements Runnable
 	  int nn = nextWord();
 	  setStepOverBreakAddrAndSP();
 	  if( this.flagPV ) {
-	    doPush( this.regPC );
+	    doPushRetAddr();
 	    this.regPC = nn;
 	    this.instTStates += 17;
 	  } else {
@@ -2541,7 +2931,7 @@ public class Z80CPU implements Runnable
 	break;
       case 0xEF:				// RST 28
 	setStepOverBreakAddrAndSP();
-	doPush( this.regPC );
+	doPushRetAddr();
 	this.regPC = 0x0028;
 	this.instTStates += 11;
 	break;
@@ -2590,7 +2980,7 @@ public class Z80CPU implements Runnable
 	  int nn = nextWord();
 	  setStepOverBreakAddrAndSP();
 	  if( !this.flagSign ) {
-	    doPush( this.regPC );
+	    doPushRetAddr();
 	    this.regPC = nn;
 	    this.instTStates += 17;
 	  } else {
@@ -2611,7 +3001,7 @@ public class Z80CPU implements Runnable
 	break;
       case 0xF7:				// RST 30
 	setStepOverBreakAddrAndSP();
-	doPush( this.regPC );
+	doPushRetAddr();
 	this.regPC = 0x0030;
 	this.instTStates += 11;
 	break;
@@ -2654,7 +3044,7 @@ public class Z80CPU implements Runnable
 	  int nn = nextWord();
 	  setStepOverBreakAddrAndSP();
 	  if( this.flagSign ) {
-	    doPush( this.regPC );
+	    doPushRetAddr();
 	    this.regPC = nn;
 	    this.instTStates += 17;
 	  } else {
@@ -2669,7 +3059,7 @@ public class Z80CPU implements Runnable
 	break;
       case 0xFF:				// RST 38
 	setStepOverBreakAddrAndSP();
-	doPush( this.regPC );
+	doPushRetAddr();
 	this.regPC = 0x0038;
 	this.instTStates += 11;
 	break;
@@ -3146,7 +3536,7 @@ public class Z80CPU implements Runnable
 	break;
       case 0x41:				// OUT (C),B
 	if( this.ioSys != null ) {
-	  this.ioSys.writeIOByte(
+	  writeIOByte(
 			(this.regB << 8) | this.regC,
 			this.regB,
 			12 );
@@ -3183,7 +3573,7 @@ public class Z80CPU implements Runnable
 	break;
       case 0x49:				// OUT (C),C
 	if( this.ioSys != null ) {
-	  this.ioSys.writeIOByte(
+	  writeIOByte(
 			(this.regB << 8) | this.regC,
 			this.regC,
 			12 );
@@ -3236,7 +3626,7 @@ public class Z80CPU implements Runnable
 	break;
       case 0x51:				// OUT (C),D
 	if( this.ioSys != null ) {
-	  this.ioSys.writeIOByte(
+	  writeIOByte(
 			(this.regB << 8) | this.regC,
 			this.regD,
 			12 );
@@ -3280,7 +3670,7 @@ public class Z80CPU implements Runnable
 	break;
       case 0x59:				// OUT (C),E
 	if( this.ioSys != null ) {
-	  this.ioSys.writeIOByte(
+	  writeIOByte(
 			(this.regB << 8) | this.regC,
 			this.regE,
 			12 );
@@ -3333,7 +3723,7 @@ public class Z80CPU implements Runnable
 	break;
       case 0x61:				// OUT (C),H
 	if( this.ioSys != null ) {
-	  this.ioSys.writeIOByte(
+	  writeIOByte(
 			(this.regB << 8) | this.regC,
 			this.regH,
 			12 );
@@ -3383,7 +3773,7 @@ public class Z80CPU implements Runnable
 	break;
       case 0x69:				// OUT (C),L
 	if( this.ioSys != null ) {
-	  this.ioSys.writeIOByte(
+	  writeIOByte(
 			(this.regB << 8) | this.regC,
 			this.regL,
 			12 );
@@ -3442,7 +3832,7 @@ public class Z80CPU implements Runnable
 	break;
       case 0x71:				// *OUT (C),0
 	if( this.ioSys != null ) {
-	  this.ioSys.writeIOByte( (this.regB << 8) | this.regC, 0, 12 );
+	  writeIOByte( (this.regB << 8) | this.regC, 0, 12 );
 	}
 	this.instTStates += 12;
 	break;
@@ -3472,7 +3862,7 @@ public class Z80CPU implements Runnable
 	break;
       case 0x79:				// OUT (C),A
 	if( this.ioSys != null ) {
-	  this.ioSys.writeIOByte(
+	  writeIOByte(
 			(this.regB << 8) | this.regC,
 			this.regA,
 			12 );
@@ -4184,7 +4574,7 @@ public class Z80CPU implements Runnable
     int value = 0xFF;
     int newB  = (this.regB - 1) & 0xFF;
     if( this.ioSys != null ) {
-      value = this.ioSys.readIOByte(
+      value = readIOByte(
 			(this.regB << 8) | this.regC,
 			forRepeat && (newB == 1) ? 21 : 16 ) & 0xFF;
     }
@@ -4217,7 +4607,7 @@ public class Z80CPU implements Runnable
 
     int regHL = getRegHL();
     if( this.ioSys != null ) {
-      this.ioSys.writeIOByte(
+      writeIOByte(
 		(this.regB << 8) | this.regC,
 		readMemByte( regHL ),
 		forRepeat && (this.regB == 0) ? 21 : 16 );
@@ -4230,8 +4620,7 @@ public class Z80CPU implements Runnable
   {
     int value = 0xFF;
     if( this.ioSys != null ) {
-      value = this.ioSys.readIOByte( (this.regB << 8) | this.regC, 12 )
-								& 0xFF;
+      value = readIOByte( (this.regB << 8) | this.regC, 12 ) & 0xFF;
     }
     this.flagSign = ((value & BIT7) != 0);
     this.flagZero = (value == 0);
@@ -4343,7 +4732,7 @@ public class Z80CPU implements Runnable
 
   private int nextByte()
   {
-    int rv     = readMemByte( this.regPC );
+    int rv     = readMemByteOpd( this.regPC );
     this.regPC = (this.regPC + 1) & 0xFFFF;
     return rv;
   }
@@ -4365,6 +4754,17 @@ public class Z80CPU implements Runnable
   }
 
 
+  /*
+   * Die Methode veroeffentlicht eine neue, unveraenderliche Zuordnung
+   * der Adressen zu den PCListenern.
+   */
+  private void updPCHooks()
+  {
+    Z80PCHooks pcHooks = new Z80PCHooks( this.pcListenerMap );
+    this.pcHooks       = (pcHooks.isEmpty() ? null : pcHooks);
+  }
+
+
   private void updParityFlag( int value )
   {
     this.flagPV = this.parity[ value & 0xFF ];
@@ -4422,8 +4822,31 @@ public class Z80CPU implements Runnable
   }
 
 
+  /*
+   * Die Methode meldet waehrend der Blockausfuehrung
+   * die Taktzyklen der bereits abgearbeiteten Befehle.
+   */
+  private void flushBlockTStates()
+  {
+    int tStates = this.blockTStates;
+    if( tStates > 0 ) {
+      this.blockTStates      = 0;
+      this.processedTStates += tStates;
+      this.speedTStates     += tStates;
+      Z80TStatesListener[] tStatesListeners = this.tStatesListeners;
+      if( tStatesListeners != null ) {
+	for( int i = 0; i < tStatesListeners.length; i++ ) {
+	  tStatesListeners[ i ].z80TStatesProcessed( this, tStates );
+	}
+      }
+    }
+  }
+
+
   private void fireAddressChanged( int addr )
   {
+    this.lastMemAddr = addr;
+
     // wegen Thread-Sicherheit in lokale Variable laden
     Z80AddressListener addrListener = this.addrListener;
     if( addrListener != null )
@@ -4431,9 +4854,21 @@ public class Z80CPU implements Runnable
   }
 
 
+  private int readIOByte( int port, int tStates )
+  {
+    if( this.blockExec ) {
+      flushBlockTStates();
+    }
+    return this.ioSys.readIOByte( port, tStates );
+  }
+
+
   private int readMemByte( int addr )
   {
     int value = this.memory.readMemByte( addr, false );
+    if( this.curMemAccessRecorder != null ) {
+      this.curMemAccessRecorder.z80DataRead( addr );
+    }
     fireAddressChanged( addr );
     return value;
   }
@@ -4442,6 +4877,23 @@ public class Z80CPU implements Runnable
   private int readMemByteM1( int addr )
   {
     int value = this.memory.readMemByte( addr, true );
+    if( this.curMemAccessRecorder != null ) {
+      this.curMemAccessRecorder.z80CodeRead( addr );
+    }
+    fireAddressChanged( addr );
+    return value;
+  }
+
+
+  /*
+   * Lesen eines Operanden, der Bestandteil des Befehls ist
+   */
+  private int readMemByteOpd( int addr )
+  {
+    int value = this.memory.readMemByte( addr, false );
+    if( this.curMemAccessRecorder != null ) {
+      this.curMemAccessRecorder.z80CodeRead( addr );
+    }
     fireAddressChanged( addr );
     return value;
   }
@@ -4451,6 +4903,10 @@ public class Z80CPU implements Runnable
   {
     int value = (this.memory.readMemByte( addr + 1, false ) << 8)
 				| this.memory.readMemByte( addr, false );
+    if( this.curMemAccessRecorder != null ) {
+      this.curMemAccessRecorder.z80DataRead( addr );
+      this.curMemAccessRecorder.z80DataRead( addr + 1 );
+    }
     fireAddressChanged( addr );
     return value;
   }
@@ -4458,19 +4914,51 @@ public class Z80CPU implements Runnable
 
   private void writeMemByte( int addr, int value )
   {
+    if( this.curExecJournal != null ) {
+      this.curExecJournal.z80MemWriting(
+			addr,
+			this.memory.getMemByte( addr, false ) );
+    }
     this.memory.writeMemByte( addr, value );
+    if( this.curMemAccessRecorder != null ) {
+      this.curMemAccessRecorder.z80DataWritten( addr );
+    }
     fireAddressChanged( addr );
   }
 
 
   private void writeMemWord( int addr, int value )
   {
+    if( this.curExecJournal != null ) {
+      this.curExecJournal.z80MemWriting(
+			addr,
+			this.memory.getMemByte( addr, false ) );
+      this.curExecJournal.z80MemWriting(
+			addr + 1,
+			this.memory.getMemByte( addr + 1, false ) );
+    }
     this.memory.writeMemByte( addr, value & 0xFF );
     this.memory.writeMemByte( addr + 1, value >> 8 );
+    if( this.curMemAccessRecorder != null ) {
+      this.curMemAccessRecorder.z80DataWritten( addr );
+      this.curMemAccessRecorder.z80DataWritten( addr + 1 );
+    }
     fireAddressChanged( addr );
   }
 
 
+  private void writeIOByte( int port, int value, int tStates )
+  {
+    if( this.curExecJournal != null ) {
+      this.curExecJournal.z80IOWritten();
+    }
+    if( this.blockExec ) {
+      flushBlockTStates();
+    }
+    this.ioSys.writeIOByte( port, value, tStates );
+  }
+
+
   private void setHaltState( boolean state )
   {
     if( state != this.haltState ) {
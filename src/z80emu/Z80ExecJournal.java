@@ -0,0 +1,251 @@
+/*
+ * (c) 2021 Jens Mueller
+ *
+ * Z80-Emulator
+ *
+ * Ausfuehrungsprotokoll fuer Rueckwaertsschritte im Debugger
+ *
+ * Vor jedem Befehl wird der Prozessorzustand in einem Ringpuffer abgelegt.
+ * Zusaetzlich wird bei jedem Schreibzugriff auf den Arbeitsspeicher
+ * der alte Inhalt der Speicherzelle in einem zweiten Ringpuffer vermerkt.
+ * Damit kann die Wirkung der zuletzt ausgefuehrten Befehle
+ * rueckgaengig gemacht werden, ohne das Programm erneut auszufuehren.
+ * Beide Ringpuffer werden beim Anlegen des Protokolls
+ * in ihrer vollen Groesse angelegt, sodass waehrend der Aufzeichnung
+ * keine Objekte erzeugt werden.
+ * Ist ein Ringpuffer voll, werden die aeltesten Eintraege verworfen.
+ *
+ * Nicht rueckgaengig gemacht werden koennen Ausgaben auf E/A-Ports
+ * sowie Zustandsaenderungen der Peripherie
+ * (z.B. umgeschaltete Speicherbaenke).
+ * Befehle mit einer Ausgabe auf einen E/A-Port werden deshalb markiert.
+ *
+ * Die Methoden z80...(...) werden ausschliesslich
+ * vom CPU-Emulations-Thread aufgerufen.
+ * Alle anderen Methoden duerfen nur aufgerufen werden,
+ * wenn die CPU angehalten ist.
+ */
+
+package z80emu;
+
+
+public class Z80ExecJournal
+{
+  public static final int DEFAULT_INSTR_CAPACITY = 0x10000;
+
+  // Anzahl der int-Werte pro Befehl und Stelle des PC
+  static final int STATE_LEN      = 16;
+  static final int STATE_IDX_PC   = 0;
+  static final int STATE_IDX_BITS = 15;
+
+  // Bit innerhalb des Zustands fuer eine Ausgabe auf einen E/A-Port
+  static final int STATE_BIT_IO_WRITTEN = 0x8000;
+
+  private int    instrCapacity;
+  private int    writeCapacity;
+  private int[]  states;
+  private long[] instrWriteBegs;
+  private int[]  writeEntries;
+  private long   instrBeg;
+  private long   instrEnd;
+  private long   writeBeg;
+  private long   writeEnd;
+
+
+  public Z80ExecJournal()
+  {
+    this( DEFAULT_INSTR_CAPACITY );
+  }
+
+
+  /*
+   * Der Ringpuffer fuer die Schreibzugriffe erhaelt
+   * die doppelte Anzahl an Eintraegen,
+   * da die meisten Befehle nicht in den Speicher schreiben,
+   * einige aber zwei Bytes.
+   */
+  public Z80ExecJournal( int instrCapacity )
+  {
+    if( instrCapacity < 16 ) {
+      instrCapacity = 16;
+    }
+    this.instrCapacity  = instrCapacity;
+    this.writeCapacity  = 2 * instrCapacity;
+    this.states         = new int[ instrCapacity * STATE_LEN ];
+    this.instrWriteBegs = new long[ instrCapacity ];
+    this.writeEntries   = new int[ this.writeCapacity ];
+    clear();
+  }
+
+
+  public void clear()
+  {
+    this.instrBeg = 0L;
+    this.instrEnd = 0L;
+    this.writeBeg = 0L;
+    this.writeEnd = 0L;
+  }
+
+
+  /*
+   * Die Methode sucht den letzten protokollierten Schreibzugriff
+   * auf die uebergebene Adresse.
+   *
+   * Rueckgabewert:
+   *   Anzahl der Befehle, die seitdem ausgefuehrt wurden
+   *   (0: der zuletzt ausgefuehrte Befehl),
+   *   oder -1, wenn kein Schreibzugriff protokolliert ist
+   */
+  public int findLastWrite( int addr )
+  {
+    addr &= 0xFFFF;
+    long instrIdx = this.instrEnd - 1;
+    for( long i = this.writeEnd - 1; i >= this.writeBeg; --i ) {
+      int entry = this.writeEntries[ (int) (i % this.writeCapacity) ];
+      if( (entry & 0xFFFF) == addr ) {
+	while( (instrIdx > this.instrBeg)
+	       && (this.instrWriteBegs[
+			(int) (instrIdx % this.instrCapacity) ] > i) )
+	{
+	  --instrIdx;
+	}
+	if( (instrIdx >= this.instrBeg)
+	    && (this.instrWriteBegs[
+			(int) (instrIdx % this.instrCapacity) ] <= i) )
+	{
+	  return (int) (this.instrEnd - 1 - instrIdx);
+	}
+	// Befehl selbst nicht mehr im Protokoll
+	break;
+      }
+    }
+    return -1;
+  }
+
+
+  public int getInstructionCount()
+  {
+    return (int) (this.instrEnd - this.instrBeg);
+  }
+
+
+  /*
+   * Die Methode liefert die Adresse eines protokollierten Befehls.
+   *
+   * Parameter:
+   *   stepsBack: 0 fuer den zuletzt ausgefuehrten Befehl,
+   *              1 fuer den davor usw.
+   *
+   * Rueckgabewert: Adresse oder -1, wenn der Befehl
+   *                nicht (mehr) protokolliert ist
+   */
+  public int getInstructionAddr( int stepsBack )
+  {
+    int rv = -1;
+    if( (stepsBack >= 0) && (stepsBack < getInstructionCount()) ) {
+      int idx = (int) ((this.instrEnd - 1 - stepsBack) % this.instrCapacity);
+      rv      = this.states[ (idx * STATE_LEN) + STATE_IDX_PC ];
+    }
+    return rv;
+  }
+
+
+  /*
+   * Die Methode macht den zuletzt protokollierten Befehl rueckgaengig,
+   * d.h., die von ihm beschriebenen Speicherzellen erhalten
+   * wieder ihren alten Inhalt und der Prozessorzustand wird auf den Stand
+   * vor dem Befehl gesetzt.
+   *
+   * Rueckgabewert:
+   *   false: kein Befehl mehr im Protokoll
+   */
+  public boolean stepBack( Z80CPU cpu, Z80Memory memory )
+  {
+    boolean rv = false;
+    if( this.instrEnd > this.instrBeg ) {
+      --this.instrEnd;
+      int  idx       = (int) (this.instrEnd % this.instrCapacity);
+      long writeStop = this.instrWriteBegs[ idx ];
+      while( this.writeEnd > writeStop ) {
+	--this.writeEnd;
+	int entry = this.writeEntries[
+				(int) (this.writeEnd % this.writeCapacity) ];
+	memory.setMemByte( entry & 0xFFFF, (entry >> 16) & 0xFF );
+      }
+      cpu.loadJournalState( this.states, idx * STATE_LEN );
+      rv = true;
+    }
+    return rv;
+  }
+
+
+  /*
+   * Die Methode prueft, ob der zuletzt protokollierte Befehl
+   * eine Ausgabe auf einen E/A-Port getaetigt hat.
+   */
+  public boolean wasIOWritten()
+  {
+    boolean rv = false;
+    if( this.instrEnd > this.instrBeg ) {
+      int idx = (int) ((this.instrEnd - 1) % this.instrCapacity);
+      rv      = ((this.states[ (idx * STATE_LEN) + STATE_IDX_BITS ]
+					& STATE_BIT_IO_WRITTEN) != 0);
+    }
+    return rv;
+  }
+
+
+	/* --- Methoden fuer den CPU-Emulations-Thread --- */
+
+  /*
+   * Die Methode wird vor der Ausfuehrung eines Befehls aufgerufen.
+   * Bei Befehlen mit Vorbyte erfolgt der Aufruf nur einmal.
+   */
+  public void z80InstructionBeg( Z80CPU cpu )
+  {
+    if( (this.instrEnd - this.instrBeg) >= this.instrCapacity ) {
+      this.instrBeg++;
+    }
+    int idx = (int) (this.instrEnd % this.instrCapacity);
+    cpu.saveJournalState( this.states, idx * STATE_LEN );
+    this.instrWriteBegs[ idx ] = this.writeEnd;
+    this.instrEnd++;
+  }
+
+
+  public void z80IOWritten()
+  {
+    if( this.instrEnd > this.instrBeg ) {
+      int idx = (int) ((this.instrEnd - 1) % this.instrCapacity);
+      this.states[ (idx * STATE_LEN) + STATE_IDX_BITS ]
+					|= STATE_BIT_IO_WRITTEN;
+    }
+  }
+
+
+  /*
+   * Die Methode wird vor einem Schreibzugriff
+   * mit dem alten Inhalt der Speicherzelle aufgerufen.
+   */
+  public void z80MemWriting( int addr, int oldValue )
+  {
+    if( (this.writeEnd - this.writeBeg) >= this.writeCapacity ) {
+      this.writeBeg++;
+
+      /*
+       * Befehle, deren Schreibzugriffe nicht mehr vollstaendig
+       * vorhanden sind, koennen nicht mehr rueckgaengig gemacht werden.
+       */
+      while( (this.instrBeg < this.instrEnd)
+	     && (this.instrWriteBegs[
+			(int) (this.instrBeg % this.instrCapacity) ]
+							< this.writeBeg) )
+      {
+	this.instrBeg++;
+      }
+    }
+    this.writeEntries[ (int) (this.writeEnd % this.writeCapacity) ]
+			= ((oldValue & 0xFF) << 16) | (addr & 0xFFFF);
+    this.writeEnd++;
+  }
+}
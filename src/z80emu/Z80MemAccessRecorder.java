@@ -0,0 +1,234 @@
+/*
+ * (c) 2021 Jens Mueller
+ *
+ * Z80-Emulator
+ *
+ * Aufzeichnung der Speicherzugriffe einer CPU
+ *
+ * Pro Adresse wird in einem Byte vermerkt,
+ * ob dort ein Befehl begonnen hat, ob die Adresse als Teil
+ * eines Befehls gelesen wurde und ob sie als Daten gelesen
+ * bzw. beschrieben wurde.
+ * Zusaetzlich werden die Zugriffe in Feldern gezaehlt,
+ * die beim hoechsten Wert stehen bleiben.
+ *
+ * Die Aufzeichnung erfolgt pro Adressraum der CPU.
+ * Bei Systemen mit umschaltbaren Speicherbaenken
+ * werden die Zugriffe auf alle an einer Adresse eingeblendeten Baenke
+ * zusammengefasst.
+ *
+ * Die Methoden z80...(...) werden ausschliesslich
+ * vom CPU-Emulations-Thread aufgerufen.
+ * Die lesenden Methoden koennen von einem beliebigen Thread
+ * aufgerufen werden und liefern dann eine Momentaufnahme.
+ */
+
+package z80emu;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+
+public class Z80MemAccessRecorder
+{
+  public static final int FLAG_EXEC  = 0x01;	// Befehlsanfang
+  public static final int FLAG_CODE  = 0x02;	// als Befehlsbyte gelesen
+  public static final int FLAG_READ  = 0x04;	// als Daten gelesen
+  public static final int FLAG_WRITE = 0x08;	// beschrieben
+
+  private byte[]           flags;
+  private int[]            execCounts;
+  private int[]            readCounts;
+  private int[]            writeCounts;
+  private volatile boolean recording;
+
+
+  public Z80MemAccessRecorder()
+  {
+    this.flags       = new byte[ 0x10000 ];
+    this.execCounts  = new int[ 0x10000 ];
+    this.readCounts  = new int[ 0x10000 ];
+    this.writeCounts = new int[ 0x10000 ];
+    this.recording   = true;
+  }
+
+
+  /*
+   * Anzahl aller Zugriffe auf die Adresse,
+   * wobei ein ausgefuehrter Befehl als ein Zugriff zaehlt
+   */
+  public long getAccessCount( int addr )
+  {
+    addr &= 0xFFFF;
+    return (long) this.execCounts[ addr ]
+		+ (long) this.readCounts[ addr ]
+		+ (long) this.writeCounts[ addr ];
+  }
+
+
+  public int getExecCount( int addr )
+  {
+    return this.execCounts[ addr & 0xFFFF ];
+  }
+
+
+  public int getFlags( int addr )
+  {
+    return this.flags[ addr & 0xFFFF ] & 0xFF;
+  }
+
+
+  /*
+   * Die Methode liefert die hoechste Zugriffsanzahl
+   * aller Adressen und dient zum Normieren einer Heatmap.
+   */
+  public long getMaxAccessCount()
+  {
+    long rv = 0;
+    for( int addr = 0; addr < 0x10000; addr++ ) {
+      long n = getAccessCount( addr );
+      if( n > rv ) {
+	rv = n;
+      }
+    }
+    return rv;
+  }
+
+
+  public int getReadCount( int addr )
+  {
+    return this.readCounts[ addr & 0xFFFF ];
+  }
+
+
+  public int getWriteCount( int addr )
+  {
+    return this.writeCounts[ addr & 0xFFFF ];
+  }
+
+
+  /*
+   * Die Methode prueft, ob die Adresse als Teil
+   * eines Befehls gelesen wurde.
+   */
+  public boolean isCode( int addr )
+  {
+    return (this.flags[ addr & 0xFFFF ] & (FLAG_EXEC | FLAG_CODE)) != 0;
+  }
+
+
+  /*
+   * Die Methode prueft, ob die Adresse ausschliesslich
+   * als Daten gelesen oder beschrieben wurde.
+   */
+  public boolean isData( int addr )
+  {
+    int flags = this.flags[ addr & 0xFFFF ];
+    return ((flags & (FLAG_READ | FLAG_WRITE)) != 0)
+		&& ((flags & (FLAG_EXEC | FLAG_CODE)) == 0);
+  }
+
+
+  public boolean isRecording()
+  {
+    return this.recording;
+  }
+
+
+  public void reset()
+  {
+    Arrays.fill( this.flags, (byte) 0 );
+    Arrays.fill( this.execCounts, 0 );
+    Arrays.fill( this.readCounts, 0 );
+    Arrays.fill( this.writeCounts, 0 );
+  }
+
+
+  /*
+   * Mit der Methode kann die Aufzeichnung angehalten werden,
+   * ohne die bisher aufgezeichneten Daten zu verlieren.
+   */
+  public void setRecording( boolean state )
+  {
+    this.recording = state;
+  }
+
+
+  /*
+   * Die Methode schreibt eine Liste der zusammenhaengenden Bereiche
+   * mit gleicher Zugriffsart.
+   * Jede Zeile enthaelt Anfangs- und Endadresse sowie
+   * die Zugriffsarten in der Form "ECRW"
+   * (E: Befehlsanfang, C: Befehlsbyte, R: gelesen, W: beschrieben),
+   * wobei eine nicht zutreffende Zugriffsart als Minuszeichen erscheint.
+   * Bereiche ohne Zugriffe werden nicht ausgegeben.
+   */
+  public void writeRangeList( Appendable out ) throws IOException
+  {
+    int begAddr = 0;
+    while( begAddr < 0x10000 ) {
+      int flags   = getFlags( begAddr );
+      int endAddr = begAddr;
+      while( (endAddr < 0xFFFF) && (getFlags( endAddr + 1 ) == flags) ) {
+	endAddr++;
+      }
+      if( flags != 0 ) {
+	out.append( String.format(
+			"%04X-%04X  %c%c%c%c\n",
+			begAddr,
+			endAddr,
+			(flags & FLAG_EXEC) != 0 ? 'E' : '-',
+			(flags & FLAG_CODE) != 0 ? 'C' : '-',
+			(flags & FLAG_READ) != 0 ? 'R' : '-',
+			(flags & FLAG_WRITE) != 0 ? 'W' : '-' ) );
+      }
+      begAddr = endAddr + 1;
+    }
+  }
+
+
+	/* --- Methoden fuer den CPU-Emulations-Thread --- */
+
+  /*
+   * Die Methode wird vor der Ausfuehrung eines Befehls
+   * mit dessen Anfangsadresse aufgerufen.
+   */
+  public void z80InstructionBeg( int addr )
+  {
+    addr &= 0xFFFF;
+    this.flags[ addr ] |= FLAG_EXEC;
+    if( this.execCounts[ addr ] < Integer.MAX_VALUE ) {
+      this.execCounts[ addr ]++;
+    }
+  }
+
+
+  /*
+   * Die Methode wird beim Lesen eines Befehlsbytes
+   * (Operationscode oder Operand) aufgerufen.
+   */
+  public void z80CodeRead( int addr )
+  {
+    this.flags[ addr & 0xFFFF ] |= FLAG_CODE;
+  }
+
+
+  public void z80DataRead( int addr )
+  {
+    addr &= 0xFFFF;
+    this.flags[ addr ] |= FLAG_READ;
+    if( this.readCounts[ addr ] < Integer.MAX_VALUE ) {
+      this.readCounts[ addr ]++;
+    }
+  }
+
+
+  public void z80DataWritten( int addr )
+  {
+    addr &= 0xFFFF;
+    this.flags[ addr ] |= FLAG_WRITE;
+    if( this.writeCounts[ addr ] < Integer.MAX_VALUE ) {
+      this.writeCounts[ addr ]++;
+    }
+  }
+}
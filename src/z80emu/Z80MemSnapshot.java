@@ -0,0 +1,97 @@
+/*
+ * (c) 2021 Jens Mueller
+ *
+ * Z80-Emulator
+ *
+ * Unveraenderliches Abbild des Adressraums einer CPU
+ *
+ * Das Abbild wird auf Anforderung vom CPU-Emulations-Thread
+ * zwischen zwei Befehlen erstellt und ist danach unveraenderlich.
+ * Es kann deshalb von beliebigen Threads ohne Synchronisation
+ * gelesen werden.
+ * Anzeigen, die waehrend der Programmausfuehrung aktualisiert werden,
+ * vergleichen das neue Abbild mit dem vorherigen
+ * und zeichnen nur die geaenderten Bereiche neu.
+ */
+
+package z80emu;
+
+
+public class Z80MemSnapshot implements Z80MemView
+{
+  private long   version;
+  private byte[] mem;
+
+
+  Z80MemSnapshot( Z80MemView memory, long version )
+  {
+    this.version = version;
+    this.mem     = new byte[ 0x10000 ];
+    for( int addr = 0; addr < this.mem.length; addr++ ) {
+      this.mem[ addr ] = (byte) memory.getMemByte( addr, false );
+    }
+  }
+
+
+  /*
+   * Die Methode liefert die erste Adresse im uebergebenen Bereich,
+   * an der sich die beiden Abbilder unterscheiden.
+   *
+   * Rueckgabewert: Adresse oder -1, wenn der Bereich gleich ist
+   */
+  public int findFirstDiff( Z80MemSnapshot other, int begAddr, int endAddr )
+  {
+    begAddr = Math.max( begAddr, 0 );
+    endAddr = Math.min( endAddr, 0xFFFF );
+    for( int addr = begAddr; addr <= endAddr; addr++ ) {
+      if( this.mem[ addr ] != other.mem[ addr ] ) {
+	return addr;
+      }
+    }
+    return -1;
+  }
+
+
+  /*
+   * Die Methode liefert die letzte Adresse im uebergebenen Bereich,
+   * an der sich die beiden Abbilder unterscheiden.
+   *
+   * Rueckgabewert: Adresse oder -1, wenn der Bereich gleich ist
+   */
+  public int findLastDiff( Z80MemSnapshot other, int begAddr, int endAddr )
+  {
+    begAddr = Math.max( begAddr, 0 );
+    endAddr = Math.min( endAddr, 0xFFFF );
+    for( int addr = endAddr; addr >= begAddr; --addr ) {
+      if( this.mem[ addr ] != other.mem[ addr ] ) {
+	return addr;
+      }
+    }
+    return -1;
+  }
+
+
+  /*
+   * Jedes neue Abbild einer CPU erhaelt eine hoehere Versionsnummer.
+   */
+  public long getVersion()
+  {
+    return this.version;
+  }
+
+
+	/* --- Z80MemView --- */
+
+  @Override
+  public int getMemByte( int addr, boolean m1 )
+  {
+    return this.mem[ addr & 0xFFFF ] & 0xFF;
+  }
+
+
+  @Override
+  public int getMemWord( int addr )
+  {
+    return (getMemByte( addr + 1, false ) << 8) | getMemByte( addr, false );
+  }
+}
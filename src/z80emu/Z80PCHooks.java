@@ -0,0 +1,94 @@
+/*
+ * (c) 2021 Jens Mueller
+ *
+ * Z80-Emulator
+ *
+ * Unveraenderliche Zuordnung von Adressen zu PCListenern
+ *
+ * Ob fuer eine Adresse ueberhaupt ein PCListener registriert ist,
+ * wird ueber eine Bitmap mit einem Bit pro Adresse festgestellt,
+ * sodass der CPU-Emulations-Thread vor jedem Befehl nur ein Bit testet.
+ * Nur bei einem Treffer werden die Listener der Adresse gesucht.
+ * Beim Hinzufuegen und Entfernen eines Listeners wird eine neue Instanz
+ * erzeugt und veroeffentlicht (Copy on Write).
+ */
+
+package z80emu;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+
+class Z80PCHooks
+{
+  private long[]            bitmap;
+  private int[]             addrs;
+  private Z80PCListener[][] listeners;
+
+
+  /*
+   * Die Reihenfolge der Eintraege in der Map bestimmt die Reihenfolge,
+   * in der mehrere Listener einer Adresse aufgerufen werden.
+   */
+  Z80PCHooks( Map<Z80PCListener,int[]> listenerMap )
+  {
+    Map<Integer,Z80PCListener[]> addr2Listeners = new TreeMap<>();
+    for( Map.Entry<Z80PCListener,int[]> e : listenerMap.entrySet() ) {
+      Z80PCListener listener = e.getKey();
+      for( int addr : e.getValue() ) {
+	addr &= 0xFFFF;
+	Z80PCListener[] a = addr2Listeners.get( addr );
+	if( a == null ) {
+	  a = new Z80PCListener[] { listener };
+	} else if( !Arrays.asList( a ).contains( listener ) ) {
+	  a                = Arrays.copyOf( a, a.length + 1 );
+	  a[ a.length - 1 ] = listener;
+	}
+	addr2Listeners.put( addr, a );
+      }
+    }
+    this.bitmap    = new long[ 0x10000 / 64 ];
+    this.addrs     = new int[ addr2Listeners.size() ];
+    this.listeners = new Z80PCListener[ this.addrs.length ][];
+    int idx        = 0;
+    for( Map.Entry<Integer,Z80PCListener[]> e : addr2Listeners.entrySet() ) {
+      int addr                = e.getKey().intValue();
+      this.bitmap[ addr >> 6 ] |= (1L << (addr & 0x3F));
+      this.addrs[ idx ]        = addr;
+      this.listeners[ idx ]    = e.getValue();
+      idx++;
+    }
+  }
+
+
+  boolean contains( int addr )
+  {
+    return (this.bitmap[ addr >> 6 ] & (1L << (addr & 0x3F))) != 0;
+  }
+
+
+  /*
+   * Die Methode ruft die Listener der Adresse nacheinander auf.
+   * Setzt ein Listener den PC um, werden die weiteren Listener
+   * nicht mehr aufgerufen.
+   */
+  void dispatch( Z80CPU cpu, int addr )
+  {
+    int idx = Arrays.binarySearch( this.addrs, addr );
+    if( idx >= 0 ) {
+      for( Z80PCListener listener : this.listeners[ idx ] ) {
+	listener.z80PCChanged( cpu, addr );
+	if( cpu.getRegPC() != addr ) {
+	  break;
+	}
+      }
+    }
+  }
+
+
+  boolean isEmpty()
+  {
+    return this.addrs.length == 0;
+  }
+}
@@ -1,5 +1,5 @@
 /*
- * (c) 2008-2020 Jens Mueller
+ * (c) 2008-2021 Jens Mueller
  *
  * Z80-Emulator
  *
@@ -159,6 +159,26 @@ public class Z80PIO implements Z80InterruptSource
   }
 
 
+  /*
+   * Die beiden Methoden pruefen, ob der Port im Bit-Betrieb
+   * bei einer Aenderung eines der uebergebenen Eingangsbits
+   * einen Interrupt ausloesen kann.
+   * Nur dann muessen Aenderungen dieser Bits der PIO sofort
+   * mitgeteilt werden.
+   * Anderenfalls genuegt es, die Bits vor dem Lesen des Ports zu setzen.
+   */
+  public synchronized boolean isInterruptInputBitPortA( int mask )
+  {
+    return isInterruptInputBit( this.portA, mask );
+  }
+
+
+  public synchronized boolean isInterruptInputBitPortB( int mask )
+  {
+    return isInterruptInputBit( this.portB, mask );
+  }
+
+
   /*
    * Die beiden Methoden setzen die Werte an den Ports,
    * die die PIO uebernehmen soll (Seite IO-System).
@@ -582,6 +602,14 @@ public class Z80PIO implements Z80InterruptSource
   }
 
 
+  private boolean isInterruptInputBit( Z80PIO.Port port, int mask )
+  {
+    return (port.mode == Mode.BIT_INOUT)
+		&& port.interruptEnabled
+		&& ((mask & port.inDirMask & ~port.interruptMask) != 0);
+  }
+
+
   private boolean putInValue(
 			Z80PIO.Port port,
 			int         value,
@@ -0,0 +1,282 @@
+/*
+ * (c) 2021 Jens Mueller
+ *
+ * Z80-Emulator
+ *
+ * Laufzeitprofil einer CPU
+ *
+ * Pro Adresse werden die Anzahl der ausgefuehrten Befehle
+ * und die dabei verbrauchten Taktzyklen in flachen Feldern gezaehlt.
+ * Zusaetzlich wird anhand der CALL-, RST- und Interrupt-Spruenge
+ * ein Aufrufbaum gefuehrt, dessen Knoten die Taktzyklen
+ * des jeweiligen Unterprogramms (ohne aufgerufene Unterprogramme)
+ * aufnehmen.
+ *
+ * Ein Unterprogramm gilt als verlassen, sobald der Stack Pointer
+ * oberhalb der Adresse steht, an der die Rueckkehradresse
+ * abgelegt wurde.
+ * Damit werden auch Rueckspruenge erkannt, die nicht per RET erfolgen
+ * (z.B. POP mit anschliessendem JP).
+ *
+ * Die Methoden z80...(...) werden ausschliesslich
+ * vom CPU-Emulations-Thread aufgerufen.
+ * Die lesenden Methoden koennen von einem beliebigen Thread
+ * aufgerufen werden und liefern dann eine Momentaufnahme.
+ */
+
+package z80emu;
+
+import java.io.IOException;
+import java.util.Map;
+
+
+public class Z80Profiler
+{
+  public static class CallNode
+  {
+    private CallNode            parent;
+    private int                 addr;
+    private long                tStates;
+    private long                callCount;
+    private volatile CallNode[] children;
+
+    private CallNode( CallNode parent, int addr )
+    {
+      this.parent    = parent;
+      this.addr      = addr;
+      this.tStates   = 0;
+      this.callCount = 0;
+      this.children  = null;
+    }
+
+    /*
+     * Rueckgabewert: Einsprungadresse oder -1 beim Wurzelknoten
+     */
+    public int getAddress()
+    {
+      return this.addr;
+    }
+
+    public long getCallCount()
+    {
+      return this.callCount;
+    }
+
+    public CallNode[] getChildren()
+    {
+      CallNode[] children = this.children;
+      return children != null ? children : new CallNode[ 0 ];
+    }
+
+    public CallNode getParent()
+    {
+      return this.parent;
+    }
+
+    /*
+     * Taktzyklen des Unterprogramms
+     * einschliesslich der aufgerufenen Unterprogramme
+     */
+    public long getTotalTStates()
+    {
+      long rv = this.tStates;
+      for( CallNode child : getChildren() ) {
+	rv += child.getTotalTStates();
+      }
+      return rv;
+    }
+
+    /*
+     * Taktzyklen des Unterprogramms
+     * ohne die aufgerufenen Unterprogramme
+     */
+    public long getSelfTStates()
+    {
+      return this.tStates;
+    }
+
+    private CallNode getChild( int addr )
+    {
+      CallNode[] children = this.children;
+      if( children != null ) {
+	for( int i = 0; i < children.length; i++ ) {
+	  if( children[ i ].addr == addr ) {
+	    return children[ i ];
+	  }
+	}
+      }
+      CallNode   child       = new CallNode( this, addr );
+      CallNode[] newChildren = null;
+      if( children != null ) {
+	newChildren = new CallNode[ children.length + 1 ];
+	System.arraycopy( children, 0, newChildren, 0, children.length );
+      } else {
+	newChildren = new CallNode[ 1 ];
+      }
+      newChildren[ newChildren.length - 1 ] = child;
+      this.children = newChildren;
+      return child;
+    }
+  }
+
+
+  /*
+   * Maximale Verschachtelungstiefe des Aufrufbaums,
+   * tiefere Aufrufe werden dem letzten Knoten zugerechnet.
+   */
+  private static final int MAX_DEPTH = 256;
+
+  private long[]        execCounts;
+  private long[]        tStates;
+  private CallNode      rootNode;
+  private CallNode      curNode;
+  private CallNode      instNode;
+  private int[]         frameSPs;
+  private int           depth;
+  private int           instPC;
+  private boolean       framePending;
+  private int           pendingSP;
+  private long          totalTStates;
+
+
+  public Z80Profiler()
+  {
+    this.execCounts   = new long[ 0x10000 ];
+    this.tStates      = new long[ 0x10000 ];
+    this.rootNode     = new CallNode( null, -1 );
+    this.curNode      = this.rootNode;
+    this.instNode     = this.rootNode;
+    this.frameSPs     = new int[ MAX_DEPTH ];
+    this.depth        = 0;
+    this.instPC       = -1;
+    this.framePending = false;
+    this.pendingSP    = 0;
+    this.totalTStates = 0;
+  }
+
+
+  public long getExecCount( int addr )
+  {
+    return this.execCounts[ addr & 0xFFFF ];
+  }
+
+
+  public CallNode getRootNode()
+  {
+    return this.rootNode;
+  }
+
+
+  public long getTStates( int addr )
+  {
+    return this.tStates[ addr & 0xFFFF ];
+  }
+
+
+  public long getTotalTStates()
+  {
+    return this.totalTStates;
+  }
+
+
+  /*
+   * Die Methode schreibt den Aufrufbaum im "Collapsed Stack"-Format,
+   * welches von den gaengigen Flame-Graph-Werkzeugen gelesen wird.
+   * Jede Zeile enthaelt die durch Semikolon getrennten Unterprogramme
+   * eines Aufrufpfades und die Anzahl der Taktzyklen,
+   * die im letzten Unterprogramm des Pfades verbracht wurden.
+   *
+   * Sind Marken uebergeben, werden die Unterprogramme
+   * mit dem Markennamen bezeichnet, ansonsten mit der Adresse.
+   */
+  public void writeFlameGraph(
+			Appendable          out,
+			Map<Integer,String> labels ) throws IOException
+  {
+    writeFlameGraph( out, labels, this.rootNode, "root" );
+  }
+
+
+	/* --- Methoden fuer den CPU-Emulations-Thread --- */
+
+  /*
+   * Die Methode wird aufgerufen, wenn eine Rueckkehradresse
+   * auf den Stack gelegt wurde (CALL, RST, Interrupt).
+   * Die Einsprungadresse ist erst beim naechsten Befehl bekannt.
+   */
+  public void z80FramePushed( int sp )
+  {
+    this.framePending = true;
+    this.pendingSP    = sp;
+  }
+
+
+  /*
+   * Die Methode wird vor der Ausfuehrung eines Befehls aufgerufen.
+   * Bei Befehlen mit Vorbyte erfolgt der Aufruf nur einmal
+   * mit der Adresse des ersten Vorbytes.
+   */
+  public void z80InstructionBeg( int pc, int sp )
+  {
+    while( (this.depth > 0) && (this.frameSPs[ this.depth - 1 ] < sp) ) {
+      --this.depth;
+      this.curNode = this.curNode.parent;
+    }
+    if( this.framePending ) {
+      this.framePending = false;
+      if( this.depth < MAX_DEPTH ) {
+	this.frameSPs[ this.depth ] = this.pendingSP;
+	this.curNode                = this.curNode.getChild( pc );
+	this.curNode.callCount++;
+	this.depth++;
+      }
+    }
+    this.instPC   = pc & 0xFFFF;
+    this.instNode = this.curNode;
+    this.execCounts[ this.instPC ]++;
+  }
+
+
+  /*
+   * Die Methode wird nach der Ausfuehrung eines Befehls
+   * mit der Anzahl der verbrauchten Taktzyklen aufgerufen.
+   */
+  public void z80InstructionEnd( int tStates )
+  {
+    if( this.instPC >= 0 ) {
+      this.tStates[ this.instPC ] += tStates;
+      this.instNode.tStates       += tStates;
+      this.totalTStates           += tStates;
+    }
+  }
+
+
+	/* --- private Methoden --- */
+
+  private static void writeFlameGraph(
+			Appendable          out,
+			Map<Integer,String> labels,
+			CallNode            node,
+			String              path ) throws IOException
+  {
+    if( node.tStates > 0 ) {
+      out.append( path );
+      out.append( ' ' );
+      out.append( String.valueOf( node.tStates ) );
+      out.append( '\n' );
+    }
+    for( CallNode child : node.getChildren() ) {
+      String name = null;
+      if( labels != null ) {
+	name = labels.get( child.addr );
+      }
+      if( name != null ) {
+	// Semikolons und Leerzeichen trennen im Format die Felder
+	name = name.replace( ';', '_' ).replace( ' ', '_' );
+      } else {
+	name = String.format( "%04XH", child.addr );
+      }
+      writeFlameGraph( out, labels, child, path + ";" + name );
+    }
+  }
+}
@@ -0,0 +1,82 @@
+/*
+ * (c) 2021 Jens Mueller
+ *
+ * Z80-Emulator
+ *
+ * Zwischenspeicher fuer reassemblierte Befehle
+ *
+ * Die Befehle werden pro Adresse zusammen mit den vier Bytes abgelegt,
+ * aus denen sie dekodiert wurden.
+ * Vor der Rueckgabe eines abgelegten Befehls wird geprueft,
+ * ob diese Bytes noch mit dem Speicherinhalt uebereinstimmen.
+ * Damit werden Schreibzugriffe auf den Speicher erkannt,
+ * ohne dass der Speicher diese melden muss.
+ * Eingespart wird somit das wiederholte Dekodieren
+ * unveraenderter Befehle.
+ *
+ * Die Klasse ist nicht Thread-sicher und sollte
+ * nur im AWT-Event-Thread verwendet werden.
+ */
+
+package z80emu;
+
+import java.util.Arrays;
+
+
+public class Z80ReassCache
+{
+  private Z80MemView      memory;
+  private Z80ReassInstr[] instrs;
+  private long[]          instrKeys;
+
+
+  public Z80ReassCache( Z80MemView memory )
+  {
+    this.memory    = memory;
+    this.instrs    = new Z80ReassInstr[ 0x10000 ];
+    this.instrKeys = new long[ 0x10000 ];
+    Arrays.fill( this.instrKeys, -1L );
+  }
+
+
+  public void clear()
+  {
+    Arrays.fill( this.instrs, null );
+    Arrays.fill( this.instrKeys, -1L );
+  }
+
+
+  /*
+   * Die Methode liefert wie Z80Reassembler.reassInstruction(...)
+   * den Befehl an der uebergebenen Adresse,
+   * wobei dieser nur bei geaendertem Speicherinhalt neu dekodiert wird.
+   */
+  public Z80ReassInstr getInstruction( int addr )
+  {
+    addr &= 0xFFFF;
+
+    // Speicherzugriffe wie in Z80Reassembler.reassInstruction(...)
+    int     b0    = this.memory.getMemByte( addr, true );
+    boolean b1_m1 = ((b0 == 0xCB) || (b0 == 0xED)
+				|| (b0 == 0xDD) || (b0 == 0xFD));
+    int     b1    = this.memory.getMemByte( addr + 1, b1_m1 );
+    int     b2    = this.memory.getMemByte( addr + 2, true );
+    int     b3    = this.memory.getMemByte( addr + 3, true );
+    long    key   = ((long) (b3 & 0xFF) << 24)
+				| ((b2 & 0xFF) << 16)
+				| ((b1 & 0xFF) << 8)
+				| (b0 & 0xFF);
+
+    Z80ReassInstr instr = null;
+    if( this.instrKeys[ addr ] == key ) {
+      instr = this.instrs[ addr ];
+    } else {
+      instr                  = Z80Reassembler.reassInstruction(
+							this.memory,
+							addr );
+      this.instrs[ addr ]    = instr;
+      this.instrKeys[ addr ] = key;
+    }
+    return instr;
+  }
+}